@@ -0,0 +1,19 @@
+#include <cstring>
+#include <iostream>
+
+struct Buffer {
+    char* data;
+};
+
+Buffer* makeBuffer(const char* src) {
+    Buffer* b = new Buffer();
+    b->data = (char*) malloc(strlen(src) + 1);
+    strcpy(b->data, src);
+    return b;
+}
+
+int main() {
+    Buffer* b = makeBuffer("hello");
+    std::cout << b->data << std::endl;
+    return 0;
+}
@@ -0,0 +1,9 @@
+def collect(item, bucket=[]):
+    data = json.loads(item)
+    if data == None:
+        print("empty item")
+    try:
+        bucket.append(data["value"] / data["count"])
+    except:
+        pass
+    return bucket
@@ -0,0 +1,13 @@
+public class UserService {
+    public String displayName(User user) {
+        String name = null;
+        if (user.isActive()) {
+            name = user.getName();
+        }
+        return name.trim();
+    }
+
+    public int average(int total, int count) {
+        return total / count;
+    }
+}
@@ -0,0 +1,12 @@
+var cache = {};
+
+function loadUser(id) {
+    if (cache[id] == undefined) {
+        fetch('/api/users/' + id).then(r => r.json()).then(u => {
+            cache[id] = u;
+            document.getElementById('name').innerHTML = u.name;
+        });
+    }
+    console.log('loading', id);
+    return cache[id];
+}
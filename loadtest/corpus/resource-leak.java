@@ -0,0 +1,18 @@
+import java.io.*;
+
+public class ConfigLoader {
+    public String load(String path) {
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(path));
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line).append('\n');
+            }
+            int port = Integer.parseInt(sb.toString().trim());
+            return sb.toString();
+        } catch (Exception e) {
+        }
+        return "";
+    }
+}
@@ -0,0 +1,36 @@
+package com.aidebugger.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// --key value / --flag command-line options
+final class Args {
+    private final Map<String, String> values = new HashMap<>();
+
+    Args(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            values.put(key, hasValue ? args[++i] : "true");
+        }
+    }
+
+    String get(String key, String def) {
+        return values.getOrDefault(key, def);
+    }
+
+    int getInt(String key, int def) {
+        return values.containsKey(key) ? Integer.parseInt(values.get(key)) : def;
+    }
+
+    double getDouble(String key, double def) {
+        return values.containsKey(key) ? Double.parseDouble(values.get(key)) : def;
+    }
+
+    boolean has(String key) {
+        return values.containsKey(key);
+    }
+}
@@ -0,0 +1,56 @@
+package com.aidebugger.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+// Side-by-side of two LoadGenerator reports: CompareReports <baseline.json> <candidate.json>
+// Only meaningful when both ran with the same rate, duration and corpus, so config differences are shown first.
+public final class CompareReports {
+    private static final List<String> METRICS = List.of("p50", "p90", "p99", "p99_9", "max", "mean");
+
+    private CompareReports() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: CompareReports <baseline.json> <candidate.json>");
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode base = mapper.readTree(new File(args[0]));
+        JsonNode cand = mapper.readTree(new File(args[1]));
+        System.out.println("baseline:  " + base.path("label").asText() + " @ " + base.path("startedAt").asText());
+        System.out.println("candidate: " + cand.path("label").asText() + " @ " + cand.path("startedAt").asText());
+
+        Iterator<String> keys = base.path("config").fieldNames();
+        while (keys.hasNext()) {
+            String k = keys.next();
+            if (!base.path("config").path(k).equals(cand.path("config").path(k))) {
+                System.out.println("⚠️ config differs: " + k + " " + base.path("config").path(k)
+                        + " -> " + cand.path("config").path(k));
+            }
+        }
+
+        base.path("endpoints").fields().forEachRemaining(e -> {
+            JsonNode b = e.getValue();
+            JsonNode c = cand.path("endpoints").path(e.getKey());
+            if (c.isMissingNode()) return;
+            System.out.printf(Locale.ROOT, "%n%-10s %12s %12s %9s%n", e.getKey(), "baseline", "candidate", "change");
+            row("req/s", b.path("throughputPerSec").asDouble(), c.path("throughputPerSec").asDouble());
+            row("error %", b.path("errorRate").asDouble() * 100, c.path("errorRate").asDouble() * 100);
+            for (String m : METRICS) {
+                row(m + " ms", b.path("latencyMs").path(m).asDouble(), c.path("latencyMs").path(m).asDouble());
+            }
+        });
+    }
+
+    private static void row(String name, double base, double cand) {
+        String change = base == 0 ? "n/a" : String.format(Locale.ROOT, "%+.1f%%", (cand - base) / base * 100);
+        System.out.printf(Locale.ROOT, "%-10s %12.2f %12.2f %9s%n", name, base, cand, change);
+    }
+}
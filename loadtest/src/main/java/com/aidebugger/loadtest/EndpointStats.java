@@ -0,0 +1,78 @@
+package com.aidebugger.loadtest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies (microseconds, from the *intended* send time) and outcome counts for one endpoint
+final class EndpointStats {
+    static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    final String name;
+    private final Histogram latency = new ConcurrentHistogram(60_000_000L, 3);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    // outcome is the HTTP status, or "timeout" / "io-error" / "dropped"
+    void record(long latencyMicros, String outcome, boolean ok) {
+        if (latencyMicros >= 0) {
+            latency.recordValue(Math.min(latencyMicros, latency.getHighestTrackableValue()));
+        }
+        outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+        if (!ok) errors.increment();
+    }
+
+    void reset() {
+        latency.reset();
+        outcomes.clear();
+        errors.reset();
+    }
+
+    long total() {
+        return outcomes.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    ObjectNode toJson(ObjectNode node, double seconds) {
+        long total = total();
+        node.put("requests", total);
+        node.put("throughputPerSec", round(total / seconds));
+        node.put("errors", errors.sum());
+        node.put("errorRate", total == 0 ? 0 : round((double) errors.sum() / total));
+        ObjectNode lat = node.putObject("latencyMs");
+        lat.put("mean", round(latency.getMean() / 1000));
+        for (double p : PERCENTILES) {
+            lat.put("p" + label(p), round(latency.getValueAtPercentile(p) / 1000.0));
+        }
+        lat.put("max", round(latency.getMaxValue() / 1000.0));
+        ObjectNode counts = node.putObject("outcomes");
+        new TreeMap<>(outcomes).forEach((k, v) -> counts.put(k, v.sum()));
+        return node;
+    }
+
+    void writeHgrm(Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latency.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    static String label(double p) {
+        return p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p).replace('.', '_');
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
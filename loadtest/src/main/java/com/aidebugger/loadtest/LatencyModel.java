@@ -0,0 +1,35 @@
+package com.aidebugger.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Response-time distribution of the mock upstream, in milliseconds:
+//   fixed:200            always 200 ms
+//   uniform:100-900      uniform between the bounds
+//   lognormal:800,0.6    median 800 ms, sigma 0.6 (long right tail, like real LLM APIs)
+interface LatencyModel {
+    long sampleMillis();
+
+    static LatencyModel parse(String spec) {
+        String[] parts = spec.split(":", 2);
+        String arg = parts.length > 1 ? parts[1] : "";
+        switch (parts[0]) {
+            case "fixed" -> {
+                long ms = Long.parseLong(arg);
+                return () -> ms;
+            }
+            case "uniform" -> {
+                String[] b = arg.split("-");
+                long lo = Long.parseLong(b[0]);
+                long hi = Long.parseLong(b[1]);
+                return () -> ThreadLocalRandom.current().nextLong(lo, hi + 1);
+            }
+            case "lognormal" -> {
+                String[] b = arg.split(",");
+                double mu = Math.log(Double.parseDouble(b[0]));
+                double sigma = Double.parseDouble(b[1]);
+                return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+            default -> throw new IllegalArgumentException("Unknown latency model: " + spec);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.aidebugger.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Open-model load generator: requests are *scheduled* at a constant arrival rate whether or not
+// earlier ones have answered, and latency is measured from the scheduled time. A closed loop
+// (N threads waiting on responses) slows down with the server and hides queueing delay.
+//
+//   --target http://localhost:8080   app under test
+//   --rate 50                        arrivals per second
+//   --duration 60 --warmup 10        seconds (warmup results are discarded)
+//   --users 20 --password ...        accounts created/logged in up front (loadtest-user-N)
+//   --login-ratio 0.05               fraction of arrivals that are logins instead of analyses
+//   --analyze-path /api/debug/analyze
+//   --corpus corpus                  *.java|py|js|cpp snippets
+//   --unique-ratio 0.2               fraction of analyses made unique (cache misses)
+//   --max-in-flight 2000             arrivals beyond this are counted as dropped, not delayed
+//   --timeout 30                     seconds per request
+//   --label baseline --report-dir reports
+public final class LoadGenerator {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final Map<String, String> LANGUAGES = Map.of(
+            "java", "java", "py", "python", "js", "javascript", "cpp", "cpp", "c", "c");
+
+    private record Snippet(String language, String code) {
+    }
+
+    private final HttpClient client;
+    private final String target;
+    private final String password;
+    private final String analyzePath;
+    private final double loginRatio;
+    private final double uniqueRatio;
+    private final int maxInFlight;
+    private final Duration timeout;
+    private final List<Snippet> corpus;
+    private final List<String> users = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final EndpointStats login = new EndpointStats("login");
+    private final EndpointStats analyze = new EndpointStats("analyze");
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong uniqueSeq = new AtomicLong();
+
+    private LoadGenerator(Args args) throws IOException {
+        this.target = args.get("target", "http://localhost:8080");
+        this.password = args.get("password", "loadtest-password");
+        this.analyzePath = args.get("analyze-path", "/api/debug/analyze");
+        this.loginRatio = args.getDouble("login-ratio", 0.05);
+        this.uniqueRatio = args.getDouble("unique-ratio", 0.2);
+        this.maxInFlight = args.getInt("max-in-flight", 2000);
+        this.timeout = Duration.ofSeconds(args.getInt("timeout", 30));
+        this.corpus = loadCorpus(Path.of(args.get("corpus", "corpus")));
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        LoadGenerator gen = new LoadGenerator(args);
+        double rate = args.getDouble("rate", 50);
+        int warmup = args.getInt("warmup", 10);
+        int duration = args.getInt("duration", 60);
+        String label = args.get("label", "run");
+
+        gen.setUp(args.getInt("users", 20));
+        System.out.printf(Locale.ROOT, "🚀 %s: %.1f req/s against %s, %ds warmup + %ds measured, %d snippets%n",
+                label, rate, gen.target, warmup, duration, gen.corpus.size());
+
+        if (warmup > 0) {
+            gen.run(rate, warmup);
+            gen.login.reset();
+            gen.analyze.reset();
+        }
+        Instant started = Instant.now();
+        gen.run(rate, duration);
+
+        ObjectNode report = gen.report(args, label, started, rate, duration);
+        Path dir = Path.of(args.get("report-dir", "reports"));
+        Files.createDirectories(dir);
+        String stem = label + "-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+                .withZone(ZoneOffset.UTC).format(started);
+        Path json = dir.resolve(stem + ".json");
+        MAPPER.writeValue(json.toFile(), report);
+        gen.login.writeHgrm(dir.resolve(stem + "-login.hgrm"));
+        gen.analyze.writeHgrm(dir.resolve(stem + "-analyze.hgrm"));
+        printSummary(report);
+        System.out.println("📄 Report written to " + json);
+        System.exit(0);
+    }
+
+    private void setUp(int userCount) {
+        for (int i = 0; i < userCount; i++) {
+            String user = "loadtest-user-" + i;
+            // Register fails for existing users, which is fine - the login below is what matters
+            post("/api/auth/register", credentials(user), null).join();
+            HttpResponse<String> resp = post("/api/auth/login", credentials(user), null).join();
+            String token = resp.statusCode() == 200 ? readToken(resp.body()) : null;
+            if (token == null) {
+                throw new IllegalStateException("Login failed for " + user + ": " + resp.statusCode() + " " + resp.body());
+            }
+            users.add(user);
+            tokens.add(token);
+        }
+        System.out.println("🔐 Logged in " + users.size() + " load-test users");
+    }
+
+    // Single scheduler thread: computes each arrival's intended time from the start, not from the
+    // previous send, so a slow server never lowers the offered load.
+    private void run(double rate, int seconds) throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long total = (long) (rate * seconds);
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            fire(intended);
+        }
+        long deadline = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private void fire(long intended) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        boolean isLogin = rnd.nextDouble() < loginRatio;
+        EndpointStats stats = isLogin ? login : analyze;
+        if (inFlight.get() >= maxInFlight) {
+            stats.record(-1, "dropped", false);
+            return;
+        }
+        int u = rnd.nextInt(users.size());
+        inFlight.incrementAndGet();
+        (isLogin
+                ? post("/api/auth/login", credentials(users.get(u)), null)
+                : post(analyzePath, analyzeBody(rnd), tokens.get(u)))
+                .whenComplete((resp, err) -> {
+                    inFlight.decrementAndGet();
+                    long micros = (System.nanoTime() - intended) / 1000;
+                    if (err != null) {
+                        Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                        stats.record(micros, cause instanceof HttpTimeoutException ? "timeout" : "io-error", false);
+                    } else {
+                        int status = resp.statusCode();
+                        stats.record(micros, String.valueOf(status), status >= 200 && status < 300);
+                    }
+                });
+    }
+
+    private CompletableFuture<HttpResponse<String>> post(String path, ObjectNode body, String token) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(target + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+        if (token != null) req.header("Authorization", "Bearer " + token);
+        return client.sendAsync(req.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private ObjectNode credentials(String user) {
+        return MAPPER.createObjectNode().put("username", user).put("password", password);
+    }
+
+    // Unique requests get a trailing comment so they miss every cache layer but analyse the same way
+    private ObjectNode analyzeBody(ThreadLocalRandom rnd) {
+        Snippet s = corpus.get(rnd.nextInt(corpus.size()));
+        String code = s.code();
+        if (rnd.nextDouble() < uniqueRatio) {
+            String marker = "loadtest " + uniqueSeq.incrementAndGet();
+            code = code + ("python".equals(s.language()) ? "\n# " : "\n// ") + marker;
+        }
+        return MAPPER.createObjectNode()
+                .put("language", s.language())
+                .put("codeSnippet", code)
+                .put("context", "load test");
+    }
+
+    private ObjectNode report(Args args, String label, Instant started, double rate, int duration) {
+        ObjectNode report = MAPPER.createObjectNode();
+        report.put("label", label);
+        report.put("startedAt", started.toString());
+        ObjectNode config = report.putObject("config");
+        config.put("target", target);
+        config.put("rate", rate);
+        config.put("durationSeconds", duration);
+        config.put("warmupSeconds", args.getInt("warmup", 10));
+        config.put("users", users.size());
+        config.put("loginRatio", loginRatio);
+        config.put("uniqueRatio", uniqueRatio);
+        config.put("analyzePath", analyzePath);
+        config.put("corpusSize", corpus.size());
+        ObjectNode endpoints = report.putObject("endpoints");
+        login.toJson(endpoints.putObject(login.name), duration);
+        analyze.toJson(endpoints.putObject(analyze.name), duration);
+        return report;
+    }
+
+    static void printSummary(JsonNode report) {
+        System.out.printf(Locale.ROOT, "%n%-8s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "err%", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        report.path("endpoints").fields().forEachRemaining(e -> {
+            JsonNode n = e.getValue();
+            JsonNode lat = n.path("latencyMs");
+            System.out.printf(Locale.ROOT, "%-8s %9d %9.1f %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    e.getKey(), n.path("requests").asLong(), n.path("throughputPerSec").asDouble(),
+                    n.path("errorRate").asDouble() * 100, lat.path("p50").asDouble(), lat.path("p90").asDouble(),
+                    lat.path("p99").asDouble(), lat.path("p99_9").asDouble(), lat.path("max").asDouble());
+            System.out.println("         outcomes: " + n.path("outcomes"));
+        });
+    }
+
+    private static String readToken(String body) {
+        try {
+            String token = MAPPER.readTree(body).path("token").asText(null);
+            return token == null || token.startsWith("ERROR") ? null : token;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<Snippet> loadCorpus(Path dir) throws IOException {
+        List<Snippet> snippets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : files.sorted().toList()) {
+                String name = f.getFileName().toString();
+                String language = LANGUAGES.get(name.substring(name.lastIndexOf('.') + 1));
+                if (language == null) continue;
+                snippets.add(new Snippet(language, Files.readString(f)));
+            }
+        }
+        if (snippets.isEmpty()) {
+            throw new IllegalArgumentException("No snippets found in " + dir);
+        }
+        return snippets;
+    }
+}
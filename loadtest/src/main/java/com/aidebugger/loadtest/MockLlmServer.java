@@ -0,0 +1,217 @@
+package com.aidebugger.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// OpenAI-compatible stand-in for the upstream, so load tests measure this service and not the API
+// (and cost nothing). Point the app at it with --openai.api.url=http://localhost:8089/v1/chat/completions
+//
+//   --port 8089                   listen port
+//   --latency lognormal:800,0.6   time to full response (see LatencyModel)
+//   --error-rate 0.01             fraction answered with 500
+//   --rate-limit-rate 0.02        fraction answered with 429 + Retry-After
+//   --completion-tokens 300       size of the generated answer
+//   --stream-tokens-per-sec 50    pacing of "stream": true responses (after the first-token latency)
+//   --threads 256                 handler threads (each in-flight request holds one while it sleeps)
+public final class MockLlmServer {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String[] WORDS = {"The", "issue", "is", "a", "null", "check", "missing", "before",
+            "the", "call;", "add", "a", "guard", "and", "handle", "the", "error", "path.", "Consider", "closing",
+            "the", "resource", "in", "a", "finally", "block."};
+
+    private final LatencyModel latency;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final int completionTokens;
+    private final double streamTokensPerSec;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injected = new AtomicLong();
+
+    private MockLlmServer(Args args) {
+        this.latency = LatencyModel.parse(args.get("latency", "lognormal:800,0.6"));
+        this.errorRate = args.getDouble("error-rate", 0);
+        this.rateLimitRate = args.getDouble("rate-limit-rate", 0);
+        this.completionTokens = args.getInt("completion-tokens", 300);
+        this.streamTokensPerSec = args.getDouble("stream-tokens-per-sec", 50);
+    }
+
+    public static void main(String[] argv) throws IOException {
+        Args args = new Args(argv);
+        int port = args.getInt("port", 8089);
+        MockLlmServer mock = new MockLlmServer(args);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/v1/chat/completions", mock::chatCompletions);
+        server.createContext("/v1/models", mock::models);
+        server.setExecutor(Executors.newFixedThreadPool(args.getInt("threads", 256)));
+        server.start();
+        System.out.println("🧪 Mock LLM listening on http://localhost:" + port + "/v1/chat/completions"
+                + " (latency=" + args.get("latency", "lognormal:800,0.6") + ", errors=" + mock.errorRate
+                + ", 429s=" + mock.rateLimitRate + ")");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                System.out.println("🧪 Mock LLM served " + mock.requests.get() + " requests, "
+                        + mock.injected.get() + " injected failures")));
+    }
+
+    private void chatCompletions(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                sendError(ex, 405, "Method not allowed", "invalid_request_error", null);
+                return;
+            }
+            requests.incrementAndGet();
+            JsonNode body = readJson(ex.getRequestBody());
+            String model = body.path("model").asText("gpt-3.5-turbo");
+            int promptTokens = estimatePromptTokens(body);
+            int maxTokens = body.path("max_tokens").asInt(completionTokens);
+            int tokens = Math.max(1, Math.min(completionTokens, maxTokens));
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < rateLimitRate) {
+                injected.incrementAndGet();
+                ex.getResponseHeaders().add("Retry-After", "1");
+                sendError(ex, 429, "Rate limit reached for requests", "requests", "rate_limit_exceeded");
+                return;
+            }
+            if (roll < rateLimitRate + errorRate) {
+                injected.incrementAndGet();
+                sleep(latency.sampleMillis() / 4);
+                sendError(ex, 500, "The server had an error while processing your request", "server_error", null);
+                return;
+            }
+
+            if (body.path("stream").asBoolean(false)) {
+                stream(ex, model, tokens);
+            } else {
+                sleep(latency.sampleMillis());
+                ObjectNode resp = completion(model, "chat.completion");
+                ObjectNode choice = resp.putArray("choices").addObject();
+                choice.put("index", 0);
+                choice.putObject("message").put("role", "assistant").put("content", text(tokens));
+                choice.put("finish_reason", "stop");
+                resp.putObject("usage")
+                        .put("prompt_tokens", promptTokens)
+                        .put("completion_tokens", tokens)
+                        .put("total_tokens", promptTokens + tokens);
+                sendJson(ex, 200, resp);
+            }
+        }
+    }
+
+    // SSE chunks like the real API: first token after the sampled latency, then paced deltas, then [DONE]
+    private void stream(HttpExchange ex, String model, int tokens) throws IOException {
+        ex.getResponseHeaders().add("Content-Type", "text/event-stream");
+        ex.getResponseHeaders().add("Cache-Control", "no-cache");
+        ex.sendResponseHeaders(200, 0);
+        long interTokenMs = streamTokensPerSec > 0 ? Math.round(1000 / streamTokensPerSec) : 0;
+        sleep(latency.sampleMillis());
+        try (OutputStream out = ex.getResponseBody()) {
+            for (int i = 0; i < tokens; i++) {
+                ObjectNode chunk = completion(model, "chat.completion.chunk");
+                ObjectNode choice = chunk.putArray("choices").addObject();
+                choice.put("index", 0);
+                ObjectNode delta = choice.putObject("delta");
+                if (i == 0) delta.put("role", "assistant");
+                delta.put("content", (i == 0 ? "" : " ") + WORDS[i % WORDS.length]);
+                choice.putNull("finish_reason");
+                writeEvent(out, MAPPER.writeValueAsString(chunk));
+                if (interTokenMs > 0) sleep(interTokenMs);
+            }
+            ObjectNode last = completion(model, "chat.completion.chunk");
+            ObjectNode choice = last.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.putObject("delta");
+            choice.put("finish_reason", "stop");
+            writeEvent(out, MAPPER.writeValueAsString(last));
+            writeEvent(out, "[DONE]");
+        }
+    }
+
+    private void models(HttpExchange ex) throws IOException {
+        try (ex) {
+            ObjectNode resp = MAPPER.createObjectNode().put("object", "list");
+            resp.putArray("data").addObject().put("id", "gpt-3.5-turbo").put("object", "model").put("owned_by", "mock");
+            sendJson(ex, 200, resp);
+        }
+    }
+
+    private static ObjectNode completion(String model, String object) {
+        ObjectNode resp = MAPPER.createObjectNode();
+        resp.put("id", "chatcmpl-mock-" + Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        resp.put("object", object);
+        resp.put("created", System.currentTimeMillis() / 1000);
+        resp.put("model", model);
+        return resp;
+    }
+
+    private static String text(int tokens) {
+        StringBuilder sb = new StringBuilder(tokens * 6);
+        for (int i = 0; i < tokens; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[i % WORDS.length]);
+        }
+        return sb.toString();
+    }
+
+    // ~4 characters per token, close enough for metering tests
+    private static int estimatePromptTokens(JsonNode body) {
+        int chars = 0;
+        for (JsonNode m : body.path("messages")) {
+            chars += m.path("content").asText("").length();
+        }
+        return Math.max(1, chars / 4);
+    }
+
+    private static JsonNode readJson(InputStream in) throws IOException {
+        byte[] bytes = in.readAllBytes();
+        return bytes.length == 0 ? MAPPER.createObjectNode() : MAPPER.readTree(bytes);
+    }
+
+    private static void sendError(HttpExchange ex, int status, String message, String type, String code)
+            throws IOException {
+        ObjectNode resp = MAPPER.createObjectNode();
+        ObjectNode error = resp.putObject("error");
+        error.put("message", message);
+        error.put("type", type);
+        error.putNull("param");
+        if (code == null) error.putNull("code");
+        else error.put("code", code);
+        sendJson(ex, status, resp);
+    }
+
+    private static void sendJson(HttpExchange ex, int status, JsonNode body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
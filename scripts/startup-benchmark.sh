@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Startup-time benchmark: default jar vs. fast-startup (AOT + AppCDS + lazy wiring).
+# Measures wall-clock time until /actuator/health/readiness reports UP, i.e. what the
+# autoscaler actually waits for, over several runs each.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#   Needs the same datasource/redis/jwt settings as a normal run, e.g. via SPRING_* env vars.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR_NAME=ai-debugger-0.0.1-SNAPSHOT.jar
+
+wait_ready() {
+  local pid=$1 start=$2
+  until curl -fs "http://localhost:${PORT}/actuator/health/readiness" 2>/dev/null | grep -q '"UP"'; do
+    kill -0 "$pid" 2>/dev/null || { echo "app exited early" >&2; return 1; }
+    sleep 0.05
+  done
+  echo $(( $(date +%s%3N) - start ))
+}
+
+measure() {
+  local label=$1; shift
+  local total=0 best=999999
+  for i in $(seq 1 "$RUNS"); do
+    local start; start=$(date +%s%3N)
+    "$@" --server.port="${PORT}" --management.endpoint.health.probes.enabled=true >/dev/null 2>&1 &
+    local pid=$!
+    local ms; ms=$(wait_ready "$pid" "$start")
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    total=$(( total + ms )); (( ms < best )) && best=$ms
+    echo "  ${label} run ${i}: ${ms} ms"
+  done
+  echo "${label}: avg $(( total / RUNS )) ms, best ${best} ms"
+}
+
+cd "$ROOT"
+
+echo "== building default jar"
+sh ./mvnw -q -B -DskipTests package
+cp "target/${JAR_NAME}" "target/baseline-${JAR_NAME}"
+
+echo "== building fast-startup jar (AOT + CDS training run)"
+sh ./mvnw -q -B -DskipTests -Pfast-startup package
+
+measure "default     " java -jar "target/baseline-${JAR_NAME}"
+measure "fast-startup" java -XX:SharedArchiveFile=target/cds/application.jsa -Dspring.aot.enabled=true \
+  -Dspring.profiles.active=faststart -jar "target/cds/${JAR_NAME}"
@@ -0,0 +1,85 @@
+package com.aidebugger.service;
+
+import com.aidebugger.util.HashUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Hit path of the rendered-analysis cache: off-heap (inflate into a fresh byte[]) against the old
+// on-heap String map (encode to UTF-8 on every hit). Run with -prof gc to compare allocation.
+//   mvn -Pbench test-compile exec:exec -Dbench.args="OffHeapAnalysisStore -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class OffHeapAnalysisStoreBenchmark {
+    @Param({"50000"})
+    int entries;
+
+    private String[] keys;
+    private OffHeapAnalysisStore store;
+    private final Map<String, String> heap = new ConcurrentHashMap<>();
+    private byte[] payload;
+
+    @Setup
+    public void fill() {
+        keys = new String[entries];
+        store = new OffHeapAnalysisStore(1L << 30, 8 << 20);
+        long raw = 0;
+        for (int i = 0; i < entries; i++) {
+            keys[i] = HashUtil.sha256("java|bench " + i + "|");
+            String report = report(i);
+            byte[] json = report.getBytes(StandardCharsets.UTF_8);
+            raw += json.length;
+            store.put(keys[i], json);
+            heap.put(keys[i], report);
+        }
+        payload = report(entries).getBytes(StandardCharsets.UTF_8);
+        System.out.printf("%n%d entries, %d KB raw, %d KB off heap (ratio %.1f)%n", entries, raw >> 10,
+                store.offHeapBytes() >> 10, store.compressionRatio());
+    }
+
+    @Benchmark
+    public void offHeapHit(Blackhole bh) {
+        bh.consume(store.get(keys[ThreadLocalRandom.current().nextInt(entries)]));
+    }
+
+    @Benchmark
+    public void heapStringHit(Blackhole bh) {
+        bh.consume(heap.get(keys[ThreadLocalRandom.current().nextInt(entries)]).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public boolean offHeapPut() {
+        return store.put(keys[ThreadLocalRandom.current().nextInt(entries)], payload);
+    }
+
+    // Shaped like a DebugController response: boilerplate sections around a few varying findings
+    static String report(int i) {
+        StringBuilder analysis = new StringBuilder("### 🔍 Issues Identified\\n");
+        for (int n = 1; n <= 2 + i % 5; n++) {
+            analysis.append(n).append(". **Possible null dereference**: `value").append(i * 31 + n)
+                    .append(".length()` may throw (line ").append(n * 7 + i % 13).append(")\\n");
+        }
+        analysis.append("\\n### 🔧 Recommendations\\n```java\\n// Safe division with validation\\n")
+                .append("if (denominator != 0) {\\n    result = numerator / denominator;\\n} else {\\n")
+                .append("    // Handle division by zero\\n    throw new IllegalArgumentException(\\\"Denominator cannot be zero\\\");\\n}\\n```\\n\\n")
+                .append("### 📚 Best Practices\\n- Use `final` for immutable variables\\n")
+                .append("- Follow Java naming conventions (camelCase)\\n- Add Javadoc comments for public methods\\n")
+                .append("- Use `Optional` for nullable returns\\n- Implement proper exception hierarchy\\n")
+                .append("- Consider using records for data classes (Java 14+)\\n\\n### 🧪 Test Cases\\n")
+                .append("- Null and empty input scenarios\\n- Edge cases (MAX_VALUE, MIN_VALUE)\\n")
+                .append("- Concurrent access scenarios\\n- Memory usage under load\\n\\n---\\n")
+                .append("## 🤖 AI Analysis\\n\\nThe method `process").append(i).append("` reads `input` before checking it. ")
+                .append("Guard the call at line ").append(i % 97).append(" and return early when the list is empty.\\n");
+        return "{\"analysis\":\"" + analysis + "\",\"charactersProcessed\":" + (400 + i % 3000)
+                + ",\"language\":\"java\",\"status\":\"success\",\"timestamp\":\"2024-05-01T10:00:00.000+00:00\"}";
+    }
+}
@@ -0,0 +1,69 @@
+package com.aidebugger.service;
+
+import com.aidebugger.dto.DebugRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The /analyze miss path for the heuristic engine: report String + HashMap + Jackson (how
+// DebugController built the body) against writing the body directly from pre-encoded fragments.
+// Static analysis results are cached in both, so this is rendering only. Compare gc.alloc.rate.norm:
+//   mvn -Pbench test-compile exec:exec -Dbench.args="ReportRendering -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportRenderingBenchmark {
+    @Param({"java", "python", "go"})
+    String language;
+
+    private DebugService debugService;
+    private DebugRequest request;
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Setup
+    public void setUp() {
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "cacheSize", 16);
+        ReflectionTestUtils.setField(analyzer, "ruleBudgetMs", 1000L);
+        ReflectionTestUtils.invokeMethod(analyzer, "init");
+        debugService = new DebugService(null, null, analyzer, null);
+
+        request = new DebugRequest();
+        request.setLanguage(language);
+        request.setCodeSnippet("""
+                public class Totals {
+                    int average(int total, int count) {
+                        String label = null;
+                        System.out.println(label.length());
+                        return total / count;
+                    }
+                }
+                """);
+    }
+
+    @Benchmark
+    public byte[] stringMapJackson() throws Exception {
+        String answer = debugService.getEnhancedMockResponse(request);
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("timestamp", new Date());
+        response.put("language", request.getLanguage());
+        response.put("analysis", answer);
+        response.put("charactersProcessed", request.getCodeSnippet().length());
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] preEncodedFragments() {
+        return debugService.renderMockResponse(request);
+    }
+}
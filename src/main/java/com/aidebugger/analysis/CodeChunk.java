@@ -0,0 +1,12 @@
+package com.aidebugger.analysis;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter @AllArgsConstructor
+public class CodeChunk {
+    private final int index;
+    private final int startLine;   // 1-based, inclusive
+    private final int endLine;     // 1-based, inclusive
+    private final String code;
+}
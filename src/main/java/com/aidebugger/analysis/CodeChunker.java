@@ -0,0 +1,89 @@
+package com.aidebugger.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Splits a large source file into overlapping chunks, preferring to cut right before a
+// top-level class/function declaration. Lines are pulled from the reader one at a time and
+// each chunk is handed to the sink as soon as it is complete, so the whole file is never
+// held in memory at once.
+public class CodeChunker {
+
+    private static final Pattern JAVA_LIKE = Pattern.compile(
+            "^\\s{0,4}(@\\w+|(public|private|protected|static|final|abstract|synchronized|void|class|interface|enum|record)\\b)");
+    private static final Pattern JS_LIKE = Pattern.compile(
+            "^\\s{0,4}(export\\s+)?(default\\s+)?(async\\s+)?(function\\b|class\\b|(const|let|var)\\s+\\w+\\s*=\\s*(async\\s*)?(\\(|function))");
+    private static final Pattern PYTHON = Pattern.compile("^(\\s{0,4})(async\\s+)?(def|class)\\s|^@");
+    private static final Pattern C_LIKE = Pattern.compile(
+            "^(template\\s*<|class\\s|struct\\s|namespace\\s|\\w[\\w:<>*&]*\\s+[*&]?~?\\w[\\w:]*\\s*\\()");
+    private static final Pattern GENERIC = Pattern.compile("^\\S");
+
+    private final int targetChars;
+    private final int maxChars;
+    private final int overlapLines;
+    private final Pattern boundary;
+
+    public CodeChunker(String language, int targetChars, int maxChars, int overlapLines) {
+        this.targetChars = targetChars;
+        this.maxChars = Math.max(targetChars, maxChars);
+        this.overlapLines = overlapLines;
+        this.boundary = boundaryFor(language);
+    }
+
+    public int split(Reader source, Consumer<CodeChunk> sink) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader br ? br : new BufferedReader(source);
+        List<String> lines = new ArrayList<>();
+        Deque<String> overlap = new ArrayDeque<>();
+        int chars = 0;
+        int startLine = 1;
+        int lineNo = 0;
+        int index = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            boolean atBoundary = boundary.matcher(line).find();
+            boolean full = chars >= targetChars && atBoundary;
+            boolean overflow = chars + line.length() + 1 > maxChars && !lines.isEmpty();
+
+            if ((full || overflow) && lines.size() > overlap.size()) {
+                sink.accept(new CodeChunk(index++, startLine, lineNo - 1, String.join("\n", lines)));
+                // Carry the tail of the previous chunk over so issues spanning the cut are still seen
+                overlap.clear();
+                for (int i = Math.max(0, lines.size() - overlapLines); i < lines.size(); i++) {
+                    overlap.addLast(lines.get(i));
+                }
+                lines.clear();
+                lines.addAll(overlap);
+                startLine = lineNo - overlap.size();
+                chars = 0;
+                for (String l : lines) chars += l.length() + 1;
+            }
+
+            lines.add(line);
+            chars += line.length() + 1;
+        }
+
+        if (lines.size() > overlap.size()) {
+            sink.accept(new CodeChunk(index++, startLine, lineNo, String.join("\n", lines)));
+        }
+        return index;
+    }
+
+    private static Pattern boundaryFor(String language) {
+        return switch (language == null ? "" : language.toLowerCase()) {
+            case "java", "kotlin", "csharp", "c#" -> JAVA_LIKE;
+            case "javascript", "js", "typescript", "ts" -> JS_LIKE;
+            case "python", "py" -> PYTHON;
+            case "cpp", "c++", "c" -> C_LIKE;
+            default -> GENERIC;
+        };
+    }
+}
@@ -0,0 +1,4 @@
+package com.aidebugger.analysis;
+
+// line is 1-based within the analyzed snippet, 0 when the issue is not tied to a line
+public record Issue(String ruleId, String title, String detail, int line) {}
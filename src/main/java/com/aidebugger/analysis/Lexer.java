@@ -0,0 +1,316 @@
+package com.aidebugger.analysis;
+
+import com.aidebugger.analysis.Token.Kind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Single-pass, table-driven lexer for the languages we analyze. Hand-written rather than
+// regex-based so it is strictly linear in the input and never backtracks; comments and
+// whitespace are dropped, string/regex/template literals become one STRING token each.
+public final class Lexer {
+
+    public enum Language {
+        JAVA(Set.of("abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+                "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+                "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
+                "interface", "long", "native", "new", "package", "private", "protected", "public", "return",
+                "short", "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws",
+                "transient", "try", "void", "volatile", "while", "var", "record", "yield", "null", "true",
+                "false")),
+        JAVASCRIPT(Set.of("break", "case", "catch", "class", "const", "continue", "debugger", "default",
+                "delete", "do", "else", "export", "extends", "finally", "for", "function", "if", "import",
+                "in", "instanceof", "let", "new", "return", "super", "switch", "this", "throw", "try",
+                "typeof", "var", "void", "while", "with", "yield", "async", "await", "of", "null",
+                "undefined", "true", "false")),
+        PYTHON(Set.of("False", "None", "True", "and", "as", "assert", "async", "await", "break", "class",
+                "continue", "def", "del", "elif", "else", "except", "finally", "for", "from", "global",
+                "if", "import", "in", "is", "lambda", "nonlocal", "not", "or", "pass", "raise", "return",
+                "try", "while", "with", "yield")),
+        C(Set.of("auto", "break", "case", "char", "const", "continue", "default", "do", "double", "else",
+                "enum", "extern", "float", "for", "goto", "if", "inline", "int", "long", "register",
+                "restrict", "return", "short", "signed", "sizeof", "static", "struct", "switch", "typedef",
+                "union", "unsigned", "void", "volatile", "while", "NULL")),
+        CPP(Set.of("auto", "bool", "break", "case", "catch", "char", "class", "const", "constexpr",
+                "continue", "default", "delete", "do", "double", "else", "enum", "explicit", "extern",
+                "false", "float", "for", "friend", "goto", "if", "inline", "int", "long", "mutable",
+                "namespace", "new", "noexcept", "nullptr", "operator", "private", "protected", "public",
+                "return", "short", "signed", "sizeof", "static", "struct", "switch", "template", "this",
+                "throw", "true", "try", "typedef", "typename", "union", "unsigned", "using", "virtual",
+                "void", "volatile", "while", "NULL")),
+        GENERIC(Set.of("if", "else", "for", "while", "return", "try", "catch", "new", "delete", "null"));
+
+        final Set<String> keywords;
+
+        Language(Set<String> keywords) {
+            this.keywords = keywords;
+        }
+
+        public static Language of(String name) {
+            if (name == null) return GENERIC;
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "java" -> JAVA;
+                case "javascript", "js", "typescript", "ts" -> JAVASCRIPT;
+                case "python", "py" -> PYTHON;
+                case "c" -> C;
+                case "cpp", "c++" -> CPP;
+                default -> GENERIC;
+            };
+        }
+    }
+
+    // Longest first, so the first match wins
+    private static final String[] OPERATORS = {
+            ">>>=", "<<=", ">>=", "===", "!==", ">>>", "**=", "//=", "...",
+            "->", "::", "==", "!=", "<=", ">=", "&&", "||", "++", "--", "+=", "-=", "*=", "/=", "%=",
+            "&=", "|=", "^=", "<<", ">>", "=>", "**", "?.", "??", ":=", "//"
+    };
+    private static final String SINGLE_OPS = "+-*/%=<>!&|^~?:@";
+    private static final String PUNCTUATION = "(){}[];,.";
+    private static final Set<String> REGEX_AFTER_KEYWORD = Set.of(
+            "return", "typeof", "case", "do", "else", "in", "of", "delete", "void", "throw", "new",
+            "instanceof", "yield", "await");
+
+    private final Language language;
+    private final String src;
+    private final int n;
+    private int pos;
+    private int line = 1;
+    private final List<Token> tokens = new ArrayList<>();
+
+    private Lexer(Language language, String src) {
+        this.language = language;
+        this.src = src;
+        this.n = src.length();
+    }
+
+    public static List<Token> tokenize(Language language, String src) {
+        Lexer lexer = new Lexer(language, src == null ? "" : src);
+        lexer.run();
+        return lexer.tokens;
+    }
+
+    private void run() {
+        boolean lineStart = true;
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '\n') {
+                line++;
+                pos++;
+                lineStart = true;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            boolean atLineStart = lineStart;
+            lineStart = false;
+
+            if (language == Language.PYTHON ? c == '#' : startsWith("//")) {
+                skipToEol();
+            } else if (language != Language.PYTHON && startsWith("/*")) {
+                skipBlockComment();
+            } else if (c == '#' && atLineStart && (language == Language.C || language == Language.CPP)) {
+                preprocessor();
+            } else if (Character.isJavaIdentifierStart(c)) {
+                identifier();
+            } else if (Character.isDigit(c) || (c == '.' && pos + 1 < n && Character.isDigit(src.charAt(pos + 1)))) {
+                number();
+            } else if (c == '"' || c == '\'') {
+                string(pos, c);
+            } else if (c == '`' && language == Language.JAVASCRIPT) {
+                template();
+            } else if (c == '/' && language == Language.JAVASCRIPT && regexAllowed() && regex()) {
+                // consumed as a literal
+            } else if (PUNCTUATION.indexOf(c) >= 0) {
+                emit(Kind.PUNCT, String.valueOf(c), line);
+                pos++;
+            } else {
+                operator();
+            }
+        }
+    }
+
+    private boolean startsWith(String s) {
+        return src.startsWith(s, pos);
+    }
+
+    private void emit(Kind kind, String text, int atLine) {
+        tokens.add(new Token(kind, text, atLine));
+    }
+
+    private void skipToEol() {
+        while (pos < n && src.charAt(pos) != '\n') pos++;
+    }
+
+    private void skipBlockComment() {
+        pos += 2;
+        while (pos < n && !startsWith("*/")) {
+            if (src.charAt(pos) == '\n') line++;
+            pos++;
+        }
+        pos = Math.min(n, pos + 2);
+    }
+
+    private void preprocessor() {
+        int start = pos;
+        int startLine = line;
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '\n') {
+                if (pos > start && src.charAt(pos - 1) == '\\') {
+                    line++;
+                    pos++;
+                    continue;
+                }
+                break;
+            }
+            pos++;
+        }
+        emit(Kind.PREPROCESSOR, src.substring(start, pos).trim(), startLine);
+    }
+
+    private void identifier() {
+        int start = pos;
+        while (pos < n && Character.isJavaIdentifierPart(src.charAt(pos))) pos++;
+        String text = src.substring(start, pos);
+        // Python string prefixes: r"..", b'..', f"..", rb"..", ...
+        if (language == Language.PYTHON && pos < n && text.length() <= 2
+                && (src.charAt(pos) == '"' || src.charAt(pos) == '\'')
+                && text.chars().allMatch(ch -> "rRbBfFuU".indexOf(ch) >= 0)) {
+            string(start, src.charAt(pos));
+            return;
+        }
+        emit(language.keywords.contains(text) ? Kind.KEYWORD : Kind.IDENT, text, line);
+    }
+
+    private void number() {
+        int start = pos;
+        boolean hex = startsWith("0x") || startsWith("0X");
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                pos++;
+            } else if ((c == '+' || c == '-') && !hex && (src.charAt(pos - 1) == 'e' || src.charAt(pos - 1) == 'E')) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        emit(Kind.NUMBER, src.substring(start, pos), line);
+    }
+
+    // start may point at a prefix (Python) rather than at the quote
+    private void string(int start, char quote) {
+        int startLine = line;
+        // Python triple-quoted strings and Java text blocks
+        boolean tripleAllowed = language == Language.PYTHON || (language == Language.JAVA && quote == '"');
+        boolean triple = tripleAllowed && src.startsWith(String.valueOf(quote).repeat(3), pos);
+        if (triple) {
+            String delim = String.valueOf(quote).repeat(3);
+            pos += 3;
+            while (pos < n && !startsWith(delim)) {
+                char c = src.charAt(pos);
+                if (c == '\n') line++;
+                pos += c == '\\' ? 2 : 1;
+            }
+            pos = Math.min(n, pos + 3);
+        } else {
+            pos++;
+            while (pos < n) {
+                char c = src.charAt(pos);
+                if (c == quote) {
+                    pos++;
+                    break;
+                }
+                if (c == '\n') break;   // unterminated: stop at end of line
+                pos += c == '\\' ? 2 : 1;
+            }
+            pos = Math.min(n, pos);
+        }
+        emit(Kind.STRING, src.substring(start, pos), startLine);
+    }
+
+    private void template() {
+        int start = pos;
+        int startLine = line;
+        pos++;
+        int depth = 0;
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (c == '\n') line++;
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (depth == 0 && c == '`') {
+                pos++;
+                break;
+            }
+            if (c == '$' && pos + 1 < n && src.charAt(pos + 1) == '{') {
+                depth++;
+                pos += 2;
+                continue;
+            }
+            if (depth > 0 && c == '}') depth--;
+            else if (depth > 0 && c == '{') depth++;
+            pos++;
+        }
+        pos = Math.min(n, pos);
+        emit(Kind.STRING, src.substring(start, pos), startLine);
+    }
+
+    // A '/' starts a regex literal where an expression is expected, i.e. not after a value
+    private boolean regexAllowed() {
+        if (tokens.isEmpty()) return true;
+        Token prev = tokens.get(tokens.size() - 1);
+        return switch (prev.kind()) {
+            case OP -> !prev.text().equals("++") && !prev.text().equals("--");
+            case PUNCT -> "([{,;".contains(prev.text());
+            case KEYWORD -> REGEX_AFTER_KEYWORD.contains(prev.text());
+            default -> false;
+        };
+    }
+
+    private boolean regex() {
+        int p = pos + 1;
+        boolean inClass = false;
+        while (p < n) {
+            char c = src.charAt(p);
+            if (c == '\n') return false;
+            if (c == '\\') {
+                p += 2;
+                continue;
+            }
+            if (c == '[') inClass = true;
+            else if (c == ']') inClass = false;
+            else if (c == '/' && !inClass) break;
+            p++;
+        }
+        if (p >= n) return false;
+        p++;
+        while (p < n && Character.isLetter(src.charAt(p))) p++;
+        emit(Kind.STRING, src.substring(pos, p), line);
+        pos = p;
+        return true;
+    }
+
+    private void operator() {
+        for (String op : OPERATORS) {
+            if (startsWith(op)) {
+                if (op.equals("//") || op.equals("//=")) {
+                    if (language != Language.PYTHON) continue;
+                }
+                emit(Kind.OP, op, line);
+                pos += op.length();
+                return;
+            }
+        }
+        char c = src.charAt(pos);
+        emit(SINGLE_OPS.indexOf(c) >= 0 ? Kind.OP : Kind.PUNCT, String.valueOf(c), line);
+        pos++;
+    }
+}
@@ -0,0 +1,45 @@
+package com.aidebugger.analysis;
+
+// Server-side copy of an editor buffer, kept in sync through small text edits
+// instead of the client re-sending the whole snippet on every pause in typing.
+public class LiveDocument {
+    private final StringBuilder text;
+    private long version;
+    private long changedSinceAi;
+
+    public LiveDocument(String initial) {
+        this.text = new StringBuilder(initial == null ? "" : initial);
+        this.changedSinceAi = text.length();
+    }
+
+    public void applyEdit(int offset, int deleteCount, String insert) {
+        if (offset < 0 || deleteCount < 0 || offset + deleteCount > text.length()) {
+            throw new IllegalArgumentException("Edit out of range: offset=" + offset
+                    + " delete=" + deleteCount + " length=" + text.length());
+        }
+        String ins = insert == null ? "" : insert;
+        text.replace(offset, offset + deleteCount, ins);
+        changedSinceAi += Math.max(deleteCount, ins.length());
+        version++;
+    }
+
+    public String snapshot() {
+        return text.toString();
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getChangedSinceAi() {
+        return changedSinceAi;
+    }
+
+    public void markAiSent() {
+        changedSinceAi = 0;
+    }
+}
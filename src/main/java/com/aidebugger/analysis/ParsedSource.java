@@ -0,0 +1,151 @@
+package com.aidebugger.analysis;
+
+import com.aidebugger.analysis.Lexer.Language;
+import com.aidebugger.analysis.Token.Kind;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+// Token stream plus bracket structure: match[i] is the index of the bracket closing/opening
+// token i, or -1, and enclosing[i] is the opener of the innermost matched pair around token i,
+// or -1. That is enough structure for the rules (blocks, argument lists, statement extents)
+// without building a full AST for every language.
+public final class ParsedSource {
+    private final Language language;
+    private final List<Token> tokens;
+    private final int[] match;
+    private final int[] enclosing;
+
+    private ParsedSource(Language language, List<Token> tokens) {
+        this.language = language;
+        this.tokens = tokens;
+        this.match = new int[tokens.size()];
+        Arrays.fill(match, -1);
+        Deque<Integer> open = new ArrayDeque<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token t = tokens.get(i);
+            if (t.kind() != Kind.PUNCT) continue;
+            switch (t.text()) {
+                case "(", "[", "{" -> open.push(i);
+                case ")", "]", "}" -> {
+                    // tolerate unbalanced snippets: pop until the matching opener, if there is one
+                    String opener = t.text().equals(")") ? "(" : t.text().equals("]") ? "[" : "{";
+                    while (!open.isEmpty()) {
+                        int j = open.pop();
+                        if (tokens.get(j).text().equals(opener)) {
+                            match[i] = j;
+                            match[j] = i;
+                            break;
+                        }
+                    }
+                }
+                default -> { }
+            }
+        }
+        // matched pairs nest (they come off a stack), so one more pass gives every token its parent
+        this.enclosing = new int[tokens.size()];
+        Deque<Integer> around = new ArrayDeque<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            while (!around.isEmpty() && match[around.peek()] <= i) around.pop();
+            enclosing[i] = around.isEmpty() ? -1 : around.peek();
+            if (match[i] > i) around.push(i);
+        }
+    }
+
+    public static ParsedSource parse(String languageName, String code) {
+        Language language = Language.of(languageName);
+        return new ParsedSource(language, Lexer.tokenize(language, code));
+    }
+
+    public Language language() {
+        return language;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public Token get(int i) {
+        return i >= 0 && i < tokens.size() ? tokens.get(i) : null;
+    }
+
+    public String text(int i) {
+        Token t = get(i);
+        return t == null ? "" : t.text();
+    }
+
+    public int line(int i) {
+        Token t = get(i);
+        return t == null ? 0 : t.line();
+    }
+
+    public boolean is(int i, Kind kind) {
+        Token t = get(i);
+        return t != null && t.kind() == kind;
+    }
+
+    public boolean is(int i, Kind kind, String text) {
+        Token t = get(i);
+        return t != null && t.is(kind, text);
+    }
+
+    public boolean isPunct(int i, String text) {
+        return is(i, Kind.PUNCT, text);
+    }
+
+    public boolean isOp(int i, String text) {
+        return is(i, Kind.OP, text);
+    }
+
+    public boolean isKeyword(int i, String text) {
+        return is(i, Kind.KEYWORD, text);
+    }
+
+    public boolean isIdent(int i, String text) {
+        return is(i, Kind.IDENT, text);
+    }
+
+    public int match(int i) {
+        return i >= 0 && i < match.length ? match[i] : -1;
+    }
+
+    public int enclosing(int i) {
+        return i >= 0 && i < enclosing.length ? enclosing[i] : -1;
+    }
+
+    // True when token i lies inside the "{ ... }" block of keyword, e.g. try { } or try (res) { }
+    public boolean insideBlockOf(int i, String keyword) {
+        for (int open = enclosing(i); open >= 0; open = enclosing[open]) {
+            if (!isPunct(open, "{")) continue;
+            int before = open - 1;
+            if (isPunct(before, ")") && match(before) >= 0) before = match(before) - 1;
+            if (isKeyword(before, keyword)) return true;
+        }
+        return false;
+    }
+
+    // True when token i lies inside the parentheses right after keyword, e.g. try ( ... )
+    public boolean insideParensOf(int i, String keyword) {
+        for (int open = enclosing(i); open >= 0; open = enclosing[open]) {
+            if (isPunct(open, "(") && isKeyword(open - 1, keyword)) return true;
+        }
+        return false;
+    }
+
+    // Whether a numeric literal is zero: 0, 0.0, 0L, 0x0, 0e0, ...
+    public static boolean isZeroLiteral(Token t) {
+        if (t == null || t.kind() != Kind.NUMBER) return false;
+        String s = t.text().toLowerCase().replace("_", "");
+        if (s.startsWith("0x") || s.startsWith("0b") || s.startsWith("0o")) {
+            return s.substring(2).replaceAll("[lu]+$", "").chars().allMatch(c -> c == '0');
+        }
+        s = s.replaceAll("[lufdj]+$", "");
+        try {
+            return Double.parseDouble(s) == 0.0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
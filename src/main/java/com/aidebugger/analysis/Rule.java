@@ -0,0 +1,8 @@
+package com.aidebugger.analysis;
+
+public interface Rule {
+    String id();
+
+    // Implementations call ctx.tick() inside their loops so the CPU budget can stop them
+    void check(ParsedSource source, RuleContext ctx);
+}
@@ -0,0 +1,51 @@
+package com.aidebugger.analysis;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-rule evaluation state: collects issues and enforces the rule's CPU time budget.
+// The clock is only read every TICK_INTERVAL ticks, so checking costs next to nothing.
+public final class RuleContext {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final int TICK_INTERVAL = 256;
+    private static final int MAX_ISSUES_PER_RULE = 5;
+
+    private final String ruleId;
+    private final long deadline;
+    private final List<Issue> issues = new ArrayList<>();
+    private int ticks;
+
+    public static class BudgetExceededException extends RuntimeException {
+        BudgetExceededException(String ruleId) {
+            super("Rule " + ruleId + " exceeded its CPU budget", null, false, false);
+        }
+    }
+
+    public RuleContext(String ruleId, long budgetNanos) {
+        this.ruleId = ruleId;
+        this.deadline = now() + budgetNanos;
+    }
+
+    private static long now() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    public void tick() {
+        if (++ticks % TICK_INTERVAL == 0 && now() > deadline) {
+            throw new BudgetExceededException(ruleId);
+        }
+    }
+
+    public void report(String title, String detail, int line) {
+        if (issues.size() < MAX_ISSUES_PER_RULE) {
+            issues.add(new Issue(ruleId, title, detail, line));
+        }
+    }
+
+    public List<Issue> issues() {
+        return issues;
+    }
+}
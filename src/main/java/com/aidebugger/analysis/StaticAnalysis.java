@@ -0,0 +1,11 @@
+package com.aidebugger.analysis;
+
+import java.util.List;
+
+// skippedRules: rules stopped by their CPU budget; their findings (if any) are not included
+public record StaticAnalysis(List<Issue> issues, List<String> skippedRules, int tokens) {
+
+    public boolean hasRule(String ruleId) {
+        return issues.stream().anyMatch(i -> i.ruleId().equals(ruleId));
+    }
+}
@@ -0,0 +1,12 @@
+package com.aidebugger.analysis;
+
+public record Token(Kind kind, String text, int line) {
+
+    public enum Kind {
+        IDENT, KEYWORD, NUMBER, STRING, OP, PUNCT, PREPROCESSOR
+    }
+
+    public boolean is(Kind kind, String text) {
+        return this.kind == kind && this.text.equals(text);
+    }
+}
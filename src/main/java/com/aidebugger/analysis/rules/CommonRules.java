@@ -0,0 +1,115 @@
+package com.aidebugger.analysis.rules;
+
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.RuleContext;
+import com.aidebugger.analysis.Token;
+import com.aidebugger.analysis.Token.Kind;
+
+import java.util.*;
+
+// Rules that work the same way on every C-like or Python token stream
+final class CommonRules {
+    private static final Set<String> DIVISION_OPS = Set.of("/", "%", "/=", "%=", "//", "//=");
+    private static final Set<String> COMPARISONS = Set.of("==", "!=", "===", "!==", "<", ">", "<=", ">=");
+    private static final Set<String> CONDITION_KEYWORDS = Set.of("if", "while", "assert", "not", "and", "or", "elif");
+    private static final Set<String> CONDITION_OPS = Set.of("!", "&&", "||", "?", "?.", "??");
+    private static final Set<String> NULL_LITERALS = Set.of("null", "None", "nullptr", "NULL", "undefined");
+
+    private CommonRules() {
+    }
+
+    // Identifiers that appear in a comparison or as a truth test anywhere in the snippet;
+    // such a value is treated as checked before use
+    static Set<String> conditionIdents(ParsedSource s, RuleContext ctx) {
+        Set<String> guarded = new HashSet<>();
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (!s.is(i, Kind.IDENT)) continue;
+            Token prev = s.get(i - 1);
+            Token next = s.get(i + 1);
+            boolean compared = isComparison(prev) || isComparison(next)
+                    || s.isKeyword(i + 1, "is") || s.isKeyword(i - 1, "is");
+            boolean truthTest = prev != null
+                    && ((prev.kind() == Kind.KEYWORD && CONDITION_KEYWORDS.contains(prev.text()))
+                    || (prev.kind() == Kind.OP && CONDITION_OPS.contains(prev.text()))
+                    || (s.isPunct(i - 1, "(") && (s.isKeyword(i - 2, "if") || s.isKeyword(i - 2, "while"))))
+                    || (next != null && next.kind() == Kind.OP && CONDITION_OPS.contains(next.text()));
+            boolean requireNonNull = s.isPunct(i - 1, "(")
+                    && (s.isIdent(i - 2, "requireNonNull") || s.isIdent(i - 2, "ofNullable"));
+            if (compared || truthTest || requireNonNull) guarded.add(s.text(i));
+        }
+        return guarded;
+    }
+
+    private static boolean isComparison(Token t) {
+        return t != null && t.kind() == Kind.OP && COMPARISONS.contains(t.text());
+    }
+
+    static void divisionByZero(ParsedSource s, RuleContext ctx) {
+        Set<String> guarded = null;
+        Set<String> reported = new HashSet<>();
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            Token t = s.get(i);
+            if (t.kind() != Kind.OP || !DIVISION_OPS.contains(t.text())) continue;
+            if (t.text().startsWith("%") && s.is(i - 1, Kind.STRING)) continue;   // "..." % args formatting
+
+            Token divisor = s.get(i + 1);
+            if (ParsedSource.isZeroLiteral(divisor)) {
+                ctx.report("Division by Zero", "Divisor is the literal `" + divisor.text() + "`", t.line());
+                continue;
+            }
+            boolean plainVariable = divisor != null && divisor.kind() == Kind.IDENT
+                    && !s.isPunct(i + 2, "(") && !s.isPunct(i + 2, ".") && !s.isPunct(i + 2, "[")
+                    && !divisor.text().equals(divisor.text().toUpperCase(Locale.ROOT));   // CONSTANTS
+            if (!plainVariable) continue;
+            if (guarded == null) guarded = conditionIdents(s, ctx);
+            if (!guarded.contains(divisor.text()) && reported.add(divisor.text())) {
+                ctx.report("Potential Division by Zero",
+                        "`" + divisor.text() + "` is used as a divisor without a zero check", t.line());
+            }
+        }
+    }
+
+    // x = null ... x.foo() with no null comparison or truth test of x anywhere in between
+    static void nullDereference(ParsedSource s, RuleContext ctx) {
+        Map<String, Integer> assignedNull = new LinkedHashMap<>();
+        for (int i = 0; i + 2 < s.size(); i++) {
+            ctx.tick();
+            if (s.is(i, Kind.IDENT) && s.isOp(i + 1, "=") && s.is(i + 2, Kind.KEYWORD)
+                    && NULL_LITERALS.contains(s.text(i + 2)) && !s.isPunct(i - 1, ".")) {
+                assignedNull.putIfAbsent(s.text(i), i);
+            }
+        }
+        if (assignedNull.isEmpty()) return;
+
+        Set<String> guarded = conditionIdents(s, ctx);
+        Set<String> reported = new HashSet<>();
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (!s.is(i, Kind.IDENT) || !s.isPunct(i + 1, ".") || s.isPunct(i - 1, ".")) continue;
+            String name = s.text(i);
+            Integer at = assignedNull.get(name);
+            if (at == null || i <= at || guarded.contains(name) || !reported.add(name)) continue;
+            ctx.report("Null Safety", "`" + name + "` is set to " + s.text(at + 2) + " on line " + s.line(at)
+                    + " and dereferenced without a check", s.line(i));
+        }
+    }
+
+    // catch (...) { }  — for brace languages
+    static void emptyCatch(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (!s.isKeyword(i, "catch")) continue;
+            int open = i + 1;
+            if (s.isPunct(open, "(")) {
+                int close = s.match(open);
+                if (close < 0) continue;
+                open = close + 1;
+            }
+            if (s.isPunct(open, "{") && s.match(open) == open + 1) {
+                ctx.report("Swallowed Exception", "Empty catch block hides the failure", s.line(i));
+            }
+        }
+    }
+}
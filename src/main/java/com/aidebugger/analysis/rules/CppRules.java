@@ -0,0 +1,81 @@
+package com.aidebugger.analysis.rules;
+
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.RuleContext;
+import com.aidebugger.analysis.Token.Kind;
+
+import java.util.Set;
+
+final class CppRules {
+    private static final Set<String> ALLOCATORS = Set.of("malloc", "calloc", "realloc", "strdup");
+    private static final Set<String> OWNERS = Set.of("unique_ptr", "shared_ptr", "reset", "make_unique",
+            "make_shared", "emplace_back", "push_back");
+    private static final Set<String> UNSAFE = Set.of("gets", "strcpy", "strcat", "sprintf", "vsprintf");
+
+    private CppRules() {
+    }
+
+    static void memoryLeak(ParsedSource s, RuleContext ctx) {
+        int firstNew = -1;
+        int firstAlloc = -1;
+        boolean deletes = false;
+        boolean frees = false;
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (s.isKeyword(i, "delete")) deletes = true;
+            else if (s.isIdent(i, "free") && s.isPunct(i + 1, "(")) frees = true;
+            else if (firstNew < 0 && s.isKeyword(i, "new") && !ownedBySmartPointer(s, i, ctx)) firstNew = i;
+            else if (firstAlloc < 0 && s.is(i, Kind.IDENT) && ALLOCATORS.contains(s.text(i)) && s.isPunct(i + 1, "(")) {
+                firstAlloc = i;
+            }
+        }
+        if (firstNew >= 0 && !deletes) {
+            ctx.report("Memory Leak", "`new` without a matching `delete`", s.line(firstNew));
+        }
+        if (firstAlloc >= 0 && !frees) {
+            ctx.report("Memory Leak", "`" + s.text(firstAlloc) + "` without a matching `free`", s.line(firstAlloc));
+        }
+    }
+
+    // Looks back to the start of the statement for a smart pointer / container taking ownership
+    private static boolean ownedBySmartPointer(ParsedSource s, int at, RuleContext ctx) {
+        for (int k = at - 1; k >= 0 && at - k <= 12; k--) {
+            ctx.tick();
+            if (s.isPunct(k, ";") || s.isPunct(k, "{") || s.isPunct(k, "}")) return false;
+            if (s.is(k, Kind.IDENT) && OWNERS.contains(s.text(k))) return true;
+        }
+        return false;
+    }
+
+    // T* p = new T(...)
+    static void rawOwningPointer(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i + 3 < s.size(); i++) {
+            ctx.tick();
+            if (s.isOp(i, "*") && s.is(i + 1, Kind.IDENT) && s.isOp(i + 2, "=") && s.isKeyword(i + 3, "new")) {
+                ctx.report("Raw Pointers", "`" + s.text(i + 1) + "` owns heap memory through a raw pointer; "
+                        + "use std::unique_ptr", s.line(i));
+            }
+        }
+    }
+
+    static void unsafeFunctions(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i + 1 < s.size(); i++) {
+            ctx.tick();
+            if (s.is(i, Kind.IDENT) && UNSAFE.contains(s.text(i)) && s.isPunct(i + 1, "(") && !s.isPunct(i - 1, ".")) {
+                ctx.report("Unsafe Function", "`" + s.text(i) + "` does not bound its destination buffer", s.line(i));
+            }
+        }
+    }
+
+    static void uncaughtThrow(ParsedSource s, RuleContext ctx) {
+        int firstThrow = -1;
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (s.isKeyword(i, "catch")) return;
+            if (firstThrow < 0 && s.isKeyword(i, "throw") && !s.isPunct(i + 1, "(")) firstThrow = i;
+        }
+        if (firstThrow >= 0) {
+            ctx.report("Exception Safety", "`throw` with no handler in this code", s.line(firstThrow));
+        }
+    }
+}
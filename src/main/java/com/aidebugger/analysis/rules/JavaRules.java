@@ -0,0 +1,74 @@
+package com.aidebugger.analysis.rules;
+
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.RuleContext;
+import com.aidebugger.analysis.Token.Kind;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+final class JavaRules {
+    private static final Set<String> BROAD_EXCEPTIONS = Set.of("Exception", "Throwable", "RuntimeException");
+    private static final Pattern CLOSEABLE = Pattern.compile(".*(Stream|Reader|Writer|Socket|Channel|Scanner|Connection)");
+    private static final Set<String> PARSERS = Set.of("parseInt", "parseLong", "parseDouble", "parseFloat");
+    private static final Set<String> BOXED = Set.of("Integer", "Long", "Double", "Float");
+
+    private JavaRules() {
+    }
+
+    static void broadCatch(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (s.isKeyword(i, "catch") && s.isPunct(i + 1, "(") && s.is(i + 2, Kind.IDENT)
+                    && BROAD_EXCEPTIONS.contains(s.text(i + 2)) && s.is(i + 3, Kind.IDENT)) {
+                ctx.report("Overly Broad Catch", "Catching `" + s.text(i + 2) + "` also swallows programming errors",
+                        s.line(i));
+            }
+        }
+    }
+
+    static void stringIdentity(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if ((s.isOp(i, "==") || s.isOp(i, "!=")) && (s.is(i - 1, Kind.STRING) || s.is(i + 1, Kind.STRING))) {
+                ctx.report("String Comparison", "`" + s.text(i) + "` compares String references; use equals()",
+                        s.line(i));
+            }
+        }
+    }
+
+    static void resourceLeak(ParsedSource s, RuleContext ctx) {
+        boolean closes = false;
+        for (int i = 0; i + 1 < s.size(); i++) {
+            ctx.tick();
+            if (s.isPunct(i, ".") && s.isIdent(i + 1, "close")) {
+                closes = true;
+                break;
+            }
+        }
+        if (closes) return;
+        for (int i = 0; i + 2 < s.size(); i++) {
+            ctx.tick();
+            if (!s.isKeyword(i, "new") || !s.is(i + 1, Kind.IDENT) || !s.isPunct(i + 2, "(")) continue;
+            String type = s.text(i + 1);
+            if (!CLOSEABLE.matcher(type).matches() || s.isKeyword(i - 1, "return")) continue;
+            if (type.startsWith("ByteArray") || type.startsWith("String")) continue;   // in-memory, nothing to leak
+            if (s.insideParensOf(i, "try")) continue;
+            ctx.report("Resource Leak", "`" + type + "` is never closed; open it in try-with-resources", s.line(i));
+            return;
+        }
+    }
+
+    static void uncheckedParse(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i + 3 < s.size(); i++) {
+            ctx.tick();
+            if (s.is(i, Kind.IDENT) && BOXED.contains(s.text(i)) && s.isPunct(i + 1, ".")
+                    && PARSERS.contains(s.text(i + 2)) && s.isPunct(i + 3, "(")
+                    && s.is(i + 4, Kind.IDENT)
+                    && !s.insideBlockOf(i, "try")) {
+                ctx.report("Unchecked Parse", "`" + s.text(i) + "." + s.text(i + 2)
+                        + "` throws NumberFormatException on malformed input", s.line(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.aidebugger.analysis.rules;
+
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.RuleContext;
+import com.aidebugger.analysis.Token.Kind;
+
+import java.util.Set;
+
+final class JavaScriptRules {
+    private static final Set<String> CONSOLE_METHODS = Set.of("log", "debug", "info", "trace");
+    private static final Set<String> NULLISH = Set.of("null", "undefined");
+
+    private JavaScriptRules() {
+    }
+
+    static void consoleLogs(ParsedSource s, RuleContext ctx) {
+        int count = 0;
+        int first = 0;
+        for (int i = 0; i + 2 < s.size(); i++) {
+            ctx.tick();
+            if (s.isIdent(i, "console") && s.isPunct(i + 1, ".") && CONSOLE_METHODS.contains(s.text(i + 2))) {
+                if (count++ == 0) first = s.line(i);
+            }
+        }
+        if (count > 0) {
+            ctx.report("Debug Logs", count + " console logging call(s); remove them or use a logger", first);
+        }
+    }
+
+    static void varDeclarations(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (s.isKeyword(i, "var") && s.is(i + 1, Kind.IDENT)) {
+                ctx.report("Variable Declaration", "`var " + s.text(i + 1) + "` is function-scoped; prefer `let`/`const`",
+                        s.line(i));
+            }
+        }
+    }
+
+    // x == null is the accepted "null or undefined" idiom, everything else should be strict
+    static void looseEquality(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (!s.isOp(i, "==") && !s.isOp(i, "!=")) continue;
+            boolean nullish = (s.is(i - 1, Kind.KEYWORD) && NULLISH.contains(s.text(i - 1)))
+                    || (s.is(i + 1, Kind.KEYWORD) && NULLISH.contains(s.text(i + 1)));
+            if (!nullish) {
+                ctx.report("Loose Equality", "`" + s.text(i) + "` coerces types; use `" + s.text(i) + "=`", s.line(i));
+            }
+        }
+    }
+
+    static void unhandledPromises(ParsedSource s, RuleContext ctx) {
+        boolean anyTry = false;
+        boolean anyCatchCall = false;
+        int firstAwait = -1;
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (s.isKeyword(i, "try")) anyTry = true;
+            if (s.isPunct(i, ".") && s.isKeyword(i + 1, "catch")) anyCatchCall = true;
+            if (firstAwait < 0 && s.isKeyword(i, "await")) firstAwait = i;
+        }
+
+        for (int i = 0; i + 2 < s.size(); i++) {
+            ctx.tick();
+            if (!s.isPunct(i, ".") || !s.isIdent(i + 1, "then") || !s.isPunct(i + 2, "(")) continue;
+            if (chainHandled(s, i + 2, ctx) || statementPassesOn(s, i, ctx)) continue;
+            ctx.report("Async Error Handling", "Promise chain has no .catch(); rejections go unhandled", s.line(i));
+            return;
+        }
+        if (firstAwait >= 0 && !anyTry && !anyCatchCall) {
+            ctx.report("Async Error Handling", "`await` without try/catch; a rejection propagates unhandled",
+                    s.line(firstAwait));
+        }
+    }
+
+    // then(onFulfilled, onRejected) or a later .catch(...) in the same chain
+    private static boolean chainHandled(ParsedSource s, int thenParen, RuleContext ctx) {
+        int close = s.match(thenParen);
+        if (close < 0) return true;   // truncated snippet, not enough to judge
+        for (int j = thenParen + 1; j < close; j++) {
+            ctx.tick();
+            if (s.isPunct(j, ",")) return true;
+            int m = s.match(j);
+            if (m > j) j = m;
+        }
+        int j = close + 1;
+        while (s.isPunct(j, ".") && s.isPunct(j + 2, "(")) {
+            ctx.tick();
+            if (s.isKeyword(j + 1, "catch")) return true;
+            int next = s.match(j + 2);
+            if (next < 0) return true;
+            j = next + 1;
+        }
+        return false;
+    }
+
+    // return/await/assignment hands the promise to someone else who may handle it
+    private static boolean statementPassesOn(ParsedSource s, int from, RuleContext ctx) {
+        for (int k = from - 1; k >= 0; k--) {
+            ctx.tick();
+            if (s.isPunct(k, ")") || s.isPunct(k, "]")) {
+                int m = s.match(k);
+                if (m < 0) return false;
+                k = m;
+                continue;
+            }
+            if (s.isKeyword(k, "return") || s.isKeyword(k, "await") || s.isOp(k, "=") || s.isOp(k, "=>")) return true;
+            if (s.isPunct(k, ";") || s.isPunct(k, "{") || s.isPunct(k, "}") || s.isPunct(k, "(") || s.isPunct(k, ",")) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    static void dangerousSinks(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i + 1 < s.size(); i++) {
+            ctx.tick();
+            if (s.isIdent(i, "eval") && s.isPunct(i + 1, "(") && !s.isPunct(i - 1, ".")) {
+                ctx.report("Eval Usage", "`eval()` executes arbitrary code", s.line(i));
+            } else if (s.isPunct(i, ".") && (s.isIdent(i + 1, "innerHTML") || s.isIdent(i + 1, "outerHTML"))
+                    && (s.isOp(i + 2, "=") || s.isOp(i + 2, "+="))) {
+                ctx.report("DOM XSS Risk", "Assigning `" + s.text(i + 1) + "` can inject markup; use textContent",
+                        s.line(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.aidebugger.analysis.rules;
+
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.RuleContext;
+import com.aidebugger.analysis.Token.Kind;
+
+import java.util.HashSet;
+import java.util.Set;
+
+final class PythonRules {
+    private static final Set<String> MODULES = Set.of(
+            "json", "os", "sys", "re", "math", "time", "datetime", "random", "requests", "subprocess",
+            "logging", "collections", "itertools", "functools", "pathlib", "shutil", "csv", "pickle",
+            "socket", "threading", "asyncio", "typing", "np", "pd", "numpy", "pandas");
+    private static final Set<String> MUTABLE_FACTORIES = Set.of("list", "dict", "set");
+
+    private PythonRules() {
+    }
+
+    static void bareExcept(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (!s.isKeyword(i, "except")) continue;
+            if (s.isOp(i + 1, ":")) {
+                ctx.report("Bare Except", "`except:` also catches KeyboardInterrupt and SystemExit", s.line(i));
+            }
+            int j = i + 1;
+            while (j < s.size() && !s.isOp(j, ":") && s.line(j) == s.line(i)) j++;
+            if (s.isOp(j, ":") && s.isKeyword(j + 1, "pass")) {
+                ctx.report("Swallowed Exception", "`except ...: pass` hides the failure", s.line(i));
+            }
+        }
+    }
+
+    static void mutableDefault(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i + 2 < s.size(); i++) {
+            ctx.tick();
+            if (!s.isKeyword(i, "def") || !s.isPunct(i + 2, "(")) continue;
+            int close = s.match(i + 2);
+            for (int j = i + 3; j < close; j++) {
+                ctx.tick();
+                if (!s.isOp(j, "=")) continue;
+                boolean literal = s.isPunct(j + 1, "[") || s.isPunct(j + 1, "{");
+                boolean factory = s.is(j + 1, Kind.IDENT) && MUTABLE_FACTORIES.contains(s.text(j + 1))
+                        && s.isPunct(j + 2, "(");
+                if (literal || factory) {
+                    ctx.report("Mutable Default Argument", "`" + s.text(j - 1) + "` in `" + s.text(i + 1)
+                            + "()` shares one mutable default across calls; default to None", s.line(j));
+                }
+            }
+        }
+    }
+
+    static void noneComparison(ParsedSource s, RuleContext ctx) {
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if ((s.isOp(i, "==") || s.isOp(i, "!=")) && (s.isKeyword(i - 1, "None") || s.isKeyword(i + 1, "None"))) {
+                ctx.report("None Comparison", "Use `is None` / `is not None` instead of `" + s.text(i) + " None`",
+                        s.line(i));
+            }
+        }
+    }
+
+    static void debugPrints(ParsedSource s, RuleContext ctx) {
+        int count = 0;
+        int first = 0;
+        for (int i = 0; i + 1 < s.size(); i++) {
+            ctx.tick();
+            if (s.isIdent(i, "print") && s.isPunct(i + 1, "(") && !s.isPunct(i - 1, ".") && !s.isKeyword(i - 1, "def")) {
+                if (count++ == 0) first = s.line(i);
+            }
+        }
+        if (count > 0) {
+            ctx.report("Debug Prints", count + " print() call(s); use the logging module instead", first);
+        }
+    }
+
+    static void missingImports(ParsedSource s, RuleContext ctx) {
+        Set<String> bound = new HashSet<>();
+        for (int i = 0; i < s.size(); i++) {
+            ctx.tick();
+            if (s.isKeyword(i, "import") || s.isKeyword(i, "from")) {
+                // everything on the import line (and inside "import (...)") counts as bound
+                int line = s.line(i);
+                int end = i + 1;
+                while (end < s.size() && (s.line(end) == line || s.isPunct(end, "("))) {
+                    if (s.isPunct(end, "(") && s.match(end) > end) end = s.match(end);
+                    end++;
+                }
+                for (int j = i + 1; j < end; j++) {
+                    if (s.is(j, Kind.IDENT)) bound.add(s.text(j));
+                }
+                continue;
+            }
+            if (!s.is(i, Kind.IDENT)) continue;
+            boolean assigned = (s.isOp(i + 1, "=") || s.isOp(i + 1, ":=")) && !s.isPunct(i - 1, ".");
+            boolean declared = s.isKeyword(i - 1, "def") || s.isKeyword(i - 1, "class") || s.isKeyword(i - 1, "as")
+                    || s.isKeyword(i - 1, "for") || s.isKeyword(i - 1, "global");
+            if (assigned || declared) bound.add(s.text(i));
+        }
+
+        Set<String> reported = new HashSet<>();
+        for (int i = 0; i + 1 < s.size(); i++) {
+            ctx.tick();
+            if (!s.is(i, Kind.IDENT) || !s.isPunct(i + 1, ".") || s.isPunct(i - 1, ".")) continue;
+            String name = s.text(i);
+            if (MODULES.contains(name) && !bound.contains(name) && reported.add(name)) {
+                ctx.report("Missing Imports", "`" + name + "` is used but never imported", s.line(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.aidebugger.analysis.rules;
+
+import com.aidebugger.analysis.Lexer.Language;
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.Rule;
+import com.aidebugger.analysis.RuleContext;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Rule catalog per language. Rules are stateless, so one instance per id is shared by all threads.
+public final class RuleSets {
+    private static final Rule DIVISION = rule("division-by-zero", CommonRules::divisionByZero);
+    private static final Rule NULL_DEREF = rule("null-dereference", CommonRules::nullDereference);
+    private static final Rule EMPTY_CATCH = rule("empty-catch", CommonRules::emptyCatch);
+
+    private static final List<Rule> JAVA = List.of(DIVISION, NULL_DEREF, EMPTY_CATCH,
+            rule("java.broad-catch", JavaRules::broadCatch),
+            rule("java.string-identity", JavaRules::stringIdentity),
+            rule("java.resource-leak", JavaRules::resourceLeak),
+            rule("java.unchecked-parse", JavaRules::uncheckedParse));
+
+    private static final List<Rule> PYTHON = List.of(DIVISION, NULL_DEREF,
+            rule("python.bare-except", PythonRules::bareExcept),
+            rule("python.mutable-default", PythonRules::mutableDefault),
+            rule("python.none-comparison", PythonRules::noneComparison),
+            rule("python.debug-print", PythonRules::debugPrints),
+            rule("python.missing-import", PythonRules::missingImports));
+
+    private static final List<Rule> JAVASCRIPT = List.of(DIVISION, NULL_DEREF, EMPTY_CATCH,
+            rule("js.console-log", JavaScriptRules::consoleLogs),
+            rule("js.var", JavaScriptRules::varDeclarations),
+            rule("js.loose-equality", JavaScriptRules::looseEquality),
+            rule("js.unhandled-promise", JavaScriptRules::unhandledPromises),
+            rule("js.dangerous-sink", JavaScriptRules::dangerousSinks));
+
+    private static final List<Rule> CPP = List.of(DIVISION, NULL_DEREF, EMPTY_CATCH,
+            rule("cpp.memory-leak", CppRules::memoryLeak),
+            rule("cpp.raw-pointer", CppRules::rawOwningPointer),
+            rule("cpp.unsafe-function", CppRules::unsafeFunctions),
+            rule("cpp.uncaught-throw", CppRules::uncaughtThrow));
+
+    private static final List<Rule> C = List.of(DIVISION, NULL_DEREF,
+            rule("cpp.memory-leak", CppRules::memoryLeak),
+            rule("cpp.unsafe-function", CppRules::unsafeFunctions));
+
+    private static final List<Rule> GENERIC = List.of(DIVISION);
+
+    private RuleSets() {
+    }
+
+    public static List<Rule> forLanguage(Language language) {
+        return switch (language) {
+            case JAVA -> JAVA;
+            case PYTHON -> PYTHON;
+            case JAVASCRIPT -> JAVASCRIPT;
+            case CPP -> CPP;
+            case C -> C;
+            case GENERIC -> GENERIC;
+        };
+    }
+
+    private static Rule rule(String id, BiConsumer<ParsedSource, RuleContext> body) {
+        return new Rule() {
+            @Override
+            public String id() {
+                return id;
+            }
+
+            @Override
+            public void check(ParsedSource source, RuleContext ctx) {
+                body.accept(source, ctx);
+            }
+        };
+    }
+}
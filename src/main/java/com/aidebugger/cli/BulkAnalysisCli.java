@@ -0,0 +1,91 @@
+package com.aidebugger.cli;
+
+import com.aidebugger.AiDebuggerApplication;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.DebugService;
+import com.aidebugger.service.LargeFileAnalysisService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Offline bulk analysis for nightly jobs, without HTTP or auth. The analysis beans run in a non-web
+// Spring context (profile "bulk", see application-bulk.properties) and BulkAnalyzer drives them.
+// The context is closed at the end, which writes the cache snapshot the server maps at startup.
+// The snapshot is locked by one process at a time, so a run fails at startup while a server has
+// the same file open (see CacheSnapshot and application-bulk.properties).
+//
+//   mvn -q compile exec:java -Dexec.mainClass=com.aidebugger.cli.BulkAnalysisCli \
+//     -Dexec.args="<dir> [--out results.jsonl] [--checkpoint file] [--parallelism N] [--max-file-bytes N] [--ai]"
+//
+// Any other --key=value argument is handed to Spring, e.g. --app.cache.snapshot.path=/data/cache.seg
+public final class BulkAnalysisCli {
+    private BulkAnalysisCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path root = null;
+        Path output = Path.of("bulk-results.jsonl");
+        Path checkpoint = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long maxFileBytes = 2 * 1024 * 1024;
+        boolean ai = false;
+        List<String> springArgs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> output = Path.of(value(args, ++i));
+                case "--checkpoint" -> checkpoint = Path.of(value(args, ++i));
+                case "--parallelism" -> parallelism = Integer.parseInt(value(args, ++i));
+                case "--max-file-bytes" -> maxFileBytes = Long.parseLong(value(args, ++i));
+                case "--ai" -> ai = true;
+                default -> {
+                    if (args[i].startsWith("--")) springArgs.add(args[i]);
+                    else if (root == null) root = Path.of(args[i]);
+                    else throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                }
+            }
+        }
+        if (root == null || !Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Usage: BulkAnalysisCli <dir> [--out results.jsonl] [--checkpoint file] "
+                    + "[--parallelism N] [--max-file-bytes N] [--ai]");
+        }
+        if (checkpoint == null) {
+            checkpoint = Path.of(output + ".checkpoint");
+        }
+        springArgs.add("--openai.enabled=" + ai);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AiDebuggerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("bulk")
+                .run(springArgs.toArray(String[]::new));
+        BulkAnalyzer.Summary summary;
+        long start = System.currentTimeMillis();
+        try {
+            BulkAnalyzer analyzer = new BulkAnalyzer(context.getBean(DebugService.class),
+                    context.getBean(CacheService.class), context.getBean(LargeFileAnalysisService.class),
+                    context.getBean(ObjectMapper.class),
+                    new BulkAnalyzer.Options(root, output, checkpoint, parallelism, maxFileBytes));
+            summary = analyzer.run();
+        } finally {
+            context.close();
+        }
+
+        System.out.println("\n=== 📦 BULK ANALYSIS DONE ===");
+        System.out.println("✅ Analyzed: " + summary.analyzed() + " (" + summary.cached() + " from cache)");
+        System.out.println("⏭️  Skipped: " + summary.skipped() + " | Already done: " + summary.resumed());
+        System.out.println("❌ Failed: " + summary.failed());
+        System.out.println("⏱️  " + (System.currentTimeMillis() - start) / 1000 + "s -> " + output);
+        System.exit(summary.failed() > 0 ? 1 : 0);
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
@@ -0,0 +1,345 @@
+package com.aidebugger.cli;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.service.AnalysisScheduler;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.CachedAnalysis;
+import com.aidebugger.service.DebugService;
+import com.aidebugger.service.LargeFileAnalysisService;
+import com.aidebugger.service.OpenAiService;
+import com.aidebugger.service.WorkClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.Map.entry;
+
+// Runs a source tree through the same analysis as the API. Short files go through one DebugService
+// request each and share CacheService entries with REST and gRPC; long ones go through
+// LargeFileAnalysisService's chunked map/reduce. Files are memory-mapped and decoded straight into
+// the request without an intermediate byte[]. The walker blocks once 2 x parallelism files are
+// queued or running (backpressure), so memory stays flat on any size of tree.
+// Every result is appended to the JSONL output and then to the checkpoint, both flushed per file.
+// A rerun skips the paths in the checkpoint. Delivery is at-least-once: a file cut off between the
+// two writes is analyzed again. Failed files are not checkpointed, so they are retried.
+public class BulkAnalyzer {
+    static final String USER = "bulk";
+
+    private static final Map<String, String> LANGUAGES = Map.ofEntries(
+            entry("java", "java"), entry("py", "python"),
+            entry("js", "javascript"), entry("jsx", "javascript"), entry("mjs", "javascript"),
+            entry("ts", "typescript"), entry("tsx", "typescript"),
+            entry("c", "c"), entry("h", "c"),
+            entry("cpp", "cpp"), entry("cc", "cpp"), entry("cxx", "cpp"), entry("hpp", "cpp"));
+    private static final Set<String> SKIPPED_DIRS =
+            Set.of(".git", ".idea", ".gradle", "node_modules", "target", "build", "dist", "__pycache__");
+    // DebugRequest's @Size bounds; longer files are chunked
+    private static final int MIN_SNIPPET_CHARS = 10;
+    private static final int MAX_SNIPPET_CHARS = 5000;
+    private static final int SHED_RETRIES = 5;
+    private static final ThreadLocal<CharsetDecoder> DECODERS = ThreadLocal.withInitial(() ->
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    public record Options(Path root, Path output, Path checkpoint, int parallelism, long maxFileBytes) {
+    }
+
+    public record Summary(int analyzed, int cached, int skipped, int failed, int resumed) {
+    }
+
+    private final DebugService debugService;
+    private final CacheService cacheService;
+    private final LargeFileAnalysisService largeFileAnalysisService;
+    private final ObjectMapper objectMapper;
+    private final Options options;
+
+    private final AtomicInteger analyzed = new AtomicInteger();
+    private final AtomicInteger cached = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private int resumed;
+    private BufferedWriter out;
+    private BufferedWriter checkpoint;
+
+    public BulkAnalyzer(DebugService debugService, CacheService cacheService,
+                        LargeFileAnalysisService largeFileAnalysisService, ObjectMapper objectMapper, Options options) {
+        this.debugService = debugService;
+        this.cacheService = cacheService;
+        this.largeFileAnalysisService = largeFileAnalysisService;
+        this.objectMapper = objectMapper;
+        this.options = options;
+    }
+
+    public Summary run() throws IOException, InterruptedException {
+        Set<String> done = readCheckpoint();
+        // no checkpoint means a fresh run: start the output over
+        StandardOpenOption mode = Files.exists(options.checkpoint())
+                ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        if (!done.isEmpty()) {
+            System.out.println("↩️  Resuming: " + done.size() + " files already done");
+        }
+
+        int parallelism = Math.max(1, options.parallelism());
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "Bulk-Worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try (BufferedWriter out = Files.newBufferedWriter(options.output(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+             BufferedWriter checkpoint = Files.newBufferedWriter(options.checkpoint(), StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            this.out = out;
+            this.checkpoint = checkpoint;
+
+            Files.walkFileTree(options.root(), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    boolean skip = !dir.equals(options.root()) && SKIPPED_DIRS.contains(dir.getFileName().toString());
+                    return skip ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String language = languageOf(file);
+                    if (language == null || !attrs.isRegularFile()) return FileVisitResult.CONTINUE;
+                    String path = options.root().relativize(file).toString().replace('\\', '/');
+                    if (done.contains(path)) {
+                        resumed++;
+                        return FileVisitResult.CONTINUE;
+                    }
+                    inFlight.acquireUninterruptibly();
+                    workers.execute(() -> {
+                        try {
+                            record(path, analyze(file, path, language, attrs.size()));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    System.err.println("⚠️  Cannot read " + file + ": " + e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } finally {
+            workers.shutdownNow();
+        }
+        return new Summary(analyzed.get(), cached.get(), skipped.get(), failed.get(), resumed);
+    }
+
+    private Map<String, Object> analyze(Path file, String path, String language, long bytes) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", path);
+        result.put("language", language);
+        result.put("bytes", bytes);
+        try {
+            if (bytes > options.maxFileBytes()) {
+                return skip(result, "larger than " + options.maxFileBytes() + " bytes");
+            }
+            CharBuffer code = read(file);
+            if (code.length() < MIN_SNIPPET_CHARS) {
+                return skip(result, "too short");
+            }
+            if (looksBinary(code)) {
+                return skip(result, "binary");
+            }
+            if (code.length() <= MAX_SNIPPET_CHARS) {
+                analyzeSnippet(result, language, code.toString());
+            } else {
+                analyzeChunked(result, language, code);
+            }
+            result.put("status", "ok");
+            analyzed.incrementAndGet();
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("❌ " + path + ": " + cause.getMessage());
+            result.put("status", "error");
+            result.put("error", String.valueOf(cause.getMessage()));
+            failed.incrementAndGet();
+        }
+        return result;
+    }
+
+    private void analyzeSnippet(Map<String, Object> result, String language, String code) throws Exception {
+        DebugRequest request = new DebugRequest();
+        request.setLanguage(language);
+        request.setCodeSnippet(code);
+
+        String key = cacheService.generateKey(language, code, null);
+        CachedAnalysis hit = cacheService.getRendered(key);
+        String analysis = hit == null ? null : answerOf(hit);
+        boolean fromCache = analysis != null;
+        if (fromCache) {
+            // whoever wrote the entry already made the escalation decision (and paid for it)
+            cached.incrementAndGet();
+        } else {
+            // the local report plus one LLM call for files LlmGate finds ambiguous; not analyzeAsync,
+            // which would escalate on its own and make the --ai call a second one
+            String local = await(() -> debugService.heuristicAsync(request, USER, WorkClass.BATCH));
+            // null unless the run was started with --ai and the gate escalated
+            OpenAiService.Answer answer = await(() -> debugService.llmAsync(request, USER, WorkClass.BATCH));
+            // canned fallback text (outage, quota) is no review: report the file as local only and
+            // leave it out of the cache, so the next run asks again
+            boolean fellBack = answer != null && answer.fallback();
+            String ai = answer == null || fellBack ? null : answer.text();
+            analysis = debugService.mergeAnalyses(local, ai);
+            if (!fellBack) {
+                cacheService.putRendered(key, new CachedAnalysis(key,
+                        debugService.renderResponse(language, code.length(), analysis)));
+            }
+            result.put("aiReviewed", ai != null);
+        }
+        result.put("cached", fromCache);
+        result.put("analysis", analysis);
+    }
+
+    private void analyzeChunked(Map<String, Object> result, String language, CharBuffer code) throws Exception {
+        LargeFileAnalysisService.Result chunked = null;
+        for (int attempt = 1; chunked == null; attempt++) {
+            try {
+                chunked = largeFileAnalysisService.analyze(language, null, new CharBufferReader(code.rewind()),
+                        USER, WorkClass.BATCH);
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof AnalysisScheduler.LoadShedException) || attempt >= SHED_RETRIES) throw e;
+                Thread.sleep(1000L * attempt);
+            }
+        }
+        result.put("chunks", chunked.getChunks());
+        result.put("lines", chunked.getLines());
+        result.put("findings", chunked.getFindings());
+    }
+
+    // The scheduler sheds batch work when it falls behind; a nightly run waits and tries again
+    private static <T> T await(Supplier<CompletableFuture<T>> analysis) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return analysis.get().get();
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof AnalysisScheduler.LoadShedException) || attempt >= SHED_RETRIES) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+                Thread.sleep(1000L * attempt);
+            }
+        }
+    }
+
+    private Map<String, Object> skip(Map<String, Object> result, String reason) {
+        result.put("status", "skipped");
+        result.put("reason", reason);
+        skipped.incrementAndGet();
+        return result;
+    }
+
+    private synchronized void record(String path, Map<String, Object> result) {
+        try {
+            out.write(objectMapper.writeValueAsString(result));
+            out.newLine();
+            out.flush();
+            if (!"error".equals(result.get("status"))) {
+                checkpoint.write(path);
+                checkpoint.newLine();
+                checkpoint.flush();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write results: " + e.getMessage(), e);
+        }
+    }
+
+    private Set<String> readCheckpoint() throws IOException {
+        Set<String> done = new HashSet<>();
+        if (Files.exists(options.checkpoint())) {
+            for (String line : Files.readAllLines(options.checkpoint(), StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) done.add(line);
+            }
+        }
+        return done;
+    }
+
+    private String answerOf(CachedAnalysis entry) {
+        try {
+            return objectMapper.readTree(entry.getJson()).path("analysis").textValue();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static String languageOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : LANGUAGES.get(name.substring(dot + 1).toLowerCase());
+    }
+
+    // The mapping is released when the buffer is collected; only the decoded chars outlive this call
+    private static CharBuffer read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) return CharBuffer.allocate(0);
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return DECODERS.get().reset().decode(bytes);
+        }
+    }
+
+    private static boolean looksBinary(CharBuffer code) {
+        for (int i = 0, n = Math.min(code.length(), 8192); i < n; i++) {
+            if (code.get(i) == 0) return true;
+        }
+        return false;
+    }
+
+    // Feeds the decoded file to CodeChunker without turning it into one big String
+    private static class CharBufferReader extends Reader {
+        private final CharBuffer chars;
+
+        CharBufferReader(CharBuffer chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) {
+            if (!chars.hasRemaining()) return -1;
+            int n = Math.min(len, chars.remaining());
+            chars.get(buf, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.aidebugger.cluster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Which replica owns which rendered-cache key. Peers are base URLs (http://host:port), either
+// listed in app.cluster.peers or discovered through a Redis sorted set every replica heartbeats
+// into. A peer whose call failed is skipped for app.cluster.down-ms: its keys are computed and
+// kept locally until then, so an unhealthy owner costs a cache miss, not an error.
+@Service
+public class CachePeers {
+    static final String REDIS_KEY = "cluster:cache-peers";
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean enabled;
+
+    // This replica's URL as the others reach it; must appear the same way in every peer list
+    @Value("${app.cluster.self:}")
+    private String self;
+
+    @Value("${app.cluster.peers:}")
+    private List<String> staticPeers;
+
+    // static = app.cluster.peers only; redis = those plus every replica heartbeating into Redis
+    @Value("${app.cluster.discovery:static}")
+    private String discovery;
+
+    // Shared by all replicas; sent on every internal cache call
+    @Value("${app.cluster.secret:}")
+    private String secret;
+
+    @Value("${app.cluster.refresh-ms:5000}")
+    private long refreshMs;
+
+    // A discovered peer that has not heartbeated for this long is dropped from the ring
+    @Value("${app.cluster.peer-ttl-ms:15000}")
+    private long peerTtlMs;
+
+    @Value("${app.cluster.down-ms:10000}")
+    private long downMs;
+
+    private volatile Rendezvous ring;
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+    private Counter ownerDown;
+    private ScheduledExecutorService refresher;
+
+    public CachePeers(ObjectProvider<StringRedisTemplate> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        if (self.isBlank() || secret.isBlank()) {
+            System.err.println("⚠️  app.cluster.enabled needs app.cluster.self and app.cluster.secret; cache routing is off");
+            enabled = false;
+            return;
+        }
+        self = normalize(self);
+        ring = new Rendezvous(members(staticPeers));
+        ownerDown = Counter.builder("cache.peer.owner.down").register(meterRegistry);
+        Gauge.builder("cache.peers", this, p -> p.ring.size()).register(meterRegistry);
+        System.out.println("🔗 Cache routing on: " + ring.peers());
+        if (!"redis".equalsIgnoreCase(discovery)) return;
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Cache-Peers");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (refresher == null) return;
+        refresher.shutdownNow();
+        // leave the ring now instead of after peer-ttl-ms, so the others stop routing here
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        try {
+            if (redis != null) redis.opsForZSet().remove(REDIS_KEY, self);
+        } catch (RuntimeException ignored) {
+            // shutting down anyway; the entry expires on its own
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String secret() {
+        return secret;
+    }
+
+    // Peer that owns the key, or null when this replica should serve it itself: it is the owner,
+    // routing is off, or the owner is marked down
+    public String remoteOwner(String key) {
+        Rendezvous r = ring;
+        if (r == null) return null;
+        String owner = r.owner(key);
+        if (owner == null || owner.equals(self)) return null;
+        if (isDown(owner)) {
+            ownerDown.increment();
+            return null;
+        }
+        return owner;
+    }
+
+    public void markDown(String peer) {
+        if (downUntil.put(peer, System.currentTimeMillis() + downMs) == null) {
+            System.err.println("⚠️  Cache peer " + peer + " unreachable, serving its keys locally for " + downMs + "ms");
+        }
+    }
+
+    private boolean isDown(String peer) {
+        Long until = downUntil.get(peer);
+        if (until == null) return false;
+        if (System.currentTimeMillis() < until) return true;
+        downUntil.remove(peer, until);
+        return false;
+    }
+
+    void refresh() {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) return;
+        try {
+            long now = System.currentTimeMillis();
+            ZSetOperations<String, String> zset = redis.opsForZSet();
+            zset.add(REDIS_KEY, self, now);
+            zset.removeRangeByScore(REDIS_KEY, 0, now - peerTtlMs);
+            Set<String> live = zset.rangeByScore(REDIS_KEY, now - peerTtlMs, Double.MAX_VALUE);
+            List<String> discovered = new ArrayList<>(staticPeers);
+            if (live != null) discovered.addAll(live);
+            List<String> members = members(discovered);
+            if (!members.equals(ring.peers())) {
+                ring = new Rendezvous(members);
+                System.out.println("🔗 Cache peers changed: " + members);
+            }
+        } catch (RuntimeException e) {
+            // keep routing over the last known ring
+            System.err.println("⚠️  Cache peer discovery failed: " + e.getMessage());
+        }
+    }
+
+    // Sorted and de-duplicated so every replica builds the same ring from the same set
+    private List<String> members(Collection<String> peers) {
+        Set<String> members = new TreeSet<>();
+        members.add(self);
+        for (String peer : peers) {
+            if (!peer.isBlank()) members.add(normalize(peer));
+        }
+        return List.copyOf(members);
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
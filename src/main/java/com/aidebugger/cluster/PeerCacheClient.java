@@ -0,0 +1,104 @@
+package com.aidebugger.cluster;
+
+import com.aidebugger.service.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Calls another replica's /internal/cache endpoint (see InternalCacheController). Lookups block
+// for at most app.cluster.timeout-ms (less when the request's deadline is closer); stores are
+// fire-and-forget. Any failure marks the peer down in CachePeers.
+@Component
+@RequiredArgsConstructor
+public class PeerCacheClient {
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+    public static final String PATH = "/internal/cache/";
+
+    private final WebClient.Builder webClientBuilder;
+    private final CachePeers peers;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.cluster.timeout-ms:200}")
+    private long timeoutMs;
+
+    private Counter getHit;
+    private Counter getMiss;
+    private Counter getError;
+    private Counter putOk;
+    private Counter putError;
+
+    // Built on first use, like OpenAiService's: nothing network-related exists with routing off
+    private volatile WebClient webClient;
+
+    @PostConstruct
+    void registerMetrics() {
+        getHit = counter("get", "hit");
+        getMiss = counter("get", "miss");
+        getError = counter("get", "error");
+        putOk = counter("put", "ok");
+        putError = counter("put", "error");
+    }
+
+    private Counter counter(String op, String result) {
+        return Counter.builder("cache.peer.requests").tag("op", op).tag("result", result).register(meterRegistry);
+    }
+
+    private WebClient webClient() {
+        WebClient client = webClient;
+        if (client == null) {
+            synchronized (this) {
+                if (webClient == null) {
+                    webClient = webClientBuilder.clone().defaultHeader(TOKEN_HEADER, peers.secret()).build();
+                }
+                client = webClient;
+            }
+        }
+        return client;
+    }
+
+    // The owner's rendered entry, or null on a miss or when the owner could not be reached
+    public byte[] get(String peer, String key) {
+        try {
+            byte[] json = webClient().get()
+                    .uri(peer + PATH + key)
+                    .exchangeToMono(response -> response.statusCode() == HttpStatus.NOT_FOUND
+                            ? Mono.<byte[]>empty()
+                            : response.statusCode().is2xxSuccessful()
+                            ? response.bodyToMono(byte[].class)
+                            : response.createError())
+                    .timeout(Deadline.bound(Duration.ofMillis(timeoutMs)))
+                    .contextCapture()
+                    .block();
+            (json == null ? getMiss : getHit).increment();
+            return json;
+        } catch (RuntimeException e) {
+            getError.increment();
+            // out of time on our side says nothing about the owner's health
+            if (!Deadline.currentExpired()) peers.markDown(peer);
+            return null;
+        }
+    }
+
+    public void put(String peer, String key, byte[] json) {
+        webClient().put()
+                .uri(peer + PATH + key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(json)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(timeoutMs))
+                .subscribe(ok -> putOk.increment(), e -> {
+                    putError.increment();
+                    peers.markDown(peer);
+                });
+    }
+}
@@ -0,0 +1,56 @@
+package com.aidebugger.cluster;
+
+import java.util.List;
+
+// Highest-random-weight (rendezvous) hashing over a fixed peer list: a key belongs to the peer
+// with the largest hash(peer, key). Adding or removing a peer only moves the keys that peer
+// gains or loses (about 1/N), and every node computes the same owner without coordination.
+// Immutable; membership changes build a new instance.
+public final class Rendezvous {
+    private final String[] peers;
+    private final long[] seeds;
+
+    public Rendezvous(List<String> peers) {
+        this.peers = peers.toArray(String[]::new);
+        this.seeds = new long[this.peers.length];
+        for (int i = 0; i < this.peers.length; i++) seeds[i] = fnv1a(this.peers[i]);
+    }
+
+    public String owner(String key) {
+        long k = fnv1a(key);
+        int best = -1;
+        long bestScore = 0;
+        for (int i = 0; i < peers.length; i++) {
+            long score = mix(k ^ seeds[i]);
+            if (best < 0 || Long.compareUnsigned(score, bestScore) > 0) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best < 0 ? null : peers[best];
+    }
+
+    public List<String> peers() {
+        return List.of(peers);
+    }
+
+    public int size() {
+        return peers.length;
+    }
+
+    private static long fnv1a(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // SplitMix64 finalizer: FNV alone leaves low bits poorly mixed when only the key differs
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,41 @@
+package com.aidebugger.config;
+
+import com.aidebugger.jobs.InMemoryJobQueue;
+import com.aidebugger.jobs.JobQueue;
+import com.aidebugger.jobs.RedisStreamJobQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class JobQueueConfig {
+    @Value("${app.jobs.visibility-timeout-seconds:120}")
+    private long visibilitySeconds;
+    @Value("${app.jobs.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${app.jobs.result-ttl-minutes:60}")
+    private long resultTtlMinutes;
+    // In-memory queue only: submissions beyond this many unfinished jobs are refused
+    @Value("${app.jobs.max-queued:10000}")
+    private int maxQueued;
+
+    // Durable, shared by every replica: set app.jobs.queue=redis in production
+    @Bean
+    @ConditionalOnProperty(name = "app.jobs.queue", havingValue = "redis")
+    public JobQueue redisJobQueue(StringRedisTemplate redis, ObjectMapper objectMapper) {
+        return new RedisStreamJobQueue(redis, objectMapper, Duration.ofSeconds(visibilitySeconds),
+                maxAttempts, Duration.ofMinutes(resultTtlMinutes));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.jobs.queue", havingValue = "memory", matchIfMissing = true)
+    public JobQueue inMemoryJobQueue() {
+        return new InMemoryJobQueue(Duration.ofSeconds(visibilitySeconds), maxAttempts,
+                Duration.ofMinutes(resultTtlMinutes), maxQueued);
+    }
+}
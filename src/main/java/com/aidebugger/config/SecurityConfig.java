@@ -1,6 +1,7 @@
 package com.aidebugger.config;
 
 import com.aidebugger.security.JwtAuthFilter;
+import com.aidebugger.security.RateLimitFilter;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -19,6 +20,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -37,7 +39,7 @@ public class SecurityConfig {
                                 "/", "/index",
                                 "/login", "/register", "/dashboard",
                                 "/test-api.html",
-                                "/css/**", "/js/**", "/images/**",
+                                "/css/**", "/js/**", "/images/**", "/assets/**",
                                 "/error", "/error/**"
                         ).permitAll()
                         
@@ -49,6 +51,12 @@ public class SecurityConfig {
                         // Allow OPTIONS for CORS preflight
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // Profiling and other operator endpoints: role claim from the JWT
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
+                        // Replica-to-replica cache calls: cluster token checked in InternalCacheController
+                        .requestMatchers("/internal/cache/**").permitAll()
+
                         // Everything else requires authentication
                         .anyRequest().permitAll()
                 )
@@ -79,6 +87,9 @@ public class SecurityConfig {
         // Add JWT filter BEFORE UsernamePasswordAuthenticationFilter
         http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
+        // Rate limit AFTER JWT so buckets are keyed by username when there is one
+        http.addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
+
         return http.build();
     }
     
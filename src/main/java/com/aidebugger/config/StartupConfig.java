@@ -0,0 +1,26 @@
+package com.aidebugger.config;
+
+import com.aidebugger.grpc.GrpcServer;
+import com.aidebugger.service.AnalysisScheduler;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.DebugService;
+import com.aidebugger.service.JobWorker;
+import com.aidebugger.service.OpenAiService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    // With spring.main.lazy-initialization=true (the "faststart" profile) JPA, Redis and WebClient
+    // beans are only built on first use. The analysis path stays eager: readiness depends on it
+    // and the warm-up runner exercises it anyway. Job workers and the gRPC listener must start
+    // without a first request.
+    @Bean
+    static LazyInitializationExcludeFilter eagerAnalysisBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                DebugService.class, AnalysisScheduler.class, OpenAiService.class,
+                CacheService.class, WarmupRunner.class, JobWorker.class, GrpcServer.class);
+    }
+}
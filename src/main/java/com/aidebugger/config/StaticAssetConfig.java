@@ -0,0 +1,27 @@
+package com.aidebugger.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+import java.time.Duration;
+
+@Configuration
+public class StaticAssetConfig implements WebMvcConfigurer {
+
+    // Content-hashed files written by AssetPipeline: a new build means a new URL, so they can be
+    // cached forever. EncodedResourceResolver picks the prebuilt .br/.gz by Accept-Encoding and
+    // sets Content-Encoding and Vary, so nothing is compressed per request.
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/assets/**")
+                .addResourceLocations("classpath:/static/assets/")
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new PathResourceResolver());
+    }
+}
@@ -0,0 +1,40 @@
+package com.aidebugger.config;
+
+import com.aidebugger.tracing.TailSamplingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// Spans come from Micrometer Observations (HTTP server/WebClient from Spring, the rest from
+// JwtAuthFilter, DebugController, CacheService, AnalysisScheduler and OpenAiService) and are
+// exported over OTLP once management.otlp.tracing.endpoint is set, e.g. http://localhost:4318/v1/traces.
+@Configuration
+public class TracingConfig {
+
+    // Record everything; what gets exported is decided per trace by TailSamplingSpanExporter
+    @Bean
+    public Sampler otelSampler() {
+        return Sampler.alwaysOn();
+    }
+
+    // Wraps whatever exporter Boot configured (OTLP) so sampling happens after the trace is complete
+    @Bean
+    public static BeanPostProcessor tailSamplingExporterPostProcessor(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof SpanExporter exporter) || bean instanceof TailSamplingSpanExporter) {
+                    return bean;
+                }
+                return new TailSamplingSpanExporter(exporter,
+                        env.getProperty("app.tracing.slow-threshold-ms", Long.class, 1000L),
+                        env.getProperty("app.tracing.baseline-ratio", Double.class, 0.01),
+                        env.getProperty("app.tracing.max-pending-traces", Integer.class, 10_000),
+                        env.getProperty("app.tracing.trace-timeout-ms", Long.class, 60_000L));
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.aidebugger.config;
+
+import com.aidebugger.service.DebugService;
+import com.aidebugger.service.OpenAiService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Runs before the readiness state flips to ACCEPTING_TRAFFIC (Spring Boot only marks the app
+// ready after all runners finish), so a new pod gets its analyzers JIT-compiled and its
+// upstream connection pooled before the load balancer sends it anything. Off unless
+// app.warmup.enabled=true (the faststart profile sets it): local runs and tests start right away.
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true", matchIfMissing = false)
+public class WarmupRunner implements ApplicationRunner {
+    private final DebugService debugService;
+    private final OpenAiService openAiService;
+
+    @Value("${app.warmup.iterations:1000}")
+    private int iterations;
+
+    private static final Map<String, String> SAMPLES = Map.of(
+            "java", """
+                    public class Sample {
+                        public int ratio(int a, int b) {
+                            String s = null;
+                            return a / b + s.length();
+                        }
+                    }
+                    """,
+            "python", """
+                    import json
+                    def ratio(a, b):
+                        print(a / b)
+                        return a / 0
+                    """,
+            "javascript", """
+                    var total = 0;
+                    async function load() {
+                        const r = await fetch('/api');
+                        console.log(r);
+                    }
+                    """,
+            "cpp", """
+                    int* make() {
+                        int* p = new int[10];
+                        throw 1;
+                        return p;
+                    }
+                    """,
+            "go", """
+                    func main() {
+                        fmt.Println("hello")
+                    }
+                    """);
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+
+        openAiService.warmUpConnection();
+
+        int ops = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (Map.Entry<String, String> sample : SAMPLES.entrySet()) {
+                ops += debugService.warmUp(sample.getKey(), sample.getValue());
+            }
+        }
+
+        System.out.println("🔥 Warm-up finished: " + ops + " analyses in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+}
@@ -0,0 +1,31 @@
+package com.aidebugger.config;
+
+import com.aidebugger.controller.LiveAnalysisSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+    private final LiveAnalysisSocketHandler liveAnalysisSocketHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(liveAnalysisSocketHandler, "/ws/debug")
+                .setAllowedOrigins("http://localhost:8080");
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        // Opening a session carries the full buffer; edits after that are tiny
+        container.setMaxTextMessageBufferSize(512 * 1024);
+        return container;
+    }
+}
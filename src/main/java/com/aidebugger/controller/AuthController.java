@@ -15,21 +15,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     private final AuthService authService;
 
-    // ========== HTML PAGES ==========
-    @GetMapping("/")
-    public String index() { return "index.html"; }
-
-    @GetMapping("/index")
-    public String index2() { return "index.html"; }
-
-    @GetMapping("/login")
-    public String loginPage() { return "login.html"; }
-
-    @GetMapping("/register")
-    public String registerPage() { return "register.html"; }
-
-    @GetMapping("/dashboard")
-    public String dashboard() { return "dashboard.html"; }
+    // HTML pages are served by PageController
 
     // ========== API ENDPOINTS ==========
     // MUST return JSON, not HTML!
@@ -1,17 +1,54 @@
 package com.aidebugger.controller;
 
 import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.profiling.AnalysisEvent;
+import com.aidebugger.profiling.AnalysisEvents;
+import com.aidebugger.service.AnalysisScheduler;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.CachedAnalysis;
+import com.aidebugger.service.Deadline;
 import com.aidebugger.service.DebugService;
+import com.aidebugger.service.LargeFileAnalysisService;
 import com.aidebugger.service.OpenAiService;
+import com.aidebugger.service.WorkClass;
+import com.aidebugger.util.ContentCoding;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,10 +57,80 @@ import java.util.stream.Collectors;
 public class DebugController {
     private final DebugService debugService;
     private final OpenAiService openAiService;
+    private final LargeFileAnalysisService largeFileAnalysisService;
+    private final CacheService cacheService;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${app.chunk.max-file-bytes:2097152}")
+    private long maxFileBytes;
+
+    // Per-endpoint deadlines when the client sends no X-Request-Timeout-Ms; client values are capped at max-ms
+    @Value("${app.deadline.analyze-ms:30000}")
+    private long analyzeDeadlineMs;
+
+    @Value("${app.deadline.stream-ms:90000}")
+    private long streamDeadlineMs;
+
+    @Value("${app.deadline.file-ms:120000}")
+    private long fileDeadlineMs;
+
+    @Value("${app.deadline.max-ms:300000}")
+    private long maxDeadlineMs;
+
+    // Comment lines on SSE streams that are waiting for the LLM: a failed write is how a closed
+    // connection shows up, and it cancels the analysis instead of finishing it for nobody
+    @Value("${app.deadline.sse-heartbeat-ms:5000}")
+    private long heartbeatMs;
+
+    private ScheduledExecutorService heartbeats;
+
+    @PostConstruct
+    void start() {
+        heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SSE-Heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+    }
 
     @PostMapping("/analyze")
     public ResponseEntity<?> analyze(@Valid @RequestBody DebugRequest request, 
-                                   BindingResult bindingResult) {
+                                   BindingResult bindingResult,
+                                   @RequestHeader(value = "X-Analysis-Priority", required = false) String priority,
+                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                   @RequestHeader(value = Deadline.HEADER, required = false) String timeout) {
+        Deadline deadline = Deadline.fromHeader(timeout, analyzeDeadlineMs, maxDeadlineMs);
+        WorkClass workClass = workClass(priority, WorkClass.INTERACTIVE);
+        // Parent span for the cache lookup, the scheduler hand-off and the analysis itself
+        Observation observation = Observation.start("debug.analyze", observationRegistry)
+                .lowCardinalityKeyValue("priority", workClass.name().toLowerCase());
+        try (Observation.Scope ignored = observation.openScope()) {
+            AnalysisEvent event = AnalysisEvents.start("rest", request.getLanguage(), length(request.getCodeSnippet()),
+                    workClass.name().toLowerCase());
+            String status = "error";
+            try (AnalysisEvents.Scope eventScope = AnalysisEvents.open(event);
+                 Deadline.Scope deadlineScope = Deadline.open(deadline)) {
+                ResponseEntity<?> response = analyzeObserved(request, bindingResult, workClass, ifNoneMatch,
+                        acceptEncoding, deadline);
+                status = String.valueOf(response.getStatusCode().value());
+                observation.lowCardinalityKeyValue("status", status);
+                return response;
+            } finally {
+                AnalysisEvents.finish(event, status);
+            }
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private ResponseEntity<?> analyzeObserved(DebugRequest request, BindingResult bindingResult, WorkClass workClass,
+                                              String ifNoneMatch, String acceptEncoding, Deadline deadline) {
         
         // Check for validation errors
         if (bindingResult.hasErrors()) {
@@ -37,6 +144,20 @@ public class DebugController {
             return ResponseEntity.badRequest().body(errorResponse);
         }
         
+        if (deadline.isExpired()) {
+            return deadlineExceeded("Request deadline passed before analysis started");
+        }
+
+        // Cache hit: the response was serialized when it was computed, just send the bytes
+        String key = cacheService.generateKey(request.getLanguage(), request.getCodeSnippet(), request.getContext());
+        CachedAnalysis cached = cacheService.getRendered(key);
+        if (cached != null) {
+            AnalysisEvents.cacheOutcome("hit");
+            return cachedResponse(cached, ifNoneMatch, acceptEncoding);
+        }
+        AnalysisEvents.cacheOutcome("miss");
+
+        CompletableFuture<DebugService.Result<byte[]>> analysis = null;
         try {
             System.out.println("\n=== 📨 DEBUG REQUEST RECEIVED ===");
             System.out.println("👤 Language: " + request.getLanguage());
@@ -44,20 +165,42 @@ public class DebugController {
             System.out.println("📋 Context: " + request.getContext());
             System.out.println("⏱️  Timestamp: " + new Date());
             
-            // Call the service asynchronously
-            String answer = debugService.analyzeAsync(request).get();
+            // Call the service asynchronously; it hands back the finished JSON body. Waiting stops at
+            // the deadline, and cancelling drops the task from the queue or interrupts it mid-run.
+            analysis = debugService.analyzeRenderedAsync(request, currentUser(), workClass);
+            DebugService.Result<byte[]> body = analysis.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
             
             System.out.println("✅ Request processed successfully");
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("timestamp", new Date());
-            response.put("language", request.getLanguage());
-            response.put("analysis", answer);
-            response.put("charactersProcessed", request.getCodeSnippet().length());
-            
-            return ResponseEntity.ok(response);
-            
+
+            if (!body.cacheable()) {
+                // fallback or error text is for this caller, now: cached, it would be every user's
+                // answer for this snippet across restarts and replicas. No ETag either, since the
+                // key's tag will later stand for the real analysis.
+                return ResponseEntity.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body.value());
+            }
+            CachedAnalysis rendered = new CachedAnalysis(key, body.value());
+            cacheService.putRendered(key, rendered);
+            return cachedResponse(rendered, null, acceptEncoding);
+            
+        } catch (TimeoutException e) {
+            analysis.cancel(true);
+            return deadlineExceeded("Request deadline passed while the analysis was queued or running");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AnalysisScheduler.LoadShedException shed) {
+                return overloaded(shed);
+            }
+            if (e.getCause() instanceof Deadline.ExceededException exceeded) {
+                return deadlineExceeded(exceeded.getMessage());
+            }
+            System.err.println("❌ Error in debug controller: " + e.getMessage());
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("error", "Server error: " + e.getCause().getMessage());
+            error.put("timestamp", new Date());
+            return ResponseEntity.internalServerError().body(error);
         } catch (Exception e) {
             System.err.println("❌ Error in debug controller: " + e.getMessage());
             e.printStackTrace();
@@ -72,6 +215,220 @@ public class DebugController {
         }
     }
 
+    // Progressive analysis over SSE: the heuristic report goes out as soon as it is ready (ms),
+    // the LLM analysis follows on the same connection, then the merged report.
+    //   event: heuristic  -> {"analysis": "..."}
+    //   event: ai         -> {"analysis": "..."}        (only when an LLM backend is available)
+    //   event: complete   -> {"analysis": "<merged>", "upgraded": true|false}
+    @PostMapping(value = "/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter analyzeStream(@Valid @RequestBody DebugRequest request,
+                                    @RequestHeader(value = "X-Analysis-Priority", required = false) String priority,
+                                    @RequestHeader(value = Deadline.HEADER, required = false) String timeout) {
+        Deadline deadline = Deadline.fromHeader(timeout, streamDeadlineMs, maxDeadlineMs);
+        SseEmitter emitter = new SseEmitter(Math.max(1, deadline.remainingMillis()));
+        String user = currentUser();
+        WorkClass workClass = workClass(priority, WorkClass.INTERACTIVE);
+
+        AnalysisEvent event = AnalysisEvents.start("sse", request.getLanguage(), request.getCodeSnippet().length(),
+                workClass.name().toLowerCase());
+        event.cacheOutcome = "bypass";
+
+        // Both start now; neither waits for the other. These are the scheduler's own futures:
+        // cancelling a derived stage would leave the task and its upstream call running.
+        CompletableFuture<String> heuristic;
+        CompletableFuture<OpenAiService.Answer> llm;
+        try (AnalysisEvents.Scope ignored = AnalysisEvents.open(event);
+             Deadline.Scope deadlineScope = Deadline.open(deadline)) {
+            heuristic = debugService.heuristicAsync(request, user, workClass);
+            llm = debugService.llmAsync(request, user, workClass);
+        }
+
+        heuristic.thenAccept(h -> sendEvent(emitter, "heuristic", Map.of("analysis", h)))
+                .thenCombine(llm.exceptionally(e -> null), (ignored, ai) -> ai == null ? null : ai.text())
+                .thenAccept(ai -> {
+                    String h = heuristic.join();
+                    if (ai != null) {
+                        sendEvent(emitter, "ai", Map.of("analysis", ai));
+                    }
+                    sendEvent(emitter, "complete", Map.of(
+                            "analysis", debugService.mergeAnalyses(h, ai),
+                            "upgraded", ai != null));
+                    emitter.complete();
+                    AnalysisEvents.finish(event, ai != null ? "upgraded" : "heuristic");
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    AnalysisEvents.finish(event, "error");
+                    sendEvent(emitter, "error", Map.of("error", String.valueOf(cause.getMessage())));
+                    emitter.complete();
+                    return null;
+                });
+
+        // Client went away or the deadline passed: drop queued work and interrupt the upstream call
+        Runnable cancel = () -> {
+            heuristic.cancel(true);
+            llm.cancel(true);
+        };
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleWithFixedDelay(() -> {
+            try {
+                emitter.send(SseEmitter.event().comment("waiting"));
+            } catch (IOException | IllegalStateException e) {
+                cancel.run();
+                throw new CompletionException(e);
+            }
+        }, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+        // also how a container reports a dropped connection; a no-op once both futures are done
+        emitter.onCompletion(() -> {
+            heartbeat.cancel(false);
+            cancel.run();
+        });
+        return emitter;
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // Large files: raw source as the request body, split into chunks and analyzed in parallel.
+    // The body is decoded straight off the socket, never buffered as a whole String.
+    @PostMapping(value = "/analyze-file", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> analyzeFile(@RequestParam String language,
+                                         @RequestParam(required = false) String context,
+                                         @RequestHeader(value = "X-Analysis-Priority", required = false) String priority,
+                                         HttpServletRequest servletRequest) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (servletRequest.getContentLengthLong() > maxFileBytes) {
+            response.put("status", "error");
+            response.put("error", "File too large (max " + maxFileBytes + " bytes)");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+        }
+
+        Deadline deadline = Deadline.fromHeader(servletRequest.getHeader(Deadline.HEADER), fileDeadlineMs, maxDeadlineMs);
+        try (Reader reader = new InputStreamReader(
+                new LimitedInputStream(servletRequest.getInputStream(), maxFileBytes), StandardCharsets.UTF_8);
+             Deadline.Scope ignored = Deadline.open(deadline)) {
+
+            LargeFileAnalysisService.Result result = largeFileAnalysisService.analyze(
+                    language, context, reader, currentUser(), workClass(priority, WorkClass.BATCH));
+
+            response.put("status", "success");
+            response.put("timestamp", new Date());
+            response.put("language", language);
+            response.put("chunks", result.getChunks());
+            response.put("linesProcessed", result.getLines());
+            response.put("findings", result.getFindings());
+            return ResponseEntity.ok(response);
+
+        } catch (FileTooLargeException e) {
+            response.put("status", "error");
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+        } catch (Exception e) {
+            // chunk failures arrive wrapped; only shedding and deadlines get their own status
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof AnalysisScheduler.LoadShedException shed) {
+                return overloaded(shed);
+            }
+            if (cause instanceof Deadline.ExceededException exceeded) {
+                return deadlineExceeded(exceeded.getMessage());
+            }
+            System.err.println("❌ Error in chunked analysis: " + cause.getMessage());
+
+            response.put("status", "error");
+            response.put("error", "Server error: " + cause.getMessage());
+            response.put("timestamp", new Date());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    private ResponseEntity<?> cachedResponse(CachedAnalysis cached, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = ContentCoding.negotiate(acceptEncoding, "gzip", ContentCoding.IDENTITY).equals("gzip");
+        String etag = ContentCoding.etag(cached.getEtag(), gzip ? "gzip" : ContentCoding.IDENTITY);
+        if (ContentCoding.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzip ? cached.getGzip() : cached.getJson());
+    }
+
+    private ResponseEntity<?> overloaded(AnalysisScheduler.LoadShedException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("error", "Server busy: " + e.getMessage());
+        error.put("timestamp", new Date());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(error);
+    }
+
+    private ResponseEntity<?> deadlineExceeded(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("error", message);
+        error.put("timestamp", new Date());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    // /analyze and the stream default to INTERACTIVE, file uploads to BATCH; see WorkClass.resolve
+    private static WorkClass workClass(String priority, WorkClass endpoint) {
+        return WorkClass.resolve(priority, endpoint, currentUser() != null);
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken) return null;
+        return auth.getName();
+    }
+
+    private static class FileTooLargeException extends IOException {
+        FileTooLargeException(long limit) {
+            super("File too large (max " + limit + " bytes)");
+        }
+    }
+
+    // Guards chunked/unknown-length uploads that slip past the Content-Length check
+    private static class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long read;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && ++read > limit) throw new FileTooLargeException(limit);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0 && (read += n) > limit) throw new FileTooLargeException(limit);
+            return n;
+        }
+    }
+
     // ========== TEST ENDPOINTS ==========
     
     @GetMapping("/test-ai-connection")
@@ -169,6 +526,8 @@ public class DebugController {
         health.put("developer", "Aakash B.R");
         health.put("endpoints", Map.of(
             "analyze", "POST /api/debug/analyze",
+            "analyzeStream", "POST /api/debug/analyze/stream",
+            "analyzeFile", "POST /api/debug/analyze-file?language=",
             "testAI", "GET /api/debug/test-ai-connection",
             "quickTest", "GET /api/debug/quick-test",
             "health", "GET /api/debug/health"
@@ -0,0 +1,70 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.cluster.CachePeers;
+import com.aidebugger.cluster.PeerCacheClient;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.CachedAnalysis;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Replica-to-replica access to the rendered cache entries this node owns (see CachePeers). Not
+// behind JWT: callers present app.cluster.secret in X-Cluster-Token instead. Only this node's
+// entries are read or written, so a request is never forwarded a second time.
+@RestController
+@RequestMapping("/internal/cache")
+@RequiredArgsConstructor
+public class InternalCacheController {
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final CacheService cacheService;
+    private final CachePeers peers;
+
+    @GetMapping("/{key}")
+    public ResponseEntity<?> get(@PathVariable String key,
+                                 @RequestHeader(value = PeerCacheClient.TOKEN_HEADER, required = false) String token) {
+        ResponseEntity<?> rejected = reject(key, token);
+        if (rejected != null) return rejected;
+        CachedAnalysis cached = cacheService.getRenderedLocal(key);
+        if (cached == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cached.getJson());
+    }
+
+    @PutMapping("/{key}")
+    public ResponseEntity<?> put(@PathVariable String key,
+                                 @RequestHeader(value = PeerCacheClient.TOKEN_HEADER, required = false) String token,
+                                 @RequestBody byte[] json) {
+        ResponseEntity<?> rejected = reject(key, token);
+        if (rejected != null) return rejected;
+        if (json.length == 0) return error(HttpStatus.BAD_REQUEST, "Empty entry");
+        cacheService.putRenderedLocal(key, new CachedAnalysis(key, json));
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<?> reject(String key, String token) {
+        if (!peers.isEnabled()) return ResponseEntity.notFound().build();
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                peers.secret().getBytes(StandardCharsets.UTF_8))) {
+            return error(HttpStatus.FORBIDDEN, "Invalid cluster token");
+        }
+        if (!KEY.matcher(key).matches()) return error(HttpStatus.BAD_REQUEST, "Invalid cache key");
+        return null;
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("error", message);
+        error.put("timestamp", new Date());
+        return ResponseEntity.status(status).body(error);
+    }
+}
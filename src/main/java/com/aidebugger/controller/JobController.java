@@ -0,0 +1,134 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.JobStatus;
+import com.aidebugger.jobs.JobQueue;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Asynchronous analysis: submit returns 202 + a job id right away, the work runs on whichever
+// replica's JobWorker picks it up, and the result is fetched (optionally long-polling) by id.
+@RestController
+@RequestMapping("/api/debug/jobs")
+@RequiredArgsConstructor
+public class JobController {
+    private static final long POLL_INTERVAL_MS = 250;
+    private static final long MAX_WAIT_MS = 30_000;
+
+    private final JobQueue jobQueue;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Job-Poll");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PreDestroy
+    void stop() {
+        poller.shutdownNow();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> submit(@Valid @RequestBody DebugRequest request, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("error", bindingResult.getAllErrors().stream()
+                    .map(e -> e.getDefaultMessage())
+                    .collect(Collectors.joining(", ")));
+            error.put("timestamp", new Date());
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        String id;
+        try {
+            id = jobQueue.enqueue(request, currentUser());
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("error", e.getMessage());
+            error.put("timestamp", new Date());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("jobId", id);
+        body.put("state", JobStatus.QUEUED);
+        body.put("statusUrl", "/api/debug/jobs/" + id);
+        return ResponseEntity.accepted().location(URI.create("/api/debug/jobs/" + id)).body(body);
+    }
+
+    // waitMs > 0 holds the request (without a servlet thread) until the job finishes or the wait runs out
+    @GetMapping("/{id}")
+    public DeferredResult<ResponseEntity<?>> status(@PathVariable String id,
+                                                    @RequestParam(defaultValue = "0") long waitMs) {
+        long wait = Math.max(0, Math.min(waitMs, MAX_WAIT_MS));
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(wait + 5_000);
+        // captured here: the rechecks run on the poller thread, outside the request's security context
+        String user = currentUser();
+        JobStatus status = ownStatus(id, user);
+        if (status == null || status.isFinished() || wait == 0) {
+            result.setResult(toResponse(id, status));
+            return result;
+        }
+        long deadline = System.currentTimeMillis() + wait;
+        poller.schedule(() -> recheck(id, user, deadline, result), POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private void recheck(String id, String user, long deadline, DeferredResult<ResponseEntity<?>> result) {
+        if (result.isSetOrExpired()) return;
+        try {
+            JobStatus status = ownStatus(id, user);
+            if (status == null || status.isFinished() || System.currentTimeMillis() >= deadline) {
+                result.setResult(toResponse(id, status));
+            } else {
+                poller.schedule(() -> recheck(id, user, deadline, result), POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            result.setErrorResult(e);
+        }
+    }
+
+    // Someone else's job answers exactly like an unknown one, so ids can't be probed
+    private JobStatus ownStatus(String id, String user) {
+        JobStatus status = jobQueue.getStatus(id);
+        return status != null && Objects.equals(status.getOwner(), user) ? status : null;
+    }
+
+    private static ResponseEntity<?> toResponse(String id, JobStatus status) {
+        if (status == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("error", "Unknown or expired job: " + id);
+            error.put("timestamp", new Date());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken) return null;
+        return auth.getName();
+    }
+}
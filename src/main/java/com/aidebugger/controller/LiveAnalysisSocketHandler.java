@@ -0,0 +1,122 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.service.LiveAnalysisService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Editor integration protocol (JSON text frames):
+//   -> {"type":"open","language":"java","context":"...","text":"<full buffer>"}
+//   -> {"type":"edit","changes":[{"offset":120,"deleteCount":3,"insert":"foo"}]}
+//   <- {"type":"analysis","version":7,"findings":[...],"regions":12,"regionsReanalyzed":1}
+//   <- {"type":"ai","version":7,"analysis":"..."}
+//   <- {"type":"error","error":"..."}
+// Only LLM calls take a token from the client's rate-limit bucket (shared with its REST calls).
+// While the client is over its limit, analysis messages carry "aiRetryAfterMs" and the AI upgrade
+// waits until a later analysis after that time.
+@Component
+@RequiredArgsConstructor
+public class LiveAnalysisSocketHandler extends TextWebSocketHandler {
+    private static final CloseStatus IDLE = new CloseStatus(4000, "Idle timeout");
+
+    private final LiveAnalysisService liveAnalysisService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // Replies come from debounce/executor threads, so sends must be serialized
+        sessions.put(session.getId(), new ConcurrentWebSocketSessionDecorator(session, 5000, 512 * 1024));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession raw, TextMessage message) throws IOException {
+        WebSocketSession session = sessions.get(raw.getId());
+        try {
+            JsonNode root = objectMapper.readTree(message.getPayload());
+            String type = root.path("type").asText();
+
+            switch (type) {
+                case "open" -> {
+                    String language = root.path("language").asText("");
+                    if (language.isBlank()) {
+                        sendError(session, "language is required");
+                        return;
+                    }
+                    String user = session.getPrincipal() == null ? null : session.getPrincipal().getName();
+                    // same keys as RateLimitFilter
+                    String clientKey = user != null ? "user:" + user : "ip:" + remoteAddress(session);
+                    liveAnalysisService.open(session.getId(), user, clientKey, language,
+                            root.path("context").asText(null),
+                            root.path("text").asText(""),
+                            payload -> send(session, payload),
+                            () -> closeQuietly(session, IDLE));
+                }
+                case "edit" -> {
+                    for (JsonNode change : root.path("changes")) {
+                        liveAnalysisService.edit(session.getId(),
+                                change.path("offset").asInt(),
+                                change.path("deleteCount").asInt(0),
+                                change.path("insert").asText(""));
+                    }
+                }
+                case "close" -> closeQuietly(session, CloseStatus.NORMAL);
+                default -> sendError(session, "Unknown message type: " + type);
+            }
+        } catch (LiveAnalysisService.SessionLimitException e) {
+            sendError(session, e.getMessage());
+            closeQuietly(session, CloseStatus.POLICY_VIOLATION);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Out-of-sync edits: the client should re-open with its full buffer
+            sendError(session, e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+        liveAnalysisService.close(session.getId());
+    }
+
+    private static String remoteAddress(WebSocketSession session) {
+        InetSocketAddress address = session.getRemoteAddress();
+        if (address == null) return "unknown";
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    private void send(WebSocketSession session, Map<String, Object> payload) {
+        if (!session.isOpen()) return;
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(payload)));
+        } catch (IOException e) {
+            System.err.println("❌ Live session send failed: " + e.getMessage());
+        }
+    }
+
+    private void sendError(WebSocketSession session, String error) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "error");
+        payload.put("error", error);
+        send(session, payload);
+    }
+
+    private void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException ignored) {
+        }
+    }
+}
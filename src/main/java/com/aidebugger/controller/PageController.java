@@ -0,0 +1,118 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.util.ContentCoding;
+import com.aidebugger.util.HashUtil;
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// The HTML pages have no server-side state, so they are loaded once at startup (as rewritten
+// and precompressed by AssetPipeline) and served as bytes: no view resolution, no template
+// engine, no per-request compression. no-cache + ETag lets browsers revalidate cheaply, which
+// is what picks up new asset URLs after a deploy; each encoding has its own ETag.
+@Controller
+public class PageController {
+    private static final String[] PAGES = {"index", "login", "register", "dashboard"};
+
+    private final Map<String, Page> pages = new HashMap<>();
+
+    private record Page(String etag, byte[] html, byte[] gzip, byte[] brotli) {}
+
+    @PostConstruct
+    void load() {
+        for (String name : PAGES) {
+            byte[] html = read("pages/" + name + ".html");
+            if (html == null) {
+                throw new IllegalStateException("Missing page pages/" + name + ".html");
+            }
+            byte[] gzip = read("pages/" + name + ".html.gz");
+            pages.put(name, new Page("\"" + HashUtil.sha256(html).substring(0, 16) + "\"", html,
+                    gzip != null ? gzip : gzip(html), read("pages/" + name + ".html.br")));
+        }
+    }
+
+    @GetMapping({"/", "/index"})
+    public ResponseEntity<byte[]> index(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve("index", ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/login")
+    public ResponseEntity<byte[]> login(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve("login", ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/register")
+    public ResponseEntity<byte[]> register(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve("register", ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/dashboard")
+    public ResponseEntity<byte[]> dashboard(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve("dashboard", ifNoneMatch, acceptEncoding);
+    }
+
+    private ResponseEntity<byte[]> serve(String name, String ifNoneMatch, String acceptEncoding) {
+        Page page = pages.get(name);
+        String coding = page.brotli() != null
+                ? ContentCoding.negotiate(acceptEncoding, "br", "gzip", ContentCoding.IDENTITY)
+                : ContentCoding.negotiate(acceptEncoding, "gzip", ContentCoding.IDENTITY);
+        String etag = ContentCoding.etag(page.etag(), coding);
+        if (ContentCoding.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8));
+        return switch (coding) {
+            case "br" -> builder.header(HttpHeaders.CONTENT_ENCODING, "br").body(page.brotli());
+            case "gzip" -> builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(page.gzip());
+            default -> builder.body(page.html());
+        };
+    }
+
+    private static byte[] read(String path) {
+        ClassPathResource resource = new ClassPathResource(path);
+        if (!resource.exists()) return null;
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
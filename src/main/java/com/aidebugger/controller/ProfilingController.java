@@ -0,0 +1,80 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.profiling.ProfilingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+// On-demand JFR recording; ADMIN role only (see SecurityConfig). Open the dump in JDK Mission Control
+// or `jfr print --events com.aidebugger.Analysis <file>`.
+@RestController
+@RequestMapping("/api/admin/profiling")
+@RequiredArgsConstructor
+public class ProfilingController {
+    private final ProfilingService profilingService;
+
+    @GetMapping
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(profilingService.status());
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<?> start(@RequestParam(defaultValue = "default") String settings,
+                                   @RequestParam(defaultValue = "10") long minutes) {
+        try {
+            return ResponseEntity.ok(profilingService.start(settings, minutes));
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("❌ Could not start JFR recording: " + e.getMessage());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Could not start recording: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<?> stop() {
+        try {
+            return ResponseEntity.ok(profilingService.stop());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/dump")
+    public ResponseEntity<?> dump() {
+        try {
+            Path file = profilingService.dump();
+            System.out.println("💾 JFR dump written to " + file);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                    .body(new FileSystemResource(file));
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("❌ JFR dump failed: " + e.getMessage());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Dump failed: " + e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("error", message);
+        error.put("timestamp", new Date());
+        return ResponseEntity.status(status).body(error);
+    }
+}
@@ -0,0 +1,52 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.entity.TokenUsage;
+import com.aidebugger.service.UsageMeter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/usage")
+@RequiredArgsConstructor
+public class UsageController {
+    private final UsageMeter usageMeter;
+
+    // Daily rollups for the caller (up to the last flush) plus today's running total and budget
+    @GetMapping("/me")
+    public ResponseEntity<?> myUsage(@RequestParam(defaultValue = "7") int days) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Unauthorized - Please login"));
+        }
+        String user = auth.getName();
+
+        List<Map<String, Object>> daily = new ArrayList<>();
+        for (TokenUsage u : usageMeter.history(user, Math.max(1, Math.min(days, 90)))) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("day", u.getDay().toString());
+            row.put("model", u.getModel());
+            row.put("requests", u.getRequests());
+            row.put("promptTokens", u.getPromptTokens());
+            row.put("completionTokens", u.getCompletionTokens());
+            row.put("avgLatencyMs", u.getRequests() == 0 ? 0 : u.getLatencyMs() / u.getRequests());
+            daily.add(row);
+        }
+
+        long budget = usageMeter.getDailyTokenBudget();
+        long used = usageMeter.usedToday(user);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("user", user);
+        body.put("tokensToday", used);
+        body.put("dailyBudget", budget > 0 ? budget : null);
+        body.put("remainingToday", budget > 0 ? Math.max(0, budget - used) : null);
+        body.put("daily", daily);
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,14 @@
+package com.aidebugger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class Finding {
+    private int startLine;
+    private int endLine;
+    private String title;
+    private String detail;
+    private String source;   // "heuristic" or "ai"
+}
@@ -0,0 +1,30 @@
+package com.aidebugger.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// "finished" is derived; it is written out with the rest but not read back
+@Data @NoArgsConstructor @AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JobStatus {
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String DEAD = "DEAD";
+
+    private String id;
+    private String state;
+    private String analysis;
+    private String error;
+    private int attempts;
+    private long submittedAt;
+    private long updatedAt;
+    // who submitted it (null = anonymous); only they can read it back
+    private String owner;
+
+    public boolean isFinished() {
+        return DONE.equals(state) || DEAD.equals(state);
+    }
+}
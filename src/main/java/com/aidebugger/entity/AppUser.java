@@ -19,4 +19,8 @@ public class AppUser {
 
     @Column(nullable=false)
     private String role = "USER";
+
+    // Revocation generation carried in every JWT; bumping it logs the user out everywhere (null = 0)
+    @Column(name = "token_epoch")
+    private Long tokenEpoch;
 }
@@ -0,0 +1,38 @@
+package com.aidebugger.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Daily rollup of upstream LLM usage per user and model
+@Entity
+@Table(name = "token_usage",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"username", "model", "usage_day"}))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class TokenUsage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable=false, length=100)
+    private String username;
+
+    @Column(nullable=false, length=100)
+    private String model;
+
+    @Column(name = "usage_day", nullable=false)
+    private LocalDate day;
+
+    @Column(nullable=false)
+    private long requests;
+
+    @Column(name = "prompt_tokens", nullable=false)
+    private long promptTokens;
+
+    @Column(name = "completion_tokens", nullable=false)
+    private long completionTokens;
+
+    @Column(name = "latency_ms", nullable=false)
+    private long latencyMs;
+}
@@ -0,0 +1,271 @@
+package com.aidebugger.grpc;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.grpc.proto.AnalyzeRequest;
+import com.aidebugger.grpc.proto.AnalyzeResponse;
+import com.aidebugger.grpc.proto.DebuggerGrpc;
+import com.aidebugger.profiling.AnalysisEvent;
+import com.aidebugger.profiling.AnalysisEvents;
+import com.aidebugger.security.RateLimiterService;
+import com.aidebugger.service.AnalysisScheduler;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.CachedAnalysis;
+import com.aidebugger.service.Deadline;
+import com.aidebugger.service.DebugService;
+import com.aidebugger.service.WorkClass;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Context;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Bidirectional Analyze stream. Each request runs like POST /api/debug/analyze: same validation,
+// same rendered cache (entries written here are served by REST and the other way round), same
+// AnalysisScheduler. Inbound flow control is manual: at most maxInFlight files per stream are
+// read off the connection before their answers have been sent, so a CI agent pushing a whole
+// repository is paced by how fast we analyze rather than buffered in memory. Outbound works the
+// same way: more input is only requested while the client is reading answers (isReady), so a
+// slow reader stops the stream instead of piling answers up in our send buffer. Every file
+// takes one token from the caller's RateLimiterService bucket, like one REST request.
+@Component
+@RequiredArgsConstructor
+public class DebuggerGrpcService extends DebuggerGrpc.DebuggerImplBase {
+    private final DebugService debugService;
+    private final CacheService cacheService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final RateLimiterService rateLimiterService;
+
+    @Value("${app.grpc.max-in-flight:32}")
+    private int maxInFlight;
+
+    // Per file; the call's own deadline applies too when the client set one
+    @Value("${app.grpc.file-deadline-ms:60000}")
+    private long fileDeadlineMs;
+
+    @Override
+    public StreamObserver<AnalyzeRequest> analyze(StreamObserver<AnalyzeResponse> responseObserver) {
+        ServerCallStreamObserver<AnalyzeResponse> out = (ServerCallStreamObserver<AnalyzeResponse>) responseObserver;
+        AnalyzeStream stream = new AnalyzeStream(out, JwtServerInterceptor.USER.get());
+        out.disableAutoRequest();
+        out.setOnCancelHandler(stream::cancel);
+        out.setOnReadyHandler(stream::onReady);
+        out.request(maxInFlight);
+        return stream;
+    }
+
+    private class AnalyzeStream implements StreamObserver<AnalyzeRequest> {
+        private final ServerCallStreamObserver<AnalyzeResponse> out;
+        private final String user;
+        private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+        private boolean halfClosed;
+        private boolean done;
+        // input requests held back while the client is not reading our answers
+        private int owed;
+
+        AnalyzeStream(ServerCallStreamObserver<AnalyzeResponse> out, String user) {
+            this.out = out;
+            this.user = user;
+        }
+
+        @Override
+        public void onNext(AnalyzeRequest request) {
+            CompletableFuture<AnalyzeResponse> result = analyzeOne(request, user);
+            pending.add(result);
+            result.whenComplete((response, e) -> completed(result, response));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            cancel();
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                halfClosed = true;
+                finishIfDrained();
+            }
+        }
+
+        // Client went away: nobody is waiting for the queued analyses any more
+        void cancel() {
+            synchronized (this) {
+                done = true;
+            }
+            pending.forEach(f -> f.cancel(false));
+        }
+
+        // StreamObserver is not thread-safe and answers complete on scheduler threads
+        private synchronized void completed(CompletableFuture<?> result, AnalyzeResponse response) {
+            pending.remove(result);
+            if (done) return;
+            if (response != null) {
+                try {
+                    out.onNext(response);
+                    owed++;
+                    requestOwed();
+                } catch (StatusRuntimeException e) {
+                    done = true;
+                    return;
+                }
+            }
+            finishIfDrained();
+        }
+
+        // The client drained its side: the requests held back in completed() can go out now
+        synchronized void onReady() {
+            if (!done) requestOwed();
+        }
+
+        private void requestOwed() {
+            if (owed > 0 && !halfClosed && out.isReady()) {
+                out.request(owed);
+                owed = 0;
+            }
+        }
+
+        private void finishIfDrained() {
+            if (halfClosed && pending.isEmpty() && !done) {
+                done = true;
+                out.onCompleted();
+            }
+        }
+    }
+
+    CompletableFuture<AnalyzeResponse> analyzeOne(AnalyzeRequest req, String user) {
+        WorkClass workClass = workClass(req);
+        AnalysisEvent event = AnalysisEvents.start("grpc", req.getLanguage(), req.getCodeSnippet().length(),
+                workClass.name().toLowerCase());
+        CompletableFuture<AnalyzeResponse> result = analyzeOne(req, user, workClass, event);
+        result.whenComplete((r, e) -> AnalysisEvents.finish(event, r != null ? r.getStatus().name() : "cancelled"));
+        return result;
+    }
+
+    private CompletableFuture<AnalyzeResponse> analyzeOne(AnalyzeRequest req, String user, WorkClass workClass,
+                                                          AnalysisEvent event) {
+        if (rateLimiterService.isEnabled()) {
+            RateLimiterService.Result limit = rateLimiterService.check("user:" + user, true);
+            if (!limit.allowed()) {
+                return CompletableFuture.completedFuture(failure(req, AnalyzeResponse.Status.RATE_LIMITED,
+                        "Too many requests").toBuilder()
+                        .setRetryAfterMs(Math.max(1, limit.retryAfterSeconds()) * 1000).build());
+            }
+        }
+        DebugRequest request = new DebugRequest();
+        request.setLanguage(req.getLanguage());
+        request.setCodeSnippet(req.getCodeSnippet());
+        request.setContext(req.getContext().isEmpty() ? null : req.getContext());
+
+        Set<ConstraintViolation<DebugRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String errors = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .collect(Collectors.joining(", "));
+            return CompletableFuture.completedFuture(failure(req, AnalyzeResponse.Status.INVALID,
+                    "Validation failed: " + errors));
+        }
+
+        String key = cacheService.generateKey(request.getLanguage(), request.getCodeSnippet(), request.getContext());
+        CachedAnalysis cached = cacheService.getRendered(key);
+        String cachedAnswer = cached == null ? null : answerOf(cached);
+        if (cachedAnswer != null) {
+            event.cacheOutcome = "hit";
+            return CompletableFuture.completedFuture(success(req, cachedAnswer, true));
+        }
+        event.cacheOutcome = "miss";
+
+        Deadline deadline = Deadline.after(fileDeadlineMs).earlier(callDeadline());
+        CompletableFuture<DebugService.Result<String>> analysis;
+        try (AnalysisEvents.Scope ignored = AnalysisEvents.open(event);
+             Deadline.Scope deadlineScope = Deadline.open(deadline)) {
+            analysis = debugService.analyzeResultAsync(request, user, workClass);
+        }
+        // past the deadline the answer is useless: drop it from the queue or interrupt it mid-run
+        CompletableFuture.delayedExecutor(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS)
+                .execute(() -> analysis.cancel(true));
+        CompletableFuture<AnalyzeResponse> result = analysis
+                .thenApply(answer -> {
+                    // fallback and error text answers this file only; REST would serve it to everyone
+                    if (answer.cacheable()) render(key, request, answer.value());
+                    return success(req, answer.value(), false);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof Deadline.ExceededException
+                            || cause instanceof CancellationException && deadline.isExpired()) {
+                        return failure(req, AnalyzeResponse.Status.DEADLINE_EXCEEDED, "Deadline exceeded");
+                    }
+                    if (cause instanceof AnalysisScheduler.LoadShedException) {
+                        return failure(req, AnalyzeResponse.Status.OVERLOADED, "Server busy: " + cause.getMessage())
+                                .toBuilder().setRetryAfterMs(1000).build();
+                    }
+                    System.err.println("❌ Error in gRPC analysis: " + cause.getMessage());
+                    return failure(req, AnalyzeResponse.Status.ERROR, "Server error: " + cause.getMessage());
+                });
+        // lets the scheduler drop the task if it has not started yet
+        result.whenComplete((r, e) -> {
+            if (e instanceof CancellationException) analysis.cancel(false);
+        });
+        return result;
+    }
+
+    private static Deadline callDeadline() {
+        io.grpc.Deadline callDeadline = Context.current().getDeadline();
+        return callDeadline == null ? null : Deadline.after(callDeadline.timeRemaining(TimeUnit.MILLISECONDS));
+    }
+
+    // Same body DebugController.analyze caches, so the REST API can serve this entry as-is
+    private void render(String key, DebugRequest request, String answer) {
+        byte[] body = debugService.renderResponse(request.getLanguage(), request.getCodeSnippet().length(), answer);
+        cacheService.putRendered(key, new CachedAnalysis(key, body));
+    }
+
+    private String answerOf(CachedAnalysis cached) {
+        try {
+            return objectMapper.readTree(cached.getJson()).path("analysis").textValue();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static WorkClass workClass(AnalyzeRequest req) {
+        return switch (req.getPriority()) {
+            case PRIORITY_BATCH -> WorkClass.BATCH;
+            case PRIORITY_BACKGROUND -> WorkClass.BACKGROUND;
+            default -> WorkClass.INTERACTIVE;
+        };
+    }
+
+    private static AnalyzeResponse success(AnalyzeRequest req, String answer, boolean cached) {
+        return AnalyzeResponse.newBuilder()
+                .setId(req.getId())
+                .setStatus(AnalyzeResponse.Status.OK)
+                .setAnswer(answer)
+                .setCached(cached)
+                .setCharactersProcessed(req.getCodeSnippet().length())
+                .build();
+    }
+
+    private static AnalyzeResponse failure(AnalyzeRequest req, AnalyzeResponse.Status status, String error) {
+        return AnalyzeResponse.newBuilder()
+                .setId(req.getId())
+                .setStatus(status)
+                .setError(error)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.aidebugger.grpc;
+
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// HTTP/2 listener for the gRPC API, next to the servlet container's REST port
+@Component
+@RequiredArgsConstructor
+public class GrpcServer {
+    private final DebuggerGrpcService debuggerService;
+    private final JwtServerInterceptor jwtInterceptor;
+
+    @Value("${app.grpc.enabled:true}")
+    private boolean enabled;
+    @Value("${app.grpc.port:9090}")
+    private int port;
+    @Value("${app.grpc.max-streams-per-connection:64}")
+    private int maxStreamsPerConnection;
+
+    private Server server;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) return;
+        server = NettyServerBuilder.forPort(port)
+                .addService(ServerInterceptors.intercept(debuggerService, jwtInterceptor))
+                // code snippets are capped at 5000 characters
+                .maxInboundMessageSize(64 * 1024)
+                .maxConcurrentCallsPerConnection(maxStreamsPerConnection)
+                // CI agents hold one connection for a whole build; let their keepalives through
+                .permitKeepAliveTime(20, TimeUnit.SECONDS)
+                .permitKeepAliveWithoutCalls(true)
+                .build()
+                .start();
+        System.out.println("🔌 gRPC API listening on port " + server.getPort());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (server == null) return;
+        server.shutdown();
+        if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+            server.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.aidebugger.grpc;
+
+import com.aidebugger.profiling.AuthEvent;
+import com.aidebugger.security.JwtUtil;
+import com.aidebugger.security.TokenEpochService;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+// The JwtAuthFilter check for gRPC: "authorization: Bearer <jwt>" call metadata, validated once
+// per call, which for a CI stream means once per build rather than once per file. The username
+// reaches the service through the gRPC Context.
+@Component
+@RequiredArgsConstructor
+public class JwtServerInterceptor implements ServerInterceptor {
+    static final Context.Key<String> USER = Context.key("user");
+    private static final Metadata.Key<String> AUTHORIZATION =
+            Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final JwtUtil jwtUtil;
+    private final TokenEpochService tokenEpochService;
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String header = headers.get(AUTHORIZATION);
+        String username = null;
+        if (header != null && header.startsWith("Bearer ")) {
+            String token = header.substring(7);
+            AuthEvent event = new AuthEvent();
+            event.begin();
+            Claims claims = jwtUtil.parseClaims(token);
+            String decision = claims == null ? "invalid"
+                    : tokenEpochService.isRevoked(claims.getSubject(), JwtUtil.epochOf(claims)) ? "revoked" : "valid";
+            if (decision.equals("valid")) username = claims.getSubject();
+            event.finish("grpc", call.getMethodDescriptor().getFullMethodName(), decision, username,
+                    username == null ? null : JwtUtil.roleOf(claims));
+        }
+        if (username == null) {
+            call.close(Status.UNAUTHENTICATED.withDescription("Missing or invalid bearer token"), new Metadata());
+            return new ServerCall.Listener<>() { };
+        }
+        return Contexts.interceptCall(Context.current().withValue(USER, username), call, headers, next);
+    }
+}
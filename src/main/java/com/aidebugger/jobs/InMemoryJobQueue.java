@@ -0,0 +1,200 @@
+package com.aidebugger.jobs;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.JobStatus;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Single-node stand-in with the same delivery semantics as the Redis Streams queue
+// (visibility timeout, attempt counting, dead-lettering, result TTL). Used for local runs and tests.
+// Everything it holds is bounded: at most maxJobs unfinished jobs, the newest MAX_DEAD_LETTERS
+// dead-letter ids, and statuses only until their TTL passes.
+public class InMemoryJobQueue implements JobQueue {
+    static final int MAX_DEAD_LETTERS = 1000;
+    private static final int SWEEP_EVERY = 256;
+
+    private final long visibilityMs;
+    private final int maxAttempts;
+    private final long resultTtlMs;
+    private final int maxJobs;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayDeque<String> ready = new ArrayDeque<>();
+    private final Map<String, Job> jobs = new HashMap<>();
+    private final Map<String, Long> inflightUntil = new HashMap<>();
+    private final ArrayDeque<String> deadLetters = new ArrayDeque<>();
+    private final Map<String, Expiring> statuses = new HashMap<>();
+    private int savesSinceSweep;
+
+    private record Job(String id, DebugRequest request, String user, int deliveries) {}
+    private record Expiring(JobStatus status, long expiresAt) {}
+
+    public InMemoryJobQueue(Duration visibilityTimeout, int maxAttempts, Duration resultTtl, int maxJobs) {
+        this(visibilityTimeout, maxAttempts, resultTtl, maxJobs, System::currentTimeMillis);
+    }
+
+    // clock: epoch millis, swapped out in tests
+    InMemoryJobQueue(Duration visibilityTimeout, int maxAttempts, Duration resultTtl, int maxJobs, LongSupplier clock) {
+        this.visibilityMs = visibilityTimeout.toMillis();
+        this.maxAttempts = maxAttempts;
+        this.resultTtlMs = resultTtl.toMillis();
+        this.maxJobs = Math.max(1, maxJobs);
+        this.clock = clock;
+    }
+
+    @Override
+    public String enqueue(DebugRequest request, String user) {
+        String id = UUID.randomUUID().toString();
+        long now = clock.getAsLong();
+        lock.lock();
+        try {
+            if (jobs.size() >= maxJobs) {
+                throw new RejectedExecutionException("Job queue is full (" + maxJobs + " unfinished jobs)");
+            }
+            jobs.put(id, new Job(id, request, user, 0));
+            ready.addLast(id);
+            saveStatus(new JobStatus(id, JobStatus.QUEUED, null, null, 0, now, now, user));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return id;
+    }
+
+    @Override
+    public List<JobDelivery> poll(String consumer, int max, Duration wait) throws InterruptedException {
+        long deadline = System.nanoTime() + wait.toNanos();
+        lock.lock();
+        try {
+            while (ready.isEmpty()) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return List.of();
+                notEmpty.awaitNanos(left);
+            }
+            List<JobDelivery> out = new ArrayList<>();
+            while (!ready.isEmpty() && out.size() < max) {
+                out.add(deliver(ready.pollFirst()));
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<JobDelivery> reclaim(String consumer, int max) {
+        long now = clock.getAsLong();
+        lock.lock();
+        try {
+            List<String> expired = new ArrayList<>();
+            for (Map.Entry<String, Long> e : inflightUntil.entrySet()) {
+                if (e.getValue() <= now && expired.size() < max) expired.add(e.getKey());
+            }
+            List<JobDelivery> out = new ArrayList<>();
+            for (String id : expired) {
+                inflightUntil.remove(id);
+                Job job = jobs.get(id);
+                if (job.deliveries() >= maxAttempts) {
+                    deadLetter(job, "Not acknowledged after " + job.deliveries() + " attempts");
+                } else {
+                    out.add(deliver(id));
+                }
+            }
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void ack(JobDelivery delivery) {
+        lock.lock();
+        try {
+            inflightUntil.remove(delivery.jobId());
+            jobs.remove(delivery.jobId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void fail(JobDelivery delivery, String error) {
+        lock.lock();
+        try {
+            Job job = jobs.get(delivery.jobId());
+            if (job != null && job.deliveries() >= maxAttempts) {
+                inflightUntil.remove(job.id());
+                deadLetter(job, error);
+            }
+            // otherwise it stays in flight and is reclaimed once the visibility timeout passes
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void saveStatus(JobStatus status) {
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            statuses.put(status.getId(), new Expiring(status, now + resultTtlMs));
+            if (++savesSinceSweep >= SWEEP_EVERY) {
+                // statuses nobody asks for again would otherwise stay forever
+                savesSinceSweep = 0;
+                statuses.values().removeIf(e -> e.expiresAt() <= now);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public JobStatus getStatus(String jobId) {
+        lock.lock();
+        try {
+            Expiring e = statuses.get(jobId);
+            if (e == null) return null;
+            if (e.expiresAt() <= clock.getAsLong()) {
+                statuses.remove(jobId);
+                return null;
+            }
+            return e.status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<String> getDeadLetters() {
+        lock.lock();
+        try {
+            return List.copyOf(deadLetters);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private JobDelivery deliver(String id) {
+        Job job = jobs.get(id);
+        Job next = new Job(id, job.request(), job.user(), job.deliveries() + 1);
+        jobs.put(id, next);
+        inflightUntil.put(id, clock.getAsLong() + visibilityMs);
+        return new JobDelivery(id, id, next.request(), next.user(), next.deliveries());
+    }
+
+    private void deadLetter(Job job, String error) {
+        jobs.remove(job.id());
+        deadLetters.addLast(job.id());
+        if (deadLetters.size() > MAX_DEAD_LETTERS) deadLetters.removeFirst();
+        long now = clock.getAsLong();
+        JobStatus previous = getStatus(job.id());
+        long submitted = previous == null ? now : previous.getSubmittedAt();
+        saveStatus(new JobStatus(job.id(), JobStatus.DEAD, null, error, job.deliveries(), submitted, now, job.user()));
+    }
+}
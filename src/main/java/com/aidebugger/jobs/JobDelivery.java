@@ -0,0 +1,7 @@
+package com.aidebugger.jobs;
+
+import com.aidebugger.dto.DebugRequest;
+
+// One hand-out of a job to a worker. The job stays owned by that worker only until the
+// visibility timeout passes; without an ack it is handed out again.
+public record JobDelivery(String jobId, String receipt, DebugRequest request, String user, int attempt) {}
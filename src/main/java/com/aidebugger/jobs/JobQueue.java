@@ -0,0 +1,28 @@
+package com.aidebugger.jobs;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.JobStatus;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface JobQueue {
+
+    String enqueue(DebugRequest request, String user);
+
+    // Blocks up to `wait` for new jobs
+    List<JobDelivery> poll(String consumer, int max, Duration wait) throws InterruptedException;
+
+    // Takes over deliveries whose worker did not ack within the visibility timeout; jobs that
+    // already used up their attempts are dead-lettered instead of returned
+    List<JobDelivery> reclaim(String consumer, int max);
+
+    void ack(JobDelivery delivery);
+
+    // Failed attempt: becomes visible again after the visibility timeout, or dead-lettered
+    void fail(JobDelivery delivery, String error);
+
+    void saveStatus(JobStatus status);
+
+    JobStatus getStatus(String jobId);
+}
@@ -0,0 +1,183 @@
+package com.aidebugger.jobs;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.JobStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+
+// Durable queue on a Redis Stream with a consumer group, so workers on any replica share the jobs:
+//   XADD analysis:jobs               enqueue
+//   XREADGROUP ... >                 hand out new entries (they enter the group's pending list)
+//   XACK + XDEL                      done
+//   XPENDING + XCLAIM                take over entries idle longer than the visibility timeout
+//   XADD analysis:jobs:dead          dead-letter after maxAttempts deliveries
+// Status/results live in analysis:job:<id> with a TTL.
+public class RedisStreamJobQueue implements JobQueue {
+    private static final String STREAM = "analysis:jobs";
+    private static final String DEAD_STREAM = "analysis:jobs:dead";
+    private static final String GROUP = "analysis-workers";
+    private static final String STATUS_PREFIX = "analysis:job:";
+    private static final int PENDING_SCAN = 100;
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final Duration visibilityTimeout;
+    private final int maxAttempts;
+    private final Duration resultTtl;
+
+    public RedisStreamJobQueue(StringRedisTemplate redis, ObjectMapper objectMapper,
+                               Duration visibilityTimeout, int maxAttempts, Duration resultTtl) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.visibilityTimeout = visibilityTimeout;
+        this.maxAttempts = maxAttempts;
+        this.resultTtl = resultTtl;
+        createGroup();
+    }
+
+    // StringRedisTemplate hands callbacks a StringRedisConnection: keys, fields and values are all
+    // Strings, and its single-stream overloads need no generic varargs array
+    private <T> T strings(Function<StringRedisConnection, T> action) {
+        return redis.execute((RedisCallback<T>) c -> action.apply((StringRedisConnection) c));
+    }
+
+    private void createGroup() {
+        try {
+            strings(c -> c.xGroupCreate(STREAM, ReadOffset.from("0"), GROUP, true));
+        } catch (RuntimeException e) {
+            if (!String.valueOf(e.getMessage()).contains("BUSYGROUP")) throw e;
+        }
+    }
+
+    @Override
+    public String enqueue(DebugRequest request, String user) {
+        String id = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        saveStatus(new JobStatus(id, JobStatus.QUEUED, null, null, 0, now, now, user));
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("jobId", id);
+        fields.put("user", user == null ? "" : user);
+        fields.put("request", write(request));
+        strings(c -> c.xAdd(StreamRecords.string(fields).withStreamKey(STREAM)));
+        return id;
+    }
+
+    @Override
+    public List<JobDelivery> poll(String consumer, int max, Duration wait) {
+        List<StringRecord> records = strings(c -> c.xReadGroupAsString(
+                Consumer.from(GROUP, consumer),
+                StreamReadOptions.empty().count(max).block(wait),
+                StreamOffset.create(STREAM, ReadOffset.lastConsumed())));
+        List<JobDelivery> out = new ArrayList<>();
+        if (records != null) {
+            for (StringRecord r : records) {
+                out.add(toDelivery(r, 1));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public List<JobDelivery> reclaim(String consumer, int max) {
+        PendingMessages pending = strings(c -> c.xPending(STREAM, GROUP, Range.unbounded(), (long) PENDING_SCAN));
+        List<JobDelivery> out = new ArrayList<>();
+        if (pending == null) return out;
+        for (PendingMessage p : pending) {
+            if (out.size() >= max) break;
+            if (p.getElapsedTimeSinceLastDelivery().compareTo(visibilityTimeout) < 0) continue;
+
+            // XCLAIM with min-idle re-checks idleness, so two replicas can't both take the entry
+            List<StringRecord> claimed = strings(c -> c.xClaim(STREAM, GROUP, consumer, visibilityTimeout, p.getId()));
+            if (claimed == null || claimed.isEmpty()) continue;
+
+            StringRecord record = claimed.get(0);
+            int attempt = (int) p.getTotalDeliveryCount() + 1;
+            if (p.getTotalDeliveryCount() >= maxAttempts) {
+                JobDelivery delivery = toDelivery(record, attempt - 1);
+                deadLetter(delivery, record.getValue(), "Not acknowledged after " + p.getTotalDeliveryCount() + " attempts");
+            } else {
+                out.add(toDelivery(record, attempt));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void ack(JobDelivery delivery) {
+        strings(c -> c.xAck(STREAM, GROUP, delivery.receipt()));
+        strings(c -> c.xDel(STREAM, delivery.receipt()));
+    }
+
+    @Override
+    public void fail(JobDelivery delivery, String error) {
+        if (delivery.attempt() >= maxAttempts) {
+            Map<String, String> fields = new HashMap<>();
+            fields.put("jobId", delivery.jobId());
+            fields.put("user", delivery.user() == null ? "" : delivery.user());
+            fields.put("request", write(delivery.request()));
+            deadLetter(delivery, fields, error);
+        }
+        // otherwise left pending: reclaim() hands it out again after the visibility timeout
+    }
+
+    @Override
+    public void saveStatus(JobStatus status) {
+        String json = write(status);
+        strings(c -> c.set(STATUS_PREFIX + status.getId(), json, Expiration.from(resultTtl), SetOption.upsert()));
+    }
+
+    @Override
+    public JobStatus getStatus(String jobId) {
+        String json = strings(c -> c.get(STATUS_PREFIX + jobId));
+        if (json == null) return null;
+        try {
+            return objectMapper.readValue(json, JobStatus.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt job status for " + jobId, e);
+        }
+    }
+
+    private void deadLetter(JobDelivery delivery, Map<String, String> fields, String error) {
+        Map<String, String> dead = new HashMap<>(fields);
+        dead.put("error", error == null ? "" : error);
+        strings(c -> c.xAdd(StreamRecords.string(dead).withStreamKey(DEAD_STREAM)));
+        ack(delivery);
+
+        JobStatus previous = getStatus(delivery.jobId());
+        long now = System.currentTimeMillis();
+        saveStatus(new JobStatus(delivery.jobId(), JobStatus.DEAD, null, error, delivery.attempt(),
+                previous == null ? now : previous.getSubmittedAt(), now, delivery.user()));
+    }
+
+    private JobDelivery toDelivery(StringRecord record, int attempt) {
+        Map<String, String> v = record.getValue();
+        String user = v.getOrDefault("user", "");
+        try {
+            DebugRequest request = objectMapper.readValue(v.get("request"), DebugRequest.class);
+            return new JobDelivery(v.get("jobId"), record.getId().getValue(),
+                    request, user.isEmpty() ? null : user, attempt);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt job entry " + record.getId(), e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
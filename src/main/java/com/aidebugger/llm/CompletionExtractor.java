@@ -0,0 +1,186 @@
+package com.aidebugger.llm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+// Pulls the few fields we use out of a chat-completions response while the bytes arrive:
+// Jackson's non-blocking parser is fed the Netty buffers directly and each buffer is released
+// as soon as it is tokenized. Nothing outside model, choices[0].message.content,
+// choices[0].finish_reason, usage.*_tokens and error.{code,type,message} is kept; the body is
+// never copied into a String or a JsonNode tree.
+public final class CompletionExtractor {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Containers we descend into; anything else is skipped by depth counting
+    private static final int ROOT = 1, CHOICES = 2, CHOICE = 3, MESSAGE = 4, USAGE = 5, ERROR = 6;
+
+    public record Completion(String model, String content, String finishReason,
+                             long promptTokens, long completionTokens,
+                             String errorCode, String errorType, String errorMessage) {
+        public boolean isError() {
+            return errorType != null || errorCode != null || errorMessage != null;
+        }
+    }
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final int[] stack = new int[8];
+    private int depth;
+    private int skipDepth;
+    private int choiceIndex = -1;
+    private boolean sawObject;
+
+    private String model;
+    private String content;
+    private String finishReason;
+    private long promptTokens;
+    private long completionTokens;
+    private String errorCode;
+    private String errorType;
+    private String errorMessage;
+
+    CompletionExtractor() {
+        try {
+            this.parser = JSON.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    // Empty when the body is empty
+    public static Mono<Completion> extract(Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            CompletionExtractor extractor = new CompletionExtractor();
+            return body.doOnNext(extractor::feed)
+                    .then(Mono.fromCallable(extractor::finish))
+                    .doFinally(signal -> extractor.close());
+        });
+    }
+
+    void feed(DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator it = buffer.readableByteBuffers()) {
+            while (it.hasNext()) {
+                ByteBuffer chunk = it.next();
+                if (!chunk.hasRemaining()) continue;
+                feeder.feedInput(chunk);
+                drain();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    Completion finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        if (depth != 0 || skipDepth != 0) {
+            throw new IOException("Truncated completion response");
+        }
+        if (!sawObject) return null;
+        return new Completion(model, content, finishReason, promptTokens, completionTokens,
+                errorCode, errorType, errorMessage);
+    }
+
+    private void close() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // nothing to release beyond the parser's own buffers
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            onToken(token);
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        if (skipDepth > 0) {
+            if (token.isStructStart()) skipDepth++;
+            else if (token.isStructEnd()) skipDepth--;
+            return;
+        }
+        if (token == JsonToken.FIELD_NAME) return;
+        if (token.isStructEnd()) {
+            depth--;
+            return;
+        }
+
+        int in = depth == 0 ? 0 : stack[depth - 1];
+        String field = in == CHOICES ? null : parser.currentName();
+        if (token.isStructStart()) {
+            int next = container(in, field, token);
+            if (next == 0) {
+                skipDepth = 1;
+            } else {
+                stack[depth++] = next;
+            }
+            return;
+        }
+        if (in == CHOICES) {
+            choiceIndex++;
+            return;
+        }
+        scalar(in, field, token);
+    }
+
+    private int container(int in, String field, JsonToken token) {
+        boolean object = token == JsonToken.START_OBJECT;
+        return switch (in) {
+            case 0 -> (sawObject = object) ? ROOT : 0;
+            case ROOT -> switch (field) {
+                case "choices" -> object ? 0 : CHOICES;
+                case "usage" -> object ? USAGE : 0;
+                case "error" -> object ? ERROR : 0;
+                default -> 0;
+            };
+            case CHOICES -> ++choiceIndex == 0 && object ? CHOICE : 0;
+            case CHOICE -> object && "message".equals(field) ? MESSAGE : 0;
+            default -> 0;
+        };
+    }
+
+    private void scalar(int in, String field, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL || field == null) return;
+        switch (in) {
+            case ROOT -> {
+                if ("model".equals(field)) model = parser.getText();
+            }
+            case CHOICE -> {
+                if ("finish_reason".equals(field)) finishReason = parser.getText();
+            }
+            case MESSAGE -> {
+                if ("content".equals(field)) content = parser.getText();
+            }
+            case USAGE -> {
+                if (!token.isNumeric()) return;
+                if ("prompt_tokens".equals(field)) promptTokens = parser.getLongValue();
+                else if ("completion_tokens".equals(field)) completionTokens = parser.getLongValue();
+            }
+            case ERROR -> {
+                switch (field) {
+                    case "code" -> errorCode = parser.getText();
+                    case "type" -> errorType = parser.getText();
+                    case "message" -> errorMessage = parser.getText();
+                    default -> { }
+                }
+            }
+            default -> { }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.aidebugger.llm;
+
+// A source of code-review completions: the remote OpenAI API or an on-box model
+public interface LlmBackend {
+    String name();
+
+    boolean isAvailable();
+
+    String complete(String prompt);
+}
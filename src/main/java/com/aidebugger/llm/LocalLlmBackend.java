@@ -0,0 +1,193 @@
+package com.aidebugger.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+// On-box inference: a small quantized code model (GGUF, e.g. a 1-3B coder at Q4_K_M) served on CPU
+// by a llama.cpp server on localhost. No network round trip, no quota, works fully offline.
+//
+//   llama-server -m qwen2.5-coder-1.5b-instruct-q4_k_m.gguf --port 8081 --parallel 4 -c 16384
+//
+// - bounded worker pool: one worker per server slot, and a bounded queue in front of them
+// - batching: a worker drains whatever is queued (up to batch-size) into one multi-prompt request,
+//   which the server runs on its slots in parallel
+// - KV-cache reuse: every prompt starts with PromptTemplate.PREFIX and cache_prompt is on, so each
+//   slot keeps the evaluated prefix and only the per-request tail is processed; the prefix is
+//   pre-evaluated on every slot at startup
+@Service
+@RequiredArgsConstructor
+public class LocalLlmBackend implements LlmBackend {
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.llm.local.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.llm.local.url:http://127.0.0.1:8081}")
+    private String baseUrl;
+
+    @Value("${app.llm.local.workers:4}")
+    private int workers;
+
+    @Value("${app.llm.local.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.llm.local.batch-size:4}")
+    private int batchSize;
+
+    @Value("${app.llm.local.max-tokens:600}")
+    private int maxTokens;
+
+    @Value("${app.llm.local.timeout-seconds:60}")
+    private int timeoutSeconds;
+
+    private BlockingQueue<Pending> queue;
+    private ExecutorService pool;
+    private WebClient webClient;
+    // After a failure the backend reports unavailable for a while instead of failing every call
+    private volatile long unhealthyUntil;
+
+    private record Pending(String prompt, CompletableFuture<String> result) {}
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(4 * 1024 * 1024))
+                .build();
+        pool = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread t = new Thread(r, "Local-LLM");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int slot = 0; slot < Math.max(1, workers); slot++) {
+            int id = slot;
+            pool.execute(() -> workLoop(id));
+        }
+        System.out.println("🖥️  Local LLM backend: " + baseUrl + " (" + workers + " workers, batch " + batchSize + ")");
+    }
+
+    @PreDestroy
+    void stop() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return enabled && System.currentTimeMillis() >= unhealthyUntil;
+    }
+
+    @Override
+    public String complete(String prompt) {
+        if (!enabled) {
+            throw new IllegalStateException("Local LLM backend is disabled");
+        }
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (!queue.offer(new Pending(prompt, result))) {
+            throw new RejectedExecutionException("Local inference queue is full");
+        }
+        try {
+            return result.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for local inference", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Local inference failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            throw new IllegalStateException("Local inference timed out after " + timeoutSeconds + "s");
+        }
+    }
+
+    private void workLoop(int slot) {
+        warmPrefix(slot);
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.clear();
+                batch.add(queue.take());
+                queue.drainTo(batch, Math.max(0, batchSize - 1));
+                batch.removeIf(p -> p.result().isDone());   // caller already gave up
+                if (!batch.isEmpty()) runBatch(slot, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                markUnhealthy();
+                batch.forEach(p -> p.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void runBatch(int slot, List<Pending> batch) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("prompt", batch.size() == 1 ? batch.get(0).prompt() : batch.stream().map(Pending::prompt).toList());
+        body.put("n_predict", maxTokens);
+        body.put("temperature", 0.2);
+        body.put("cache_prompt", true);
+        // A single prompt stays on the slot this worker warmed. A multi-prompt request is left to the
+        // server, which spreads it over its idle slots (each already holds the prefix); pinning it
+        // to one slot would run the whole batch sequentially there.
+        if (batch.size() == 1) body.put("id_slot", slot);
+
+        String raw = webClient.post()
+                .uri("/completion")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .block();
+
+        try {
+            JsonNode root = objectMapper.readTree(raw);
+            if (root.isArray()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(root.path(i).path("content").asText(""));
+                }
+            } else {
+                batch.get(0).result().complete(root.path("content").asText(""));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable local inference response", e);
+        }
+    }
+
+    private void markUnhealthy() {
+        unhealthyUntil = System.currentTimeMillis() + 30_000;
+    }
+
+    // Evaluates the shared prefix on this slot once so later prompts only pay for their tail
+    private void warmPrefix(int slot) {
+        try {
+            webClient.post()
+                    .uri("/completion")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(Map.of("prompt", PromptTemplate.PREFIX, "n_predict", 0,
+                            "cache_prompt", true, "id_slot", slot))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(Duration.ofSeconds(timeoutSeconds))
+                    .block();
+        } catch (Exception e) {
+            markUnhealthy();
+            System.err.println("⚠️  Local LLM slot " + slot + " not reachable: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.aidebugger.llm;
+
+import com.aidebugger.dto.DebugRequest;
+
+// The instructions come first and never vary, so every prompt shares the same prefix: the local
+// backend keeps that prefix in its KV cache and only evaluates the per-request tail.
+public final class PromptTemplate {
+
+    public static final String PREFIX = """
+            You are an expert programmer and debugger.
+            Your task: Analyze the code below and provide SPECIFIC, ACTIONABLE feedback.
+
+            Provide analysis in this EXACT format:
+            ## 🔍 Code Analysis
+            ### 📋 Issues Found
+            (List each issue with line numbers if possible)
+
+            ### 🔧 Suggested Fixes
+            (Provide corrected code snippets)
+
+            ### 💡 Best Practices
+            (Language-specific recommendations)
+
+            ### 🧪 Test Cases
+            (Edge cases to test)
+
+            IMPORTANT: Start your response with '🤖 AI ANALYSIS:' so I know it's from OpenAI. Keep response under 600 words.
+
+            """;
+
+    private PromptTemplate() {
+    }
+
+    public static String build(DebugRequest req) {
+        StringBuilder prompt = new StringBuilder(PREFIX.length() + req.getCodeSnippet().length() + 256);
+        prompt.append(PREFIX);
+        prompt.append("Language: ").append(req.getLanguage()).append("\n");
+
+        if (req.getContext() != null && !req.getContext().trim().isEmpty()) {
+            prompt.append("User Context: ").append(req.getContext()).append("\n\n");
+        }
+
+        prompt.append("Code to analyze (").append(req.getLanguage()).append("):\n");
+        prompt.append("```").append(req.getLanguage()).append("\n");
+        prompt.append(req.getCodeSnippet());
+        prompt.append("\n```\n");
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package com.aidebugger.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One analysis request, from cache lookup to response. Fields past the scheduler hand-off are
+// filled in on the worker thread (see AnalysisEvents).
+@Name("com.aidebugger.Analysis")
+@Label("Analysis Request")
+@Category("AI Debugger")
+@StackTrace(false)
+public class AnalysisEvent extends Event {
+    @Label("Transport")
+    @Description("rest, sse or grpc")
+    public String transport;
+
+    @Label("Language")
+    public String language;
+
+    @Label("Snippet Size")
+    @Description("Characters of submitted code")
+    public int snippetChars;
+
+    @Label("Work Class")
+    public String workClass;
+
+    @Label("Cache Outcome")
+    @Description("hit, miss or bypass")
+    public String cacheOutcome;
+
+    @Label("Executor Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long executorWait;
+
+    @Label("Upstream Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    public long upstreamLatency;
+
+    @Label("LLM Gate")
+    @Description("local or escalate, with the reason (see LlmGate)")
+    public String gate;
+
+    @Label("Fallback Reason")
+    @Description("Why the LLM answer was replaced by the local model or canned text")
+    public String fallbackReason;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Trace Id")
+    public String traceId;
+}
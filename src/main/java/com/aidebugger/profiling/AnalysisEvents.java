@@ -0,0 +1,86 @@
+package com.aidebugger.profiling;
+
+import io.micrometer.context.ContextRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+
+// Keeps the in-flight AnalysisEvent reachable across the AnalysisScheduler hand-off. The
+// ThreadLocal is registered with Micrometer's ContextRegistry, so the ContextSnapshot the scheduler
+// already takes for tracing carries it to the worker thread, where the executor wait and the
+// upstream call are recorded into it. JFR events cost next to nothing while no recording runs.
+public final class AnalysisEvents {
+    private static final ThreadLocal<AnalysisEvent> CURRENT = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor("aidebugger.jfr.analysis", CURRENT);
+    }
+
+    private AnalysisEvents() {
+    }
+
+    public static AnalysisEvent start(String transport, String language, int snippetChars, String workClass) {
+        AnalysisEvent event = new AnalysisEvent();
+        event.begin();
+        if (event.isEnabled()) {
+            event.transport = transport;
+            event.language = language;
+            event.snippetChars = snippetChars;
+            event.workClass = workClass;
+            SpanContext span = Span.current().getSpanContext();
+            if (span.isValid()) event.traceId = span.getTraceId();
+        }
+        return event;
+    }
+
+    // Makes the event current for the caller until the returned scope is closed
+    public static Scope open(AnalysisEvent event) {
+        AnalysisEvent previous = CURRENT.get();
+        CURRENT.set(event);
+        return () -> {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        };
+    }
+
+    static AnalysisEvent current() {
+        return CURRENT.get();
+    }
+
+    public static void finish(AnalysisEvent event, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    public static void cacheOutcome(String outcome) {
+        AnalysisEvent event = CURRENT.get();
+        if (event != null) event.cacheOutcome = outcome;
+    }
+
+    public static void executorWait(long nanos) {
+        AnalysisEvent event = CURRENT.get();
+        if (event != null) event.executorWait = nanos;
+    }
+
+    public static void upstreamLatency(long nanos) {
+        AnalysisEvent event = CURRENT.get();
+        if (event != null) event.upstreamLatency += nanos;
+    }
+
+    public static void gate(String decision) {
+        AnalysisEvent event = CURRENT.get();
+        if (event != null) event.gate = decision;
+    }
+
+    public static void fallbackReason(String reason) {
+        AnalysisEvent event = CURRENT.get();
+        if (event != null) event.fallbackReason = reason;
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,44 @@
+package com.aidebugger.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A bearer-token check by JwtAuthFilter or the gRPC interceptor
+@Name("com.aidebugger.Auth")
+@Label("JWT Authentication")
+@Category("AI Debugger")
+@StackTrace(false)
+public class AuthEvent extends Event {
+    @Label("Transport")
+    public String transport;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Decision")
+    @Description("valid, invalid or revoked")
+    public String decision;
+
+    @Label("User")
+    public String user;
+
+    @Label("Role")
+    public String role;
+
+    // Ends the event; the fields are only filled in when a recording is going to keep it
+    public void finish(String transport, String path, String decision, String user, String role) {
+        end();
+        if (shouldCommit()) {
+            this.transport = transport;
+            this.path = path;
+            this.decision = decision;
+            this.user = user;
+            this.role = role;
+            commit();
+        }
+    }
+}
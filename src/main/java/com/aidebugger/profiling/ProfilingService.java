@@ -0,0 +1,157 @@
+package com.aidebugger.profiling;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// One on-demand Flight Recorder recording for production diagnosis. Everything about it is bounded:
+// the ring buffer on disk (max-size / max-age), how long it may run, and how many dumps are kept.
+// "default" settings are the always-on profile (~1% overhead); "profile" adds allocation sampling
+// and lower lock/park thresholds for a short look at a hot spot. The app's own events
+// (AnalysisEvent, AuthEvent, RevocationEvent) are recorded under either.
+@Service
+public class ProfilingService {
+    private static final DateTimeFormatter DUMP_NAME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS").withZone(ZoneOffset.UTC);
+
+    @Value("${app.profiling.dump-dir:data/jfr}")
+    private String dumpDir;
+
+    @Value("${app.profiling.max-size-mb:64}")
+    private long maxSizeMb;
+
+    @Value("${app.profiling.max-age-minutes:10}")
+    private long maxAgeMinutes;
+
+    @Value("${app.profiling.max-duration-minutes:60}")
+    private long maxDurationMinutes;
+
+    @Value("${app.profiling.max-dumps:5}")
+    private int maxDumps;
+
+    // Start a "default" recording at boot, so the last max-age minutes are always there to dump.
+    // It has no duration: it runs until stopped, bounded on disk by max-size / max-age only.
+    @Value("${app.profiling.continuous:false}")
+    private boolean continuous;
+
+    private Recording recording;
+    private String settings;
+
+    @PostConstruct
+    public void init() {
+        if (!continuous) return;
+        try {
+            begin("default", null);
+        } catch (Exception e) {
+            System.err.println("⚠️  Could not start continuous JFR recording: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public synchronized Map<String, Object> start(String settings, long minutes) throws IOException, ParseException {
+        return begin(settings, Duration.ofMinutes(Math.max(1, Math.min(minutes, maxDurationMinutes))));
+    }
+
+    // duration null = until stopped
+    private Map<String, Object> begin(String settings, Duration duration) throws IOException, ParseException {
+        if (isRunning()) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        if (!settings.equals("default") && !settings.equals("profile")) {
+            throw new IllegalArgumentException("settings must be 'default' or 'profile'");
+        }
+        close();
+
+        Recording r = new Recording(Configuration.getConfiguration(settings));
+        r.setName("aidebugger");
+        r.setToDisk(true);
+        r.setMaxSize(maxSizeMb << 20);
+        r.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        r.setDuration(duration);
+        for (Class<? extends Event> type : List.of(AnalysisEvent.class, AuthEvent.class, RevocationEvent.class)) {
+            r.enable(type).withThreshold(Duration.ZERO);
+        }
+        r.start();
+        recording = r;
+        this.settings = settings;
+        System.out.println("🎥 JFR recording started (" + settings + ", "
+                + (duration == null ? "continuous" : duration.toMinutes() + " min") + ")");
+        return status();
+    }
+
+    public synchronized Map<String, Object> stop() {
+        if (!isRunning()) {
+            throw new IllegalStateException("No recording is running");
+        }
+        recording.stop();
+        System.out.println("⏹️  JFR recording stopped");
+        return status();
+    }
+
+    // Writes what the recording holds so far (it keeps running) and prunes the oldest dumps
+    public synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            throw new IllegalStateException("Nothing recorded yet");
+        }
+        Path dir = Paths.get(dumpDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("aidebugger-" + DUMP_NAME.format(Instant.now()) + ".jfr");
+        recording.dump(file);
+
+        try (Stream<Path> dumps = Files.list(dir)) {
+            List<Path> old = dumps.filter(p -> p.getFileName().toString().endsWith(".jfr"))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .skip(Math.max(1, maxDumps))
+                    .toList();
+            for (Path p : old) {
+                Files.deleteIfExists(p);
+            }
+        }
+        return file;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording == null ? "NONE" : recording.getState().name());
+        if (recording != null) {
+            status.put("settings", settings);
+            status.put("startTime", String.valueOf(recording.getStartTime()));
+            status.put("duration", recording.getDuration() == null ? null : recording.getDuration().toString());
+            status.put("maxSizeBytes", recording.getMaxSize());
+            status.put("maxAge", String.valueOf(recording.getMaxAge()));
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+}
@@ -0,0 +1,36 @@
+package com.aidebugger.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// An operation on the token revocation store
+@Name("com.aidebugger.Revocation")
+@Label("Token Revocation Store")
+@Category("AI Debugger")
+@StackTrace(false)
+public class RevocationEvent extends Event {
+    @Label("Operation")
+    @Description("check, revoke or expire")
+    public String operation;
+
+    @Label("Revoked")
+    @Description("For checks: whether the token was found in the store")
+    public boolean revoked;
+
+    @Label("Store Size")
+    public int storeSize;
+
+    public void finish(String operation, boolean revoked, int storeSize) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.revoked = revoked;
+            this.storeSize = storeSize;
+            commit();
+        }
+    }
+}
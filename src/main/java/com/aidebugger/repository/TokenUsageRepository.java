@@ -0,0 +1,30 @@
+package com.aidebugger.repository;
+
+import com.aidebugger.entity.TokenUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TokenUsageRepository extends JpaRepository<TokenUsage, Long> {
+    List<TokenUsage> findByUsernameAndDayBetweenOrderByDayDesc(String username, LocalDate from, LocalDate to);
+
+    @Query("select u.username, sum(u.promptTokens + u.completionTokens) from TokenUsage u "
+            + "where u.day = :day group by u.username")
+    List<Object[]> totalTokensByUser(@Param("day") LocalDate day);
+
+    // Adds a flushed delta onto the day's row, creating it if needed (MySQL upsert)
+    @Modifying
+    @Query(value = "insert into token_usage (username, model, usage_day, requests, prompt_tokens, completion_tokens, latency_ms) "
+            + "values (:username, :model, :day, :requests, :promptTokens, :completionTokens, :latencyMs) "
+            + "on duplicate key update requests = requests + values(requests), "
+            + "prompt_tokens = prompt_tokens + values(prompt_tokens), "
+            + "completion_tokens = completion_tokens + values(completion_tokens), "
+            + "latency_ms = latency_ms + values(latency_ms)", nativeQuery = true)
+    void addUsage(@Param("username") String username, @Param("model") String model, @Param("day") LocalDate day,
+                  @Param("requests") long requests, @Param("promptTokens") long promptTokens,
+                  @Param("completionTokens") long completionTokens, @Param("latencyMs") long latencyMs);
+}
@@ -2,10 +2,25 @@ package com.aidebugger.repository;
 
 import com.aidebugger.entity.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    @Modifying
+    @Query("update AppUser u set u.tokenEpoch = coalesce(u.tokenEpoch, 0) + 1 where u.username = :username")
+    int incrementTokenEpoch(@Param("username") String username);
+
+    @Query("select coalesce(u.tokenEpoch, 0) from AppUser u where u.username = :username")
+    Long findTokenEpoch(@Param("username") String username);
+
+    // Only users who have ever revoked: everyone else is implicitly at epoch 0
+    @Query("select u.username, u.tokenEpoch from AppUser u where u.tokenEpoch > 0")
+    List<Object[]> findRevokedEpochs();
 }
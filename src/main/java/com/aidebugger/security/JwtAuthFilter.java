@@ -1,23 +1,29 @@
 package com.aidebugger.security;
 
+import com.aidebugger.profiling.AuthEvent;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
-    private final RedisTokenBlacklistService blacklistService;
+    private final TokenEpochService tokenEpochService;
+    private final ObservationRegistry observationRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -44,15 +50,33 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         
         String token = header.substring(7);
         
-        // Check if token is valid and not blacklisted
-        if (!jwtUtil.validateToken(token) || blacklistService.isBlacklisted(token)) {
+        // Check if token is valid and its epoch has not been revoked (a map read, see TokenEpochService)
+        AuthEvent event = new AuthEvent();
+        event.begin();
+        Observation observation = Observation.start("auth.jwt", observationRegistry);
+        Claims claims;
+        try (Observation.Scope ignored = observation.openScope()) {
+            claims = jwtUtil.parseClaims(token);
+            String decision = claims == null ? "invalid"
+                    : tokenEpochService.isRevoked(claims.getSubject(), JwtUtil.epochOf(claims)) ? "revoked" : "valid";
+            observation.lowCardinalityKeyValue("outcome", decision.equals("valid") ? "valid" : "rejected");
+            if (!decision.equals("valid")) claims = null;
+            event.finish("http", path, decision, claims == null ? null : claims.getSubject(),
+                    claims == null ? null : JwtUtil.roleOf(claims));
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+        if (claims == null) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return;
         }
 
-        // Token is valid, set authentication
-        String username = jwtUtil.extractUsername(token);
-        Authentication auth = new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
+        // Token is valid, set authentication; the role claim backs hasRole() checks in SecurityConfig
+        Authentication auth = new UsernamePasswordAuthenticationToken(claims.getSubject(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + JwtUtil.roleOf(claims))));
         SecurityContextHolder.getContext().setAuthentication(auth);
         
         chain.doFilter(request, response);
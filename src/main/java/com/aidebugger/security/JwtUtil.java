@@ -10,6 +10,11 @@ import java.util.Date;
 
 @Component
 public class JwtUtil {
+    private static final String ROLE_CLAIM = "role";
+    private static final String EPOCH_CLAIM = "epoch";
+    // epochOf for tokens issued before the claim existed (see TokenEpochService.isRevoked)
+    public static final long PRE_EPOCH = -1;
+
     private final Key signingKey;
     private final long expirationMs;
 
@@ -20,10 +25,18 @@ public class JwtUtil {
     }
 
     public String generateToken(String username) {
+        return generateToken(username, null, 0);
+    }
+
+    // role is carried as a claim so admin endpoints can be checked without a database lookup;
+    // epoch is the user's revocation generation at issue time (see TokenEpochService)
+    public String generateToken(String username, String role, long epoch) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + expirationMs);
         return Jwts.builder()
                 .setSubject(username)
+                .claim(ROLE_CLAIM, role)
+                .claim(EPOCH_CLAIM, epoch)
                 .setIssuedAt(now)
                 .setExpiration(exp)
                 .signWith(signingKey, SignatureAlgorithm.HS256)
@@ -35,6 +48,26 @@ public class JwtUtil {
                 .parseClaimsJws(token).getBody().getSubject();
     }
 
+    // Verified claims, or null when the token is malformed, badly signed or expired
+    public Claims parseClaims(String token) {
+        try {
+            return Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    // Tokens issued before roles were added count as plain users
+    public static String roleOf(Claims claims) {
+        String role = claims.get(ROLE_CLAIM, String.class);
+        return role == null ? "USER" : role;
+    }
+
+    public static long epochOf(Claims claims) {
+        Number epoch = claims.get(EPOCH_CLAIM, Number.class);
+        return epoch == null ? PRE_EPOCH : epoch.longValue();
+    }
+
     public boolean validateToken(String token) {
         try {
             Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token);
@@ -0,0 +1,57 @@
+package com.aidebugger.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiterService rateLimiterService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Only the expensive analysis endpoints are limited; pages and static assets are not
+        return !rateLimiterService.isEnabled()
+                || !request.getRequestURI().startsWith("/api/debug/")
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        // Runs after JwtAuthFilter, so an authenticated username is already in the context
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = auth != null && auth.isAuthenticated()
+                && !(auth instanceof AnonymousAuthenticationToken);
+        String key = authenticated ? "user:" + auth.getName() : "ip:" + request.getRemoteAddr();
+
+        RateLimiterService.Result result = rateLimiterService.check(key, authenticated);
+
+        response.setHeader("RateLimit-Limit", String.valueOf(result.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(result.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(result.resetSeconds()));
+
+        if (!result.allowed()) {
+            long retryAfter = Math.max(1, result.retryAfterSeconds());
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\":\"Too many requests - retry in " + retryAfter + "s\"}");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,175 @@
+package com.aidebugger.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+@RequiredArgsConstructor
+public class RateLimiterService {
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Value("${app.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ratelimit.user.capacity:30}")
+    private long userCapacity;
+
+    @Value("${app.ratelimit.user.per-second:0.5}")
+    private double userPerSecond;
+
+    @Value("${app.ratelimit.anonymous.capacity:10}")
+    private long anonymousCapacity;
+
+    @Value("${app.ratelimit.anonymous.per-second:0.2}")
+    private double anonymousPerSecond;
+
+    @Value("${app.ratelimit.global.capacity:200}")
+    private long globalCapacity;
+
+    @Value("${app.ratelimit.global.per-second:50}")
+    private double globalPerSecond;
+
+    @Value("${app.ratelimit.max-keys:100000}")
+    private int maxKeys;
+
+    // Redis mode shares the buckets across every replica; local buckets are used if Redis fails
+    @Value("${app.ratelimit.redis-enabled:false}")
+    private boolean redisEnabled;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private TokenBucket globalBucket;
+    private DefaultRedisScript<List> script;
+    private DefaultRedisScript<Long> refundScript;
+
+    public record Result(boolean allowed, long limit, long remaining, long retryAfterSeconds, long resetSeconds) {}
+
+    @PostConstruct
+    void init() {
+        globalBucket = new TokenBucket(globalCapacity, globalPerSecond);
+        script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/rate-limit.lua")));
+        script.setResultType(List.class);
+        refundScript = new DefaultRedisScript<>();
+        refundScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/rate-limit-refund.lua")));
+        refundScript.setResultType(Long.class);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Result check(String clientKey, boolean authenticated) {
+        long capacity = authenticated ? userCapacity : anonymousCapacity;
+        double perSecond = authenticated ? userPerSecond : anonymousPerSecond;
+
+        Result client = null;
+        if (redisEnabled) {
+            client = checkRedis("ratelimit:" + clientKey, capacity, perSecond);
+        }
+        boolean clientInRedis = client != null;
+        if (client == null) {
+            client = checkLocal(clientKey, capacity, perSecond);
+        }
+        if (!client.allowed()) {
+            return client;
+        }
+
+        // Global bucket is checked after the per-client one so a flooding client can't drain it
+        Result global = redisEnabled ? checkRedis("ratelimit:global", globalCapacity, globalPerSecond) : null;
+        if (global == null) {
+            global = toResult(globalBucket.tryTake(System.nanoTime()), globalCapacity);
+        }
+        if (global.allowed()) {
+            return client;
+        }
+        // Refused anyway: the request shouldn't also cost the client its own allowance
+        if (clientInRedis) {
+            refundRedis("ratelimit:" + clientKey, perSecond);
+        } else {
+            TokenBucket bucket = buckets.get(clientKey);
+            if (bucket != null) bucket.refund();
+        }
+        return global;
+    }
+
+    private Result checkLocal(String key, long capacity, double perSecond) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) evictIdle();
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, perSecond));
+        }
+        return toResult(bucket.tryTake(System.nanoTime()), capacity);
+    }
+
+    private Result checkRedis(String key, long capacity, double perSecond) {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) return null;
+        try {
+            List<?> r = redis.execute(script, List.of(key), String.valueOf(capacity), String.valueOf(intervalMicros(perSecond)));
+            if (r == null || r.size() < 4) return null;
+            boolean allowed = ((Number) r.get(0)).longValue() == 1;
+            long remaining = ((Number) r.get(1)).longValue();
+            long retryAfter = TimeUnit.MICROSECONDS.toSeconds(((Number) r.get(2)).longValue() + 999_999);
+            long reset = TimeUnit.MICROSECONDS.toSeconds(((Number) r.get(3)).longValue() + 999_999);
+            return new Result(allowed, capacity, remaining, retryAfter, reset);
+        } catch (RuntimeException e) {
+            System.err.println("⚠️  Redis rate limit unavailable, using local buckets: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void refundRedis(String key, double perSecond) {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) return;
+        try {
+            redis.execute(refundScript, List.of(key), String.valueOf(intervalMicros(perSecond)));
+        } catch (RuntimeException e) {
+            System.err.println("⚠️  Redis rate limit refund failed: " + e.getMessage());
+        }
+    }
+
+    private static long intervalMicros(double perSecond) {
+        return Math.max(1L, (long) (1_000_000L / perSecond));
+    }
+
+    private static Result toResult(TokenBucket.Decision d, long capacity) {
+        return new Result(d.allowed(), capacity, d.remaining(),
+                ceilSeconds(d.retryAfterNanos()), ceilSeconds(d.resetNanos()));
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+
+    // Keeps the map bounded: full (idle) buckets go first since dropping them is lossless;
+    // if every bucket is active, arbitrary ones are dropped until we are back under the cap.
+    private void evictIdle() {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            long now = System.nanoTime();
+            buckets.values().removeIf(b -> b.isFull(now));
+            Iterator<String> it = buckets.keySet().iterator();
+            while (buckets.size() >= maxKeys && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
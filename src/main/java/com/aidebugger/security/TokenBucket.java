@@ -0,0 +1,50 @@
+package com.aidebugger.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket kept as a single "theoretical arrival time" (the GCRA form), so a take is one
+// CAS on one long: no locks, no allocation. The bucket is full whenever tat <= now.
+public class TokenBucket {
+    private final long capacity;
+    private final long intervalNanos;   // time to refill one token
+    private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+    public record Decision(boolean allowed, long remaining, long retryAfterNanos, long resetNanos) {}
+
+    public TokenBucket(long capacity, double tokensPerSecond) {
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / tokensPerSecond));
+    }
+
+    public Decision tryTake(long nowNanos) {
+        long window = capacity * intervalNanos;
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, nowNanos);
+            long next = base + intervalNanos;
+            long debt = next - nowNanos;
+            if (debt > window) {
+                long used = base - nowNanos;
+                return new Decision(false, 0, debt - window, used);
+            }
+            if (tat.compareAndSet(current, next)) {
+                return new Decision(true, (window - debt) / intervalNanos, 0, debt);
+            }
+        }
+    }
+
+    // Gives back a token tryTake granted, for a request refused further along. A tat pushed below
+    // now just means a full bucket, as tryTake never starts from earlier than now.
+    public void refund() {
+        tat.updateAndGet(t -> t == Long.MIN_VALUE ? t : t - intervalNanos);
+    }
+
+    // Idle buckets hold no state worth keeping and can be evicted without changing behaviour
+    public boolean isFull(long nowNanos) {
+        return tat.get() <= nowNanos;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,166 @@
+package com.aidebugger.security;
+
+import com.aidebugger.profiling.RevocationEvent;
+import com.aidebugger.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Revocation by generation instead of by token. Every JWT carries the user's epoch at issue time
+// and is rejected once the user's epoch has moved past it, so logging out bumps one number and
+// revokes every token that user holds, on every device. Only users who have ever revoked are in
+// the map (absent = epoch 0): state is O(users) and the per-request check is one map read.
+// The users table is the source of truth; with Redis enabled, bumps reach the other replicas
+// through a hash instead of waiting for the next database reload.
+@Service
+public class TokenEpochService {
+    static final String REDIS_KEY = "auth:token-epochs";
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Value("${app.auth.epoch-refresh-ms:5000}")
+    private long refreshMs;
+
+    @Value("${app.auth.epoch-redis-enabled:false}")
+    private boolean redisEnabled;
+
+    // Tokens from before epochs were revoked through a blacklist held in each process's memory, so
+    // after the rollout a logged-out one can't be told from a live one. They are refused, which is
+    // the same as bumping every user's epoch once; all of them are expired one app.jwt.expiration-ms
+    // after the rollout. Setting this accepts them as epoch 0 where logging everyone out is worse.
+    @Value("${app.auth.accept-pre-epoch-tokens:false}")
+    private boolean acceptPreEpochTokens;
+
+    private final Map<String, Long> epochs = new ConcurrentHashMap<>();
+    private DefaultRedisScript<Long> publishScript;
+    private ScheduledExecutorService refresher;
+    private int ticks;
+
+    public TokenEpochService(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                             ObjectProvider<StringRedisTemplate> redisTemplate) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.redisTemplate = redisTemplate;
+    }
+
+    @PostConstruct
+    void start() {
+        publishScript = new DefaultRedisScript<>();
+        publishScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/token-epoch.lua")));
+        publishScript.setResultType(Long.class);
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Token-Epochs");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.execute(() -> refresh(false));
+        // with Redis, every 12th reload still goes to the database to catch bumps whose publish failed
+        refresher.scheduleWithFixedDelay(() -> refresh(redisEnabled && ++ticks % 12 != 0),
+                refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    public long current(String username) {
+        Long epoch = epochs.get(username);
+        return epoch == null ? 0 : epoch;
+    }
+
+    public boolean isRevoked(String username, long tokenEpoch) {
+        RevocationEvent event = new RevocationEvent();
+        event.begin();
+        long epoch = tokenEpoch == JwtUtil.PRE_EPOCH && acceptPreEpochTokens ? 0 : tokenEpoch;
+        boolean revoked = epoch < current(username);
+        event.finish("check", revoked, epochs.size());
+        return revoked;
+    }
+
+    // Invalidates every token issued to the user so far ("log out everywhere"); returns the new epoch
+    public long revokeAll(String username) {
+        RevocationEvent event = new RevocationEvent();
+        event.begin();
+        Long epoch = transactionTemplate.execute(status -> {
+            userRepository.incrementTokenEpoch(username);
+            return userRepository.findTokenEpoch(username);
+        });
+        long bumped = epoch == null ? 0 : epoch;
+        epochs.merge(username, bumped, Math::max);
+        publish(username, bumped);
+        event.finish("revoke", true, epochs.size());
+        return bumped;
+    }
+
+    int size() {
+        return epochs.size();
+    }
+
+    // Epochs only move forward, so merging with max makes a stale source harmless
+    void refresh(boolean fromRedis) {
+        RevocationEvent event = new RevocationEvent();
+        event.begin();
+        try {
+            Map<String, Long> latest = fromRedis ? loadRedis() : null;
+            if (latest == null) latest = loadDatabase();
+            latest.forEach((user, epoch) -> epochs.merge(user, epoch, Math::max));
+        } catch (RuntimeException e) {
+            System.err.println("⚠️  Token epoch refresh failed: " + e.getMessage());
+        }
+        event.finish("refresh", false, epochs.size());
+    }
+
+    private Map<String, Long> loadDatabase() {
+        Map<String, Long> latest = new HashMap<>();
+        for (Object[] row : userRepository.findRevokedEpochs()) {
+            latest.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return latest;
+    }
+
+    private Map<String, Long> loadRedis() {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) return null;
+        try {
+            Map<String, Long> latest = new HashMap<>();
+            redis.<String, String>opsForHash().entries(REDIS_KEY)
+                    .forEach((user, epoch) -> latest.put(user, Long.parseLong(epoch)));
+            return latest;
+        } catch (RuntimeException e) {
+            System.err.println("⚠️  Redis token epochs unavailable, reading the database: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void publish(String username, long epoch) {
+        if (!redisEnabled) return;
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) return;
+        try {
+            redis.execute(publishScript, List.of(REDIS_KEY), username, String.valueOf(epoch));
+        } catch (RuntimeException e) {
+            // other replicas still see it on their next database reload
+            System.err.println("⚠️  Could not publish token epoch to Redis: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.aidebugger.service;
+
+import com.aidebugger.profiling.AnalysisEvents;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Sits in front of aiExecutor and decides what runs next, instead of the executor's single FIFO:
+//   - classes share worker slots by weight (smooth weighted round robin), so batch still progresses
+//   - inside a class every user gets a turn (round robin over per-user queues)
+//   - CoDel-style shedding: work is dropped once queueing delay stays above target, or once it
+//     has waited longer than its class's maxWait
+// Only `concurrency` tasks are handed to the executor at a time, so its own queue stays empty.
+// Tasks are dispatched from whichever thread frees a slot, so the submitter's context (trace,
+// observation, Deadline) is captured at submit time and restored around the task, not taken from
+// the pump. Work past its request's deadline is dropped at dequeue. Cancelling a task's future
+// removes it from its queue, or interrupts it if it is already running, which aborts a blocked
+// upstream call.
+@Service
+public class AnalysisScheduler {
+    private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private final Executor aiExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final int concurrency;
+    private final int maxQueued;
+    private final long intervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final EnumMap<WorkClass, ClassQueue> queues = new EnumMap<>(WorkClass.class);
+    private int running;
+    private int queued;
+
+    public static class LoadShedException extends RejectedExecutionException {
+        public LoadShedException(String message) {
+            super(message);
+        }
+    }
+
+    private static class Task {
+        final String user;
+        final WorkClass workClass;
+        final long enqueuedNanos;
+        final Deadline deadline;
+        final Runnable body;
+        final CompletableFuture<?> future;
+        String dropReason;
+        private Thread runner;
+
+        Task(String user, WorkClass workClass, long enqueuedNanos, Deadline deadline, Runnable body,
+             CompletableFuture<?> future) {
+            this.user = user;
+            this.workClass = workClass;
+            this.enqueuedNanos = enqueuedNanos;
+            this.deadline = deadline;
+            this.body = body;
+            this.future = future;
+        }
+
+        void run() {
+            synchronized (this) {
+                if (future.isDone()) return;
+                runner = Thread.currentThread();
+            }
+            try {
+                body.run();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                // an interrupt aimed at this task must not reach the pool thread's next one
+                Thread.interrupted();
+            }
+        }
+
+        synchronized void interrupt() {
+            if (runner != null) runner.interrupt();
+        }
+    }
+
+    private class ClassQueue {
+        final WorkClass workClass;
+        final Map<String, ArrayDeque<Task>> perUser = new HashMap<>();
+        final ArrayDeque<String> rotation = new ArrayDeque<>();
+        int size;
+        int currentWeight;
+        // CoDel state
+        long firstAboveNanos;
+        boolean dropping;
+        long dropNextNanos;
+        int dropCount;
+        final Timer queueTime;
+        final Counter shedOverload;
+        final Counter shedQueueFull;
+        final Counter shedExpired;
+        final Counter shedDeadline;
+
+        ClassQueue(WorkClass workClass) {
+            this.workClass = workClass;
+            String tag = workClass.name().toLowerCase();
+            this.queueTime = Timer.builder("analysis.queue.time")
+                    .tag("class", tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.shedOverload = Counter.builder("analysis.shed").tag("class", tag).tag("reason", "codel").register(meterRegistry);
+            this.shedQueueFull = Counter.builder("analysis.shed").tag("class", tag).tag("reason", "queue-full").register(meterRegistry);
+            this.shedExpired = Counter.builder("analysis.shed").tag("class", tag).tag("reason", "expired").register(meterRegistry);
+            this.shedDeadline = Counter.builder("analysis.shed").tag("class", tag).tag("reason", "deadline").register(meterRegistry);
+            Gauge.builder("analysis.queue.depth", this, q -> q.size).tag("class", tag).register(meterRegistry);
+        }
+
+        void add(Task task) {
+            ArrayDeque<Task> q = perUser.computeIfAbsent(task.user, u -> {
+                rotation.addLast(u);
+                return new ArrayDeque<>();
+            });
+            q.addLast(task);
+            size++;
+        }
+
+        Task poll() {
+            String user = rotation.pollFirst();
+            if (user == null) return null;
+            ArrayDeque<Task> q = perUser.get(user);
+            Task task = q.pollFirst();
+            if (q.isEmpty()) {
+                perUser.remove(user);
+            } else {
+                rotation.addLast(user);
+            }
+            size--;
+            return task;
+        }
+
+        boolean remove(Task task) {
+            ArrayDeque<Task> q = perUser.get(task.user);
+            if (q == null || !q.remove(task)) return false;
+            if (q.isEmpty()) {
+                perUser.remove(task.user);
+                rotation.remove(task.user);
+            }
+            size--;
+            return true;
+        }
+
+        // RFC 8289 control law, evaluated at dequeue time on the task's sojourn time
+        String dropReason(long sojourn, long now) {
+            if (sojourn > workClass.getMaxWait().toNanos()) {
+                return "expired";
+            }
+            long target = workClass.getTarget().toNanos();
+            long interval = Math.max(intervalNanos, target);
+            if (sojourn < target || size == 0) {
+                firstAboveNanos = 0;
+                dropping = false;
+                return null;
+            }
+            if (firstAboveNanos == 0) {
+                firstAboveNanos = now + interval;
+                return null;
+            }
+            if (!dropping) {
+                if (now < firstAboveNanos) return null;
+                dropping = true;
+                dropCount = 1;
+                dropNextNanos = now + (long) (interval / Math.sqrt(dropCount));
+                return "codel";
+            }
+            if (now >= dropNextNanos) {
+                dropCount++;
+                dropNextNanos = now + (long) (interval / Math.sqrt(dropCount));
+                return "codel";
+            }
+            return null;
+        }
+    }
+
+    public AnalysisScheduler(@Qualifier("aiExecutor") Executor aiExecutor,
+                             MeterRegistry meterRegistry,
+                             ObservationRegistry observationRegistry,
+                             @Value("${app.scheduler.concurrency:${app.async.core-pool-size:4}}") int concurrency,
+                             @Value("${app.scheduler.max-queued:1000}") int maxQueued,
+                             @Value("${app.scheduler.codel-interval-ms:100}") long intervalMs) {
+        this.aiExecutor = aiExecutor;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxQueued = maxQueued;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        for (WorkClass c : WorkClass.values()) {
+            queues.put(c, new ClassQueue(c));
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String user, WorkClass workClass, Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedNanos = System.nanoTime();
+        ContextSnapshot context = SNAPSHOTS.captureAll();
+        Runnable body = context.wrap(() -> {
+            AnalysisEvents.executorWait(System.nanoTime() - enqueuedNanos);
+            Observation observation = Observation.createNotStarted("analysis.task", observationRegistry)
+                    .lowCardinalityKeyValue("class", workClass.name().toLowerCase())
+                    .highCardinalityKeyValue("queue.wait.ms",
+                            String.valueOf(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueuedNanos)))
+                    .start();
+            // Completed inside the scope, so dependent stages that run on this thread keep the trace
+            try (Observation.Scope ignored = observation.openScope()) {
+                future.complete(work.get());
+            } catch (Throwable t) {
+                observation.error(t);
+                future.completeExceptionally(t);
+            } finally {
+                observation.stop();
+            }
+        });
+        Deadline deadline = Deadline.current();
+        Task task = new Task(user == null ? "anonymous" : user, workClass, enqueuedNanos, deadline, body, future);
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled()) {
+                task.interrupt();
+                // abandoned work leaves the queue now, not at dequeue, so it holds no capacity
+                remove(task);
+            }
+        });
+
+        if (deadline != null && deadline.isExpired()) {
+            future.completeExceptionally(new Deadline.ExceededException("Deadline passed before the analysis was queued"));
+            queues.get(workClass).shedDeadline.increment();
+            return future;
+        }
+
+        lock.lock();
+        try {
+            if (queued >= maxQueued) {
+                future.completeExceptionally(new LoadShedException("Analysis queue is full"));
+                queues.get(workClass).shedQueueFull.increment();
+                return future;
+            }
+            queues.get(workClass).add(task);
+            queued++;
+        } finally {
+            lock.unlock();
+        }
+        pump();
+        return future;
+    }
+
+    private void remove(Task task) {
+        lock.lock();
+        try {
+            if (queues.get(task.workClass).remove(task)) queued--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<WorkClass, Integer> queueDepths() {
+        lock.lock();
+        try {
+            Map<WorkClass, Integer> depths = new EnumMap<>(WorkClass.class);
+            queues.forEach((c, q) -> depths.put(c, q.size));
+            return depths;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void pump() {
+        List<Task> toRun = new ArrayList<>();
+        List<Task> shed = new ArrayList<>();
+        lock.lock();
+        try {
+            while (running < concurrency) {
+                Task task = next(shed);
+                if (task == null) break;
+                running++;
+                toRun.add(task);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Task task : shed) {
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.enqueuedNanos);
+            String message = "Dropped " + task.workClass.name().toLowerCase() + " request after " + waitedMs + "ms in queue";
+            task.future.completeExceptionally("deadline".equals(task.dropReason)
+                    ? new Deadline.ExceededException(message + ": deadline passed")
+                    : new LoadShedException(message));
+        }
+        for (Task task : toRun) {
+            try {
+                aiExecutor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        finished();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                task.future.completeExceptionally(e);
+                finished();
+            }
+        }
+    }
+
+    private void finished() {
+        lock.lock();
+        try {
+            running--;
+        } finally {
+            lock.unlock();
+        }
+        pump();
+    }
+
+    private Task next(List<Task> shed) {
+        while (queued > 0) {
+            ClassQueue cq = pickClass();
+            Task task = cq.poll();
+            queued--;
+
+            long now = System.nanoTime();
+            long sojourn = now - task.enqueuedNanos;
+            cq.queueTime.record(sojourn, TimeUnit.NANOSECONDS);
+
+            String reason = task.future.isDone() ? "cancelled"
+                    : task.deadline != null && task.deadline.isExpired() ? "deadline"
+                    : cq.dropReason(sojourn, now);
+            if (reason == null) {
+                return task;
+            }
+            if ("codel".equals(reason)) cq.shedOverload.increment();
+            if ("expired".equals(reason)) cq.shedExpired.increment();
+            if ("deadline".equals(reason)) cq.shedDeadline.increment();
+            task.dropReason = reason;
+            shed.add(task);
+        }
+        return null;
+    }
+
+    // Smooth weighted round robin (as in nginx) over the classes that have work
+    private ClassQueue pickClass() {
+        int total = 0;
+        ClassQueue best = null;
+        for (ClassQueue cq : queues.values()) {
+            if (cq.size == 0) continue;
+            cq.currentWeight += cq.workClass.getWeight();
+            total += cq.workClass.getWeight();
+            if (best == null || cq.currentWeight > best.currentWeight) best = cq;
+        }
+        best.currentWeight -= total;
+        return best;
+    }
+}
@@ -5,7 +5,8 @@ import com.aidebugger.dto.AuthResponse;
 import com.aidebugger.entity.AppUser;
 import com.aidebugger.repository.UserRepository;
 import com.aidebugger.security.JwtUtil;
-import com.aidebugger.security.RedisTokenBlacklistService;
+import com.aidebugger.security.TokenEpochService;
+import io.jsonwebtoken.Claims;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,7 +18,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
-    private final RedisTokenBlacklistService blacklistService;
+    private final TokenEpochService tokenEpochService;
 
     @Transactional
     public AuthResponse register(AuthRequest req) {
@@ -32,7 +33,7 @@ public class AuthService {
                 .build();
         
         userRepository.save(user);
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getRole(), 0);
         return new AuthResponse(token);
     }
 
@@ -44,12 +45,16 @@ public class AuthService {
             throw new RuntimeException("Invalid password");
         }
         
-        String token = jwtUtil.generateToken(user.getUsername());
+        long epoch = user.getTokenEpoch() == null ? 0 : user.getTokenEpoch();
+        String token = jwtUtil.generateToken(user.getUsername(), user.getRole(), epoch);
         return new AuthResponse(token);
     }
 
+    // Revokes every token the user holds, not just this one: one epoch bump instead of a blacklist entry per token
     public void logout(String token) {
-        long ttl = jwtUtil.getExpirationMillis(token);
-        blacklistService.blacklistToken(token, ttl);
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims != null) {
+            tokenEpochService.revokeAll(claims.getSubject());
+        }
     }
 }
\ No newline at end of file
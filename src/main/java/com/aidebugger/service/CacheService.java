@@ -1,28 +1,269 @@
 package com.aidebugger.service;
 
+import com.aidebugger.cluster.CachePeers;
+import com.aidebugger.cluster.PeerCacheClient;
+import com.aidebugger.llm.PromptTemplate;
 import com.aidebugger.util.HashUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 public class CacheService {
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final CachePeers peers;
+    private final PeerCacheClient peerClient;
     private final Map<String, String> cache = new ConcurrentHashMap<>();
-    
+
+    // Serialized /analyze responses, keyed by the same hash as the analysis text. The bulk lives
+    // compressed off heap (see OffHeapAnalysisStore); only the most recently used few are kept
+    // on heap as ready-to-write CachedAnalysis objects.
+    @Value("${app.cache.offheap.max-bytes:268435456}")
+    private long offHeapMaxBytes;
+    @Value("${app.cache.offheap.slab-bytes:8388608}")
+    private int offHeapSlabBytes;
+    @Value("${app.cache.hot-entries:1024}")
+    private int hotEntries;
+    private OffHeapAnalysisStore store;
+    private Map<String, CachedAnalysis> hot;
+
+    // Rendered responses survive restarts through a snapshot file (see CacheSnapshot). Bump
+    // app.cache.snapshot.version when the report format changes; prompt or model changes
+    // invalidate the file on their own.
+    @Value("${app.cache.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+    @Value("${app.cache.snapshot.path:data/analysis-cache.seg}")
+    private String snapshotPath;
+    @Value("${app.cache.snapshot.interval-seconds:30}")
+    private long snapshotIntervalSeconds;
+    @Value("${app.cache.snapshot.max-bytes:268435456}")
+    private long snapshotMaxBytes;
+    // Fail startup instead of running without the snapshot, e.g. because another process holds it
+    @Value("${app.cache.snapshot.required:false}")
+    private boolean snapshotRequired;
+    @Value("${app.cache.snapshot.version:1}")
+    private String snapshotVersion;
+    @Value("${openai.model:gpt-3.5-turbo}")
+    private String model;
+
+    // Written since the last snapshot
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile CacheSnapshot snapshot;
+    private ScheduledExecutorService snapshotter;
+
+    @PostConstruct
+    void start() {
+        store = new OffHeapAnalysisStore(offHeapMaxBytes, offHeapSlabBytes);
+        hot = Collections.synchronizedMap(new LinkedHashMap<>(hotEntries * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAnalysis> eldest) {
+                return size() > hotEntries;
+            }
+        });
+        Gauge.builder("cache.offheap.entries", store, OffHeapAnalysisStore::size).register(meterRegistry);
+        Gauge.builder("cache.offheap.bytes", store, OffHeapAnalysisStore::offHeapBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("cache.offheap.evictions", store, OffHeapAnalysisStore::evictions).register(meterRegistry);
+        Gauge.builder("cache.offheap.compression.ratio", store, OffHeapAnalysisStore::compressionRatio)
+                .register(meterRegistry);
+        if (!snapshotEnabled) return;
+        if (snapshotRequired) {
+            try {
+                mapSnapshot();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cache snapshot unavailable: " + e.getMessage(), e);
+            }
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Cache-Snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        if (!snapshotRequired) {
+            // Opened off the startup path: until it is, lookups simply miss
+            snapshotter.execute(this::openSnapshot);
+        }
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stopSnapshots() throws InterruptedException {
+        if (snapshotter == null) return;
+        snapshotter.shutdown();
+        snapshotter.awaitTermination(5, TimeUnit.SECONDS);
+        snapshotQuietly();
+        CacheSnapshot s = snapshot;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
     public String get(String key) {
-        return cache.get(key);
+        return lookup("analysis", cache::get, key);
     }
-    
+
     public void put(String key, String value) {
         cache.put(key, value);
     }
-    
+
     public boolean contains(String key) {
         return cache.containsKey(key);
     }
-    
+
+    // With app.cluster.enabled each rendered key has one owning replica (see CachePeers). The
+    // off-heap store and snapshot only hold this replica's keys, so total capacity grows with
+    // the replica count; other keys are fetched from or sent to their owner and only kept in the
+    // small hot map here.
+    public CachedAnalysis getRendered(String key) {
+        return lookup("rendered", this::routedGet, key);
+    }
+
+    public void putRendered(String key, CachedAnalysis value) {
+        String owner = peers.remoteOwner(key);
+        if (owner == null) {
+            putRenderedLocal(key, value);
+            return;
+        }
+        hot.put(key, value);
+        peerClient.put(owner, key, value.getJson());
+    }
+
+    // This replica's entries only, for InternalCacheController: never forwarded again
+    public CachedAnalysis getRenderedLocal(String key) {
+        return rendered(key);
+    }
+
+    public void putRenderedLocal(String key, CachedAnalysis value) {
+        store.put(key, value.getJson());
+        hot.put(key, value);
+        if (snapshotEnabled) dirty.add(key);
+    }
+
+    private CachedAnalysis routedGet(String key) {
+        String owner = peers.remoteOwner(key);
+        if (owner == null) return rendered(key);
+        CachedAnalysis value = hot.get(key);
+        if (value != null) return value;
+        byte[] json = peerClient.get(owner, key);
+        if (json == null) return null;
+        value = new CachedAnalysis(key, json);
+        hot.put(key, value);
+        return value;
+    }
+
+    // One span per lookup so a trace shows whether the request was served from cache
+    private <T> T lookup(String name, Function<String, T> getter, String key) {
+        Observation observation = Observation.start("cache.lookup", observationRegistry)
+                .lowCardinalityKeyValue("cache", name);
+        try {
+            T value = getter.apply(key);
+            observation.lowCardinalityKeyValue("result", value == null ? "miss" : "hit");
+            return value;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    // Hot map, then the off-heap store, then (for entries from the previous run) the mapped file
+    private CachedAnalysis rendered(String key) {
+        CachedAnalysis value = hot.get(key);
+        if (value != null) return value;
+        byte[] json = store.get(key);
+        if (json == null) {
+            CacheSnapshot s = snapshot;
+            json = s == null ? null : s.read(key);
+            if (json == null) return null;
+            store.put(key, json);
+        }
+        value = new CachedAnalysis(key, json);
+        hot.put(key, value);
+        return value;
+    }
+
     public String generateKey(String language, String code, String context) {
         return HashUtil.sha256(language + "|" + code + "|" + (context == null ? "" : context));
     }
-}
\ No newline at end of file
+
+    private void openSnapshot() {
+        try {
+            mapSnapshot();
+        } catch (IOException e) {
+            System.err.println("⚠️  Cache snapshot unavailable, running without it: " + e.getMessage());
+        }
+    }
+
+    private void mapSnapshot() throws IOException {
+        long started = System.nanoTime();
+        CacheSnapshot s = CacheSnapshot.open(Path.of(snapshotPath), contentVersion(), snapshotMaxBytes);
+        snapshot = s;
+        System.out.println("💾 Cache snapshot mapped: " + s.size() + " entries, " + (s.fileBytes() >> 10) + " KB in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + "ms");
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            // entries stay dirty and go out with the next snapshot
+            System.err.println("⚠️  Cache snapshot failed: " + e.getMessage());
+        }
+    }
+
+    void snapshot() throws IOException {
+        CacheSnapshot s = snapshot;
+        if (s == null || dirty.isEmpty()) return;
+        // Cleared before the value is read, so a concurrent re-put marks the key dirty again
+        Map<String, byte[]> batch = new LinkedHashMap<>();
+        for (String key : dirty) {
+            dirty.remove(key);
+            CachedAnalysis value = hot.get(key);
+            byte[] json = value != null ? value.getJson() : store.get(key);
+            if (json != null) batch.put(key, json);
+        }
+        int written;
+        try {
+            written = s.append(batch);
+        } catch (IOException e) {
+            dirty.addAll(batch.keySet());
+            throw e;
+        }
+        if (written < batch.size()) {
+            System.err.println("⚠️  Cache snapshot full (" + (s.fileBytes() >> 20) + " MB), "
+                    + (batch.size() - written) + " entries not persisted");
+        }
+        // Superseded records outweigh live ones: rewrite the file without them
+        if (s.deadBytes() > s.fileBytes() / 2) {
+            s.compact();
+        }
+    }
+
+    private long contentVersion() {
+        String hash = HashUtil.sha256(snapshotVersion + "|" + model + "|" + PromptTemplate.PREFIX);
+        return Long.parseUnsignedLong(hash.substring(0, 16), 16);
+    }
+}
@@ -0,0 +1,343 @@
+package com.aidebugger.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+// Append-only segment file behind CacheService, so a restart starts with a warm cache.
+//
+//   header:  magic "AICS" | int file format | long content version | long created millis
+//   record:  int length (of the rest) | byte record format | int crc32(key, value)
+//            | short key length | key (UTF-8) | value
+//
+// Opening only walks the record headers to build key -> offset; values stay on disk and are paged
+// in through the mapping when first read, with the checksum verified at that point. A torn tail
+// (crash mid-append) is cut off. Files written for another content version (prompt/model) are
+// discarded rather than served. Superseded records are dropped by compact(); when the file is
+// full of live records, append() compacts it down to 3/4 of maxBytes by evicting the oldest.
+//
+// One process at a time: open() takes an exclusive lock on <file>.lock (a sidecar, because
+// compaction replaces the segment itself) and fails with LockedException while another server
+// or bulk run holds it. Two writers would append at their own offsets and compact under each other.
+//
+// Readers never lock: the mapping and the index pointing into it are published together as one
+// immutable View, so an offset is always read against the file it was written to.
+final class CacheSnapshot implements AutoCloseable {
+    static final int MAGIC = 0x41494353;   // "AICS"
+    static final int FILE_FORMAT = 1;
+    static final byte RECORD_FORMAT = 1;
+    static final int HEADER_BYTES = 24;
+    private static final int RECORD_OVERHEAD = 4 + 1 + 4 + 2;
+
+    private final Path path;
+    private final long contentVersion;
+    private final long maxBytes;
+    private FileChannel channel;
+    private FileChannel lockChannel;
+    private volatile View view;
+    // writer state, guarded by `this`
+    private long end;
+    private long liveBytes;
+
+    // Never modified once published; writers build a new one and swap it in with one volatile write
+    private record View(MappedByteBuffer mapped, Map<String, Long> index) {
+    }
+
+    static class LockedException extends IOException {
+        LockedException(Path path) {
+            super(path + " is in use by another process");
+        }
+    }
+
+    private CacheSnapshot(Path path, long contentVersion, long maxBytes) {
+        this.path = path;
+        this.contentVersion = contentVersion;
+        this.maxBytes = Math.min(maxBytes, Integer.MAX_VALUE);
+    }
+
+    static CacheSnapshot open(Path path, long contentVersion, long maxBytes) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        CacheSnapshot snapshot = new CacheSnapshot(path, contentVersion, maxBytes);
+        snapshot.lock();
+        try {
+            snapshot.load();
+        } catch (IOException | RuntimeException e) {
+            snapshot.close();
+            throw e;
+        }
+        return snapshot;
+    }
+
+    // Held until close(); the OS drops it if the process dies
+    private void lock() throws IOException {
+        lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new LockedException(path);
+        }
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!validHeader()) {
+            channel.truncate(0);
+            writeHeader(channel);
+            end = HEADER_BYTES;
+            view = new View(map(channel), Map.of());
+            return;
+        }
+        MappedByteBuffer buf = map(channel);
+        Map<String, Long> index = new HashMap<>();
+        long size = channel.size();
+        long pos = HEADER_BYTES;
+        while (pos + 4 <= size) {
+            int length = buf.getInt((int) pos);
+            if (length < RECORD_OVERHEAD - 4 || pos + 4 + length > size || buf.get((int) pos + 4) != RECORD_FORMAT) break;
+            int keyLength = buf.getShort((int) pos + 9);
+            if (keyLength <= 0 || keyLength > length - (RECORD_OVERHEAD - 4)) break;
+            byte[] key = new byte[keyLength];
+            buf.get((int) pos + RECORD_OVERHEAD, key);
+            put(index, buf, new String(key, StandardCharsets.UTF_8), pos, 4 + length);
+            pos += 4 + length;
+        }
+        end = pos;
+        if (end < size) {
+            channel.truncate(end);
+        }
+        view = new View(buf, index);
+    }
+
+    private boolean validHeader() throws IOException {
+        if (channel.size() < HEADER_BYTES) return false;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == FILE_FORMAT && header.getLong() == contentVersion;
+    }
+
+    private void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC).putInt(FILE_FORMAT).putLong(contentVersion).putLong(System.currentTimeMillis());
+        header.flip();
+        target.write(header, 0);
+    }
+
+    private static MappedByteBuffer map(FileChannel target) throws IOException {
+        return target.map(FileChannel.MapMode.READ_ONLY, 0, target.size());
+    }
+
+    // Only on an index that has not been published yet
+    private void put(Map<String, Long> index, MappedByteBuffer buf, String key, long offset, int recordBytes) {
+        Long previous = index.put(key, offset);
+        liveBytes += recordBytes;
+        if (previous != null) liveBytes -= recordLength(buf, previous);
+    }
+
+    private static int recordLength(MappedByteBuffer buf, long offset) {
+        return 4 + buf.getInt((int) offset);
+    }
+
+    boolean contains(String key) {
+        return view.index().containsKey(key);
+    }
+
+    Set<String> keys() {
+        return Collections.unmodifiableSet(view.index().keySet());
+    }
+
+    int size() {
+        return view.index().size();
+    }
+
+    long fileBytes() {
+        return end;
+    }
+
+    long deadBytes() {
+        return end - HEADER_BYTES - liveBytes;
+    }
+
+    // Null when absent or when the record fails its checksum (it is then forgotten)
+    byte[] read(String key) {
+        View v = view;
+        Long offset = v.index().get(key);
+        if (offset == null) return null;
+        MappedByteBuffer buf = v.mapped();
+        int pos = offset.intValue();
+        if (pos + RECORD_OVERHEAD > buf.capacity()) return null;
+        int length = buf.getInt(pos);
+        int keyLength = buf.getShort(pos + 9);
+        int valueLength = length - (RECORD_OVERHEAD - 4) - keyLength;
+        boolean intact = keyLength > 0 && valueLength >= 0 && (long) pos + 4 + length <= buf.capacity();
+        byte[] keyBytes = new byte[intact ? keyLength : 0];
+        byte[] value = new byte[intact ? valueLength : 0];
+        if (intact) {
+            buf.get(pos + RECORD_OVERHEAD, keyBytes);
+            buf.get(pos + RECORD_OVERHEAD + keyLength, value);
+        }
+        if (!intact || buf.getInt(pos + 5) != crc(keyBytes, value)
+                || !key.equals(new String(keyBytes, StandardCharsets.UTF_8))) {
+            forget(v, key);
+            System.err.println("⚠️  Cache snapshot record failed its checksum, dropped: " + key);
+            return null;
+        }
+        return value;
+    }
+
+    // Only against the View the bad record was read from; a newer one has its own copy
+    private synchronized void forget(View seen, String key) {
+        View v = view;
+        if (v != seen) return;
+        Map<String, Long> index = new HashMap<>(v.index());
+        long offset = index.remove(key);
+        int length = recordLength(v.mapped(), offset);
+        // a torn length field can claim more than the file holds
+        if (length <= liveBytes) liveBytes -= length;
+        view = new View(v.mapped(), index);
+    }
+
+    // Single writer (the snapshot thread). Returns how many entries were written. A record that
+    // does not fit triggers one evicting compaction; what still does not fit after it is skipped.
+    synchronized int append(Map<String, byte[]> entries) throws IOException {
+        List<ByteBuffer> records = new ArrayList<>(entries.size());
+        long batchBytes = 0;
+        for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+            ByteBuffer record = encode(e.getKey(), e.getValue());
+            records.add(record);
+            batchBytes += record.remaining();
+        }
+        if (end + batchBytes > maxBytes) {
+            // leave room for this batch and a few more before the next eviction
+            compact(Math.max(0, Math.min(maxBytes * 3 / 4, maxBytes - batchBytes) - HEADER_BYTES));
+        }
+
+        Map<String, long[]> written = new LinkedHashMap<>();
+        long pos = end;
+        int i = 0;
+        for (String key : entries.keySet()) {
+            ByteBuffer record = records.get(i++);
+            int bytes = record.remaining();
+            if (pos + bytes > maxBytes) continue;
+            long offset = pos;
+            while (record.hasRemaining()) {
+                pos += channel.write(record, pos);
+            }
+            written.put(key, new long[]{offset, bytes});
+        }
+        if (written.isEmpty()) return 0;
+        channel.force(false);
+        end = pos;
+        // the new mapping covers the new records before any index points at them
+        MappedByteBuffer buf = map(channel);
+        Map<String, Long> index = new HashMap<>(view.index());
+        written.forEach((key, at) -> put(index, buf, key, at[0], (int) at[1]));
+        view = new View(buf, index);
+        return written.size();
+    }
+
+    // Copies the live records into a fresh file and swaps it in
+    synchronized void compact() throws IOException {
+        compact(Long.MAX_VALUE);
+    }
+
+    // Keeps the newest live records that fit in liveBudget bytes (all of them by default), in
+    // their original order so the oldest stay first in line for the next eviction. Returns how
+    // many were evicted. Readers holding the old View keep reading the old mapping, which stays
+    // valid after the file is replaced.
+    synchronized int compact(long liveBudget) throws IOException {
+        View v = view;
+        MappedByteBuffer buf = v.mapped();
+        List<Map.Entry<String, Long>> live = new ArrayList<>(v.index().entrySet());
+        live.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+        List<Map.Entry<String, Long>> kept = new ArrayList<>(live.size());
+        long keptBytes = 0;
+        for (Map.Entry<String, Long> e : live) {
+            int bytes = recordLength(buf, e.getValue());
+            if (keptBytes + bytes > liveBudget) break;
+            keptBytes += bytes;
+            kept.add(e);
+        }
+        Collections.reverse(kept);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        Map<String, Long> offsets = new HashMap<>();
+        long pos = HEADER_BYTES;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            for (Map.Entry<String, Long> e : kept) {
+                int offset = e.getValue().intValue();
+                ByteBuffer record = buf.slice(offset, recordLength(buf, offset));
+                offsets.put(e.getKey(), pos);
+                while (record.hasRemaining()) {
+                    pos += out.write(record, pos);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end = pos;
+        liveBytes = pos - HEADER_BYTES;
+        view = new View(map(channel), offsets);
+        int evicted = live.size() - kept.size();
+        if (evicted > 0) {
+            System.out.println("💾 Cache snapshot full, evicted " + evicted + " oldest entries");
+        }
+        return evicted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (channel != null) channel.close();
+        } finally {
+            lockChannel.close();
+        }
+    }
+
+    private static ByteBuffer encode(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + keyBytes.length + value.length);
+        record.putInt(record.capacity() - 4)
+                .put(RECORD_FORMAT)
+                .putInt(crc(keyBytes, value))
+                .putShort((short) keyBytes.length)
+                .put(keyBytes)
+                .put(value);
+        return record.flip();
+    }
+
+    private static int crc(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,47 @@
+package com.aidebugger.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+// A finished /analyze response, serialized once and kept as bytes so a cache hit is a straight
+// write to the socket. Both arrays are never handed out for mutation. The gzip copy is made on
+// first request, since entries paged in from the off-heap store are often served uncompressed.
+public final class CachedAnalysis {
+    private final String etag;
+    private final byte[] json;
+    private volatile byte[] gzip;
+
+    public CachedAnalysis(String key, byte[] json) {
+        this.etag = "\"" + key + "\"";
+        this.json = json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        byte[] g = gzip;
+        if (g == null) {
+            // racing threads produce identical bytes, so either copy may win
+            gzip = g = gzip(json);
+        }
+        return g;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+package com.aidebugger.service;
+
+import io.micrometer.context.ContextRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// The point after which nobody will read a request's answer. Set once at the edge (DebugController
+// from the X-Request-Timeout-Ms header or the endpoint's default, the gRPC call deadline) and carried
+// like the trace context: the ThreadLocal is registered with ContextRegistry, so the ContextSnapshot
+// AnalysisScheduler takes moves it to the worker thread. The scheduler drops queued work that is past
+// it, and OpenAiService bounds its permit wait and upstream timeout by what is left.
+public final class Deadline {
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor("aidebugger.deadline", CURRENT);
+    }
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+    }
+
+    // The client's budget in ms, capped at maxMs; defaultMs when the header is absent or not a number
+    public static Deadline fromHeader(String header, long defaultMs, long maxMs) {
+        long millis = defaultMs;
+        if (header != null) {
+            try {
+                millis = Long.parseLong(header.trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return after(Math.min(millis, maxMs));
+    }
+
+    public Deadline earlier(Deadline other) {
+        return other == null || deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    // Deadline of the request this thread is working for, or null outside one
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public static boolean currentExpired() {
+        Deadline d = CURRENT.get();
+        return d != null && d.isExpired();
+    }
+
+    // The smaller of a component's own timeout and what is left of the current deadline
+    public static Duration bound(Duration timeout) {
+        Deadline d = CURRENT.get();
+        if (d == null) return timeout;
+        return Duration.ofNanos(Math.max(0, Math.min(timeout.toNanos(), d.remainingNanos())));
+    }
+
+    // Makes the deadline current for the caller until the returned scope is closed
+    public static Scope open(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return () -> {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static class ExceededException extends RuntimeException {
+        public ExceededException(String message) {
+            super(message);
+        }
+    }
+}
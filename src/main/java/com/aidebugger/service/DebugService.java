@@ -1,362 +1,260 @@
 package com.aidebugger.service;
 
+import com.aidebugger.analysis.Issue;
+import com.aidebugger.analysis.StaticAnalysis;
 import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.Finding;
+import com.aidebugger.llm.PromptTemplate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
 public class DebugService {
     private final OpenAiService openAiService;
-    
-    // Comment out or remove this line if you want to force OpenAI
-    // @Value("${openai.enabled:true}")
-    // private boolean openAiEnabled;
+    private final AnalysisScheduler analysisScheduler;
+    private final StaticAnalyzer staticAnalyzer;
+    private final LlmGate llmGate;
 
     public CompletableFuture<String> analyzeAsync(DebugRequest req) {
-        System.out.println("\n=== 🚀 DEBUG SERVICE STARTED ===");
-        System.out.println("🌐 Language: " + req.getLanguage());
-        System.out.println("📄 Code length: " + req.getCodeSnippet().length());
-        System.out.println("📝 Context: " + (req.getContext() != null ? req.getContext() : "None"));
-        
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // TEMPORARY: Always use enhanced mock for interview demo
-                // If you want to try OpenAI, uncomment below and comment the mock line
-                
+        return analyzeAsync(req, null, WorkClass.INTERACTIVE);
+    }
+
+    public CompletableFuture<String> analyzeAsync(DebugRequest req, String user, WorkClass workClass) {
+        logRequest(req);
+        return analysisScheduler.submit(user, workClass, () -> analyze(req, user).value());
+    }
+
+    // analyzeAsync plus whether the answer may go into the shared rendered cache (gRPC)
+    public CompletableFuture<Result<String>> analyzeResultAsync(DebugRequest req, String user, WorkClass workClass) {
+        logRequest(req);
+        return analysisScheduler.submit(user, workClass, () -> analyze(req, user));
+    }
+
+    // An analysis and whether it may go into the shared rendered cache: fallback and error text
+    // is only true for this caller, right now, and is sent but not stored
+    public record Result<T>(T value, boolean cacheable) {}
+
+    private Result<String> analyze(DebugRequest req, String user) {
+        try {
+            Result<String> response;
+            if (llmGate.decide(req).escalate()) {
+                response = escalate(req, user);
+            } else {
                 System.out.println("🔄 Using enhanced analysis engine...");
-                String response = getEnhancedMockResponse(req);
-                
-                // UNCOMMENT BELOW TO TRY OPENAI (if you fix credits):
-                // System.out.println("🔄 Building prompt for OpenAI...");
-                // String prompt = buildPrompt(req);
-                // String response = openAiService.askDebugAssistant(prompt);
-                
+                response = new Result<>(getEnhancedMockResponse(req), true);
+            }
+            System.out.println("✅ Analysis completed successfully");
+            return response;
+        } catch (Deadline.ExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("❌ Error in DebugService: " + e.getMessage());
+            return new Result<>(getErrorResponse(req, e), false);
+        }
+    }
+
+    // LlmGate found the local report inconclusive: the LLM's answer leads, local findings follow
+    private Result<String> escalate(DebugRequest req, String user) {
+        System.out.println("🔄 Local analysis inconclusive, escalating to LLM...");
+        OpenAiService.Answer llm = openAiService.ask(buildPrompt(req), user);
+        if (llm.fallback()) System.out.println("⚠️  No model answered, the result will not be cached");
+        return new Result<>(mergeAnalyses(getEnhancedMockResponse(req), llm.text()), !llm.fallback());
+    }
+
+    // ========== RENDERED (the /analyze response body, written as JSON bytes) ==========
+
+    // Same report as analyzeAsync, but written straight into the JSON body DebugController sends
+    // and caches: no report String, no HashMap, no second escaping pass through Jackson
+    public CompletableFuture<Result<byte[]>> analyzeRenderedAsync(DebugRequest req, String user, WorkClass workClass) {
+        logRequest(req);
+
+        return analysisScheduler.submit(user, workClass, () -> {
+            try {
+                Result<byte[]> body;
+                if (llmGate.decide(req).escalate()) {
+                    Result<String> analysis = escalate(req, user);
+                    body = new Result<>(renderResponse(req.getLanguage(), req.getCodeSnippet().length(), analysis.value()),
+                            analysis.cacheable());
+                } else {
+                    System.out.println("🔄 Using enhanced analysis engine...");
+                    body = new Result<>(renderMockResponse(req), true);
+                }
                 System.out.println("✅ Analysis completed successfully");
-                return response;
-                
+                return body;
+            } catch (Deadline.ExceededException e) {
+                throw e;
             } catch (Exception e) {
                 System.err.println("❌ Error in DebugService: " + e.getMessage());
-                return getErrorResponse(req, e);
+                return new Result<>(renderResponse(req.getLanguage(), req.getCodeSnippet().length(),
+                        getErrorResponse(req, e)), false);
             }
         });
     }
 
-    private String getEnhancedMockResponse(DebugRequest req) {
-        String code = req.getCodeSnippet();
-        String language = req.getLanguage().toLowerCase();
-        
-        // Enhanced professional mock responses
-        String analysis = switch(language) {
-            case "java" -> getJavaAnalysis(code);
-            case "python", "py" -> getPythonAnalysis(code);
-            case "javascript", "js", "typescript", "ts" -> getJavascriptAnalysis(code);
-            case "cpp", "c++", "c" -> getCppAnalysis(code);
-            default -> getGenericAnalysis(code);
-        };
-        
-        return """
-               ## 🤖 AI-Powered Code Analysis
-               
-               **Note:** Using enhanced analysis engine. Enable OpenAI API for real-time AI insights.
-               
-               ### 📋 Analysis Summary
-               Language: %s
-               Code Length: %d characters
-               Analysis Time: < 1 second
-               
-               %s
-               
-               ---
-               *💡 Enable OpenAI API key for GPT-4 level real-time analysis*
-               """.formatted(
-                   req.getLanguage(), 
-                   code.length(), 
-                   analysis
-               );
-    }
-    
-    private String getJavaAnalysis(String code) {
-        boolean hasDivision = code.contains("/") && code.contains("0");
-        boolean hasNullCheck = code.contains("null") && !code.contains("!= null") && !code.contains("== null");
-        boolean hasExceptionHandling = code.contains("try") || code.contains("catch");
-        
-        StringBuilder analysis = new StringBuilder();
-        analysis.append("### 🔍 Issues Identified\n");
-        
-        if (hasDivision) {
-            analysis.append("1. **Potential Division by Zero**: Integer division without validation\n");
-        }
-        if (hasNullCheck) {
-            analysis.append("2. **Null Safety**: Potential NullPointerException risks\n");
-        }
-        if (!hasExceptionHandling) {
-            analysis.append("3. **Exception Handling**: Consider adding try-catch blocks\n");
+    // {"status":"success","timestamp":...,"language":...,"charactersProcessed":...,"analysis":...}
+    // for an analysis that already exists as a String (LLM answers, gRPC results)
+    public byte[] renderResponse(String language, int charactersProcessed, String analysis) {
+        ReportBuffer out = ReportBuffer.acquire(true);
+        try {
+            writeResponseStart(out, language, charactersProcessed);
+            out.append(analysis).bytes(RESPONSE_END);
+            return out.toByteArray();
+        } finally {
+            out.release();
         }
-        analysis.append("4. **Code Structure**: Review class/method organization\n");
-        
-        analysis.append("\n### 🔧 Recommendations\n");
-        analysis.append("```java\n");
-        
-        if (hasDivision) {
-            analysis.append("// Safe division with validation\n");
-            analysis.append("if (denominator != 0) {\n");
-            analysis.append("    result = numerator / denominator;\n");
-            analysis.append("} else {\n");
-            analysis.append("    // Handle division by zero\n");
-            analysis.append("    throw new IllegalArgumentException(\"Denominator cannot be zero\");\n");
-            analysis.append("}\n");
-        } else {
-            analysis.append("// Consider adding:\n");
-            analysis.append("// 1. Input validation\n");
-            analysis.append("// 2. Error handling\n");
-            analysis.append("// 3. Logging for debugging\n");
-        }
-        
-        analysis.append("```\n\n");
-        
-        analysis.append("### 📚 Best Practices\n");
-        analysis.append("- Use `final` for immutable variables\n");
-        analysis.append("- Follow Java naming conventions (camelCase)\n");
-        analysis.append("- Add Javadoc comments for public methods\n");
-        analysis.append("- Use `Optional` for nullable returns\n");
-        analysis.append("- Implement proper exception hierarchy\n");
-        analysis.append("- Consider using records for data classes (Java 14+)\n");
-        
-        analysis.append("\n### 🧪 Test Cases\n");
-        analysis.append("- Null and empty input scenarios\n");
-        analysis.append("- Edge cases (MAX_VALUE, MIN_VALUE)\n");
-        analysis.append("- Concurrent access scenarios\n");
-        analysis.append("- Memory usage under load\n");
-        
-        return analysis.toString();
     }
-    
-    private String getPythonAnalysis(String code) {
-        boolean hasPrint = code.contains("print(");
-        boolean hasDivision = code.contains("/") && code.contains("0");
-        boolean hasImport = code.contains("import ");
-        
-        StringBuilder analysis = new StringBuilder();
-        analysis.append("### 🔍 Issues Identified\n");
-        
-        if (hasPrint && code.contains("production")) {
-            analysis.append("1. **Debug Prints**: Remove print statements for production\n");
-        }
-        if (hasDivision) {
-            analysis.append("2. **Division Safety**: No zero division check\n");
-        }
-        if (!hasImport && code.contains("json") || code.contains("requests")) {
-            analysis.append("3. **Missing Imports**: Required modules not imported\n");
+
+    byte[] renderMockResponse(DebugRequest req) {
+        ReportBuffer out = ReportBuffer.acquire(true);
+        try {
+            writeResponseStart(out, req.getLanguage(), req.getCodeSnippet().length());
+            writeEnhancedMockResponse(out, req);
+            return out.bytes(RESPONSE_END).toByteArray();
+        } finally {
+            out.release();
         }
-        analysis.append("4. **Type Safety**: Consider adding type hints\n");
-        
-        analysis.append("\n### 🔧 Recommendations\n");
-        analysis.append("```python\n");
-        
-        if (hasDivision) {
-            analysis.append("# Safe division with error handling\n");
-            analysis.append("try:\n");
-            analysis.append("    result = numerator / denominator\n");
-            analysis.append("except ZeroDivisionError:\n");
-            analysis.append("    result = float('inf')  # or handle appropriately\n");
-            analysis.append("    logger.error(\"Division by zero attempted\")\n");
+    }
+
+    // Everything up to the opening quote of "analysis"
+    private static void writeResponseStart(ReportBuffer out, String language, int charactersProcessed) {
+        out.bytes(RESPONSE_START).timestamp(System.currentTimeMillis()).bytes(RESPONSE_LANGUAGE);
+        if (language == null) {
+            out.bytes(JSON_NULL);
         } else {
-            analysis.append("# Consider adding:\n");
-            analysis.append("# 1. Type hints for function signatures\n");
-            analysis.append("# 2. Docstrings for documentation\n");
-            analysis.append("# 3. Environment variable configuration\n");
+            out.bytes(QUOTE).append(language).bytes(QUOTE);
         }
-        
-        analysis.append("```\n\n");
-        
-        analysis.append("### 📚 Best Practices\n");
-        analysis.append("- Use f-strings for string formatting (Python 3.6+)\n");
-        analysis.append("- Add type hints for better IDE support\n");
-        analysis.append("- Use context managers (`with` statements)\n");
-        analysis.append("- Implement `__str__` and `__repr__` methods\n");
-        analysis.append("- Follow PEP 8 style guide\n");
-        
-        analysis.append("\n### 🧪 Test Cases\n");
-        analysis.append("- Test with `None` inputs\n");
-        analysis.append("- Large dataset performance\n");
-        analysis.append("- Unicode/encoding scenarios\n");
-        analysis.append("- Third-party API failure cases\n");
-        
-        return analysis.toString();
+        out.bytes(RESPONSE_CHARACTERS).append(charactersProcessed).bytes(RESPONSE_ANALYSIS);
     }
-    
-    private String getJavascriptAnalysis(String code) {
-        boolean hasConsoleLog = code.contains("console.log");
-        boolean hasVar = code.contains("var ");
-        boolean hasAsync = code.contains("async") || code.contains("Promise");
-        
-        StringBuilder analysis = new StringBuilder();
-        analysis.append("### 🔍 Issues Identified\n");
-        
-        if (hasConsoleLog) {
-            analysis.append("1. **Debug Logs**: Remove console logs for production\n");
-        }
-        if (hasVar) {
-            analysis.append("2. **Variable Declaration**: Prefer `const` or `let` over `var`\n");
+
+    private static void logRequest(DebugRequest req) {
+        System.out.println("\n=== 🚀 DEBUG SERVICE STARTED ===");
+        System.out.println("🌐 Language: " + req.getLanguage());
+        System.out.println("📄 Code length: " + req.getCodeSnippet().length());
+        System.out.println("📝 Context: " + (req.getContext() != null ? req.getContext() : "None"));
+    }
+
+    // ========== PROGRESSIVE (heuristic now, LLM later) ==========
+
+    public CompletableFuture<String> heuristicAsync(DebugRequest req, String user, WorkClass workClass) {
+        return analysisScheduler.submit(user, workClass, () -> getEnhancedMockResponse(req));
+    }
+
+    // Completes with null when no LLM backend is available or LlmGate keeps the request local,
+    // so callers can skip the upgrade step. Answer.fallback() marks canned text, not a review.
+    public CompletableFuture<OpenAiService.Answer> llmAsync(DebugRequest req, String user, WorkClass workClass) {
+        if (!openAiService.isAvailable()) {
+            return CompletableFuture.completedFuture(null);
         }
-        if (hasAsync && !code.contains("catch")) {
-            analysis.append("3. **Async Error Handling**: Missing promise rejection handling\n");
+        return analysisScheduler.submit(user, workClass, () -> llmGate.decide(req).escalate()
+                ? openAiService.ask(buildPrompt(req), user)
+                : null);
+    }
+
+    // LLM analysis leads; the locally detected issues are kept underneath it
+    public String mergeAnalyses(String heuristic, String llm) {
+        if (llm == null || llm.isBlank()) return heuristic;
+        int issues = heuristic.indexOf("### 🔍 Issues Identified");
+        int end = issues < 0 ? -1 : heuristic.indexOf("\n### ", issues + 1);
+        String localIssues = issues < 0 ? "" : (end < 0 ? heuristic.substring(issues) : heuristic.substring(issues, end));
+        if (localIssues.isEmpty()) return llm;
+        return llm + "\n\n---\n## 🔧 Static Analysis Findings\n\n" + localIssues.trim() + "\n";
+    }
+
+    String getEnhancedMockResponse(DebugRequest req) {
+        ReportBuffer out = ReportBuffer.acquire(false);
+        try {
+            writeEnhancedMockResponse(out, req);
+            return out.toString();
+        } finally {
+            out.release();
         }
-        analysis.append("4. **Type Safety**: Consider TypeScript for larger projects\n");
-        
-        analysis.append("\n### 🔧 Recommendations\n");
-        analysis.append("```javascript\n");
-        
-        if (hasAsync) {
-            analysis.append("// Better async handling\n");
-            analysis.append("async function processData() {\n");
-            analysis.append("    try {\n");
-            analysis.append("        const result = await fetchData();\n");
-            analysis.append("        return processResult(result);\n");
-            analysis.append("    } catch (error) {\n");
-            analysis.append("        console.error('Processing failed:', error);\n");
-            analysis.append("        throw new Error('Process failed', { cause: error });\n");
-            analysis.append("    }\n");
-            analysis.append("}\n");
-        } else {
-            analysis.append("// Consider adding:\n");
-            analysis.append("// 1. Error boundaries for React apps\n");
-            analysis.append("// 2. Input validation\n");
-            analysis.append("// 3. Internationalization support\n");
+    }
+
+    private void writeEnhancedMockResponse(ReportBuffer out, DebugRequest req) {
+        String code = req.getCodeSnippet();
+        out.append(MOCK_HEADER).append(req.getLanguage())
+                .append(MOCK_CODE_LENGTH).append(code.length())
+                .append(MOCK_ANALYSIS_TIME);
+        writeHeuristic(out, req.getLanguage(), code);
+        out.append(MOCK_FOOTER);
+    }
+
+    // Exercises the same code paths as a real request (minus logging and the executor) so the JIT
+    // has compiled them before the first user request arrives
+    public int warmUp(String language, String code) {
+        DebugRequest req = new DebugRequest();
+        req.setLanguage(language);
+        req.setCodeSnippet(code);
+        int sink = staticAnalyzer.analyzeUncached(language, code).tokens();
+        sink += getEnhancedMockResponse(req).length();
+        sink += renderMockResponse(req).length;
+        sink += heuristicFindings(language, code, 1, 1).size();
+        return sink > 0 ? 1 : 0;
+    }
+
+    String heuristicAnalysis(String language, String code) {
+        ReportBuffer out = ReportBuffer.acquire(false);
+        try {
+            writeHeuristic(out, language, code);
+            return out.toString();
+        } finally {
+            out.release();
         }
-        
-        analysis.append("```\n\n");
-        
-        analysis.append("### 📚 Best Practices\n");
-        analysis.append("- Use `===` instead of `==` for strict equality\n");
-        analysis.append("- Implement proper error handling\n");
-        analysis.append("- Use ES6+ features (arrow functions, destructuring)\n");
-        analysis.append("- Add JSDoc comments for documentation\n");
-        analysis.append("- Consider using a linter (ESLint)\n");
-        
-        analysis.append("\n### 🧪 Test Cases\n");
-        analysis.append("- Cross-browser compatibility\n");
-        analysis.append("- Mobile device testing\n");
-        analysis.append("- Network failure scenarios\n");
-        analysis.append("- Memory leak detection\n");
-        
-        return analysis.toString();
     }
-    
-    private String getCppAnalysis(String code) {
-        boolean hasNew = code.contains("new ") && !code.contains("delete ");
-        boolean hasRawPointer = code.contains("*") && !code.contains("shared_ptr") && !code.contains("unique_ptr");
-        boolean hasException = code.contains("throw");
-        
-        StringBuilder analysis = new StringBuilder();
-        analysis.append("### 🔍 Issues Identified\n");
-        
-        if (hasNew && !code.contains("delete")) {
-            analysis.append("1. **Memory Leak**: `new` without corresponding `delete`\n");
+
+    private void writeHeuristic(ReportBuffer out, String language, String code) {
+        StaticAnalysis result = staticAnalyzer.analyze(language, code);
+        LanguageReport report = LANGUAGE_REPORTS.get(language);
+        if (report == null) {
+            if (!result.issues().isEmpty()) {
+                writeIssues(out, result);
+                out.append(NEWLINE);
+            }
+            out.append(GENERIC_REPORT);
+            return;
         }
-        if (hasRawPointer) {
-            analysis.append("2. **Raw Pointers**: Consider smart pointers for automatic memory management\n");
+        writeIssues(out, result);
+        out.append(report.recommendations())
+                .append(report.fixApplies().test(result) ? report.fix() : report.advice())
+                .append(report.practices());
+    }
+
+    // Static-analysis issues as findings, with issue lines shifted so line 1 of code is startLine
+    List<Finding> heuristicFindings(String language, String code, int startLine, int endLine) {
+        List<Finding> findings = new ArrayList<>();
+        for (Issue issue : staticAnalyzer.analyze(language, code).issues()) {
+            int line = startLine + issue.line() - 1;
+            findings.add(issue.line() > 0
+                    ? new Finding(line, line, issue.title(), issue.detail(), "heuristic")
+                    : new Finding(startLine, endLine, issue.title(), issue.detail(), "heuristic"));
         }
-        if (hasException && !code.contains("catch")) {
-            analysis.append("3. **Exception Safety**: Missing exception handling\n");
+        return findings;
+    }
+
+    private static void writeIssues(ReportBuffer out, StaticAnalysis result) {
+        out.append(ISSUES_HEADER);
+        if (result.issues().isEmpty()) {
+            out.append(NO_ISSUES);
         }
-        analysis.append("4. **Modern C++**: Consider C++11/14/17 features\n");
-        
-        analysis.append("\n### 🔧 Recommendations\n");
-        analysis.append("```cpp\n");
-        
-        if (hasNew) {
-            analysis.append("// Use smart pointers instead of raw new/delete\n");
-            analysis.append("#include <memory>\n\n");
-            analysis.append("std::unique_ptr<MyClass> obj = std::make_unique<MyClass>();\n");
-            analysis.append("// Automatic cleanup when out of scope\n");
-        } else {
-            analysis.append("// Consider adding:\n");
-            analysis.append("// 1. RAII pattern for resource management\n");
-            analysis.append("// 2. Move semantics for efficiency\n");
-            analysis.append("// 3. Const correctness\n");
+        int n = 1;
+        for (Issue issue : result.issues()) {
+            out.append(n++).append(ISSUE_TITLE).append(issue.title()).append(ISSUE_DETAIL).append(issue.detail());
+            if (issue.line() > 0) out.append(ISSUE_LINE).append(issue.line()).append(ISSUE_LINE_END);
+            out.append(NEWLINE);
         }
-        
-        analysis.append("```\n\n");
-        
-        analysis.append("### 📚 Best Practices\n");
-        analysis.append("- Follow RAII (Resource Acquisition Is Initialization)\n");
-        analysis.append("- Use smart pointers (`unique_ptr`, `shared_ptr`)\n");
-        analysis.append("- Prefer standard library algorithms over raw loops\n");
-        analysis.append("- Use `const` wherever possible\n");
-        analysis.append("- Implement move constructors for large objects\n");
-        
-        analysis.append("\n### 🧪 Test Cases\n");
-        analysis.append("- Memory leak detection\n");
-        analysis.append("- Multi-threaded access\n");
-        analysis.append("- Exception safety guarantees\n");
-        analysis.append("- Performance under heavy load\n");
-        
-        return analysis.toString();
-    }
-    
-    private String getGenericAnalysis(String code) {
-        return """
-               ### 🔍 Code Review Summary
-               
-               **Code Quality Assessment:**
-               - ✅ Syntax appears valid
-               - ⚠️ Consider adding error handling
-               - ⚠️ Review input validation
-               - ⚠️ Check edge cases
-               
-               ### 🔧 General Recommendations
-               1. **Input Validation**: Validate all external inputs
-               2. **Error Handling**: Implement comprehensive error handling
-               3. **Logging**: Add structured logging for debugging
-               4. **Testing**: Write unit tests for critical paths
-               
-               ### 📚 Universal Best Practices
-               - Write self-documenting code with clear naming
-               - Keep functions small and focused (Single Responsibility)
-               - Avoid magic numbers and strings
-               - Use version control effectively
-               - Document public APIs
-               
-               ### 🧪 Testing Strategy
-               - Unit tests for individual components
-               - Integration tests for modules
-               - Load testing for performance
-               - Security vulnerability scanning
-               """;
     }
 
-    private String buildPrompt(DebugRequest req) {
-        StringBuilder prompt = new StringBuilder();
-        prompt.append("You are an expert ").append(req.getLanguage()).append(" programmer and debugger.\n");
-        prompt.append("Your task: Analyze the code below and provide SPECIFIC, ACTIONABLE feedback.\n\n");
-        
-        if (req.getContext() != null && !req.getContext().trim().isEmpty()) {
-            prompt.append("User Context: ").append(req.getContext()).append("\n\n");
-        }
-        
-        prompt.append("Code to analyze (").append(req.getLanguage()).append("):\n");
-        prompt.append("```").append(req.getLanguage()).append("\n");
-        prompt.append(req.getCodeSnippet());
-        prompt.append("\n```\n\n");
-        
-        prompt.append("Provide analysis in this EXACT format:\n");
-        prompt.append("## 🔍 Code Analysis\n");
-        prompt.append("### 📋 Issues Found\n");
-        prompt.append("(List each issue with line numbers if possible)\n\n");
-        prompt.append("### 🔧 Suggested Fixes\n");
-        prompt.append("(Provide corrected code snippets)\n\n");
-        prompt.append("### 💡 Best Practices\n");
-        prompt.append("(Language-specific recommendations)\n\n");
-        prompt.append("### 🧪 Test Cases\n");
-        prompt.append("(Edge cases to test)\n\n");
-        prompt.append("IMPORTANT: Start your response with '🤖 AI ANALYSIS:' so I know it's from OpenAI.");
-        prompt.append("Keep response under 600 words.");
-        
-        return prompt.toString();
+    String buildPrompt(DebugRequest req) {
+        return PromptTemplate.build(req);
     }
 
     private String getErrorResponse(DebugRequest req, Exception e) {
@@ -378,4 +276,221 @@ public class DebugService {
                *Try again in a moment or check the logs for details.*
                """.formatted(e.getMessage(), req.getLanguage(), req.getCodeSnippet());
     }
-}
\ No newline at end of file
+
+    // ========== REPORT TEXT (encoded once, see ReportFragment) ==========
+
+    private static final byte[] RESPONSE_START = ascii("{\"status\":\"success\",\"timestamp\":\"");
+    private static final byte[] RESPONSE_LANGUAGE = ascii("\",\"language\":");
+    private static final byte[] RESPONSE_CHARACTERS = ascii(",\"charactersProcessed\":");
+    private static final byte[] RESPONSE_ANALYSIS = ascii(",\"analysis\":\"");
+    private static final byte[] RESPONSE_END = ascii("\"}");
+    private static final byte[] QUOTE = ascii("\"");
+    private static final byte[] JSON_NULL = ascii("null");
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final ReportFragment MOCK_HEADER = ReportFragment.of("""
+            ## 🤖 AI-Powered Code Analysis
+
+            **Note:** Using enhanced analysis engine. Enable OpenAI API for real-time AI insights.
+
+            ### 📋 Analysis Summary
+            Language:\s""");
+    private static final ReportFragment MOCK_CODE_LENGTH = ReportFragment.of("\nCode Length: ");
+    private static final ReportFragment MOCK_ANALYSIS_TIME = ReportFragment.of(" characters\nAnalysis Time: < 1 second\n\n");
+    private static final ReportFragment MOCK_FOOTER = ReportFragment.of("""
+
+
+            ---
+            *💡 Enable OpenAI API key for GPT-4 level real-time analysis*
+            """);
+
+    private static final ReportFragment ISSUES_HEADER = ReportFragment.of("### 🔍 Issues Identified\n");
+    private static final ReportFragment NO_ISSUES = ReportFragment.of("No issues found by static analysis.\n");
+    private static final ReportFragment ISSUE_TITLE = ReportFragment.of(". **");
+    private static final ReportFragment ISSUE_DETAIL = ReportFragment.of("**: ");
+    private static final ReportFragment ISSUE_LINE = ReportFragment.of(" (line ");
+    private static final ReportFragment ISSUE_LINE_END = ReportFragment.of(")");
+    private static final ReportFragment NEWLINE = ReportFragment.of("\n");
+
+    // After the issue list: recommendations (a fix when the rule it addresses fired, general advice
+    // otherwise), then best practices and test cases
+    private record LanguageReport(ReportFragment recommendations, Predicate<StaticAnalysis> fixApplies,
+                                  ReportFragment fix, ReportFragment advice, ReportFragment practices) {
+        LanguageReport(String fence, Predicate<StaticAnalysis> fixApplies, String fix, String advice, String practices) {
+            this(ReportFragment.of("\n### 🔧 Recommendations\n```" + fence + "\n"), fixApplies,
+                    ReportFragment.of(fix), ReportFragment.of(advice), ReportFragment.of("```\n\n" + practices));
+        }
+    }
+
+    private static final LanguageReport JAVA_REPORT = new LanguageReport("java",
+            r -> r.hasRule("division-by-zero"),
+            """
+            // Safe division with validation
+            if (denominator != 0) {
+                result = numerator / denominator;
+            } else {
+                // Handle division by zero
+                throw new IllegalArgumentException("Denominator cannot be zero");
+            }
+            """,
+            """
+            // Consider adding:
+            // 1. Input validation
+            // 2. Error handling
+            // 3. Logging for debugging
+            """,
+            """
+            ### 📚 Best Practices
+            - Use `final` for immutable variables
+            - Follow Java naming conventions (camelCase)
+            - Add Javadoc comments for public methods
+            - Use `Optional` for nullable returns
+            - Implement proper exception hierarchy
+            - Consider using records for data classes (Java 14+)
+
+            ### 🧪 Test Cases
+            - Null and empty input scenarios
+            - Edge cases (MAX_VALUE, MIN_VALUE)
+            - Concurrent access scenarios
+            - Memory usage under load
+            """);
+
+    private static final LanguageReport PYTHON_REPORT = new LanguageReport("python",
+            r -> r.hasRule("division-by-zero"),
+            """
+            # Safe division with error handling
+            try:
+                result = numerator / denominator
+            except ZeroDivisionError:
+                result = float('inf')  # or handle appropriately
+                logger.error("Division by zero attempted")
+            """,
+            """
+            # Consider adding:
+            # 1. Type hints for function signatures
+            # 2. Docstrings for documentation
+            # 3. Environment variable configuration
+            """,
+            """
+            ### 📚 Best Practices
+            - Use f-strings for string formatting (Python 3.6+)
+            - Add type hints for better IDE support
+            - Use context managers (`with` statements)
+            - Implement `__str__` and `__repr__` methods
+            - Follow PEP 8 style guide
+
+            ### 🧪 Test Cases
+            - Test with `None` inputs
+            - Large dataset performance
+            - Unicode/encoding scenarios
+            - Third-party API failure cases
+            """);
+
+    private static final LanguageReport JAVASCRIPT_REPORT = new LanguageReport("javascript",
+            r -> r.hasRule("js.unhandled-promise"),
+            """
+            // Better async handling
+            async function processData() {
+                try {
+                    const result = await fetchData();
+                    return processResult(result);
+                } catch (error) {
+                    console.error('Processing failed:', error);
+                    throw new Error('Process failed', { cause: error });
+                }
+            }
+            """,
+            """
+            // Consider adding:
+            // 1. Error boundaries for React apps
+            // 2. Input validation
+            // 3. Internationalization support
+            """,
+            """
+            ### 📚 Best Practices
+            - Use `===` instead of `==` for strict equality
+            - Implement proper error handling
+            - Use ES6+ features (arrow functions, destructuring)
+            - Add JSDoc comments for documentation
+            - Consider using a linter (ESLint)
+            - Consider TypeScript for larger projects
+
+            ### 🧪 Test Cases
+            - Cross-browser compatibility
+            - Mobile device testing
+            - Network failure scenarios
+            - Memory leak detection
+            """);
+
+    private static final LanguageReport CPP_REPORT = new LanguageReport("cpp",
+            r -> r.hasRule("cpp.memory-leak") || r.hasRule("cpp.raw-pointer"),
+            """
+            // Use smart pointers instead of raw new/delete
+            #include <memory>
+
+            std::unique_ptr<MyClass> obj = std::make_unique<MyClass>();
+            // Automatic cleanup when out of scope
+            """,
+            """
+            // Consider adding:
+            // 1. RAII pattern for resource management
+            // 2. Move semantics for efficiency
+            // 3. Const correctness
+            """,
+            """
+            ### 📚 Best Practices
+            - Follow RAII (Resource Acquisition Is Initialization)
+            - Use smart pointers (`unique_ptr`, `shared_ptr`)
+            - Prefer standard library algorithms over raw loops
+            - Use `const` wherever possible
+            - Implement move constructors for large objects
+            - Prefer modern C++ (C++11/14/17) features
+
+            ### 🧪 Test Cases
+            - Memory leak detection
+            - Multi-threaded access
+            - Exception safety guarantees
+            - Performance under heavy load
+            """);
+
+    // Case-insensitive so the lookup needs no toLowerCase() copy; other languages get GENERIC_REPORT
+    private static final Map<String, LanguageReport> LANGUAGE_REPORTS = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    static {
+        LANGUAGE_REPORTS.put("java", JAVA_REPORT);
+        for (String alias : List.of("python", "py")) LANGUAGE_REPORTS.put(alias, PYTHON_REPORT);
+        for (String alias : List.of("javascript", "js", "typescript", "ts")) LANGUAGE_REPORTS.put(alias, JAVASCRIPT_REPORT);
+        for (String alias : List.of("cpp", "c++", "c")) LANGUAGE_REPORTS.put(alias, CPP_REPORT);
+    }
+
+    private static final ReportFragment GENERIC_REPORT = ReportFragment.of("""
+            ### 🔍 Code Review Summary
+
+            **Code Quality Assessment:**
+            - ✅ Syntax appears valid
+            - ⚠️ Consider adding error handling
+            - ⚠️ Review input validation
+            - ⚠️ Check edge cases
+
+            ### 🔧 General Recommendations
+            1. **Input Validation**: Validate all external inputs
+            2. **Error Handling**: Implement comprehensive error handling
+            3. **Logging**: Add structured logging for debugging
+            4. **Testing**: Write unit tests for critical paths
+
+            ### 📚 Universal Best Practices
+            - Write self-documenting code with clear naming
+            - Keep functions small and focused (Single Responsibility)
+            - Avoid magic numbers and strings
+            - Use version control effectively
+            - Document public APIs
+
+            ### 🧪 Testing Strategy
+            - Unit tests for individual components
+            - Integration tests for modules
+            - Load testing for performance
+            - Security vulnerability scanning
+            """);
+}
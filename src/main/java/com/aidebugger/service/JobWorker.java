@@ -0,0 +1,117 @@
+package com.aidebugger.service;
+
+import com.aidebugger.dto.JobStatus;
+import com.aidebugger.jobs.JobDelivery;
+import com.aidebugger.jobs.JobQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Pulls analysis jobs off the shared queue. Any replica can run workers (app.jobs.workers > 0)
+// and web-only nodes can set it to 0, so workers scale separately from the HTTP tier.
+@Service
+@RequiredArgsConstructor
+public class JobWorker {
+    private final JobQueue jobQueue;
+    private final DebugService debugService;
+
+    @Value("${app.jobs.workers:2}")
+    private int workers;
+
+    @Value("${app.jobs.reclaim-interval-seconds:15}")
+    private long reclaimIntervalSeconds;
+
+    private ExecutorService pool;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        if (workers <= 0) return;
+        running = true;
+        String host = hostName();
+        pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "Job-Worker");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            String consumer = host + "-" + i;
+            pool.execute(() -> loop(consumer));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (pool != null) pool.shutdownNow();
+    }
+
+    private void loop(String consumer) {
+        long nextReclaim = 0;
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                List<JobDelivery> batch = new ArrayList<>();
+                if (System.currentTimeMillis() >= nextReclaim) {
+                    batch.addAll(jobQueue.reclaim(consumer, 1));
+                    nextReclaim = System.currentTimeMillis() + reclaimIntervalSeconds * 1000;
+                }
+                if (batch.isEmpty()) {
+                    batch.addAll(jobQueue.poll(consumer, 1, Duration.ofSeconds(2)));
+                }
+                for (JobDelivery delivery : batch) {
+                    process(delivery);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("❌ Job worker " + consumer + " error: " + e.getMessage());
+                sleepQuietly(1000);
+            }
+        }
+    }
+
+    private void process(JobDelivery delivery) throws InterruptedException {
+        JobStatus previous = jobQueue.getStatus(delivery.jobId());
+        long submitted = previous == null ? System.currentTimeMillis() : previous.getSubmittedAt();
+        jobQueue.saveStatus(new JobStatus(delivery.jobId(), JobStatus.RUNNING, null, null,
+                delivery.attempt(), submitted, System.currentTimeMillis(), delivery.user()));
+        try {
+            String analysis = debugService.analyzeAsync(delivery.request(), delivery.user(), WorkClass.BATCH).get();
+            jobQueue.saveStatus(new JobStatus(delivery.jobId(), JobStatus.DONE, analysis, null,
+                    delivery.attempt(), submitted, System.currentTimeMillis(), delivery.user()));
+            jobQueue.ack(delivery);
+        } catch (ExecutionException e) {
+            String error = e.getCause() == null ? e.getMessage() : e.getCause().getMessage();
+            System.err.println("⚠️  Job " + delivery.jobId() + " attempt " + delivery.attempt() + " failed: " + error);
+            jobQueue.saveStatus(new JobStatus(delivery.jobId(), JobStatus.QUEUED, null, error,
+                    delivery.attempt(), submitted, System.currentTimeMillis(), delivery.user()));
+            jobQueue.fail(delivery, error);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker";
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
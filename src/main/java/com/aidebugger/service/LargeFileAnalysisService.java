@@ -0,0 +1,132 @@
+package com.aidebugger.service;
+
+import com.aidebugger.analysis.CodeChunk;
+import com.aidebugger.analysis.CodeChunker;
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.Finding;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+@Service
+@RequiredArgsConstructor
+public class LargeFileAnalysisService {
+    private final DebugService debugService;
+    private final OpenAiService openAiService;
+    private final AnalysisScheduler analysisScheduler;
+
+    @Value("${app.chunk.target-chars:4000}")
+    private int targetChars;
+
+    @Value("${app.chunk.max-chars:5000}")
+    private int maxChars;
+
+    @Value("${app.chunk.overlap-lines:3}")
+    private int overlapLines;
+
+    // Chunks allowed in the scheduler at once; the reader blocks (backpressure) beyond this
+    @Value("${app.chunk.max-in-flight:16}")
+    private int maxInFlight;
+
+    @Getter
+    public static class Result {
+        private final int chunks;
+        private final int lines;
+        private final List<Finding> findings;
+
+        Result(int chunks, int lines, List<Finding> findings) {
+            this.chunks = chunks;
+            this.lines = lines;
+            this.findings = findings;
+        }
+    }
+
+    // ========== MAP ==========
+
+    public Result analyze(String language, String context, Reader source, String user, WorkClass workClass)
+            throws IOException {
+        CodeChunker chunker = new CodeChunker(language, targetChars, maxChars, overlapLines);
+        Semaphore inFlight = new Semaphore(Math.max(1, maxInFlight));
+        boolean useAi = openAiService.isAvailable();
+        List<CompletableFuture<List<Finding>>> pending = new ArrayList<>();
+        int[] lastLine = {0};
+
+        System.out.println("\n=== 🧩 CHUNKED ANALYSIS STARTED ===");
+        System.out.println("🌐 Language: " + language + " | AI: " + useAi);
+
+        try {
+            chunker.split(source, chunk -> {
+                inFlight.acquireUninterruptibly();
+                lastLine[0] = chunk.getEndLine();
+                pending.add(analysisScheduler
+                        .submit(user, workClass, () -> analyzeChunk(language, context, chunk, useAi, user))
+                        .whenComplete((r, e) -> inFlight.release()));
+            });
+        } catch (RuntimeException | IOException e) {
+            pending.forEach(f -> f.cancel(true));
+            throw e;
+        }
+
+        List<Finding> all = new ArrayList<>();
+        for (CompletableFuture<List<Finding>> f : pending) {
+            all.addAll(f.join());
+        }
+
+        List<Finding> merged = reduce(all);
+        System.out.println("✅ " + pending.size() + " chunks, " + all.size() + " raw findings, " + merged.size() + " after merge");
+        return new Result(pending.size(), lastLine[0], merged);
+    }
+
+    private List<Finding> analyzeChunk(String language, String context, CodeChunk chunk, boolean useAi,
+                                       String user) {
+        List<Finding> findings = new ArrayList<>(
+                debugService.heuristicFindings(language, chunk.getCode(), chunk.getStartLine(), chunk.getEndLine()));
+
+        if (useAi) {
+            DebugRequest req = new DebugRequest();
+            req.setLanguage(language);
+            req.setCodeSnippet(chunk.getCode());
+            req.setContext((context == null ? "" : context + "\n")
+                    + "This is lines " + chunk.getStartLine() + "-" + chunk.getEndLine()
+                    + " of a larger file; report line numbers relative to the full file.");
+            String answer = openAiService.askDebugAssistant(debugService.buildPrompt(req), user);
+            findings.add(new Finding(chunk.getStartLine(), chunk.getEndLine(), "AI Review", answer, "ai"));
+        }
+        return findings;
+    }
+
+    // ========== REDUCE ==========
+
+    // Same issue reported by neighbouring (overlapping) chunks collapses into one finding whose
+    // line range covers all of them; identical AI text is kept once.
+    static List<Finding> reduce(List<Finding> findings) {
+        Map<String, List<Finding>> byIssue = new LinkedHashMap<>();
+        for (Finding f : findings) {
+            String key = f.getSource() + "|" + f.getTitle() + "|" + ("ai".equals(f.getSource()) ? f.getDetail() : "");
+            byIssue.computeIfAbsent(key, k -> new ArrayList<>()).add(f);
+        }
+
+        List<Finding> merged = new ArrayList<>();
+        for (List<Finding> group : byIssue.values()) {
+            group.sort(Comparator.comparingInt(Finding::getStartLine));
+            Finding current = null;
+            for (Finding f : group) {
+                if (current != null && f.getStartLine() <= current.getEndLine() + 1) {
+                    current.setEndLine(Math.max(current.getEndLine(), f.getEndLine()));
+                } else {
+                    current = new Finding(f.getStartLine(), f.getEndLine(), f.getTitle(), f.getDetail(), f.getSource());
+                    merged.add(current);
+                }
+            }
+        }
+        merged.sort(Comparator.comparingInt(Finding::getStartLine).thenComparing(Finding::getTitle));
+        return merged;
+    }
+}
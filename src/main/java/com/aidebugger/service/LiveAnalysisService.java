@@ -0,0 +1,279 @@
+package com.aidebugger.service;
+
+import com.aidebugger.analysis.CodeChunk;
+import com.aidebugger.analysis.CodeChunker;
+import com.aidebugger.analysis.LiveDocument;
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.Finding;
+import com.aidebugger.security.RateLimiterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+public class LiveAnalysisService {
+    private final DebugService debugService;
+    private final OpenAiService openAiService;
+    private final AnalysisScheduler analysisScheduler;
+    private final RateLimiterService rateLimiterService;
+
+    @Value("${app.live.debounce-ms:300}")
+    private long debounceMs;
+
+    @Value("${app.live.region-chars:1500}")
+    private int regionChars;
+
+    // Per-session memory budget, counted in characters of buffered source
+    @Value("${app.live.max-document-chars:200000}")
+    private int maxDocumentChars;
+
+    @Value("${app.live.max-sessions:500}")
+    private int maxSessions;
+
+    @Value("${app.live.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    // An LLM call only goes out once this many characters (or this share of the buffer) changed
+    @Value("${app.live.ai-min-changed-chars:200}")
+    private int aiMinChangedChars;
+
+    @Value("${app.live.ai-min-changed-ratio:0.2}")
+    private double aiMinChangedRatio;
+
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService timer;
+
+    public static class SessionLimitException extends RuntimeException {
+        public SessionLimitException(String message) {
+            super(message);
+        }
+    }
+
+    private static class LiveSession {
+        final String id;
+        final String user;
+        // rate-limit bucket the session's LLM calls are charged to, shared with the client's REST calls
+        final String clientKey;
+        final String language;
+        final String context;
+        final LiveDocument document;
+        final Consumer<Map<String, Object>> sink;
+        final Runnable closer;
+        // region text -> findings with region-relative line numbers
+        Map<String, List<Finding>> regionCache = new HashMap<>();
+        ScheduledFuture<?> pending;
+        volatile long lastActivity = System.currentTimeMillis();
+        boolean aiInFlight;
+
+        LiveSession(String id, String user, String clientKey, String language, String context, String text,
+                    Consumer<Map<String, Object>> sink, Runnable closer) {
+            this.id = id;
+            this.user = user;
+            this.clientKey = clientKey;
+            this.language = language;
+            this.context = context;
+            this.document = new LiveDocument(text);
+            this.sink = sink;
+            this.closer = closer;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Live-Debounce");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::evictIdle, 30, 30, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdownNow();
+    }
+
+    // ========== SESSION LIFECYCLE ==========
+
+    // clientKey is the rate-limit key ("user:..." or "ip:..."): only LLM calls are charged to it,
+    // since edits are cheap and the analysis they trigger is debounced
+    public void open(String sessionId, String user, String clientKey, String language, String context, String text,
+                     Consumer<Map<String, Object>> sink, Runnable closer) {
+        if (sessions.size() >= maxSessions && !sessions.containsKey(sessionId)) {
+            throw new SessionLimitException("Too many live sessions, try again later");
+        }
+        if (text != null && text.length() > maxDocumentChars) {
+            throw new SessionLimitException("Document exceeds live session budget of " + maxDocumentChars + " chars");
+        }
+        LiveSession session = new LiveSession(sessionId, user, clientKey, language, context, text, sink, closer);
+        LiveSession previous = sessions.put(sessionId, session);
+        if (previous != null) cancelPending(previous);
+        schedule(session, 0);
+    }
+
+    public void edit(String sessionId, int offset, int deleteCount, String insert) {
+        LiveSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalStateException("Session not opened");
+        }
+        synchronized (session) {
+            int grow = (insert == null ? 0 : insert.length()) - deleteCount;
+            if (session.document.length() + grow > maxDocumentChars) {
+                throw new SessionLimitException("Document exceeds live session budget of " + maxDocumentChars + " chars");
+            }
+            session.document.applyEdit(offset, deleteCount, insert);
+            session.lastActivity = System.currentTimeMillis();
+        }
+        schedule(session, debounceMs);
+    }
+
+    public void close(String sessionId) {
+        LiveSession session = sessions.remove(sessionId);
+        if (session != null) cancelPending(session);
+    }
+
+    public int activeSessions() {
+        return sessions.size();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        sessions.values().removeIf(s -> {
+            if (s.lastActivity >= cutoff) return false;
+            System.out.println("💤 Evicting idle live session " + s.id);
+            cancelPending(s);
+            s.closer.run();
+            return true;
+        });
+    }
+
+    // ========== DEBOUNCED ANALYSIS ==========
+
+    private void schedule(LiveSession session, long delayMs) {
+        synchronized (session) {
+            cancelPending(session);
+            // Keystroke-driven re-analysis is background work: it yields to interactive requests
+            session.pending = timer.schedule(
+                    () -> analysisScheduler.submit(session.user, WorkClass.BACKGROUND, () -> {
+                        analyze(session);
+                        return null;
+                    }), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancelPending(LiveSession session) {
+        synchronized (session) {
+            if (session.pending != null) session.pending.cancel(false);
+        }
+    }
+
+    private void analyze(LiveSession session) {
+        String text;
+        long version;
+        synchronized (session) {
+            if (sessions.get(session.id) != session) return;
+            text = session.document.snapshot();
+            version = session.document.getVersion();
+        }
+
+        List<CodeChunk> regions = new ArrayList<>();
+        try {
+            new CodeChunker(session.language, regionChars, regionChars * 2, 0).split(new StringReader(text), regions::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);   // StringReader does not throw
+        }
+
+        // Regions whose text is unchanged reuse their findings; only edited regions re-run the rules
+        Map<String, List<Finding>> previous;
+        synchronized (session) {
+            previous = session.regionCache;
+        }
+        Map<String, List<Finding>> current = new HashMap<>();
+        List<Finding> findings = new ArrayList<>();
+        int rerun = 0;
+        for (CodeChunk region : regions) {
+            List<Finding> relative = previous.get(region.getCode());
+            if (relative == null) {
+                relative = current.get(region.getCode());
+            }
+            if (relative == null) {
+                int lines = region.getEndLine() - region.getStartLine() + 1;
+                relative = debugService.heuristicFindings(session.language, region.getCode(), 1, lines);
+                rerun++;
+            }
+            current.put(region.getCode(), relative);
+            int shift = region.getStartLine() - 1;
+            for (Finding f : relative) {
+                findings.add(new Finding(f.getStartLine() + shift, f.getEndLine() + shift,
+                        f.getTitle(), f.getDetail(), f.getSource()));
+            }
+        }
+
+        boolean sendAi;
+        synchronized (session) {
+            session.regionCache = current;
+            long changed = session.document.getChangedSinceAi();
+            sendAi = !session.aiInFlight && openAiService.isAvailable()
+                    && changed >= Math.max(aiMinChangedChars, (long) (text.length() * aiMinChangedRatio));
+            if (sendAi) session.aiInFlight = true;
+        }
+        // Checked outside the lock (the bucket may live in Redis). When the client is over its limit
+        // the changes stay counted, so a later analysis asks again once the bucket has refilled.
+        long aiRetryAfterMs = 0;
+        if (sendAi) {
+            RateLimiterService.Result limit = rateLimiterService.isEnabled()
+                    ? rateLimiterService.check(session.clientKey, session.user != null) : null;
+            synchronized (session) {
+                if (limit == null || limit.allowed()) {
+                    session.document.markAiSent();
+                } else {
+                    session.aiInFlight = false;
+                    sendAi = false;
+                    aiRetryAfterMs = Math.max(1, limit.retryAfterSeconds()) * 1000;
+                }
+            }
+        }
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "analysis");
+        message.put("version", version);
+        message.put("findings", LargeFileAnalysisService.reduce(findings));
+        message.put("regions", regions.size());
+        message.put("regionsReanalyzed", rerun);
+        if (aiRetryAfterMs > 0) message.put("aiRetryAfterMs", aiRetryAfterMs);
+        session.sink.accept(message);
+
+        if (sendAi) {
+            requestAi(session, text, version);
+        }
+    }
+
+    private void requestAi(LiveSession session, String text, long version) {
+        try {
+            DebugRequest req = new DebugRequest();
+            req.setLanguage(session.language);
+            req.setCodeSnippet(text);
+            req.setContext(session.context);
+            String answer = openAiService.askDebugAssistant(debugService.buildPrompt(req), session.user);
+
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", "ai");
+            message.put("version", version);
+            message.put("analysis", answer);
+            session.sink.accept(message);
+        } finally {
+            synchronized (session) {
+                session.aiInFlight = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.aidebugger.service;
+
+import com.aidebugger.analysis.Issue;
+import com.aidebugger.analysis.Lexer.Language;
+import com.aidebugger.analysis.StaticAnalysis;
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.profiling.AnalysisEvents;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Decides per request whether the LLM is worth paying for. Trivial snippets and ones the rules
+// already diagnose are answered locally; only ambiguous ones (nothing or only style findings,
+// no rule set for the language, or a question the rules cannot answer) go upstream.
+//   ambiguity = 1 - confidence of the findings, + unsupportedLanguageWeight, + contextWeight
+@Component
+@RequiredArgsConstructor
+public class LlmGate {
+    private final StaticAnalyzer staticAnalyzer;
+    private final OpenAiService openAiService;
+    private final MeterRegistry meterRegistry;
+
+    // auto = gate on ambiguity; local = never escalate; llm = always escalate when a backend is up
+    @Value("${app.gate.mode:auto}")
+    private String mode;
+
+    // Snippets shorter than this are answered locally whatever they contain
+    @Value("${app.gate.trivial-chars:120}")
+    private int trivialChars;
+
+    @Value("${app.gate.escalate-threshold:0.6}")
+    private double escalateThreshold;
+
+    @Value("${app.gate.unsupported-language-weight:0.3}")
+    private double unsupportedLanguageWeight;
+
+    @Value("${app.gate.context-weight:0.3}")
+    private double contextWeight;
+
+    // Confidence lost when a rule ran out of CPU budget and its findings are missing
+    @Value("${app.gate.skipped-rule-penalty:0.5}")
+    private double skippedRulePenalty;
+
+    @Value("${app.gate.context-keywords:why,explain,expected,wrong output,slow,performance,race,deadlock,intermittent,design,refactor,architecture}")
+    private List<String> contextKeywords;
+
+    // How sure a finding is that it explains the bug. Rules not listed are treated as style (0.3).
+    private static final Map<String, Double> RULE_CONFIDENCE = Map.ofEntries(
+            Map.entry("division-by-zero", 1.0),
+            Map.entry("null-dereference", 0.9),
+            Map.entry("python.missing-import", 0.9),
+            Map.entry("cpp.memory-leak", 0.8),
+            Map.entry("cpp.uncaught-throw", 0.8),
+            Map.entry("java.resource-leak", 0.8),
+            Map.entry("java.string-identity", 0.8),
+            Map.entry("js.unhandled-promise", 0.7),
+            Map.entry("python.mutable-default", 0.7),
+            Map.entry("empty-catch", 0.6),
+            Map.entry("java.unchecked-parse", 0.6),
+            Map.entry("cpp.unsafe-function", 0.6),
+            Map.entry("js.dangerous-sink", 0.6));
+    private static final double STYLE_CONFIDENCE = 0.3;
+
+    public record Decision(boolean escalate, String reason, double ambiguity) {}
+
+    private final Map<String, Counter> counters = new HashMap<>();
+    private Counter[] local;
+    private Counter[] escalated;
+
+    @PostConstruct
+    void registerMetrics() {
+        local = new Counter[]{counter(false, "trivial"), counter(false, "diagnosed"), counter(false, "unavailable"),
+                counter(false, "forced")};
+        escalated = new Counter[]{counter(true, "ambiguous"), counter(true, "forced")};
+        Gauge.builder("analysis.gate.escalation.ratio", this, LlmGate::escalationRatio).register(meterRegistry);
+    }
+
+    private Counter counter(boolean escalate, String reason) {
+        Counter counter = Counter.builder("analysis.gate")
+                .tag("decision", escalate ? "escalate" : "local").tag("reason", reason)
+                .register(meterRegistry);
+        counters.put(key(escalate, reason), counter);
+        return counter;
+    }
+
+    private static String key(boolean escalate, String reason) {
+        return (escalate ? "escalate:" : "local:") + reason;
+    }
+
+    // Escalated share of every decision since start
+    double escalationRatio() {
+        double up = 0, total = 0;
+        for (Counter c : escalated) up += c.count();
+        for (Counter c : local) total += c.count();
+        total += up;
+        return total == 0 ? 0 : up / total;
+    }
+
+    public Decision decide(DebugRequest req) {
+        Decision decision = evaluate(req);
+        counters.get(key(decision.escalate(), decision.reason())).increment();
+        AnalysisEvents.gate(key(decision.escalate(), decision.reason()));
+        return decision;
+    }
+
+    private Decision evaluate(DebugRequest req) {
+        if (!openAiService.isAvailable()) return new Decision(false, "unavailable", 0);
+        if ("local".equalsIgnoreCase(mode)) return new Decision(false, "forced", 0);
+        if ("llm".equalsIgnoreCase(mode)) return new Decision(true, "forced", 1);
+
+        String code = req.getCodeSnippet();
+        if (code.strip().length() < trivialChars) return new Decision(false, "trivial", 0);
+
+        double ambiguity = ambiguity(req.getLanguage(), code, req.getContext());
+        return ambiguity >= escalateThreshold
+                ? new Decision(true, "ambiguous", ambiguity)
+                : new Decision(false, "diagnosed", ambiguity);
+    }
+
+    double ambiguity(String language, String code, String context) {
+        // same cache entry the heuristic report is rendered from
+        StaticAnalysis analysis = staticAnalyzer.analyze(language, code);
+        double ambiguity = 1 - confidence(analysis);
+        if (Language.of(language) == Language.GENERIC) ambiguity += unsupportedLanguageWeight;
+        if (asksBeyondRules(context)) ambiguity += contextWeight;
+        return Math.min(1, ambiguity);
+    }
+
+    // Chance that at least one finding explains the problem, treating findings as independent
+    private double confidence(StaticAnalysis analysis) {
+        double missed = 1;
+        for (Issue issue : analysis.issues()) {
+            missed *= 1 - RULE_CONFIDENCE.getOrDefault(issue.ruleId(), STYLE_CONFIDENCE);
+        }
+        double confidence = 1 - missed;
+        return analysis.skippedRules().isEmpty() ? confidence : confidence * (1 - skippedRulePenalty);
+    }
+
+    private boolean asksBeyondRules(String context) {
+        if (context == null || context.isBlank()) return false;
+        String text = context.toLowerCase(Locale.ROOT);
+        for (String keyword : contextKeywords) {
+            if (!keyword.isBlank() && text.contains(keyword.trim().toLowerCase(Locale.ROOT))) return true;
+        }
+        return false;
+    }
+}
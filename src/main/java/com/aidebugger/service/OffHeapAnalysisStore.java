@@ -0,0 +1,371 @@
+package com.aidebugger.service;
+
+import com.aidebugger.util.HashUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Rendered /analyze responses kept outside the Java heap, so a large cache costs the GC nothing:
+//   - payloads are zlib-compressed against a preset dictionary of the report boilerplate
+//     (cache/analysis.dict), which is most of every response, and appended to direct ByteBuffer
+//     slabs allocated on demand up to maxBytes
+//   - when the slabs are full the oldest one is reused whole (FIFO by slab); an entry that is hit
+//     while sitting in the oldest slab is copied forward once, so hot entries survive
+//   - on heap there are only three longs per entry: a 128-bit key (the SHA-256 cache key prefix)
+//     and a packed slab/offset, in an open-addressing table
+// Reads take no lock: they inflate straight from the slab and discard the result if the slab was
+// reused meanwhile (zlib's Adler-32 also rejects a torn read). Writes are serialized.
+final class OffHeapAnalysisStore {
+    private static final int RECORD_HEADER = 12;   // int slab seq | int raw length | int compressed length
+    private static final byte[] DICTIONARY = loadDictionary();
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+
+    private final ByteBuffer[] slabs;
+    private final int slabBytes;
+    private final Index index = new Index();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private byte[] scratch = new byte[16 * 1024];
+
+    private int writeSeq;
+    private int writeOffset;
+    // Slabs with a lower sequence number have been (or are being) overwritten
+    private volatile int oldestSeq;
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile long rawBytes;
+    private volatile long storedBytes;
+
+    OffHeapAnalysisStore(long maxBytes, int slabBytes) {
+        this.slabBytes = slabBytes;
+        this.slabs = new ByteBuffer[(int) Math.max(2, maxBytes / slabBytes)];
+    }
+
+    // False when the payload does not fit in a slab
+    boolean put(String key, byte[] json) {
+        writeLock.lock();
+        try {
+            int compressed = compress(json);
+            return append(hi(key), lo(key), json.length, compressed);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    byte[] get(String key) {
+        long hi = hi(key);
+        long lo = lo(key);
+        long location = index.get(hi, lo);
+        if (location == Index.MISSING) return null;
+        int seq = (int) (location >>> 32);
+        int at = (int) location;
+        if (seq < oldestSeq) return null;
+
+        ByteBuffer slab = slabs[seq % slabs.length];
+        if (slab == null || slab.getInt(at) != seq) return null;
+        int rawLength = slab.getInt(at + 4);
+        int compressedLength = slab.getInt(at + 8);
+        if (rawLength < 0 || compressedLength <= 0 || at + RECORD_HEADER + compressedLength > slabBytes) return null;
+
+        byte[] json = inflate(slab.slice(at + RECORD_HEADER, compressedLength), rawLength);
+        // the slab reads above must not be reordered past the re-check
+        VarHandle.acquireFence();
+        if (json == null || seq < oldestSeq) return null;
+        if (seq == oldestSeq && slabs.length > 1) {
+            promote(hi, lo, location, rawLength, compressedLength);
+        }
+        return json;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    long offHeapBytes() {
+        long total = 0;
+        for (ByteBuffer slab : slabs) {
+            if (slab != null) total += slab.capacity();
+        }
+        return total;
+    }
+
+    long evictions() {
+        return evictions.get();
+    }
+
+    // Raw / stored bytes over everything put so far
+    double compressionRatio() {
+        long stored = storedBytes;
+        return stored == 0 ? 0 : (double) rawBytes / stored;
+    }
+
+    private boolean append(long hi, long lo, int rawLength, int compressedLength) {
+        int need = RECORD_HEADER + compressedLength;
+        if (need > slabBytes) return false;
+        if (writeOffset + need > slabBytes || slabs[writeSeq % slabs.length] == null) {
+            nextSlab();
+        }
+        ByteBuffer slab = slabs[writeSeq % slabs.length];
+        int at = writeOffset;
+        slab.putInt(at, writeSeq).putInt(at + 4, rawLength).putInt(at + 8, compressedLength);
+        slab.put(at + RECORD_HEADER, scratch, 0, compressedLength);
+        writeOffset += need;
+        index.put(hi, lo, ((long) writeSeq << 32) | at);
+        rawBytes += rawLength;
+        storedBytes += need;
+        return true;
+    }
+
+    private void nextSlab() {
+        if (slabs[writeSeq % slabs.length] != null) {
+            writeSeq++;
+        }
+        writeOffset = 0;
+        int physical = writeSeq % slabs.length;
+        if (writeSeq - oldestSeq >= slabs.length) {
+            int evicted = oldestSeq;
+            // published before the slab is overwritten, so readers of it notice
+            oldestSeq = evicted + 1;
+            evictions.addAndGet(index.removeIf(location -> (int) (location >>> 32) == evicted));
+        }
+        if (slabs[physical] == null) {
+            slabs[physical] = ByteBuffer.allocateDirect(slabBytes);
+        }
+    }
+
+    // Second chance for an entry in the slab that goes next; skipped if a writer is busy
+    private void promote(long hi, long lo, long location, int rawLength, int compressedLength) {
+        if (!writeLock.tryLock()) return;
+        try {
+            if (index.get(hi, lo) != location || (int) (location >>> 32) < oldestSeq) return;
+            ensureScratch(compressedLength);
+            slabs[(int) (location >>> 32) % slabs.length].get((int) location + RECORD_HEADER, scratch, 0, compressedLength);
+            append(hi, lo, rawLength, compressedLength);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private int compress(byte[] json) {
+        ensureScratch(json.length + 64);
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(json);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == scratch.length) ensureScratch(scratch.length * 2);
+            length += deflater.deflate(scratch, length, scratch.length - length);
+        }
+        return length;
+    }
+
+    private void ensureScratch(int length) {
+        if (scratch.length < length) {
+            byte[] bigger = new byte[Math.max(length, scratch.length * 2)];
+            System.arraycopy(scratch, 0, bigger, 0, scratch.length);
+            scratch = bigger;
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer compressed, int rawLength) {
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(compressed);
+        byte[] out = new byte[rawLength];
+        try {
+            int n = inflater.inflate(out);
+            if (inflater.needsDictionary()) {
+                inflater.setDictionary(DICTIONARY);
+                n += inflater.inflate(out, n, rawLength - n);
+            }
+            return n == rawLength && inflater.finished() ? out : null;
+        } catch (DataFormatException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Cache keys are SHA-256 hex; anything else is hashed first
+    private static long hi(String key) {
+        return Long.parseUnsignedLong(hex(key).substring(0, 16), 16);
+    }
+
+    private static long lo(String key) {
+        return Long.parseUnsignedLong(hex(key).substring(16, 32), 16);
+    }
+
+    private static String hex(String key) {
+        if (key.length() >= 32) {
+            boolean hex = true;
+            for (int i = 0; i < 32 && hex; i++) {
+                hex = Character.digit(key.charAt(i), 16) >= 0;
+            }
+            if (hex) return key;
+        }
+        return HashUtil.sha256(key);
+    }
+
+    private static byte[] loadDictionary() {
+        try (InputStream in = OffHeapAnalysisStore.class.getResourceAsStream("/cache/analysis.dict")) {
+            return in == null ? new byte[0] : in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Open addressing over parallel long arrays: no object per entry. Readers go optimistic and
+    // retry under the read lock only if a writer got in the way.
+    static final class Index {
+        static final long MISSING = -1;
+        // (0, 0) marks a free slot and (0, 1) a removed one; real keys never map there (see slot key)
+        private static final long TOMBSTONE = 1;
+
+        private static final class Table {
+            final long[] his;
+            final long[] los;
+            final long[] locations;
+
+            Table(int capacity) {
+                his = new long[capacity];
+                los = new long[capacity];
+                locations = new long[capacity];
+            }
+        }
+
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(1024);
+        private int size;
+        private int used;   // live + tombstones
+
+        long get(long hi, long lo) {
+            long k = key(hi, lo);
+            long stamp = lock.tryOptimisticRead();
+            long location = find(table, hi, k);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    location = find(table, hi, k);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return location;
+        }
+
+        void put(long hi, long lo, long location) {
+            long k = key(hi, lo);
+            long stamp = lock.writeLock();
+            try {
+                if ((used + 1) * 4L > table.his.length * 3L) {
+                    rehash(Math.max(1024, Integer.highestOneBit(Math.max(1, size) * 4)));
+                }
+                Table t = table;
+                int mask = t.his.length - 1;
+                int reuse = -1;
+                for (int i = slot(hi, k, mask); ; i = (i + 1) & mask) {
+                    long h = t.his[i];
+                    long l = t.los[i];
+                    if (h == hi && l == k) {
+                        t.locations[i] = location;
+                        return;
+                    }
+                    if (h == 0 && l == TOMBSTONE) {
+                        if (reuse < 0) reuse = i;
+                    } else if (h == 0 && l == 0) {
+                        if (reuse < 0) {
+                            reuse = i;
+                            used++;
+                        }
+                        t.locations[reuse] = location;
+                        t.los[reuse] = k;
+                        t.his[reuse] = hi;
+                        size++;
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int removeIf(LongPredicate onLocation) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int removed = 0;
+                for (int i = 0; i < t.his.length; i++) {
+                    boolean live = t.his[i] != 0 || t.los[i] > TOMBSTONE;
+                    if (live && onLocation.test(t.locations[i])) {
+                        t.his[i] = 0;
+                        t.los[i] = TOMBSTONE;
+                        removed++;
+                    }
+                }
+                size -= removed;
+                return removed;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private void rehash(int capacity) {
+            Table old = table;
+            Table t = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.his.length; i++) {
+                long h = old.his[i];
+                long l = old.los[i];
+                if (h == 0 && l <= TOMBSTONE) continue;
+                int j = slot(h, l, mask);
+                while (t.his[j] != 0 || t.los[j] != 0) j = (j + 1) & mask;
+                t.his[j] = h;
+                t.los[j] = l;
+                t.locations[j] = old.locations[i];
+            }
+            table = t;
+            used = size;
+        }
+
+        // May run against a table a writer is changing; the caller validates, and the probe is
+        // bounded so a torn view cannot loop forever
+        private static long find(Table t, long hi, long k) {
+            int mask = t.his.length - 1;
+            int i = slot(hi, k, mask);
+            for (int probes = 0; probes <= mask; probes++, i = (i + 1) & mask) {
+                long h = t.his[i];
+                long l = t.los[i];
+                if (h == hi && l == k) return t.locations[i];
+                if (h == 0 && l == 0) return MISSING;
+            }
+            return MISSING;
+        }
+
+        private static long key(long hi, long lo) {
+            return hi == 0 && lo <= TOMBSTONE ? lo + 2 : lo;
+        }
+
+        private static int slot(long hi, long lo, int mask) {
+            long h = hi ^ lo;
+            h ^= h >>> 29;
+            return (int) h & mask;
+        }
+    }
+}
@@ -1,21 +1,34 @@
 package com.aidebugger.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.aidebugger.llm.CompletionExtractor;
+import com.aidebugger.llm.CompletionExtractor.Completion;
+import com.aidebugger.llm.LlmBackend;
+import com.aidebugger.llm.LocalLlmBackend;
+import com.aidebugger.profiling.AnalysisEvents;
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
-public class OpenAiService {
+public class OpenAiService implements LlmBackend {
+    private final LocalLlmBackend localBackend;
+    private final UsageMeter usageMeter;
+    // Boot's builder: carries the ObservationRegistry, so each call is a client span and sends traceparent
+    private final WebClient.Builder webClientBuilder;
 
     @Value("${openai.api.key:}")
     private String openAiKey;
@@ -29,6 +42,78 @@ public class OpenAiService {
     @Value("${openai.enabled:false}")
     private boolean openAiEnabled;
 
+    // "openai" = remote first, on-box model as fallback; "local" = on-box model only (offline)
+    @Value("${app.llm.backend:openai}")
+    private String backendMode;
+
+    // Upper bound on simultaneous upstream calls, shared by every caller (chunked analysis included)
+    @Value("${openai.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private Semaphore upstreamPermits;
+
+    @PostConstruct
+    void initPermits() {
+        upstreamPermits = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    // One client (and one Netty connection pool) for every call instead of a new one per request;
+    // built on first use so nothing network-related is created until it is needed.
+    private volatile WebClient webClient;
+
+    private WebClient webClient() {
+        WebClient client = webClient;
+        if (client == null) {
+            synchronized (this) {
+                if (webClient == null) {
+                    webClient = webClientBuilder.clone()
+                            .defaultHeader("Authorization", "Bearer " + openAiKey.trim())
+                            .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                            .build();
+                }
+                client = webClient;
+            }
+        }
+        return client;
+    }
+
+    // Opens (and pools) a connection to the provider so the first real request skips DNS/TLS setup
+    public void warmUpConnection() {
+        if (!isRemoteAvailable()) return;
+        try {
+            webClient().get()
+                    .uri(URI.create(openaiUrl).resolve("/v1/models"))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(Duration.ofSeconds(5))
+                    .contextCapture()
+                    .block();
+            System.out.println("🔥 Upstream connection warmed up");
+        } catch (Exception e) {
+            System.err.println("⚠️  Upstream warm-up failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "openai";
+    }
+
+    @Override
+    public String complete(String prompt) {
+        return askDebugAssistant(prompt);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return isRemoteAvailable() || localBackend.isAvailable();
+    }
+
+    private boolean isRemoteAvailable() {
+        return !"local".equalsIgnoreCase(backendMode) && openAiEnabled && openAiKey != null && !openAiKey.isEmpty()
+                && !openAiKey.contains("sk-proj-nMIO1Tuv4OAFJnxv");
+    }
+
     // Initialize with logging
     @Value("${openai.api.key:}")
     public void setOpenAiKey(String key) {
@@ -50,14 +135,36 @@ public class OpenAiService {
     }
 
     public String askDebugAssistant(String prompt) {
+        return askDebugAssistant(prompt, null);
+    }
+
+    // user is who the upstream tokens are billed to (null = anonymous)
+    public String askDebugAssistant(String prompt, String user) {
+        return ask(prompt, user).text();
+    }
+
+    // A model's answer (upstream or on-box), or canned text when neither could give one. The canned
+    // text describes the moment (an outage, the quota, this user's budget), so it must not be cached
+    // as the analysis of the snippet.
+    public record Answer(String text, boolean fallback) {}
+
+    public Answer ask(String prompt, String user) {
         System.out.println("\n🔵 === OPENAI SERVICE CALLED ===");
         System.out.println("📝 Prompt length: " + prompt.length());
         System.out.println("⚙️  OpenAI Enabled: " + openAiEnabled);
+
+        if (Deadline.currentExpired()) {
+            throw new Deadline.ExceededException("Deadline passed before the upstream call");
+        }
+
+        if ("local".equalsIgnoreCase(backendMode)) {
+            return fallback("local-only", prompt, () -> getEnhancedFallbackResponse("Local model unavailable"));
+        }
         
         // Check if OpenAI is disabled in config
         if (!openAiEnabled) {
             System.out.println("ℹ️  OpenAI disabled in configuration");
-            return getEnhancedFallbackResponse("OpenAI disabled in configuration");
+            return fallback("disabled", prompt, () -> getEnhancedFallbackResponse("OpenAI disabled in configuration"));
         }
         
         // Check API key
@@ -65,19 +172,44 @@ public class OpenAiService {
             System.err.println("❌ INVALID OR PLACEHOLDER API KEY DETECTED!");
             System.out.println("🔑 Key: " + (openAiKey == null ? "NULL" : 
                 (openAiKey.isEmpty() ? "EMPTY" : "PLACEHOLDER")));
-            return getEnhancedFallbackResponse("API key not configured");
+            return fallback("no-api-key", prompt, () -> getEnhancedFallbackResponse("API key not configured"));
         }
 
+        if (usageMeter.isOverBudget(user)) {
+            System.out.println("💰 Daily token budget used up for " + (user == null ? UsageMeter.ANONYMOUS : user));
+            return fallback("over-budget", prompt, () -> getBudgetExceededResponse());
+        }
+
+        boolean permitted;
+        try {
+            permitted = upstreamPermits.tryAcquire(Deadline.bound(Duration.ofSeconds(30)).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Deadline.ExceededException("Interrupted waiting for an upstream slot");
+        }
+        if (!permitted) {
+            if (Deadline.currentExpired()) throw new Deadline.ExceededException("Deadline passed waiting for an upstream slot");
+            System.err.println("⏳ Upstream concurrency limit reached, giving up");
+            return fallback("concurrency-limit", prompt, () -> getRateLimitResponse());
+        }
+
+        // The permit covers the remote call only: a local-model fallback runs after it is released,
+        // so slow on-box inference never holds a slot other requests need for the upstream
+        Supplier<Answer> answer;
+        try {
+            answer = callUpstream(prompt, user);
+        } finally {
+            upstreamPermits.release();
+        }
+        return answer.get();
+    }
+
+    // One upstream call; the answer comes back unevaluated so any fallback runs outside the permit
+    private Supplier<Answer> callUpstream(String prompt, String user) {
         try {
             System.out.println("🔗 Making request to OpenAI API...");
             System.out.println("🎯 Using model: " + model);
             
-            WebClient webClient = WebClient.builder()
-                    .baseUrl("https://api.openai.com")
-                    .defaultHeader("Authorization", "Bearer " + openAiKey.trim())
-                    .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                    .build();
-
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("model", model);
             requestBody.put("messages", Arrays.asList(
@@ -89,9 +221,10 @@ public class OpenAiService {
             System.out.println("📤 Sending to OpenAI...");
             
             long startTime = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
             
-            String rawResponse = webClient.post()
-                    .uri("/v1/chat/completions")
+            Completion completion = webClient().post()
+                    .uri(openaiUrl)
                     .bodyValue(requestBody)
                     .retrieve()
                     .onStatus(status -> status.is4xxClientError(), response -> {
@@ -106,30 +239,29 @@ public class OpenAiService {
                         System.err.println("❌ OpenAI 5xx Error: " + response.statusCode());
                         return Mono.error(new RuntimeException("OpenAI Server Error: " + response.statusCode()));
                     })
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(30))
+                    // Parsed from the buffers as they arrive; only the fields we use are kept
+                    .bodyToFlux(DataBuffer.class)
+                    .as(CompletionExtractor::extract)
+                    // the caller's deadline, not a fixed 30s, once it is the tighter of the two
+                    .timeout(Deadline.bound(Duration.ofSeconds(30)))
+                    // block() would otherwise lose the caller's span: parent the client span to it
+                    .contextCapture()
                     .block();
 
             long endTime = System.currentTimeMillis();
+            AnalysisEvents.upstreamLatency(System.nanoTime() - startNanos);
             System.out.println("⏱️  Response time: " + (endTime - startTime) + "ms");
             
-            if (rawResponse == null || rawResponse.isEmpty()) {
+            if (completion == null) {
                 System.err.println("❌ Empty response from OpenAI");
-                return getEnhancedFallbackResponse("Empty response from OpenAI");
+                return () -> fallback("empty-response", prompt, () -> getEnhancedFallbackResponse("Empty response from OpenAI"));
             }
-            
-            System.out.println("📥 Raw response received (" + rawResponse.length() + " chars)");
-            System.out.println("📋 Response preview: " + rawResponse.substring(0, Math.min(150, rawResponse.length())) + "...");
-            
-            // Parse JSON
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(rawResponse);
-            
+
             // Check for API errors
-            if (root.has("error")) {
-                String errorType = root.get("error").get("type").asText("unknown");
-                String errorMessage = root.get("error").get("message").asText("Unknown error");
-                String errorCode = root.get("error").has("code") ? root.get("error").get("code").asText() : "no-code";
+            if (completion.isError()) {
+                String errorType = completion.errorType() != null ? completion.errorType() : "unknown";
+                String errorMessage = completion.errorMessage() != null ? completion.errorMessage() : "Unknown error";
+                String errorCode = completion.errorCode() != null ? completion.errorCode() : "no-code";
                 
                 System.err.println("❌ OpenAI API Error:");
                 System.err.println("   Type: " + errorType);
@@ -137,39 +269,73 @@ public class OpenAiService {
                 System.err.println("   Message: " + errorMessage);
                 
                 if ("insufficient_quota".equals(errorCode)) {
-                    return getInsufficientQuotaResponse();
+                    return () -> fallback(errorCode, prompt, () -> getInsufficientQuotaResponse());
                 } else if ("invalid_api_key".equals(errorCode)) {
-                    return getInvalidApiKeyResponse();
+                    return () -> fallback(errorCode, prompt, () -> getInvalidApiKeyResponse());
                 } else if ("rate_limit_exceeded".equals(errorCode)) {
-                    return getRateLimitResponse();
+                    return () -> fallback(errorCode, prompt, () -> getRateLimitResponse());
                 }
                 
-                return getEnhancedFallbackResponse("OpenAI API Error: " + errorMessage);
+                return () -> fallback("api-error", prompt, () -> getEnhancedFallbackResponse("OpenAI API Error: " + errorMessage));
             }
             
+            usageMeter.record(user, completion.model() != null ? completion.model() : model,
+                    completion.promptTokens(), completion.completionTokens(), endTime - startTime);
+
             // Extract content from successful response
-            if (root.has("choices") && root.get("choices").size() > 0) {
-                String content = root.get("choices").get(0).get("message").get("content").asText();
-                System.out.println("✅ OpenAI analysis received (" + content.length() + " chars)");
+            if (completion.content() != null) {
+                String content = completion.content();
+                System.out.println("✅ OpenAI analysis received (" + content.length() + " chars, finish_reason="
+                        + completion.finishReason() + ")");
                 
                 // Format the response nicely
-                return formatAiResponse(content);
+                return () -> new Answer(formatAiResponse(content), false);
             }
             
             System.err.println("❌ No choices in OpenAI response");
-            return getEnhancedFallbackResponse("No analysis in response");
+            return () -> fallback("no-content", prompt, () -> getEnhancedFallbackResponse("No analysis in response"));
             
         } catch (Exception e) {
+            if (cancelled(e)) {
+                // the request was given up on: no fallback answer, nobody is waiting for it
+                System.out.println("🛑 Upstream call abandoned: deadline passed or request cancelled");
+                throw new Deadline.ExceededException("Upstream call abandoned");
+            }
             System.err.println("🔴 Exception in OpenAI service: " + e.getClass().getName());
             System.err.println("🔴 Message: " + e.getMessage());
             
             // Check for specific network errors
-            if (e.getMessage().contains("Connection") || e.getMessage().contains("Timeout")) {
-                return getNetworkErrorResponse();
+            String message = String.valueOf(e.getMessage());
+            if (message.contains("Connection") || message.contains("Timeout")) {
+                return () -> fallback("network", prompt, () -> getNetworkErrorResponse());
             }
             
-            return getEnhancedFallbackResponse("Exception: " + e.getMessage());
+            return () -> fallback("exception", prompt, () -> getEnhancedFallbackResponse("Exception: " + e.getMessage()));
+        }
+    }
+
+    // Interrupted by AnalysisScheduler (client went away) or timed out on the request's deadline
+    private static boolean cancelled(Throwable e) {
+        if (Deadline.currentExpired()) return true;
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException) return true;
+        }
+        return false;
+    }
+
+    // Remote unavailable or failed: use the on-box model if it is up, otherwise the canned text.
+    // reason ends up on the request's JFR AnalysisEvent.
+    private Answer fallback(String reason, String prompt, Supplier<String> canned) {
+        AnalysisEvents.fallbackReason(reason);
+        if (localBackend.isAvailable()) {
+            try {
+                System.out.println("🖥️  Using local model");
+                return new Answer(formatAiResponse(localBackend.complete(prompt)), false);
+            } catch (Exception e) {
+                System.err.println("⚠️  Local model failed: " + e.getMessage());
+            }
         }
+        return new Answer(canned.get(), true);
     }
 
     private String formatAiResponse(String content) {
@@ -252,6 +418,21 @@ public class OpenAiService {
                """;
     }
 
+    private String getBudgetExceededResponse() {
+        return """
+               ## 💰 Daily AI Budget Reached
+               
+               **Status:** Your daily token allowance for AI analysis is used up.
+               
+               ### 🕐 What Happens Now:
+               1. **Static analysis** keeps working as usual
+               2. **AI analysis** resumes automatically tomorrow
+               3. **Check usage:** `GET /api/usage/me`
+               
+               *Analysis continues with the enhanced engine*
+               """;
+    }
+
     private String getNetworkErrorResponse() {
         return """
                ## 🌐 Network Connectivity Issue
@@ -0,0 +1,172 @@
+package com.aidebugger.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+// Growable UTF-8 byte buffer that heuristic reports are written into. In JSON mode, text and
+// fragments are escaped as JSON string content while they are written. That way the /analyze body is
+// produced in one pass instead of String -> HashMap -> Jackson. Each thread reuses one buffer
+// (acquire/release); callers copy out what they keep.
+final class ReportBuffer {
+    private static final ThreadLocal<ReportBuffer> POOL = ThreadLocal.withInitial(() -> new ReportBuffer(8192));
+    // A buffer that grew past this for one odd report is not kept around
+    private static final int MAX_POOLED_BYTES = 256 * 1024;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final DateTimeFormatter ISO_SECONDS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.").withZone(ZoneOffset.UTC);
+    private static final byte[] UTC = "+00:00".getBytes(StandardCharsets.US_ASCII);
+
+    // Timestamps within the same second share their formatted prefix
+    private record Second(long epochSecond, byte[] prefix) { }
+    private static volatile Second lastSecond = new Second(Long.MIN_VALUE, null);
+
+    private byte[] bytes;
+    private int length;
+    private boolean json;
+    private boolean inUse;
+
+    ReportBuffer(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    static ReportBuffer acquire(boolean json) {
+        ReportBuffer buffer = POOL.get();
+        if (buffer.inUse) {
+            // nested use on the same thread
+            buffer = new ReportBuffer(8192);
+        }
+        buffer.inUse = true;
+        buffer.json = json;
+        buffer.length = 0;
+        return buffer;
+    }
+
+    void release() {
+        inUse = false;
+        if (bytes.length > MAX_POOLED_BYTES) bytes = new byte[8192];
+    }
+
+    ReportBuffer append(ReportFragment fragment) {
+        return bytes(json ? fragment.json : fragment.raw);
+    }
+
+    // Written as-is whatever the mode: JSON punctuation around the escaped content
+    ReportBuffer bytes(byte[] b) {
+        ensure(b.length);
+        System.arraycopy(b, 0, bytes, length, b.length);
+        length += b.length;
+        return this;
+    }
+
+    ReportBuffer append(long n) {
+        ensure(20);
+        if (n < 0) {
+            bytes[length++] = '-';
+            if (n == Long.MIN_VALUE) return bytes("9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+            n = -n;
+        }
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' + n % 10);
+            n /= 10;
+        } while (n != 0);
+        reverse(start, length - 1);
+        return this;
+    }
+
+    // UTF-8 without an intermediate byte[]; escaped the way Jackson escapes string values in JSON mode
+    ReportBuffer append(String s) {
+        int n = s.length();
+        ensure(n * 6);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (json && (c < 0x20 || c == '"' || c == '\\')) escape(c);
+                else bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | cp >> 18);
+                bytes[length++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | cp & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // unpaired, as String.getBytes(UTF_8) does
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return this;
+    }
+
+    // ISO-8601 in UTC with millis, the format Spring Boot's ObjectMapper gives a java.util.Date
+    ReportBuffer timestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        Second s = lastSecond;
+        if (s.epochSecond() != second) {
+            s = new Second(second, ISO_SECONDS.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.US_ASCII));
+            lastSecond = s;
+        }
+        bytes(s.prefix());
+        int millis = (int) Math.floorMod(epochMillis, 1000);
+        ensure(3);
+        bytes[length++] = (byte) ('0' + millis / 100);
+        bytes[length++] = (byte) ('0' + millis / 10 % 10);
+        bytes[length++] = (byte) ('0' + millis % 10);
+        return bytes(UTC);
+    }
+
+    int length() {
+        return length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void escape(char c) {
+        bytes[length++] = '\\';
+        switch (c) {
+            case '"', '\\' -> bytes[length++] = (byte) c;
+            case '\n' -> bytes[length++] = 'n';
+            case '\r' -> bytes[length++] = 'r';
+            case '\t' -> bytes[length++] = 't';
+            case '\b' -> bytes[length++] = 'b';
+            case '\f' -> bytes[length++] = 'f';
+            default -> {
+                bytes[length++] = 'u';
+                bytes[length++] = '0';
+                bytes[length++] = '0';
+                bytes[length++] = HEX[c >> 4];
+                bytes[length++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            byte t = bytes[from];
+            bytes[from++] = bytes[to];
+            bytes[to--] = t;
+        }
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length + extra, bytes.length * 2));
+        }
+    }
+}
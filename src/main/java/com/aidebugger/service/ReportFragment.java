@@ -0,0 +1,22 @@
+package com.aidebugger.service;
+
+// Constant report text, encoded to UTF-8 once: as-is for String reports and pre-escaped for the
+// JSON response body (see ReportBuffer)
+final class ReportFragment {
+    final byte[] raw;
+    final byte[] json;
+
+    private ReportFragment(String text) {
+        this.raw = new ReportBuffer(text.length() * 3).append(text).toByteArray();
+        ReportBuffer escaped = ReportBuffer.acquire(true);
+        try {
+            this.json = escaped.append(text).toByteArray();
+        } finally {
+            escaped.release();
+        }
+    }
+
+    static ReportFragment of(String text) {
+        return new ReportFragment(text);
+    }
+}
@@ -0,0 +1,82 @@
+package com.aidebugger.service;
+
+import com.aidebugger.analysis.Issue;
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.Rule;
+import com.aidebugger.analysis.RuleContext;
+import com.aidebugger.analysis.StaticAnalysis;
+import com.aidebugger.analysis.rules.RuleSets;
+import com.aidebugger.util.HashUtil;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+// Lexes a snippet once and runs the language's rules over the token stream. Results are cached
+// by snippet hash and every rule runs under its own CPU budget. Rules run one after another:
+// snippets and file chunks are capped at 5000 chars, a few thousand tokens at most, and the
+// whole rule set over that takes well under a millisecond, less than handing it to a pool.
+@Service
+public class StaticAnalyzer {
+
+    @Value("${app.analysis.cache-size:4096}")
+    private int cacheSize;
+
+    @Value("${app.analysis.rule-budget-ms:25}")
+    private long ruleBudgetMs;
+
+    private Map<String, StaticAnalysis> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StaticAnalysis> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public StaticAnalysis analyze(String language, String code) {
+        String key = HashUtil.sha256((language == null ? "" : language.toLowerCase()) + "|" + code);
+        StaticAnalysis cached = cache.get(key);
+        if (cached != null) return cached;
+        StaticAnalysis result = analyzeUncached(language, code);
+        cache.put(key, result);
+        return result;
+    }
+
+    public StaticAnalysis analyzeUncached(String language, String code) {
+        ParsedSource source = ParsedSource.parse(language, code);
+        List<Rule> rules = RuleSets.forLanguage(source.language());
+        long budgetNanos = ruleBudgetMs * 1_000_000;
+
+        List<Issue> issues = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (Rule rule : rules) {
+            RuleOutcome outcome = run(rule, source, budgetNanos);
+            if (outcome.timedOut()) skipped.add(outcome.ruleId());
+            else issues.addAll(outcome.issues());
+        }
+        issues.sort(Comparator.comparingInt(Issue::line));
+        return new StaticAnalysis(List.copyOf(issues), List.copyOf(skipped), source.size());
+    }
+
+    private record RuleOutcome(String ruleId, List<Issue> issues, boolean timedOut) {}
+
+    private static RuleOutcome run(Rule rule, ParsedSource source, long budgetNanos) {
+        RuleContext ctx = new RuleContext(rule.id(), budgetNanos);
+        try {
+            rule.check(source, ctx);
+            return new RuleOutcome(rule.id(), ctx.issues(), false);
+        } catch (RuleContext.BudgetExceededException e) {
+            System.err.println("⏱️  " + e.getMessage() + " (" + source.size() + " tokens), skipped");
+            return new RuleOutcome(rule.id(), List.of(), true);
+        } catch (RuntimeException e) {
+            // a rule tripping over an odd snippet must not take the whole analysis down
+            System.err.println("⚠️  Rule " + rule.id() + " failed: " + e);
+            return new RuleOutcome(rule.id(), List.of(), true);
+        }
+    }
+}
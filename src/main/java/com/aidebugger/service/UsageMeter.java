@@ -0,0 +1,193 @@
+package com.aidebugger.service;
+
+import com.aidebugger.entity.TokenUsage;
+import com.aidebugger.repository.TokenUsageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Upstream token/latency accounting. The request path only bumps LongAdders (striped, no locks,
+// no I/O); a background thread folds the deltas into the token_usage daily rollup every
+// flush interval, in one transaction, and refreshes the per-user totals the budget check reads.
+@Service
+public class UsageMeter {
+    public static final String ANONYMOUS = "anonymous";
+
+    private final TokenUsageRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.usage.flush-interval-seconds:10}")
+    private long flushIntervalSeconds;
+
+    // Tokens per user per day across all replicas; 0 disables the budget
+    @Value("${app.usage.daily-token-budget:0}")
+    private long dailyTokenBudget;
+
+    private record Key(String user, String model, LocalDate day) {}
+
+    private static final class Counters {
+        final LongAdder requests = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder latencyMs = new LongAdder();
+    }
+
+    private record Delta(Key key, Counters counters, long requests, long promptTokens,
+                         long completionTokens, long latencyMs) {}
+
+    private record Day(LocalDate day, Map<String, LongAdder> unflushed, Map<String, Long> persisted) {}
+
+    private final Map<Key, Counters> counters = new ConcurrentHashMap<>();
+    private volatile Day today = new Day(LocalDate.now(), new ConcurrentHashMap<>(), Map.of());
+    private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    public UsageMeter(TokenUsageRepository repository, PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Usage-Flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    public void record(String user, String model, long promptTokens, long completionTokens, long latencyMs) {
+        String u = user == null ? ANONYMOUS : user;
+        Day day = currentDay();
+        Counters c = counters.computeIfAbsent(new Key(u, model, day.day()), k -> new Counters());
+        c.requests.increment();
+        c.promptTokens.add(promptTokens);
+        c.completionTokens.add(completionTokens);
+        c.latencyMs.add(latencyMs);
+        day.unflushed().computeIfAbsent(u, k -> new LongAdder()).add(promptTokens + completionTokens);
+        latencyTimers.computeIfAbsent(model, m -> Timer.builder("llm.upstream.latency")
+                        .tag("model", m)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry))
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    public long usedToday(String user) {
+        String u = user == null ? ANONYMOUS : user;
+        Day day = currentDay();
+        LongAdder pending = day.unflushed().get(u);
+        long total = day.persisted().getOrDefault(u, 0L) + (pending == null ? 0 : pending.sum());
+        return Math.max(0, total);
+    }
+
+    public long getDailyTokenBudget() {
+        return dailyTokenBudget;
+    }
+
+    public boolean isOverBudget(String user) {
+        return dailyTokenBudget > 0 && usedToday(user) >= dailyTokenBudget;
+    }
+
+    public List<TokenUsage> history(String user, int days) {
+        LocalDate to = LocalDate.now();
+        return repository.findByUsernameAndDayBetweenOrderByDayDesc(
+                user == null ? ANONYMOUS : user, to.minusDays(Math.max(0, days - 1)), to);
+    }
+
+    private Day currentDay() {
+        Day day = today;
+        LocalDate now = LocalDate.now();
+        if (!day.day().equals(now)) {
+            synchronized (this) {
+                if (!today.day().equals(now)) {
+                    today = new Day(now, new ConcurrentHashMap<>(), Map.of());
+                }
+                day = today;
+            }
+        }
+        return day;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // deltas stay in the adders and go out with the next flush
+            System.err.println("⚠️  Usage flush failed: " + e.getMessage());
+        }
+    }
+
+    void flush() {
+        LocalDate now = LocalDate.now();
+        List<Delta> deltas = new ArrayList<>();
+        for (Map.Entry<Key, Counters> e : counters.entrySet()) {
+            Counters c = e.getValue();
+            long requests = c.requests.sum();
+            if (requests == 0) {
+                // idle rows from earlier days; a straggling add this late is dropped from accounting
+                if (e.getKey().day().isBefore(now.minusDays(1))) counters.remove(e.getKey(), c);
+                continue;
+            }
+            deltas.add(new Delta(e.getKey(), c, requests, c.promptTokens.sum(),
+                    c.completionTokens.sum(), c.latencyMs.sum()));
+        }
+
+        if (!deltas.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach(d -> repository.addUsage(
+                    d.key().user(), d.key().model(), d.key().day(), d.requests(), d.promptTokens(),
+                    d.completionTokens(), d.latencyMs())));
+        }
+
+        // Totals are refreshed before the local deltas are subtracted, so the budget check can
+        // briefly over-count a flushed batch but never under-count it
+        Day day = currentDay();
+        if (dailyTokenBudget > 0) {
+            try {
+                Map<String, Long> persisted = new HashMap<>();
+                for (Object[] row : repository.totalTokensByUser(day.day())) {
+                    persisted.put((String) row[0], ((Number) row[1]).longValue());
+                }
+                synchronized (this) {
+                    if (today == day) today = new Day(day.day(), day.unflushed(), persisted);
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️  Usage totals refresh failed: " + e.getMessage());
+            }
+        }
+
+        // Subtract exactly what was written; adds that raced with the write stay for the next flush
+        for (Delta d : deltas) {
+            d.counters().requests.add(-d.requests());
+            d.counters().promptTokens.add(-d.promptTokens());
+            d.counters().completionTokens.add(-d.completionTokens());
+            d.counters().latencyMs.add(-d.latencyMs());
+            if (d.key().day().equals(day.day())) {
+                LongAdder pending = day.unflushed().get(d.key().user());
+                if (pending != null) pending.add(-(d.promptTokens() + d.completionTokens()));
+            }
+        }
+    }
+}
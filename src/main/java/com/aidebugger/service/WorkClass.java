@@ -0,0 +1,53 @@
+package com.aidebugger.service;
+
+import java.time.Duration;
+
+public enum WorkClass {
+    // weight = share of dispatch slots when classes compete
+    // target = CoDel target queue delay, maxWait = past this the result is no longer useful
+    INTERACTIVE(8, Duration.ofMillis(100), Duration.ofSeconds(5)),
+    BATCH(3, Duration.ofSeconds(2), Duration.ofMinutes(5)),
+    BACKGROUND(1, Duration.ofMillis(500), Duration.ofSeconds(10));
+
+    private final int weight;
+    private final Duration target;
+    private final Duration maxWait;
+
+    WorkClass(int weight, Duration target, Duration maxWait) {
+        this.weight = weight;
+        this.target = target;
+        this.maxWait = maxWait;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public Duration getTarget() {
+        return target;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    // The class comes from the endpoint and the caller, not from the client: X-Analysis-Priority can
+    // only lower it. Anonymous callers get at most BATCH, and a value we don't recognise counts as
+    // BATCH too, so a missing or garbled header never lands in the top class by accident.
+    public static WorkClass resolve(String header, WorkClass endpoint, boolean authenticated) {
+        WorkClass allowed = authenticated ? endpoint : lower(endpoint, BATCH);
+        if (header == null || header.isBlank()) return allowed;
+        WorkClass requested = switch (header.trim().toLowerCase()) {
+            case "interactive" -> INTERACTIVE;
+            case "batch", "ci" -> BATCH;
+            case "background" -> BACKGROUND;
+            default -> BATCH;
+        };
+        return lower(requested, allowed);
+    }
+
+    // constants are declared from highest to lowest priority
+    private static WorkClass lower(WorkClass a, WorkClass b) {
+        return a.ordinal() >= b.ordinal() ? a : b;
+    }
+}
@@ -0,0 +1,156 @@
+package com.aidebugger.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Tail-based sampling in front of the real exporter: every trace is recorded (the head sampler is
+// always-on), spans are held here until the local root span ends, and only then is the trace kept
+// or dropped as a whole. Kept: root slower than slowThreshold, any span with an error (or a 5xx
+// status tag), plus a small random baseline so normal traffic stays visible.
+//
+// Spans that arrive after their trace was decided follow the decision; traces whose root never
+// shows up (e.g. it lives in another process) are decided on their own spans after traceTimeout.
+public class TailSamplingSpanExporter implements SpanExporter {
+    private static final AttributeKey<String> STATUS = AttributeKey.stringKey("status");
+    private static final AttributeKey<String> HTTP_STATUS = AttributeKey.stringKey("http.status_code");
+
+    private final SpanExporter delegate;
+    private final long slowThresholdNanos;
+    private final double baselineRatio;
+    private final int maxPendingTraces;
+    private final long traceTimeoutNanos;
+
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    // Recent decisions, for stragglers (bounded, oldest evicted first)
+    private final Map<String, Boolean> decided = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > maxPendingTraces;
+        }
+    };
+
+    private static class Pending {
+        final long firstSeenNanos = System.nanoTime();
+        final List<SpanData> spans = new ArrayList<>();
+        boolean interesting;
+    }
+
+    public TailSamplingSpanExporter(SpanExporter delegate, long slowThresholdMs, double baselineRatio,
+                                    int maxPendingTraces, long traceTimeoutMs) {
+        this.delegate = delegate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.baselineRatio = baselineRatio;
+        this.maxPendingTraces = Math.max(1, maxPendingTraces);
+        this.traceTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(traceTimeoutMs);
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        List<SpanData> out = new ArrayList<>();
+        synchronized (this) {
+            for (SpanData span : spans) {
+                String traceId = span.getTraceId();
+                Boolean keep = decided.get(traceId);
+                if (keep != null) {
+                    if (keep) out.add(span);
+                    continue;
+                }
+                Pending trace = pending.computeIfAbsent(traceId, id -> new Pending());
+                trace.spans.add(span);
+                trace.interesting |= isError(span);
+                if (isLocalRoot(span)) {
+                    trace.interesting |= duration(span) >= slowThresholdNanos;
+                    decide(traceId, out);
+                }
+            }
+            expire(out);
+        }
+        return out.isEmpty() ? CompletableResultCode.ofSuccess() : delegate.export(out);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        List<SpanData> out = new ArrayList<>();
+        synchronized (this) {
+            expire(out);
+        }
+        if (!out.isEmpty()) delegate.export(out);
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        List<SpanData> out = new ArrayList<>();
+        synchronized (this) {
+            for (String traceId : new ArrayList<>(pending.keySet())) {
+                decideOrphan(traceId, out);
+            }
+        }
+        if (!out.isEmpty()) delegate.export(out);
+        return delegate.shutdown();
+    }
+
+    synchronized int pendingTraces() {
+        return pending.size();
+    }
+
+    private void decide(String traceId, List<SpanData> out) {
+        Pending trace = pending.remove(traceId);
+        boolean keep = trace.interesting || ThreadLocalRandom.current().nextDouble() < baselineRatio;
+        decided.put(traceId, keep);
+        if (keep) out.addAll(trace.spans);
+    }
+
+    // No root seen: judge by the longest span we do have
+    private void decideOrphan(String traceId, List<SpanData> out) {
+        Pending trace = pending.get(traceId);
+        for (SpanData span : trace.spans) {
+            trace.interesting |= duration(span) >= slowThresholdNanos;
+        }
+        decide(traceId, out);
+    }
+
+    private void expire(List<SpanData> out) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+        List<String> due = new ArrayList<>();
+        while (it.hasNext()) {
+            Map.Entry<String, Pending> e = it.next();
+            boolean overflow = pending.size() - due.size() > maxPendingTraces;
+            if (!overflow && now - e.getValue().firstSeenNanos < traceTimeoutNanos) break;   // insertion order = age
+            due.add(e.getKey());
+        }
+        for (String traceId : due) {
+            decideOrphan(traceId, out);
+        }
+    }
+
+    private static boolean isLocalRoot(SpanData span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    private static boolean isError(SpanData span) {
+        if (span.getStatus().getStatusCode() == StatusCode.ERROR) return true;
+        String status = span.getAttributes().get(STATUS);
+        if (status == null) status = span.getAttributes().get(HTTP_STATUS);
+        return status != null && status.startsWith("5");
+    }
+
+    private static long duration(SpanData span) {
+        return span.getEndEpochNanos() - span.getStartEpochNanos();
+    }
+}
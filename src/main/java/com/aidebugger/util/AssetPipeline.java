@@ -0,0 +1,142 @@
+package com.aidebugger.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Build step (process-classes, see pom.xml): content-hashes static/css and static/js into
+// static/assets/** (served with Cache-Control: immutable), writes .gz and, when the brotli CLI
+// is installed, .br variants next to each file, and rewrites the asset URLs in pages/*.html
+// (served as static bytes by PageController, also precompressed).
+//
+// Usage: AssetPipeline <src/main/resources> <target/classes>
+public final class AssetPipeline {
+    private static final List<String> ASSET_DIRS = List.of("css", "js");
+    private static final int HASH_CHARS = 10;
+
+    private AssetPipeline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: AssetPipeline <resources dir> <classes dir>");
+        }
+        Path resources = Path.of(args[0]);
+        Path classes = Path.of(args[1]);
+        boolean brotli = brotliAvailable();
+
+        Path assetsOut = classes.resolve("static/assets");
+        deleteRecursively(assetsOut);
+
+        // "/css/styles.css" -> "/assets/css/styles.1a2b3c4d5e.css"
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String dir : ASSET_DIRS) {
+            Path in = resources.resolve("static").resolve(dir);
+            if (!Files.isDirectory(in)) continue;
+            try (Stream<Path> files = Files.list(in)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    byte[] content = Files.readAllBytes(file);
+                    String name = file.getFileName().toString();
+                    int dot = name.lastIndexOf('.');
+                    String hashed = name.substring(0, dot) + "." + HashUtil.sha256(content).substring(0, HASH_CHARS)
+                            + name.substring(dot);
+                    Path out = assetsOut.resolve(dir).resolve(hashed);
+                    write(out, content, brotli);
+                    urls.put("/" + dir + "/" + name, "/assets/" + dir + "/" + hashed);
+                }
+            }
+        }
+
+        Path pagesIn = resources.resolve("pages");
+        if (Files.isDirectory(pagesIn)) {
+            try (Stream<Path> files = Files.list(pagesIn)) {
+                for (Path page : files.filter(p -> p.toString().endsWith(".html")).sorted().toList()) {
+                    String html = Files.readString(page, StandardCharsets.UTF_8);
+                    for (Map.Entry<String, String> e : urls.entrySet()) {
+                        html = html.replace("\"" + e.getKey() + "\"", "\"" + e.getValue() + "\"")
+                                .replace("'" + e.getKey() + "'", "'" + e.getValue() + "'");
+                    }
+                    Path out = classes.resolve("pages").resolve(page.getFileName().toString());
+                    deleteIfExists(out.resolveSibling(out.getFileName() + ".gz"), out.resolveSibling(out.getFileName() + ".br"));
+                    write(out, html.getBytes(StandardCharsets.UTF_8), brotli);
+                }
+            }
+        }
+
+        urls.forEach((from, to) -> System.out.println("[assets] " + from + " -> " + to));
+        if (!brotli) {
+            System.out.println("[assets] brotli CLI not found, only gzip variants were written");
+        }
+    }
+
+    private static void write(Path out, byte[] content, boolean brotli) throws IOException {
+        Files.createDirectories(out.getParent());
+        Files.write(out, content);
+        Files.write(out.resolveSibling(out.getFileName() + ".gz"), gzip(content));
+        if (brotli) {
+            brotli(out);
+        }
+    }
+
+    static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 2 + 64);
+        try (OutputStream gz = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gz.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void brotli(Path file) throws IOException {
+        Process p = new ProcessBuilder("brotli", "-f", "-q", "11", "-o", file + ".br", file.toString())
+                .redirectErrorStream(true)
+                .start();
+        try {
+            if (!p.waitFor(60, TimeUnit.SECONDS) || p.exitValue() != 0) {
+                throw new IOException("brotli failed for " + file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted compressing " + file, e);
+        }
+    }
+
+    private static boolean brotliAvailable() {
+        try {
+            Process p = new ProcessBuilder("brotli", "--version").redirectErrorStream(true).start();
+            return p.waitFor(10, TimeUnit.SECONDS) && p.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void deleteIfExists(Path... paths) throws IOException {
+        for (Path p : paths) Files.deleteIfExists(p);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.aidebugger.util;
+
+import java.util.Locale;
+
+// Content negotiation for responses we keep precompressed. Accept-Encoding is a list of codings
+// with optional q-values (RFC 9110 12.5.3): "gzip;q=0" refuses gzip, "*" covers any coding not
+// listed, and identity is acceptable unless it is refused itself or through "*;q=0".
+// Each coding is a different representation, so it gets its own ETag.
+public class ContentCoding {
+    public static final String IDENTITY = "identity";
+    // identity when the header doesn't mention it: still acceptable, but below anything listed
+    private static final double UNLISTED_IDENTITY = 0.001;
+
+    // q-value the header gives coding: 1 when it is acceptable without a weight, 0 when refused.
+    // Without the header only identity counts: RFC 9110 would allow anything, but clients that
+    // omit it (scripts, probes) rarely decode anything.
+    public static double quality(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) return coding.equals(IDENTITY) ? 1 : 0;
+        Double exact = null;
+        Double wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty()) continue;
+            if (name.equals("x-gzip")) name = "gzip";
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    q = parseQ(param.substring(2).trim());
+                }
+            }
+            if (name.equals(coding)) exact = exact == null ? q : Math.max(exact, q);
+            else if (name.equals("*")) wildcard = q;
+        }
+        if (exact != null) return exact;
+        if (wildcard != null) return wildcard;
+        return coding.equals(IDENTITY) ? UNLISTED_IDENTITY : 0;
+    }
+
+    // Of the codings we can send (listed in our order of preference), the one the client weights
+    // highest. When nothing is acceptable the body goes out uncompressed anyway, as RFC 9110 allows.
+    public static String negotiate(String acceptEncoding, String... available) {
+        String best = IDENTITY;
+        double bestQ = 0;
+        for (String coding : available) {
+            double q = quality(acceptEncoding, coding);
+            if (q > bestQ) {
+                best = coding;
+                bestQ = q;
+            }
+        }
+        return best;
+    }
+
+    // "abc" -> "abc-gzip": strong validators must differ between representations
+    public static String etag(String etag, String coding) {
+        if (coding.equals(IDENTITY)) return etag;
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + "-" + coding + "\"" : etag + "-" + coding;
+    }
+
+    // If-None-Match against the representation being sent (weak comparison, as for GET)
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static double parseQ(String value) {
+        try {
+            double q = Double.parseDouble(value);
+            return Double.isNaN(q) ? 0 : Math.max(0, Math.min(1, q));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -2,15 +2,20 @@ package com.aidebugger.util;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.HexFormat;
 
 public class HashUtil {
+    private static final HexFormat HEX = HexFormat.of();
+
     public static String sha256(String data) {
+        return sha256(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] data) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] d = md.digest(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : d) sb.append(String.format("%02x", b));
-            return sb.toString();
+            // HexFormat rather than String.format per byte: this runs for every analysis request
+            return HEX.formatHex(md.digest(data));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
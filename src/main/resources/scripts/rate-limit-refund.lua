@@ -0,0 +1,7 @@
+-- Gives back one token taken by rate-limit.lua, for a request a later limit refused.
+-- KEYS[1] = bucket key, ARGV[1] = microseconds to refill one token
+-- A tat moved below now just means a full bucket; a missing key already is one.
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('DECRBY', KEYS[1], ARGV[1])
+end
+return 0
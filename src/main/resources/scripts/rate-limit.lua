@@ -0,0 +1,20 @@
+-- Cluster-wide token bucket (GCRA form): one key per client holding the theoretical arrival time.
+-- KEYS[1] = bucket key, ARGV[1] = capacity, ARGV[2] = microseconds to refill one token
+-- Returns {allowed, remaining, retryAfterMicros, resetMicros}
+local capacity = tonumber(ARGV[1])
+local interval = tonumber(ARGV[2])
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+
+local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+if tat < now then tat = now end
+
+local nxt = tat + interval
+local window = capacity * interval
+local debt = nxt - now
+if debt > window then
+    return {0, 0, debt - window, tat - now}
+end
+
+redis.call('SET', KEYS[1], nxt, 'PX', math.ceil(debt / 1000) + 1000)
+return {1, math.floor((window - debt) / interval), 0, debt}
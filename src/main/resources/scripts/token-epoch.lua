@@ -0,0 +1,10 @@
+-- Raises a user's token epoch in the shared hash, never lowers it (two replicas may publish out of order).
+-- KEYS[1] = hash key, ARGV[1] = username, ARGV[2] = epoch
+-- Returns the epoch now stored
+local current = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+local epoch = tonumber(ARGV[2])
+if epoch > current then
+  redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+  return epoch
+end
+return current
@@ -0,0 +1,50 @@
+package com.aidebugger.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeChunkerTest {
+
+	@Test
+	void splitsOnMethodBoundariesWithOverlap() throws Exception {
+		StringBuilder src = new StringBuilder("public class Big {\n");
+		for (int m = 0; m < 40; m++) {
+			src.append("    public int method").append(m).append("(int a) {\n");
+			for (int i = 0; i < 5; i++) {
+				src.append("        a = a * 31 + ").append(i).append(";\n");
+			}
+			src.append("        return a;\n    }\n");
+		}
+		src.append("}\n");
+
+		List<CodeChunk> chunks = new ArrayList<>();
+		int count = new CodeChunker("java", 600, 1000, 2).split(new StringReader(src.toString()), chunks::add);
+
+		assertEquals(count, chunks.size());
+		assertTrue(count > 1);
+		for (int i = 1; i < chunks.size(); i++) {
+			CodeChunk prev = chunks.get(i - 1);
+			CodeChunk next = chunks.get(i);
+			// two lines of overlap, and the cut lands right before a method declaration
+			assertEquals(prev.getEndLine() - 1, next.getStartLine());
+			assertTrue(next.getCode().split("\n")[2].trim().startsWith("public int method"));
+			assertTrue(prev.getCode().length() <= 1000);
+		}
+		assertEquals(src.toString().split("\n").length, chunks.get(chunks.size() - 1).getEndLine());
+	}
+
+	@Test
+	void smallInputIsSingleChunk() throws Exception {
+		List<CodeChunk> chunks = new ArrayList<>();
+		new CodeChunker("python", 4000, 5000, 3).split(new StringReader("def f():\n    return 1\n"), chunks::add);
+
+		assertEquals(1, chunks.size());
+		assertEquals(1, chunks.get(0).getStartLine());
+		assertEquals(2, chunks.get(0).getEndLine());
+	}
+}
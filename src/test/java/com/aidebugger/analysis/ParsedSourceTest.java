@@ -0,0 +1,52 @@
+package com.aidebugger.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParsedSourceTest {
+
+	private static int indexOf(ParsedSource s, String text, int nth) {
+		for (int i = 0; i < s.size(); i++) {
+			if (s.text(i).equals(text) && nth-- == 0) return i;
+		}
+		throw new AssertionError("no " + text);
+	}
+
+	@Test
+	void findsTheKeywordThatOwnsAnEnclosingBlockOrParens() {
+		ParsedSource s = ParsedSource.parse("java", """
+				void f() throws Exception {
+				    try (InputStream in = open(a)) {
+				        if (x) { read(in); }
+				    } catch (IOException e) {
+				        log(e);
+				    }
+				    close(b);
+				}
+				""");
+		int a = indexOf(s, "a", 0);
+		int read = indexOf(s, "read", 0);
+		int log = indexOf(s, "log", 0);
+		int close = indexOf(s, "close", 0);
+
+		assertTrue(s.insideParensOf(a, "try"));
+		assertFalse(s.insideBlockOf(a, "try"));
+		assertTrue(s.insideBlockOf(read, "try"));
+		assertTrue(s.insideBlockOf(read, "if"));
+		assertFalse(s.insideParensOf(read, "try"));
+		assertTrue(s.insideBlockOf(log, "catch"));
+		assertFalse(s.insideBlockOf(log, "try"));
+		assertFalse(s.insideBlockOf(close, "try"));
+		// the braces themselves are not inside their block
+		assertFalse(s.insideBlockOf(indexOf(s, "{", 1), "try"));
+	}
+
+	@Test
+	void unbalancedSnippetsOnlyCountMatchedPairs() {
+		ParsedSource s = ParsedSource.parse("java", "try { call( x ; } y");
+		assertTrue(s.insideBlockOf(indexOf(s, "x", 0), "try"));
+		assertEquals(-1, s.enclosing(indexOf(s, "y", 0)));
+		assertFalse(s.insideParensOf(indexOf(s, "x", 0), "call"));
+	}
+}
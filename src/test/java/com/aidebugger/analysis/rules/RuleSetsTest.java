@@ -0,0 +1,129 @@
+package com.aidebugger.analysis.rules;
+
+import com.aidebugger.analysis.Issue;
+import com.aidebugger.analysis.ParsedSource;
+import com.aidebugger.analysis.Rule;
+import com.aidebugger.analysis.RuleContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetsTest {
+
+    private static List<Issue> analyze(String language, String code) {
+        ParsedSource source = ParsedSource.parse(language, code);
+        List<Issue> issues = new ArrayList<>();
+        for (Rule rule : RuleSets.forLanguage(source.language())) {
+            RuleContext ctx = new RuleContext(rule.id(), 1_000_000_000L);
+            rule.check(source, ctx);
+            issues.addAll(ctx.issues());
+        }
+        return issues;
+    }
+
+    private static List<String> titles(String language, String code) {
+        return analyze(language, code).stream().map(Issue::title).toList();
+    }
+
+    @Test
+    void divisionByZeroIgnoresCommentsStringsAndCheckedDivisors() {
+        assertEquals(List.of(), titles("java", """
+                // divide by 0 here: a / 0
+                String s = "x / 0";
+                int avg = total / count;
+                if (count == 0) return 0;
+                """));
+
+        List<Issue> issues = analyze("java", "int a = 10;\nint b = a / 0;\nint c = a / n;");
+        assertEquals(List.of("Division by Zero", "Potential Division by Zero"),
+                issues.stream().map(Issue::title).toList());
+        assertEquals(2, issues.get(0).line());
+        assertEquals(3, issues.get(1).line());
+    }
+
+    @Test
+    void javaNullSafetyOnlyForUncheckedDereference() {
+        assertTrue(titles("java", "String s = null;\nint n = s.length();").contains("Null Safety"));
+        assertFalse(titles("java", "String s = null;\nif (s != null) { s.length(); }").contains("Null Safety"));
+        assertFalse(titles("java", "String s = \"null\";\ns.length();").contains("Null Safety"));
+    }
+
+    @Test
+    void javaCatchAndResourceRules() {
+        List<String> t = titles("java", """
+                try {
+                    FileReader r = new FileReader(path);
+                } catch (Exception e) { }
+                """);
+        assertTrue(t.contains("Swallowed Exception"));
+        assertTrue(t.contains("Overly Broad Catch"));
+        assertTrue(t.contains("Resource Leak"));
+        assertFalse(titles("java", "try (FileReader r = new FileReader(path)) { read(r); }").contains("Resource Leak"));
+    }
+
+    @Test
+    void pythonRules() {
+        List<String> t = titles("python", """
+                def add(item, bucket=[]):
+                    data = json.loads(item)
+                    if data == None:
+                        print("empty")
+                    try:
+                        bucket.append(data)
+                    except:
+                        pass
+                """);
+        assertTrue(t.contains("Mutable Default Argument"));
+        assertTrue(t.contains("Missing Imports"));
+        assertTrue(t.contains("None Comparison"));
+        assertTrue(t.contains("Debug Prints"));
+        assertTrue(t.contains("Bare Except"));
+        assertTrue(t.contains("Swallowed Exception"));
+
+        assertFalse(titles("python", "import json\nx = json.loads(s)").contains("Missing Imports"));
+        // '#' starts a comment, and "%" on a string is formatting, not modulo
+        assertEquals(List.of(), titles("python", "# x / 0\nmsg = 'a %d' % count"));
+    }
+
+    @Test
+    void javascriptRules() {
+        List<String> t = titles("javascript", """
+                var total = 0;
+                if (a == b) console.log(a);
+                fetch(url).then(r => r.json());
+                el.innerHTML = html;
+                """);
+        assertTrue(t.contains("Variable Declaration"));
+        assertTrue(t.contains("Loose Equality"));
+        assertTrue(t.contains("Debug Logs"));
+        assertTrue(t.contains("Async Error Handling"));
+        assertTrue(t.contains("DOM XSS Risk"));
+
+        List<String> clean = titles("javascript", """
+                const re = /a\\/0/g;
+                if (x == null) return;
+                fetch(url).then(r => r.json()).catch(handle);
+                """);
+        assertEquals(List.of(), clean);
+    }
+
+    @Test
+    void cppRawPointerNotEveryAsterisk() {
+        assertEquals(List.of(), titles("cpp", "int area = w * h;\nauto p = std::make_unique<Foo>();"));
+        List<String> t = titles("cpp", "Foo* f = new Foo();\nstrcpy(dst, src);");
+        assertTrue(t.contains("Raw Pointers"));
+        assertTrue(t.contains("Memory Leak"));
+        assertTrue(t.contains("Unsafe Function"));
+    }
+
+    @Test
+    void ruleStopsWhenBudgetIsExhausted() {
+        ParsedSource source = ParsedSource.parse("java", "int x = a / b;\n".repeat(5000));
+        Rule division = RuleSets.forLanguage(source.language()).get(0);
+        RuleContext ctx = new RuleContext(division.id(), 0);
+        assertThrows(RuleContext.BudgetExceededException.class, () -> division.check(source, ctx));
+    }
+}
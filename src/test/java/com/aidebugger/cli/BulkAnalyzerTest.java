@@ -0,0 +1,152 @@
+package com.aidebugger.cli;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.Finding;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.CachedAnalysis;
+import com.aidebugger.service.DebugService;
+import com.aidebugger.service.LargeFileAnalysisService;
+import com.aidebugger.service.OpenAiService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkAnalyzerTest {
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DebugService debugService = mock(DebugService.class);
+    private final CacheService cacheService = mock(CacheService.class);
+    private final LargeFileAnalysisService largeFiles = mock(LargeFileAnalysisService.class);
+    private final Map<String, CachedAnalysis> cache = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void stubs() throws Exception {
+        when(cacheService.generateKey(any(), any(), any())).thenAnswer(inv -> inv.getArgument(1));
+        when(cacheService.getRendered(any())).thenAnswer(inv -> cache.get(inv.<String>getArgument(0)));
+        doAnswer(inv -> cache.put(inv.getArgument(0), inv.getArgument(1))).when(cacheService).putRendered(any(), any());
+        when(debugService.heuristicAsync(any(), eq(BulkAnalyzer.USER), any())).thenAnswer(inv ->
+                CompletableFuture.completedFuture("report for " + inv.<DebugRequest>getArgument(0).getLanguage()));
+        when(debugService.llmAsync(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(debugService.mergeAnalyses(any(), any())).thenAnswer(inv -> inv.getArgument(0));
+        when(debugService.renderResponse(any(), anyInt(), any())).thenAnswer(inv ->
+                objectMapper.writeValueAsBytes(Map.of("analysis", inv.getArgument(2))));
+
+        LargeFileAnalysisService.Result chunked = mock(LargeFileAnalysisService.Result.class);
+        when(chunked.getChunks()).thenReturn(3);
+        when(chunked.getFindings()).thenReturn(List.of(new Finding(1, 2, "Null check", "x may be null", "heuristic")));
+        when(largeFiles.analyze(eq("java"), any(), any(), any(), any())).thenReturn(chunked);
+
+        write("src/Main.java", "class Main { int x = 1 / 0; }");
+        write("src/util/helpers.py", "def f(x):\n    return x / 0\n");
+        write("src/Big.java", "class Big {\n" + "    int x = 1;\n".repeat(1000) + "}\n");
+        write("src/Blob.java", "class Blob {\0\0\0}");
+        write("node_modules/lib/index.js", "module.exports = 1 / 0;");
+        write("README.md", "# not code, no analyzer");
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = dir.resolve("repo").resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private BulkAnalyzer.Summary run() throws Exception {
+        return new BulkAnalyzer(debugService, cacheService, largeFiles, objectMapper, new BulkAnalyzer.Options(
+                dir.resolve("repo"), dir.resolve("out.jsonl"), dir.resolve("out.ckpt"), 2, 1 << 20)).run();
+    }
+
+    private Map<String, JsonNode> results() throws Exception {
+        Map<String, JsonNode> byPath = new HashMap<>();
+        for (String line : Files.readAllLines(dir.resolve("out.jsonl"), StandardCharsets.UTF_8)) {
+            JsonNode node = objectMapper.readTree(line);
+            assertNull(byPath.put(node.get("path").asText(), node), "duplicate " + line);
+        }
+        return byPath;
+    }
+
+    @Test
+    void writesOneJsonLinePerSourceFile() throws Exception {
+        BulkAnalyzer.Summary summary = run();
+
+        Map<String, JsonNode> results = results();
+        assertEquals(4, results.size());
+        assertEquals("report for java", results.get("src/Main.java").get("analysis").asText());
+        assertEquals("python", results.get("src/util/helpers.py").get("language").asText());
+        assertEquals(3, results.get("src/Big.java").get("chunks").asInt());
+        assertEquals("Null check", results.get("src/Big.java").get("findings").get(0).get("title").asText());
+        assertEquals("binary", results.get("src/Blob.java").get("reason").asText());
+        assertEquals(new BulkAnalyzer.Summary(3, 0, 1, 0, 0), summary);
+        // short files land in the cache the REST API reads
+        assertTrue(cache.containsKey("class Main { int x = 1 / 0; }"));
+    }
+
+    @Test
+    void resumesFromTheCheckpoint() throws Exception {
+        run();
+        write("src/Added.java", "class Added { String s = null; }");
+        BulkAnalyzer.Summary summary = run();
+
+        assertEquals(new BulkAnalyzer.Summary(1, 0, 0, 0, 4), summary);
+        assertEquals(5, results().size());
+        verify(debugService, times(3)).heuristicAsync(any(), any(), any());
+    }
+
+    @Test
+    void asksTheLlmOnceForAnAmbiguousFileAndNotAgainOnACacheHit() throws Exception {
+        when(debugService.llmAsync(any(), any(), any())).thenAnswer(inv -> CompletableFuture.completedFuture(
+                inv.<DebugRequest>getArgument(0).getLanguage().equals("python")
+                        ? new OpenAiService.Answer("llm review", false) : null));
+        when(debugService.mergeAnalyses(any(), any())).thenAnswer(inv -> inv.getArgument(1) == null
+                ? inv.getArgument(0) : inv.getArgument(1) + " + " + inv.getArgument(0));
+        run();
+
+        JsonNode python = results().get("src/util/helpers.py");
+        assertEquals("llm review + report for python", python.get("analysis").asText());
+        assertTrue(python.get("aiReviewed").asBoolean());
+        verify(debugService, never()).analyzeAsync(any(), any(), any());
+        verify(debugService, times(2)).llmAsync(any(), any(), any());
+
+        // a fresh run over the same files is served from the cache, merged answer included
+        Files.delete(dir.resolve("out.jsonl"));
+        Files.delete(dir.resolve("out.ckpt"));
+        run();
+        assertEquals("llm review + report for python", results().get("src/util/helpers.py").get("analysis").asText());
+        verify(debugService, times(2)).llmAsync(any(), any(), any());
+    }
+
+    @Test
+    void aFallbackIsNoAiReviewAndIsNotCached() throws Exception {
+        when(debugService.llmAsync(any(), any(), any())).thenAnswer(inv -> CompletableFuture.completedFuture(
+                inv.<DebugRequest>getArgument(0).getLanguage().equals("python")
+                        ? new OpenAiService.Answer("Network Connectivity Issue", true) : null));
+        run();
+
+        JsonNode python = results().get("src/util/helpers.py");
+        assertEquals("report for python", python.get("analysis").asText());
+        assertFalse(python.get("aiReviewed").asBoolean());
+        verify(debugService).mergeAnalyses("report for python", null);
+
+        // not cached, so the next run asks the LLM again
+        Files.delete(dir.resolve("out.jsonl"));
+        Files.delete(dir.resolve("out.ckpt"));
+        run();
+        verify(debugService, times(3)).llmAsync(any(), any(), any());
+    }
+}
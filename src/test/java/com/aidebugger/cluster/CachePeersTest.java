@@ -0,0 +1,68 @@
+package com.aidebugger.cluster;
+
+import com.aidebugger.util.HashUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachePeersTest {
+
+    @Test
+    void spreadsKeysEvenlyAndMovesOnlyTheNewPeersShare() {
+        List<String> three = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+        List<String> four = List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080");
+        Rendezvous before = new Rendezvous(three);
+        Rendezvous after = new Rendezvous(four);
+
+        int keys = 20_000;
+        Map<String, Integer> owned = new HashMap<>();
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            String key = HashUtil.sha256("snippet " + i);
+            String was = before.owner(key);
+            String now = after.owner(key);
+            owned.merge(was, 1, Integer::sum);
+            if (!was.equals(now)) {
+                moved++;
+                // a key only ever moves to the peer that joined
+                assertEquals("http://d:8080", now);
+            }
+        }
+        for (int count : owned.values()) assertEquals(keys / 3.0, count, keys * 0.03);
+        assertEquals(keys / 4.0, moved, keys * 0.03);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void servesKeysLocallyWhileTheirOwnerIsDown() {
+        CachePeers peers = new CachePeers(mock(ObjectProvider.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(peers, "enabled", true);
+        ReflectionTestUtils.setField(peers, "self", "http://a:8080/");
+        ReflectionTestUtils.setField(peers, "secret", "s3cret");
+        ReflectionTestUtils.setField(peers, "staticPeers", List.of("http://b:8080", " http://a:8080"));
+        ReflectionTestUtils.setField(peers, "discovery", "static");
+        ReflectionTestUtils.setField(peers, "downMs", 60_000L);
+        peers.start();
+
+        String remoteKey = null;
+        String localKey = null;
+        for (int i = 0; remoteKey == null || localKey == null; i++) {
+            String key = HashUtil.sha256("snippet " + i);
+            if (peers.remoteOwner(key) == null) localKey = key;
+            else remoteKey = key;
+        }
+        assertEquals("http://b:8080", peers.remoteOwner(remoteKey));
+        assertNull(peers.remoteOwner(localKey));
+
+        peers.markDown("http://b:8080");
+        assertNull(peers.remoteOwner(remoteKey));
+    }
+}
@@ -0,0 +1,179 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.service.AnalysisScheduler;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.CachedAnalysis;
+import com.aidebugger.service.DebugService;
+import com.aidebugger.service.LargeFileAnalysisService;
+import com.aidebugger.service.OpenAiService;
+import com.aidebugger.service.WorkClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DebugControllerTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final AnalysisScheduler scheduler =
+            new AnalysisScheduler(executor, new SimpleMeterRegistry(), ObservationRegistry.NOOP, 2, 100, 100);
+    private final DebugService debugService = mock(DebugService.class);
+    private final LargeFileAnalysisService largeFiles = mock(LargeFileAnalysisService.class);
+    private final CacheService cacheService = mock(CacheService.class);
+    private DebugController controller;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        controller = new DebugController(debugService, null, largeFiles, cacheService, ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(controller, "streamDeadlineMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "maxDeadlineMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "heartbeatMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "fileDeadlineMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "analyzeDeadlineMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "maxFileBytes", 1_000_000L);
+        controller.start();
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void clientDisconnectInterruptsTheSchedulerTask() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(debugService.heuristicAsync(any(), any(), any(WorkClass.class)))
+                .thenReturn(CompletableFuture.completedFuture("local report"));
+        when(debugService.llmAsync(any(), any(), any(WorkClass.class))).thenAnswer(inv ->
+                scheduler.submit("a", WorkClass.INTERACTIVE, () -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(30_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return new OpenAiService.Answer("llm", false);
+                }));
+
+        MvcResult result = mvc.perform(post("/api/debug/analyze/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"language\":\"java\",\"codeSnippet\":\"int x = 1 / 0;\"}"))
+                .andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // what the container does when the socket is reset mid-stream
+        MockAsyncContext context = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onError(new AsyncEvent(context, new IOException("Broken pipe")));
+        }
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "upstream call kept running after disconnect");
+    }
+
+    @Test
+    void chunkFailuresOtherThanSheddingAnswerWithTheJsonError() throws Exception {
+        when(largeFiles.analyze(any(), any(), any(), any(), any()))
+                .thenThrow(new CompletionException(new IllegalStateException("chunk 3 failed")));
+
+        mvc.perform(post("/api/debug/analyze-file").param("language", "java")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("class A {}"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.error").value("Server error: chunk 3 failed"));
+    }
+
+    @Test
+    void shedChunksAnswer503AndAnonymousUploadsRunAsBatch() throws Exception {
+        when(largeFiles.analyze(any(), any(), any(), any(), any()))
+                .thenThrow(new CompletionException(new AnalysisScheduler.LoadShedException("Analysis queue is full")));
+
+        mvc.perform(post("/api/debug/analyze-file").param("language", "java")
+                        .header("X-Analysis-Priority", "interactive")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("class A {}"))
+                .andExpect(status().isServiceUnavailable());
+        verify(largeFiles).analyze(eq("java"), any(), any(), isNull(), eq(WorkClass.BATCH));
+    }
+
+    @Test
+    void cachedAnswerHonoursGzipQValueAndTagsEachEncoding() throws Exception {
+        when(cacheService.generateKey(any(), any(), any())).thenReturn("k");
+        when(cacheService.getRendered("k")).thenReturn(
+                new CachedAnalysis("k", "{\"analysis\":\"cached\"}".getBytes(StandardCharsets.UTF_8)));
+        String body = "{\"language\":\"java\",\"codeSnippet\":\"int x = 1 / 0;\"}";
+
+        mvc.perform(post("/api/debug/analyze").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"k\""))
+                .andExpect(jsonPath("$.analysis").value("cached"));
+
+        mvc.perform(post("/api/debug/analyze").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"k-gzip\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+
+        mvc.perform(post("/api/debug/analyze").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"k-gzip\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void fallbackAnswersAreSentButNeverCached() throws Exception {
+        when(cacheService.generateKey(any(), any(), any())).thenReturn("k");
+        byte[] json = "{\"status\":\"success\",\"analysis\":\"Daily AI Budget Reached\"}".getBytes(StandardCharsets.UTF_8);
+        when(debugService.analyzeRenderedAsync(any(), any(), any(WorkClass.class)))
+                .thenReturn(CompletableFuture.completedFuture(new DebugService.Result<>(json, false)));
+        String body = "{\"language\":\"java\",\"codeSnippet\":\"int x = 1 / 0;\"}";
+
+        mvc.perform(post("/api/debug/analyze").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(jsonPath("$.analysis").value("Daily AI Budget Reached"));
+        verify(cacheService, never()).putRendered(any(), any());
+
+        when(debugService.analyzeRenderedAsync(any(), any(), any(WorkClass.class)))
+                .thenReturn(CompletableFuture.completedFuture(new DebugService.Result<>(json, true)));
+        mvc.perform(post("/api/debug/analyze").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"k\""));
+        verify(cacheService).putRendered(eq("k"), any(CachedAnalysis.class));
+    }
+}
@@ -0,0 +1,60 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.jobs.InMemoryJobQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class JobControllerTest {
+    private final InMemoryJobQueue queue = new InMemoryJobQueue(Duration.ofMinutes(1), 3, Duration.ofMinutes(1), 100);
+    private final JobController controller = new JobController(queue);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        controller.stop();
+    }
+
+    private static void signIn(String user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    // the status endpoint answers through a DeferredResult, already set when waitMs is 0
+    private ResultActions fetch(String id) throws Exception {
+        return mvc.perform(asyncDispatch(mvc.perform(get("/api/debug/jobs/" + id)).andReturn()));
+    }
+
+    @Test
+    void onlyTheSubmitterCanReadAJob() throws Exception {
+        DebugRequest request = new DebugRequest();
+        request.setCodeSnippet("int x = 1 / 0;");
+        request.setLanguage("java");
+        String id = queue.enqueue(request, "alice");
+
+        signIn("alice");
+        fetch(id)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owner").value("alice"));
+
+        signIn("bob");
+        fetch(id).andExpect(status().isNotFound());
+
+        SecurityContextHolder.clearContext();
+        fetch(id).andExpect(status().isNotFound());
+    }
+}
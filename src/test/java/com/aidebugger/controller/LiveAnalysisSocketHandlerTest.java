@@ -0,0 +1,106 @@
+package com.aidebugger.controller;
+
+import com.aidebugger.service.LiveAnalysisService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LiveAnalysisSocketHandlerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LiveAnalysisService live = mock(LiveAnalysisService.class);
+    private final LiveAnalysisSocketHandler handler = new LiveAnalysisSocketHandler(live, objectMapper);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+
+    @BeforeEach
+    void setUp() {
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        when(session.getRemoteAddress()).thenReturn(new InetSocketAddress("203.0.113.7", 50000));
+        handler.afterConnectionEstablished(session);
+    }
+
+    private void receive(String json) throws Exception {
+        handler.handleTextMessage(session, new TextMessage(json));
+    }
+
+    private List<JsonNode> sent() throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> frames = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, atLeast(0)).sendMessage(frames.capture());
+        List<JsonNode> payloads = new ArrayList<>();
+        for (WebSocketMessage<?> frame : frames.getAllValues()) {
+            payloads.add(objectMapper.readTree((String) frame.getPayload()));
+        }
+        return payloads;
+    }
+
+    @Test
+    void openAndEditsAreHandedToTheLiveSession() throws Exception {
+        receive("{\"type\":\"open\",\"language\":\"java\",\"text\":\"int x;\"}");
+        receive("{\"type\":\"edit\",\"changes\":[{\"offset\":4,\"deleteCount\":1,\"insert\":\"y\"},{\"offset\":0,\"insert\":\"// \"}]}");
+
+        verify(live).open(eq("s1"), isNull(), eq("ip:203.0.113.7"), eq("java"), isNull(), eq("int x;"), any(), any());
+        verify(live).edit("s1", 4, 1, "y");
+        verify(live).edit("s1", 0, 0, "// ");
+        assertTrue(sent().isEmpty());
+    }
+
+    @Test
+    void editTrafficIsNeverLimitedPerFrame() throws Exception {
+        receive("{\"type\":\"open\",\"language\":\"java\",\"text\":\"\"}");
+        for (int i = 0; i < 500; i++) {
+            receive("{\"type\":\"edit\",\"changes\":[{\"offset\":" + i + ",\"insert\":\"x\"}]}");
+        }
+        verify(live, times(500)).edit(eq("s1"), anyInt(), eq(0), eq("x"));
+        verify(live, never()).close(anyString());
+        assertTrue(sent().isEmpty());
+    }
+
+    @Test
+    void signedInClientsAreChargedByUserNotAddress() throws Exception {
+        when(session.getPrincipal()).thenReturn(() -> "alice");
+        receive("{\"type\":\"open\",\"language\":\"java\",\"text\":\"int x;\"}");
+        verify(live).open(eq("s1"), eq("alice"), eq("user:alice"), eq("java"), isNull(), eq("int x;"), any(), any());
+    }
+
+    @Test
+    void protocolErrorsAreReportedOnTheSocket() throws Exception {
+        receive("{\"type\":\"open\"}");
+        receive("{\"type\":\"rename\"}");
+        doThrow(new IllegalStateException("Session not opened")).when(live).edit("s1", 0, 0, "x");
+        receive("{\"type\":\"edit\",\"changes\":[{\"offset\":0,\"insert\":\"x\"}]}");
+
+        List<String> errors = sent().stream().map(n -> n.path("error").asText()).toList();
+        assertEquals(List.of("language is required", "Unknown message type: rename", "Session not opened"), errors);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void sessionLimitClosesTheSocket() throws Exception {
+        doThrow(new LiveAnalysisService.SessionLimitException("Too many live sessions"))
+                .when(live).open(anyString(), any(), anyString(), anyString(), any(), anyString(), any(), any());
+        receive("{\"type\":\"open\",\"language\":\"java\",\"text\":\"\"}");
+
+        assertEquals("Too many live sessions", sent().get(0).path("error").asText());
+        ArgumentCaptor<CloseStatus> status = ArgumentCaptor.forClass(CloseStatus.class);
+        verify(session).close(status.capture());
+        assertEquals(CloseStatus.POLICY_VIOLATION, status.getValue());
+    }
+}
@@ -0,0 +1,55 @@
+package com.aidebugger.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PageControllerTest {
+    private final MockMvc mvc;
+
+    PageControllerTest() {
+        PageController controller = new PageController();
+        ReflectionTestUtils.invokeMethod(controller, "load");
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private MvcResult page(String acceptEncoding) throws Exception {
+        return mvc.perform(get("/login").header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+    }
+
+    @Test
+    void refusedEncodingIsNotSent() throws Exception {
+        MvcResult plain = page("gzip;q=0, br;q=0");
+        assertNull(plain.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        MvcResult gzip = page("gzip");
+        assertEquals("gzip", gzip.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(plain.getResponse().getContentAsByteArray().length > gzip.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    void encodingsHaveDistinctEtagsAndRevalidateSeparately() throws Exception {
+        String plainTag = page("identity").getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipTag = page("gzip").getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(plainTag, gzipTag);
+
+        mvc.perform(get("/login").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, gzipTag));
+        // a cached gzip copy does not validate the uncompressed representation
+        mvc.perform(get("/login").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0").header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, plainTag));
+    }
+}
@@ -0,0 +1,207 @@
+package com.aidebugger.grpc;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.grpc.proto.AnalyzeRequest;
+import com.aidebugger.grpc.proto.AnalyzeResponse;
+import com.aidebugger.grpc.proto.DebuggerGrpc;
+import com.aidebugger.security.JwtUtil;
+import com.aidebugger.security.RateLimiterService;
+import com.aidebugger.security.TokenEpochService;
+import com.aidebugger.service.CacheService;
+import com.aidebugger.service.CachedAnalysis;
+import com.aidebugger.service.DebugService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DebuggerGrpcServiceTest {
+    private final JwtUtil jwtUtil = new JwtUtil("test-secret-test-secret-test-secret-0123456789", 60_000);
+    private final TokenEpochService tokenEpochs = mock(TokenEpochService.class);
+    private final DebugService debugService = mock(DebugService.class);
+    private final CacheService cacheService = mock(CacheService.class);
+    private final RateLimiterService rateLimiter = mock(RateLimiterService.class);
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void start() throws Exception {
+        DebuggerGrpcService service = new DebuggerGrpcService(debugService, cacheService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), rateLimiter);
+        // fewer than the files sent, so the stream has to ask for more as answers go out
+        ReflectionTestUtils.setField(service, "maxInFlight", 2);
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor()
+                .addService(ServerInterceptors.intercept(service, new JwtServerInterceptor(jwtUtil, tokenEpochs)))
+                .build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+
+        when(cacheService.generateKey(any(), any(), any())).thenAnswer(inv -> inv.getArgument(1));
+        when(debugService.analyzeResultAsync(any(), eq("ci-bot"), any())).thenAnswer(inv ->
+                CompletableFuture.completedFuture(new DebugService.Result<>(
+                        "analysis of " + inv.<DebugRequest>getArgument(0).getCodeSnippet(), true)));
+        when(debugService.renderResponse(any(), anyInt(), any())).thenReturn("{}".getBytes(StandardCharsets.UTF_8));
+        when(rateLimiter.isEnabled()).thenReturn(true);
+        when(rateLimiter.check(any(), anyBoolean())).thenReturn(new RateLimiterService.Result(true, 30, 29, 0, 0));
+    }
+
+    @AfterEach
+    void stop() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    private DebuggerGrpc.DebuggerStub stub(String token) {
+        Metadata headers = new Metadata();
+        if (token != null) {
+            headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer " + token);
+        }
+        return DebuggerGrpc.newStub(channel).withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+
+    private static class Collector implements StreamObserver<AnalyzeResponse> {
+        final List<AnalyzeResponse> responses = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable error;
+
+        public void onNext(AnalyzeResponse r) { responses.add(r); }
+        public void onError(Throwable t) { error = t; done.countDown(); }
+        public void onCompleted() { done.countDown(); }
+    }
+
+    private static AnalyzeRequest file(String id, String code) {
+        return AnalyzeRequest.newBuilder().setId(id).setLanguage("java").setCodeSnippet(code).build();
+    }
+
+    @Test
+    void rejectsStreamsWithoutAValidToken() throws Exception {
+        for (String token : new String[]{null, "not-a-jwt"}) {
+            Collector out = new Collector();
+            StreamObserver<AnalyzeRequest> in = stub(token).analyze(out);
+            in.onNext(file("1", "int x = 1 / 0;"));
+            in.onCompleted();
+            assertTrue(out.done.await(5, TimeUnit.SECONDS));
+            assertEquals(Status.Code.UNAUTHENTICATED, Status.fromThrowable(out.error).getCode());
+        }
+        verifyNoInteractions(debugService);
+    }
+
+    @Test
+    void answersEveryFileOnOneStreamSharingTheRestCache() throws Exception {
+        byte[] cachedJson = "{\"status\":\"success\",\"analysis\":\"from REST\"}".getBytes(StandardCharsets.UTF_8);
+        when(cacheService.getRendered("cached snippet;")).thenReturn(new CachedAnalysis("k", cachedJson));
+
+        Collector out = new Collector();
+        StreamObserver<AnalyzeRequest> in = stub(jwtUtil.generateToken("ci-bot")).analyze(out);
+        for (int i = 0; i < 5; i++) in.onNext(file("f" + i, "int x" + i + " = 1 / 0;"));
+        in.onNext(file("hit", "cached snippet;"));
+        in.onNext(file("bad", "x"));
+        in.onCompleted();
+
+        assertTrue(out.done.await(5, TimeUnit.SECONDS));
+        assertNull(out.error);
+        Map<String, AnalyzeResponse> byId = out.responses.stream()
+                .collect(Collectors.toMap(AnalyzeResponse::getId, Function.identity()));
+        assertEquals(7, byId.size());
+        assertEquals("analysis of int x3 = 1 / 0;", byId.get("f3").getAnswer());
+        assertFalse(byId.get("f3").getCached());
+        assertEquals("from REST", byId.get("hit").getAnswer());
+        assertTrue(byId.get("hit").getCached());
+        assertEquals(AnalyzeResponse.Status.INVALID, byId.get("bad").getStatus());
+        // misses are rendered into the shared cache for the REST API
+        verify(cacheService, times(5)).putRendered(anyString(), any(CachedAnalysis.class));
+    }
+
+    @Test
+    void everyFileSpendsFromTheCallersRateLimit() throws Exception {
+        when(rateLimiter.check("user:ci-bot", true)).thenReturn(
+                new RateLimiterService.Result(true, 30, 0, 0, 2),
+                new RateLimiterService.Result(false, 30, 0, 3, 3));
+
+        Collector out = new Collector();
+        StreamObserver<AnalyzeRequest> in = stub(jwtUtil.generateToken("ci-bot")).analyze(out);
+        in.onNext(file("ok", "int x = 1 / 0;"));
+        in.onNext(file("limited", "int y = 1 / 0;"));
+        in.onCompleted();
+
+        assertTrue(out.done.await(5, TimeUnit.SECONDS));
+        Map<String, AnalyzeResponse> byId = out.responses.stream()
+                .collect(Collectors.toMap(AnalyzeResponse::getId, Function.identity()));
+        assertEquals(AnalyzeResponse.Status.OK, byId.get("ok").getStatus());
+        assertEquals(AnalyzeResponse.Status.RATE_LIMITED, byId.get("limited").getStatus());
+        assertEquals(3000, byId.get("limited").getRetryAfterMs());
+        verify(debugService, times(1)).analyzeResultAsync(any(), any(), any());
+    }
+
+    @Test
+    void aClientThatStopsReadingStopsTheStream() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        List<AnalyzeResponse> received = new CopyOnWriteArrayList<>();
+        AtomicReference<ClientCallStreamObserver<AnalyzeRequest>> call = new AtomicReference<>();
+        ClientResponseObserver<AnalyzeRequest, AnalyzeResponse> reader = new ClientResponseObserver<>() {
+            public void beforeStart(ClientCallStreamObserver<AnalyzeRequest> requestStream) {
+                call.set(requestStream);
+                // reads nothing until told to
+                requestStream.disableAutoRequestWithInitial(0);
+            }
+            public void onNext(AnalyzeResponse r) { received.add(r); }
+            public void onError(Throwable t) { done.countDown(); }
+            public void onCompleted() { done.countDown(); }
+        };
+        StreamObserver<AnalyzeRequest> in = stub(jwtUtil.generateToken("ci-bot")).analyze(reader);
+        for (int i = 0; i < 6; i++) in.onNext(file("f" + i, "int x" + i + " = 1 / 0;"));
+        in.onCompleted();
+
+        // direct executors: everything the server will do without a reader has happened by now.
+        // Only the first maxInFlight (2) files were read while their answers sit unread.
+        verify(debugService, times(2)).analyzeResultAsync(any(), any(), any());
+
+        call.get().request(Integer.MAX_VALUE);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(6, received.size());
+        verify(debugService, times(6)).analyzeResultAsync(any(), any(), any());
+    }
+
+    @Test
+    void fallbackAnswersAreReturnedButNotCached() throws Exception {
+        when(debugService.analyzeResultAsync(any(), eq("ci-bot"), any())).thenReturn(
+                CompletableFuture.completedFuture(new DebugService.Result<>("Rate Limit Exceeded", false)));
+
+        Collector out = new Collector();
+        StreamObserver<AnalyzeRequest> in = stub(jwtUtil.generateToken("ci-bot")).analyze(out);
+        in.onNext(file("f", "int x = 1 / 0;"));
+        in.onCompleted();
+
+        assertTrue(out.done.await(5, TimeUnit.SECONDS));
+        assertEquals("Rate Limit Exceeded", out.responses.get(0).getAnswer());
+        verify(cacheService, never()).putRendered(anyString(), any(CachedAnalysis.class));
+    }
+}
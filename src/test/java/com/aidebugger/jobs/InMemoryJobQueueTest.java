@@ -0,0 +1,101 @@
+package com.aidebugger.jobs;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.JobStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryJobQueueTest {
+    // the queue's clock: tests move time forward instead of sleeping
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private static DebugRequest request() {
+        DebugRequest r = new DebugRequest();
+        r.setCodeSnippet("int x = 1 / 0;");
+        r.setLanguage("java");
+        return r;
+    }
+
+    private InMemoryJobQueue queue(Duration visibility, int maxAttempts, Duration resultTtl, int maxJobs) {
+        return new InMemoryJobQueue(visibility, maxAttempts, resultTtl, maxJobs, now::get);
+    }
+
+    @Test
+    void unacknowledgedJobIsRedeliveredAfterVisibilityTimeout() throws Exception {
+        InMemoryJobQueue queue = queue(Duration.ofMillis(50), 3, Duration.ofMinutes(1), 100);
+        String id = queue.enqueue(request(), "alice");
+
+        List<JobDelivery> first = queue.poll("w1", 1, Duration.ofMillis(100));
+        assertEquals(1, first.size());
+        assertEquals(1, first.get(0).attempt());
+        now.addAndGet(49);
+        assertTrue(queue.reclaim("w2", 10).isEmpty(), "still within visibility timeout");
+
+        now.addAndGet(1);
+        List<JobDelivery> again = queue.reclaim("w2", 10);
+        assertEquals(1, again.size());
+        assertEquals(id, again.get(0).jobId());
+        assertEquals(2, again.get(0).attempt());
+
+        queue.ack(again.get(0));
+        now.addAndGet(100);
+        assertTrue(queue.reclaim("w2", 10).isEmpty());
+    }
+
+    @Test
+    void jobIsDeadLetteredAfterMaxAttempts() throws Exception {
+        InMemoryJobQueue queue = queue(Duration.ofMillis(20), 2, Duration.ofMinutes(1), 100);
+        String id = queue.enqueue(request(), null);
+
+        JobDelivery d1 = queue.poll("w1", 1, Duration.ofMillis(100)).get(0);
+        queue.fail(d1, "boom");
+        now.addAndGet(20);
+        JobDelivery d2 = queue.reclaim("w1", 1).get(0);
+        queue.fail(d2, "boom again");
+
+        assertEquals(List.of(id), queue.getDeadLetters());
+        JobStatus status = queue.getStatus(id);
+        assertEquals(JobStatus.DEAD, status.getState());
+        assertEquals("boom again", status.getError());
+        assertTrue(queue.poll("w1", 1, Duration.ofMillis(20)).isEmpty());
+    }
+
+    @Test
+    void statusExpiresAfterResultTtl() {
+        InMemoryJobQueue queue = queue(Duration.ofSeconds(10), 3, Duration.ofMillis(50), 100);
+        String id = queue.enqueue(request(), "alice");
+        assertEquals("alice", queue.getStatus(id).getOwner());
+        now.addAndGet(50);
+        assertNull(queue.getStatus(id));
+    }
+
+    @Test
+    void refusesJobsBeyondCapacityUntilSomeFinish() throws Exception {
+        InMemoryJobQueue queue = queue(Duration.ofSeconds(10), 3, Duration.ofMinutes(1), 2);
+        queue.enqueue(request(), null);
+        queue.enqueue(request(), null);
+        assertThrows(RejectedExecutionException.class, () -> queue.enqueue(request(), null));
+
+        queue.ack(queue.poll("w1", 1, Duration.ofMillis(10)).get(0));
+        assertNotNull(queue.enqueue(request(), null));
+    }
+
+    @Test
+    void keepsOnlyTheNewestDeadLetters() throws Exception {
+        InMemoryJobQueue queue = queue(Duration.ofSeconds(10), 1, Duration.ofMinutes(1), 10);
+        String last = null;
+        for (int i = 0; i < InMemoryJobQueue.MAX_DEAD_LETTERS + 5; i++) {
+            last = queue.enqueue(request(), null);
+            queue.fail(queue.poll("w1", 1, Duration.ofMillis(10)).get(0), "boom");
+        }
+        List<String> dead = queue.getDeadLetters();
+        assertEquals(InMemoryJobQueue.MAX_DEAD_LETTERS, dead.size());
+        assertEquals(last, dead.get(dead.size() - 1));
+    }
+}
@@ -0,0 +1,139 @@
+package com.aidebugger.jobs;
+
+import com.aidebugger.dto.DebugRequest;
+import com.aidebugger.dto.JobStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// The queue against a mocked connection: checks which stream commands each path issues
+class RedisStreamJobQueueTest {
+    private static final Duration VISIBILITY = Duration.ofSeconds(30);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+    private final StringRedisConnection connection = mock(StringRedisConnection.class);
+    private RedisStreamJobQueue queue;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redis.execute(any(RedisCallback.class)))
+                .thenAnswer(inv -> ((RedisCallback<?>) inv.getArgument(0)).doInRedis(connection));
+        queue = new RedisStreamJobQueue(redis, mapper, VISIBILITY, 3, Duration.ofHours(1));
+    }
+
+    private StringRecord entry(String recordId, String jobId, String user) throws Exception {
+        DebugRequest request = new DebugRequest();
+        request.setCodeSnippet("int x = 1 / 0;");
+        request.setLanguage("java");
+        return StreamRecords.string(Map.of("jobId", jobId, "user", user, "request", mapper.writeValueAsString(request)))
+                .withStreamKey("analysis:jobs")
+                .withId(RecordId.of(recordId));
+    }
+
+    private static PendingMessage pending(String recordId, Duration idle, long deliveries) {
+        return new PendingMessage(RecordId.of(recordId), Consumer.from("analysis-workers", "w1"), idle, deliveries);
+    }
+
+    private void pendingList(PendingMessage... messages) {
+        when(connection.xPending(eq("analysis:jobs"), eq("analysis-workers"), ArgumentMatchers.<Range<String>>any(), anyLong()))
+                .thenReturn(new PendingMessages("analysis-workers", List.of(messages)));
+    }
+
+    @Test
+    void existingGroupIsNotAnError() {
+        when(connection.xGroupCreate(anyString(), any(), anyString(), anyBoolean()))
+                .thenThrow(new IllegalStateException("BUSYGROUP Consumer Group name already exists"));
+        assertDoesNotThrow(() -> new RedisStreamJobQueue(redis, mapper, VISIBILITY, 3, Duration.ofHours(1)));
+    }
+
+    @Test
+    void pollReadsNewEntriesAsFirstAttempts() throws Exception {
+        when(connection.xReadGroupAsString(any(Consumer.class), any(StreamReadOptions.class), ArgumentMatchers.<StreamOffset<String>>any()))
+                .thenReturn(List.of(entry("1-0", "job-1", "alice")));
+
+        List<JobDelivery> deliveries = queue.poll("w1", 10, Duration.ofMillis(100));
+
+        assertEquals(1, deliveries.size());
+        assertEquals("job-1", deliveries.get(0).jobId());
+        assertEquals("1-0", deliveries.get(0).receipt());
+        assertEquals("alice", deliveries.get(0).user());
+        assertEquals(1, deliveries.get(0).attempt());
+    }
+
+    @Test
+    void reclaimTakesOverOnlyEntriesIdlePastTheVisibilityTimeout() throws Exception {
+        pendingList(pending("1-0", Duration.ofSeconds(5), 1), pending("2-0", Duration.ofSeconds(45), 1));
+        when(connection.xClaim("analysis:jobs", "analysis-workers", "w2", VISIBILITY, RecordId.of("2-0")))
+                .thenReturn(List.of(entry("2-0", "job-2", "")));
+
+        List<JobDelivery> reclaimed = queue.reclaim("w2", 10);
+
+        assertEquals(1, reclaimed.size());
+        assertEquals("job-2", reclaimed.get(0).jobId());
+        assertNull(reclaimed.get(0).user());
+        assertEquals(2, reclaimed.get(0).attempt());
+        verify(connection, never()).xClaim(anyString(), anyString(), anyString(), any(Duration.class), eq(RecordId.of("1-0")));
+    }
+
+    @Test
+    void entryClaimedByAnotherReplicaIsSkipped() {
+        pendingList(pending("1-0", Duration.ofSeconds(45), 1));
+        when(connection.xClaim(anyString(), anyString(), anyString(), any(Duration.class), any(RecordId.class)))
+                .thenReturn(List.of());
+
+        assertTrue(queue.reclaim("w2", 10).isEmpty());
+        verify(connection, never()).xAck(anyString(), anyString(), any(String[].class));
+    }
+
+    @Test
+    void reclaimDeadLettersEntriesThatUsedUpTheirAttempts() throws Exception {
+        pendingList(pending("1-0", Duration.ofSeconds(45), 3));
+        when(connection.xClaim(anyString(), anyString(), anyString(), any(Duration.class), any(RecordId.class)))
+                .thenReturn(List.of(entry("1-0", "job-1", "alice")));
+
+        assertTrue(queue.reclaim("w2", 10).isEmpty());
+
+        ArgumentCaptor<StringRecord> dead = ArgumentCaptor.forClass(StringRecord.class);
+        verify(connection).xAdd(dead.capture());
+        assertEquals("analysis:jobs:dead", dead.getValue().getStream());
+        assertEquals("job-1", dead.getValue().getValue().get("jobId"));
+        assertTrue(dead.getValue().getValue().get("error").contains("3 attempts"));
+        verify(connection).xAck("analysis:jobs", "analysis-workers", "1-0");
+        verify(connection).xDel("analysis:jobs", "1-0");
+
+        ArgumentCaptor<String> status = ArgumentCaptor.forClass(String.class);
+        verify(connection).set(eq("analysis:job:job-1"), status.capture(), any(Expiration.class), eq(SetOption.upsert()));
+        JobStatus saved = mapper.readValue(status.getValue(), JobStatus.class);
+        assertEquals(JobStatus.DEAD, saved.getState());
+        assertEquals("alice", saved.getOwner());
+    }
+
+    @Test
+    void reclaimStopsAtMax() throws Exception {
+        pendingList(pending("1-0", Duration.ofSeconds(45), 1), pending("2-0", Duration.ofSeconds(45), 1));
+        when(connection.xClaim(anyString(), anyString(), anyString(), any(Duration.class), any(RecordId.class)))
+                .thenReturn(List.of(entry("1-0", "job-1", "")));
+
+        assertEquals(1, queue.reclaim("w2", 1).size());
+        verify(connection, times(1)).xClaim(anyString(), anyString(), anyString(), any(Duration.class), any(RecordId.class));
+    }
+}
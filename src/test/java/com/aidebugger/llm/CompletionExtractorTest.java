@@ -0,0 +1,87 @@
+package com.aidebugger.llm;
+
+import com.aidebugger.llm.CompletionExtractor.Completion;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionExtractorTest {
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(new UnpooledByteBufAllocator(false));
+
+    private static final String RESPONSE = """
+            {"id":"chatcmpl-1","object":"chat.completion","created":1,"model":"gpt-3.5-turbo-0125",
+             "choices":[
+               {"index":0,"message":{"role":"assistant","content":"🤖 Fix the \\"null\\" check\\nthen retry",
+                 "tool_calls":[{"id":"x","function":{"name":"f","arguments":"{\\"content\\":\\"nope\\"}"}}]},
+                "logprobs":{"content":[{"token":"a","top_logprobs":[{"token":"b"}]}]},"finish_reason":"length"},
+               {"index":1,"message":{"role":"assistant","content":"second choice"},"finish_reason":"stop"}
+             ],
+             "usage":{"prompt_tokens":412,"completion_tokens":800,"total_tokens":1212,
+                      "completion_tokens_details":{"reasoning_tokens":0}},
+             "system_fingerprint":null}
+            """;
+
+    // Splits the body into buffers of `size` bytes, which cuts tokens and UTF-8 sequences apart
+    private List<NettyDataBuffer> chunks(String body, int size) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<NettyDataBuffer> out = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += size) {
+            out.add(factory.wrap(Unpooled.wrappedBuffer(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + size)))));
+        }
+        return out;
+    }
+
+    private Completion extract(List<NettyDataBuffer> buffers) {
+        return CompletionExtractor.extract(Flux.fromIterable(buffers).cast(DataBuffer.class)).block();
+    }
+
+    @Test
+    void extractsOnlyTheFieldsWeUseAcrossAnySplit() {
+        for (int size : new int[]{1, 3, 7, 64, 4096}) {
+            List<NettyDataBuffer> buffers = chunks(RESPONSE, size);
+            Completion c = extract(buffers);
+
+            assertEquals("gpt-3.5-turbo-0125", c.model());
+            assertEquals("🤖 Fix the \"null\" check\nthen retry", c.content());
+            assertEquals("length", c.finishReason());
+            assertEquals(412, c.promptTokens());
+            assertEquals(800, c.completionTokens());
+            assertFalse(c.isError());
+            for (NettyDataBuffer b : buffers) {
+                ByteBuf buf = b.getNativeBuffer();
+                assertEquals(0, buf.refCnt(), "buffer not released at split " + size);
+            }
+        }
+    }
+
+    @Test
+    void extractsErrors() {
+        Completion c = extract(chunks("""
+                {"error":{"message":"Rate limit reached","type":"requests","param":null,"code":"rate_limit_exceeded"}}
+                """, 5));
+        assertTrue(c.isError());
+        assertEquals("rate_limit_exceeded", c.errorCode());
+        assertEquals("requests", c.errorType());
+        assertEquals("Rate limit reached", c.errorMessage());
+        assertNull(c.content());
+    }
+
+    @Test
+    void emptyBodyIsEmptyAndTruncatedBodyFails() {
+        assertNull(extract(List.of()));
+        List<NettyDataBuffer> truncated = chunks(RESPONSE.substring(0, RESPONSE.length() / 2), 16);
+        assertThrows(RuntimeException.class, () -> extract(truncated));
+    }
+}
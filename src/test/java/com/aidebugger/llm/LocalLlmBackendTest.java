@@ -0,0 +1,142 @@
+package com.aidebugger.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the backend against a stub of llama.cpp's /completion endpoint: no model, no network
+class LocalLlmBackendTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Queue<JsonNode> completions = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch warmedUp = new CountDownLatch(1);
+    private final CountDownLatch releaseWarmUp = new CountDownLatch(1);
+    private volatile int status = 200;
+    private HttpServer server;
+    private LocalLlmBackend backend;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/completion", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (backend != null) backend.stop();
+        releaseWarmUp.countDown();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request = mapper.readTree(exchange.getRequestBody());
+        JsonNode prompt = request.path("prompt");
+        String response;
+        if (request.path("n_predict").asInt() == 0) {
+            warmedUp.countDown();
+            await(releaseWarmUp);
+            response = "{}";
+        } else {
+            completions.add(request);
+            if (prompt.isArray()) {
+                ArrayNode results = mapper.createArrayNode();
+                prompt.forEach(p -> results.addObject().put("content", "echo:" + p.asText()));
+                response = results.toString();
+            } else {
+                ObjectNode result = mapper.createObjectNode().put("content", "echo:" + prompt.asText());
+                response = result.toString();
+            }
+        }
+        byte[] body = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LocalLlmBackend backend(int workers, int batchSize) {
+        LocalLlmBackend b = new LocalLlmBackend(mapper);
+        ReflectionTestUtils.setField(b, "enabled", true);
+        ReflectionTestUtils.setField(b, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(b, "workers", workers);
+        ReflectionTestUtils.setField(b, "queueCapacity", 16);
+        ReflectionTestUtils.setField(b, "batchSize", batchSize);
+        ReflectionTestUtils.setField(b, "maxTokens", 50);
+        ReflectionTestUtils.setField(b, "timeoutSeconds", 10);
+        b.start();
+        return backend = b;
+    }
+
+    @Test
+    void singlePromptRunsOnTheSlotItsWorkerWarmed() {
+        releaseWarmUp.countDown();
+        LocalLlmBackend b = backend(1, 4);
+
+        assertEquals("echo:" + PromptTemplate.PREFIX + "tail", b.complete(PromptTemplate.PREFIX + "tail"));
+        JsonNode request = completions.poll();
+        assertEquals(0, request.path("id_slot").asInt(-1));
+        assertTrue(request.path("cache_prompt").asBoolean());
+    }
+
+    @Test
+    void queuedPromptsGoOutAsOneBatchTheServerCanSpreadOverSlots() throws Exception {
+        LocalLlmBackend b = backend(1, 4);
+        assertTrue(warmedUp.await(5, TimeUnit.SECONDS));
+
+        // the only worker is busy warming up, so all three prompts queue behind it
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        List<Future<String>> answers = List.of(
+                callers.submit(() -> b.complete("a")),
+                callers.submit(() -> b.complete("b")),
+                callers.submit(() -> b.complete("c")));
+        BlockingQueue<?> queue = (BlockingQueue<?>) ReflectionTestUtils.getField(b, "queue");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.size() < 3 && System.nanoTime() < deadline) Thread.onSpinWait();
+        releaseWarmUp.countDown();
+
+        assertEquals(List.of("echo:a", "echo:b", "echo:c"),
+                List.of(answers.get(0).get(5, TimeUnit.SECONDS), answers.get(1).get(5, TimeUnit.SECONDS),
+                        answers.get(2).get(5, TimeUnit.SECONDS)).stream().sorted().toList());
+        assertEquals(1, completions.size());
+        JsonNode request = completions.poll();
+        assertEquals(3, request.path("prompt").size());
+        assertFalse(request.has("id_slot"), "a batch pinned to one slot runs sequentially");
+        callers.shutdownNow();
+    }
+
+    @Test
+    void failedRequestMarksTheBackendUnavailable() {
+        releaseWarmUp.countDown();
+        LocalLlmBackend b = backend(1, 1);
+        assertTrue(b.isAvailable());
+
+        status = 500;
+        assertThrows(IllegalStateException.class, () -> b.complete("boom"));
+        assertFalse(b.isAvailable());
+    }
+}
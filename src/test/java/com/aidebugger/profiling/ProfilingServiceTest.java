@@ -0,0 +1,102 @@
+package com.aidebugger.profiling;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfilingServiceTest {
+    @TempDir
+    Path dir;
+
+    private final ProfilingService profiling = new ProfilingService();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(profiling, "dumpDir", dir.toString());
+        ReflectionTestUtils.setField(profiling, "maxSizeMb", 16L);
+        ReflectionTestUtils.setField(profiling, "maxAgeMinutes", 5L);
+        ReflectionTestUtils.setField(profiling, "maxDurationMinutes", 5L);
+        ReflectionTestUtils.setField(profiling, "maxDumps", 2);
+    }
+
+    @AfterEach
+    void close() {
+        profiling.close();
+    }
+
+    @Test
+    void recordsAnalysisEventsFilledInOnTheWorkerThread() throws Exception {
+        profiling.start("default", 1);
+        assertThrows(IllegalStateException.class, () -> profiling.start("default", 1));
+
+        AnalysisEvent event = AnalysisEvents.start("rest", "java", 42, "interactive");
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try (AnalysisEvents.Scope ignored = AnalysisEvents.open(event)) {
+            AnalysisEvents.cacheOutcome("miss");
+            // what AnalysisScheduler does with the submitter's context
+            Runnable task = ContextSnapshotFactory.builder().build().captureAll().wrap(() -> {
+                AnalysisEvents.executorWait(1_000_000);
+                AnalysisEvents.fallbackReason("no-api-key");
+            });
+            CompletableFuture.runAsync(task, worker).get();
+        } finally {
+            worker.shutdown();
+        }
+        assertNull(AnalysisEvents.current());
+        AnalysisEvents.finish(event, "200");
+        new RevocationEvent().finish("check", false, 0);
+
+        Path dump = profiling.dump();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        RecordedEvent analysis = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.aidebugger.Analysis"))
+                .findFirst().orElseThrow();
+        assertEquals("java", analysis.getString("language"));
+        assertEquals(42, analysis.getInt("snippetChars"));
+        assertEquals("miss", analysis.getString("cacheOutcome"));
+        assertEquals(1_000_000, analysis.getDuration("executorWait").toNanos());
+        assertEquals("no-api-key", analysis.getString("fallbackReason"));
+        assertEquals("200", analysis.getString("outcome"));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.aidebugger.Revocation")));
+
+        assertEquals("STOPPED", profiling.stop().get("state"));
+        profiling.dump();
+        profiling.dump();
+        try (var files = Files.list(dir)) {
+            assertTrue(files.count() <= 2);
+        }
+    }
+
+    @Test
+    void continuousRecordingRunsUntilStoppedBoundedOnlyBySizeAndAge() {
+        ReflectionTestUtils.setField(profiling, "continuous", true);
+        profiling.init();
+
+        Map<String, Object> status = profiling.status();
+        assertEquals("RUNNING", status.get("state"));
+        assertNull(status.get("duration"));
+        assertEquals(16L << 20, status.get("maxSizeBytes"));
+        assertEquals("PT5M", status.get("maxAge"));
+    }
+
+    @Test
+    void rejectsUnknownSettings() {
+        assertThrows(IllegalArgumentException.class, () -> profiling.start("everything", 1));
+        assertEquals("NONE", profiling.status().get("state"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.aidebugger.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RateLimiterServiceTest {
+    @SuppressWarnings("unchecked")
+    private final RateLimiterService limiter = new RateLimiterService(mock(ObjectProvider.class));
+
+    private void configure(long userCapacity, long globalCapacity) {
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "userCapacity", userCapacity);
+        ReflectionTestUtils.setField(limiter, "userPerSecond", 0.001);
+        ReflectionTestUtils.setField(limiter, "globalCapacity", globalCapacity);
+        ReflectionTestUtils.setField(limiter, "globalPerSecond", 0.001);
+        ReflectionTestUtils.setField(limiter, "maxKeys", 100);
+        ReflectionTestUtils.invokeMethod(limiter, "init");
+    }
+
+    @Test
+    void aRequestTheGlobalLimitRefusesCostsTheClientNothing() {
+        configure(3, 2);
+        assertTrue(limiter.check("user:alice", true).allowed());
+        assertTrue(limiter.check("user:bob", true).allowed());
+
+        // the global bucket is empty: bob is refused without spending his own tokens
+        for (int i = 0; i < 5; i++) {
+            assertFalse(limiter.check("user:bob", true).allowed());
+        }
+        ReflectionTestUtils.setField(limiter, "globalCapacity", 100L);
+        ReflectionTestUtils.invokeMethod(limiter, "init");
+        assertEquals(1, limiter.check("user:bob", true).remaining());
+    }
+
+    @Test
+    void aClientOverItsOwnLimitIsRefusedBeforeTheGlobalBucket() {
+        configure(1, 2);
+        assertTrue(limiter.check("user:alice", true).allowed());
+        assertFalse(limiter.check("user:alice", true).allowed());
+        // alice's refused request did not take the global token bob gets
+        assertTrue(limiter.check("user:bob", true).allowed());
+    }
+}
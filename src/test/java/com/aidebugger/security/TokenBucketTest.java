@@ -0,0 +1,62 @@
+package com.aidebugger.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+	@Test
+	void allowsBurstThenRefills() {
+		TokenBucket bucket = new TokenBucket(3, 1.0);
+		long now = 0;
+
+		assertEquals(2, bucket.tryTake(now).remaining());
+		assertEquals(1, bucket.tryTake(now).remaining());
+		assertEquals(0, bucket.tryTake(now).remaining());
+
+		TokenBucket.Decision denied = bucket.tryTake(now);
+		assertFalse(denied.allowed());
+		assertEquals(TimeUnit.SECONDS.toNanos(1), denied.retryAfterNanos());
+
+		assertTrue(bucket.tryTake(now + TimeUnit.SECONDS.toNanos(1)).allowed());
+		assertTrue(bucket.isFull(now + TimeUnit.SECONDS.toNanos(4)));
+	}
+
+	@Test
+	void neverGrantsMoreThanCapacityUnderContention() throws Exception {
+		TokenBucket bucket = new TokenBucket(100, 0.001);
+		AtomicInteger granted = new AtomicInteger();
+		long now = System.nanoTime();
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 1000; i++) {
+			pool.execute(() -> {
+				if (bucket.tryTake(now).allowed()) granted.incrementAndGet();
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(100, granted.get());
+	}
+
+	@Test
+	void refundGivesBackOneToken() {
+		TokenBucket bucket = new TokenBucket(2, 1.0);
+		long now = 0;
+
+		bucket.tryTake(now);
+		bucket.tryTake(now);
+		assertFalse(bucket.tryTake(now).allowed());
+
+		bucket.refund();
+		assertEquals(0, bucket.tryTake(now).remaining());
+		assertFalse(bucket.tryTake(now).allowed());
+	}
+}
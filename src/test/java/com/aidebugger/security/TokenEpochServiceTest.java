@@ -0,0 +1,76 @@
+package com.aidebugger.security;
+
+import com.aidebugger.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenEpochServiceTest {
+    private final UserRepository users = mock(UserRepository.class);
+    @SuppressWarnings("unchecked")
+    private final TokenEpochService epochs = new TokenEpochService(users, mock(PlatformTransactionManager.class),
+            mock(ObjectProvider.class));
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+
+    @Test
+    void bumpingTheEpochRevokesEveryEarlierToken() {
+        String phone = jwtUtil.generateToken("alice", "USER", 0);
+        String laptop = jwtUtil.generateToken("alice", "USER", 0);
+        assertFalse(epochs.isRevoked("alice", JwtUtil.epochOf(jwtUtil.parseClaims(phone))));
+
+        when(users.findTokenEpoch("alice")).thenReturn(1L);
+        assertEquals(1, epochs.revokeAll("alice"));
+        verify(users).incrementTokenEpoch("alice");
+
+        assertTrue(epochs.isRevoked("alice", JwtUtil.epochOf(jwtUtil.parseClaims(phone))));
+        assertTrue(epochs.isRevoked("alice", JwtUtil.epochOf(jwtUtil.parseClaims(laptop))));
+        assertFalse(epochs.isRevoked("alice", JwtUtil.epochOf(jwtUtil.parseClaims(jwtUtil.generateToken("alice", "USER", 1)))));
+        // other users are untouched
+        assertFalse(epochs.isRevoked("bob", JwtUtil.epochOf(jwtUtil.parseClaims(jwtUtil.generateToken("bob")))));
+        assertEquals(1, epochs.size());
+    }
+
+    @Test
+    void reloadsOnlyMoveEpochsForward() {
+        when(users.findRevokedEpochs()).thenReturn(List.<Object[]>of(new Object[]{"alice", 3L}, new Object[]{"bob", 1L}));
+        epochs.refresh(false);
+        assertEquals(3, epochs.current("alice"));
+
+        // a replica that has not seen alice's latest bump yet
+        when(users.findRevokedEpochs()).thenReturn(List.<Object[]>of(new Object[]{"alice", 2L}, new Object[]{"bob", 2L}));
+        epochs.refresh(false);
+        assertEquals(3, epochs.current("alice"));
+        assertEquals(2, epochs.current("bob"));
+    }
+
+    @Test
+    void tokensFromBeforeEpochsAreRefusedUnlessAccepted() {
+        // issued by the blacklist-era code: no epoch claim
+        String legacy = Jwts.builder().setSubject("carol").setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        long epoch = JwtUtil.epochOf(jwtUtil.parseClaims(legacy));
+        assertEquals(JwtUtil.PRE_EPOCH, epoch);
+        assertTrue(epochs.isRevoked("carol", epoch));
+
+        ReflectionTestUtils.setField(epochs, "acceptPreEpochTokens", true);
+        assertFalse(epochs.isRevoked("carol", epoch));
+        when(users.findTokenEpoch("carol")).thenReturn(1L);
+        epochs.revokeAll("carol");
+        assertTrue(epochs.isRevoked("carol", epoch));
+    }
+}
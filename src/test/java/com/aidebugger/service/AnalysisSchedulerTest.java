@@ -0,0 +1,127 @@
+package com.aidebugger.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisSchedulerTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(1);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final AnalysisScheduler scheduler =
+            new AnalysisScheduler(executor, meters, ObservationRegistry.NOOP, 1, 100, 100);
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void dropsQueuedWorkOnceItsDeadlineHasPassed() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocker = scheduler.submit("a", WorkClass.INTERACTIVE, () -> await(release));
+
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<Boolean> late;
+        try (Deadline.Scope ignored = Deadline.open(Deadline.after(20))) {
+            late = scheduler.submit("b", WorkClass.INTERACTIVE, () -> ran.getAndSet(true));
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        assertTrue(blocker.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(Deadline.ExceededException.class, e.getCause());
+        assertFalse(ran.get());
+        assertEquals(1.0, meters.get("analysis.shed").tag("reason", "deadline").tag("class", "interactive").counter().count());
+    }
+
+    @Test
+    void cancellingARunningTaskInterruptsIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = scheduler.submit("a", WorkClass.INTERACTIVE, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        running.cancel(true);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        // the pool thread is handed back clean
+        assertFalse(scheduler.submit("a", WorkClass.INTERACTIVE, () -> Thread.currentThread().isInterrupted())
+                .get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fullQueueIsCountedApartFromCodelDrops() throws Exception {
+        AnalysisScheduler small = new AnalysisScheduler(executor, meters, ObservationRegistry.NOOP, 1, 1, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = small.submit("a", WorkClass.BATCH, () -> await(release));
+        CompletableFuture<Boolean> queued = small.submit("a", WorkClass.BATCH, () -> true);
+        CompletableFuture<Boolean> rejected = small.submit("a", WorkClass.BATCH, () -> true);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AnalysisScheduler.LoadShedException.class, e.getCause());
+        assertEquals(1.0, meters.get("analysis.shed").tag("reason", "queue-full").tag("class", "batch").counter().count());
+        assertEquals(0.0, meters.get("analysis.shed").tag("reason", "codel").tag("class", "batch").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledWorkLeavesTheQueueAndFreesItsCapacity() throws Exception {
+        AnalysisScheduler small = new AnalysisScheduler(executor, meters, ObservationRegistry.NOOP, 1, 2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = small.submit("a", WorkClass.INTERACTIVE, () -> await(release));
+        AtomicBoolean ran = new AtomicBoolean();
+        // two requests whose clients went away while they waited
+        small.submit("b", WorkClass.INTERACTIVE, () -> ran.getAndSet(true)).cancel(false);
+        small.submit("c", WorkClass.INTERACTIVE, () -> ran.getAndSet(true)).cancel(false);
+        assertEquals(0, small.queueDepths().get(WorkClass.INTERACTIVE));
+
+        CompletableFuture<Boolean> live = small.submit("d", WorkClass.INTERACTIVE, () -> true);
+        CompletableFuture<Boolean> alsoLive = small.submit("d", WorkClass.INTERACTIVE, () -> true);
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(live.get(5, TimeUnit.SECONDS));
+        assertTrue(alsoLive.get(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertEquals(0.0, meters.get("analysis.shed").tag("reason", "queue-full").tag("class", "interactive").counter().count());
+    }
+
+    @Test
+    void priorityHeaderCanOnlyLowerTheEndpointsClass() {
+        assertEquals(WorkClass.INTERACTIVE, WorkClass.resolve(null, WorkClass.INTERACTIVE, true));
+        assertEquals(WorkClass.BATCH, WorkClass.resolve(null, WorkClass.INTERACTIVE, false));
+        assertEquals(WorkClass.BATCH, WorkClass.resolve("urgent!!", WorkClass.INTERACTIVE, true));
+        assertEquals(WorkClass.BACKGROUND, WorkClass.resolve("background", WorkClass.INTERACTIVE, true));
+        assertEquals(WorkClass.BATCH, WorkClass.resolve("interactive", WorkClass.BATCH, true));
+        assertEquals(WorkClass.BATCH, WorkClass.resolve("interactive", WorkClass.INTERACTIVE, false));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
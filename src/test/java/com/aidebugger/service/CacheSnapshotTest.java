@@ -0,0 +1,175 @@
+package com.aidebugger.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotTest {
+    private static final long VERSION = 42;
+    private static final long MAX = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, byte[]> entries(String... kv) {
+        Map<String, byte[]> m = new LinkedHashMap<>();
+        for (int i = 0; i < kv.length; i += 2) m.put(kv[i], bytes(kv[i + 1]));
+        return m;
+    }
+
+    @Test
+    void entriesSurviveReopen() throws IOException {
+        Path file = dir.resolve("cache.seg");
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            assertEquals(2, s.append(entries("a", "{\"analysis\":\"one\"}", "b", "{\"analysis\":\"two\"}")));
+            assertEquals(1, s.append(entries("c", "{}")));
+        }
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            assertEquals(3, s.size());
+            assertArrayEquals(bytes("{\"analysis\":\"two\"}"), s.read("b"));
+            assertNull(s.read("missing"));
+        }
+    }
+
+    @Test
+    void otherContentVersionIsDiscarded() throws IOException {
+        Path file = dir.resolve("cache.seg");
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            s.append(entries("a", "old answer"));
+        }
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION + 1, MAX)) {
+            assertEquals(0, s.size());
+            assertNull(s.read("a"));
+        }
+    }
+
+    @Test
+    void corruptRecordFailsChecksumAndTornTailIsCut() throws IOException {
+        Path file = dir.resolve("cache.seg");
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            s.append(entries("a", "first value", "b", "second value"));
+        }
+        long size = Files.size(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            // flip a byte inside "first value", then append half a record
+            raf.seek(CacheSnapshot.HEADER_BYTES + 4 + 1 + 4 + 2 + 1 + 2);
+            raf.write('X');
+            raf.seek(size);
+            raf.writeInt(1000);
+            raf.write(new byte[]{CacheSnapshot.RECORD_FORMAT, 1, 2});
+        }
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            assertEquals(size, s.fileBytes());
+            assertNull(s.read("a"));
+            assertFalse(s.contains("a"));
+            assertArrayEquals(bytes("second value"), s.read("b"));
+            s.append(entries("c", "after the tear"));
+            assertArrayEquals(bytes("after the tear"), s.read("c"));
+        }
+    }
+
+    @Test
+    void compactionDropsSupersededRecords() throws IOException {
+        Path file = dir.resolve("cache.seg");
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            for (int i = 0; i < 10; i++) {
+                s.append(entries("a", "version " + i, "b", "stable"));
+            }
+            long before = s.fileBytes();
+            assertTrue(s.deadBytes() > 0);
+            s.compact();
+            assertTrue(s.fileBytes() < before);
+            assertEquals(0, s.deadBytes());
+            assertArrayEquals(bytes("version 9"), s.read("a"));
+            assertArrayEquals(bytes("stable"), s.read("b"));
+            s.append(entries("c", "new"));
+        }
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            assertEquals(3, s.size());
+            assertArrayEquals(bytes("version 9"), s.read("a"));
+        }
+    }
+
+    @Test
+    void stopsAppendingAtMaxBytes() throws IOException {
+        try (CacheSnapshot s = CacheSnapshot.open(dir.resolve("cache.seg"), VERSION, 100)) {
+            assertEquals(1, s.append(entries("a", "x".repeat(40), "b", "y".repeat(40))));
+            assertTrue(s.fileBytes() <= 100);
+        }
+    }
+
+    @Test
+    void fullFileEvictsItsOldestEntriesInsteadOfRefusingWrites() throws IOException {
+        Path file = dir.resolve("cache.seg");
+        String value = "v".repeat(100);
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, 2048)) {
+            for (int i = 0; i < 40; i++) {
+                assertEquals(1, s.append(entries("key" + i, value)), "entry " + i + " not persisted");
+                assertTrue(s.fileBytes() <= 2048);
+            }
+            assertArrayEquals(bytes(value), s.read("key39"));
+            assertNull(s.read("key0"));
+            assertTrue(s.size() < 40);
+        }
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, 2048)) {
+            assertArrayEquals(bytes(value), s.read("key39"));
+            assertFalse(s.contains("key0"));
+        }
+    }
+
+    @Test
+    void readersRacingACompactionNeverDropLiveEntries() throws Exception {
+        Path file = dir.resolve("cache.seg");
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            for (int i = 0; i < 50; i++) s.append(entries("k" + i, "value " + i));
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicInteger misses = new AtomicInteger();
+            Thread reader = new Thread(() -> {
+                while (!stop.get()) {
+                    for (int i = 0; i < 50; i++) {
+                        if (s.read("k" + i) == null) misses.incrementAndGet();
+                    }
+                }
+            });
+            reader.start();
+            for (int round = 0; round < 200; round++) {
+                s.append(entries("k" + (round % 50), "value " + (round % 50)));
+                s.compact();
+            }
+            stop.set(true);
+            reader.join();
+            assertEquals(0, misses.get());
+            assertEquals(50, s.size());
+        }
+    }
+
+    @Test
+    void secondOpenerFailsFastWhileTheFileIsInUse() throws IOException {
+        Path file = dir.resolve("cache.seg");
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            s.append(entries("a", "one"));
+            assertThrows(CacheSnapshot.LockedException.class, () -> CacheSnapshot.open(file, VERSION, MAX));
+            // compaction swaps the segment but the lock stays
+            s.compact();
+            assertThrows(CacheSnapshot.LockedException.class, () -> CacheSnapshot.open(file, VERSION, MAX));
+        }
+        try (CacheSnapshot s = CacheSnapshot.open(file, VERSION, MAX)) {
+            assertArrayEquals(bytes("one"), s.read("a"));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.aidebugger.service;
+
+import com.aidebugger.security.RateLimiterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LiveAnalysisServiceTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final DebugService debugService = mock(DebugService.class);
+    private final OpenAiService openAiService = mock(OpenAiService.class);
+    @SuppressWarnings("unchecked")
+    private final RateLimiterService rateLimiter = new RateLimiterService(mock(ObjectProvider.class));
+    private final LiveAnalysisService live = new LiveAnalysisService(debugService, openAiService,
+            new AnalysisScheduler(executor, new SimpleMeterRegistry(), ObservationRegistry.NOOP, 1, 100, 100),
+            rateLimiter);
+    private final BlockingQueue<Map<String, Object>> messages = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "userCapacity", 1L);
+        ReflectionTestUtils.setField(rateLimiter, "userPerSecond", 0.001);
+        ReflectionTestUtils.setField(rateLimiter, "globalCapacity", 100L);
+        ReflectionTestUtils.setField(rateLimiter, "globalPerSecond", 10.0);
+        ReflectionTestUtils.setField(rateLimiter, "maxKeys", 100);
+        ReflectionTestUtils.invokeMethod(rateLimiter, "init");
+
+        ReflectionTestUtils.setField(live, "debounceMs", 0L);
+        ReflectionTestUtils.setField(live, "regionChars", 1500);
+        ReflectionTestUtils.setField(live, "maxDocumentChars", 200_000);
+        ReflectionTestUtils.setField(live, "maxSessions", 10);
+        ReflectionTestUtils.setField(live, "idleTimeoutMs", 300_000L);
+        ReflectionTestUtils.setField(live, "aiMinChangedChars", 200);
+        ReflectionTestUtils.setField(live, "aiMinChangedRatio", 0.2);
+        live.start();
+
+        when(debugService.heuristicFindings(any(), any(), anyInt(), anyInt())).thenReturn(List.of());
+        when(debugService.buildPrompt(any())).thenReturn("prompt");
+        when(openAiService.isAvailable()).thenReturn(true);
+        when(openAiService.askDebugAssistant(anyString(), any())).thenReturn("ai answer");
+    }
+
+    @AfterEach
+    void tearDown() {
+        live.stop();
+        executor.shutdownNow();
+    }
+
+    private Map<String, Object> next() throws InterruptedException {
+        Map<String, Object> message = messages.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message, "no message from the live session");
+        return message;
+    }
+
+    @Test
+    void onlyLlmCallsAreChargedAndALimitedOneWaitsInsteadOfClosingTheSession() throws Exception {
+        String line = "int value = compute(input);\n";
+        live.open("s1", "alice", "user:alice", "java", null, line.repeat(12), messages::add, () -> {});
+
+        assertEquals("analysis", next().get("type"));
+        assertEquals("ai answer", next().get("analysis"));
+
+        // a burst of keystrokes: each is applied, the debounced analysis runs, the LLM is not asked
+        for (int i = 0; i < 300; i++) {
+            live.edit("s1", 0, 0, "x");
+        }
+        Map<String, Object> analysis;
+        do {
+            analysis = next();
+            assertEquals("analysis", analysis.get("type"));
+        } while (!analysis.containsKey("aiRetryAfterMs"));
+        assertTrue((Long) analysis.get("aiRetryAfterMs") >= 1000);
+
+        verify(openAiService, times(1)).askDebugAssistant(anyString(), eq("alice"));
+        assertEquals(1, live.activeSessions());
+    }
+}
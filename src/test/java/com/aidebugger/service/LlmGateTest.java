@@ -0,0 +1,122 @@
+package com.aidebugger.service;
+
+import com.aidebugger.dto.DebugRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LlmGateTest {
+    private final OpenAiService openAiService = mock(OpenAiService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final StaticAnalyzer analyzer = new StaticAnalyzer();
+
+    private LlmGate gate() {
+        ReflectionTestUtils.setField(analyzer, "cacheSize", 16);
+        ReflectionTestUtils.setField(analyzer, "ruleBudgetMs", 1000L);
+        ReflectionTestUtils.invokeMethod(analyzer, "init");
+
+        LlmGate gate = new LlmGate(analyzer, openAiService, registry);
+        ReflectionTestUtils.setField(gate, "mode", "auto");
+        ReflectionTestUtils.setField(gate, "trivialChars", 40);
+        ReflectionTestUtils.setField(gate, "escalateThreshold", 0.6);
+        ReflectionTestUtils.setField(gate, "unsupportedLanguageWeight", 0.3);
+        ReflectionTestUtils.setField(gate, "contextWeight", 0.3);
+        ReflectionTestUtils.setField(gate, "skippedRulePenalty", 0.5);
+        ReflectionTestUtils.setField(gate, "contextKeywords", List.of("why", "slow"));
+        gate.registerMetrics();
+        return gate;
+    }
+
+    private static DebugRequest request(String language, String code, String context) {
+        DebugRequest req = new DebugRequest();
+        req.setLanguage(language);
+        req.setCodeSnippet(code);
+        req.setContext(context);
+        return req;
+    }
+
+    @Test
+    void answersTrivialAndDiagnosedSnippetsLocallyAndEscalatesTheRest() {
+        when(openAiService.isAvailable()).thenReturn(true);
+        LlmGate gate = gate();
+
+        LlmGate.Decision trivial = gate.decide(request("java", "int x = 1;", null));
+        assertEquals("trivial", trivial.reason());
+
+        LlmGate.Decision diagnosed = gate.decide(request("java",
+                "public class A { int f(int a) { return a / 0; } }", null));
+        assertFalse(diagnosed.escalate());
+        assertEquals("diagnosed", diagnosed.reason());
+
+        LlmGate.Decision clean = gate.decide(request("java",
+                "public class A { int f(int a, int b) { return Math.max(a, b) + 1; } }", null));
+        assertTrue(clean.escalate());
+        assertEquals("ambiguous", clean.reason());
+
+        // no rule set for rust lowers confidence; the question about speed pushes it over
+        String rust = "fn main() { let total = 10 / 0; println!(\"{}\", total); }";
+        assertFalse(gate.decide(request("rust", rust, null)).escalate());
+        assertTrue(gate.decide(request("rust", rust, "Why is this so slow?")).escalate());
+
+        assertEquals(2, registry.get("analysis.gate").tag("decision", "escalate").tag("reason", "ambiguous")
+                .counter().count());
+        assertEquals(2.0 / 5, registry.get("analysis.gate.escalation.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void staysLocalWithoutABackendOrWhenForced() {
+        LlmGate gate = gate();
+        String clean = "public class A { int f(int a, int b) { return Math.max(a, b) + 1; } }";
+
+        LlmGate.Decision unavailable = gate.decide(request("java", clean, null));
+        assertFalse(unavailable.escalate());
+        assertEquals("unavailable", unavailable.reason());
+
+        when(openAiService.isAvailable()).thenReturn(true);
+        ReflectionTestUtils.setField(gate, "mode", "local");
+        assertFalse(gate.decide(request("java", clean, null)).escalate());
+        ReflectionTestUtils.setField(gate, "mode", "llm");
+        assertTrue(gate.decide(request("java", "int x = 1 / 0;", null)).escalate());
+    }
+
+    @Test
+    void escalatedAnswersAreCacheableOnlyWhenAModelAnswered() throws Exception {
+        when(openAiService.isAvailable()).thenReturn(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AnalysisScheduler scheduler = new AnalysisScheduler(executor, registry, ObservationRegistry.NOOP, 1, 10, 100);
+            DebugService service = new DebugService(openAiService, scheduler, analyzer, gate());
+            DebugRequest ambiguous = request("java",
+                    "public class A { int f(int a, int b) { return Math.max(a, b) + 1; } }", null);
+
+            when(openAiService.ask(anyString(), any())).thenReturn(new OpenAiService.Answer("model answer", false));
+            DebugService.Result<byte[]> answered = service.analyzeRenderedAsync(ambiguous, "alice", WorkClass.INTERACTIVE).get();
+            assertTrue(answered.cacheable());
+            assertTrue(new String(answered.value(), StandardCharsets.UTF_8).contains("model answer"));
+
+            when(openAiService.ask(anyString(), any())).thenReturn(new OpenAiService.Answer("Daily AI Budget Reached", true));
+            DebugService.Result<byte[]> fallback = service.analyzeRenderedAsync(ambiguous, "alice", WorkClass.INTERACTIVE).get();
+            assertFalse(fallback.cacheable());
+            assertTrue(new String(fallback.value(), StandardCharsets.UTF_8).contains("Daily AI Budget Reached"));
+
+            when(openAiService.ask(anyString(), any())).thenThrow(new IllegalStateException("boom"));
+            assertFalse(service.analyzeRenderedAsync(ambiguous, "alice", WorkClass.INTERACTIVE).get().cacheable());
+
+            DebugRequest diagnosed = request("java", "public class A { int f(int a) { return a / 0; } }", null);
+            assertTrue(service.analyzeRenderedAsync(diagnosed, "alice", WorkClass.INTERACTIVE).get().cacheable());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.aidebugger.service;
+
+import com.aidebugger.util.HashUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapAnalysisStoreTest {
+
+    static byte[] report(int i) {
+        return ("{\"analysis\":\"### 🔍 Issues Identified\\n1. **Possible division by zero**: `total / count` (line " + i
+                + ")\\n\\n### 🔧 Recommendations\\n```java\\n// Safe division with validation\\nif (denominator != 0) {\\n"
+                + "    result = numerator / denominator;\\n}\\n```\\n\\n### 📚 Best Practices\\n"
+                + "- Use `final` for immutable variables\\n- Follow Java naming conventions (camelCase)\\n"
+                + "- Add Javadoc comments for public methods\\n\",\"charactersProcessed\":" + (100 + i)
+                + ",\"language\":\"java\",\"status\":\"success\",\"timestamp\":\"2024-05-01T10:00:00.000+00:00\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String key(int i) {
+        return HashUtil.sha256("java|code " + i + "|");
+    }
+
+    @Test
+    void roundTripsAndCompressesWithTheDictionary() {
+        OffHeapAnalysisStore store = new OffHeapAnalysisStore(1 << 20, 64 * 1024);
+        for (int i = 0; i < 200; i++) assertTrue(store.put(key(i), report(i)));
+
+        for (int i = 0; i < 200; i++) assertArrayEquals(report(i), store.get(key(i)));
+        assertNull(store.get(key(1000)));
+        assertEquals(200, store.size());
+        assertTrue(store.compressionRatio() > 3, "ratio " + store.compressionRatio());
+
+        store.put(key(7), report(70));
+        assertArrayEquals(report(70), store.get(key(7)));
+        assertEquals(200, store.size());
+    }
+
+    @Test
+    void evictsTheOldestSlabOnceFull() {
+        // 4 slabs of 4 KB: a couple of hundred bytes per entry, so early entries must go
+        OffHeapAnalysisStore store = new OffHeapAnalysisStore(16 * 1024, 4 * 1024);
+        for (int i = 0; i < 2000; i++) store.put(key(i), report(i));
+
+        assertEquals(16 * 1024, store.offHeapBytes());
+        assertTrue(store.evictions() > 0);
+        assertNull(store.get(key(0)));
+        assertArrayEquals(report(1999), store.get(key(1999)));
+        assertTrue(store.size() < 2000);
+    }
+
+    @Test
+    void entriesReadFromTheOldestSlabGetASecondChance() {
+        OffHeapAnalysisStore store = new OffHeapAnalysisStore(16 * 1024, 4 * 1024);
+        store.put(key(0), report(0));
+        for (int i = 1; i < 2000; i++) {
+            store.put(key(i), report(i));
+            assertArrayEquals(report(0), store.get(key(0)), "lost after " + i);
+        }
+    }
+
+    @Test
+    void nonHashKeysWorkAndOversizedPayloadsAreRefused() {
+        OffHeapAnalysisStore store = new OffHeapAnalysisStore(1 << 20, 64 * 1024);
+        store.put("short", report(1));
+        assertArrayEquals(report(1), store.get("short"));
+
+        byte[] noise = new byte[128 * 1024];
+        new Random(1).nextBytes(noise);
+        assertFalse(store.put(key(2), noise), "does not fit in a slab");
+        assertNull(store.get(key(2)));
+    }
+}
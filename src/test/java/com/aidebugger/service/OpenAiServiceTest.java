@@ -0,0 +1,77 @@
+package com.aidebugger.service;
+
+import com.aidebugger.llm.LocalLlmBackend;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OpenAiServiceTest {
+    private HttpServer upstream;
+    private final LocalLlmBackend local = mock(LocalLlmBackend.class);
+    private OpenAiService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // an upstream that is down: every call gets a 503
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        upstream.start();
+
+        service = new OpenAiService(local, mock(UsageMeter.class), WebClient.builder());
+        ReflectionTestUtils.setField(service, "openAiKey", "sk-test");
+        ReflectionTestUtils.setField(service, "openaiUrl", "http://127.0.0.1:" + upstream.getAddress().getPort() + "/v1/chat/completions");
+        ReflectionTestUtils.setField(service, "model", "gpt-test");
+        ReflectionTestUtils.setField(service, "openAiEnabled", true);
+        ReflectionTestUtils.setField(service, "backendMode", "openai");
+        ReflectionTestUtils.setField(service, "maxConcurrent", 1);
+        service.initPermits();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void localFallbackRunsAfterTheUpstreamPermitIsReleased() {
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(service, "upstreamPermits");
+        int[] freeDuringLocalInference = {-1};
+        when(local.isAvailable()).thenReturn(true);
+        when(local.complete(anyString())).thenAnswer(inv -> {
+            freeDuringLocalInference[0] = permits.availablePermits();
+            return "local answer";
+        });
+
+        OpenAiService.Answer answer = service.ask("analyze this", null);
+
+        assertTrue(answer.text().contains("local answer"));
+        assertFalse(answer.fallback(), "an on-box model answer is a real analysis");
+        assertEquals(1, freeDuringLocalInference[0], "local inference held the only upstream permit");
+        assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    void cannedAnswerWhenNeitherModelIsAvailable() {
+        when(local.isAvailable()).thenReturn(false);
+
+        OpenAiService.Answer answer = service.ask("analyze this", null);
+        assertNotNull(answer.text());
+        assertTrue(answer.fallback());
+        verify(local, never()).complete(anyString());
+        assertEquals(1, ((Semaphore) ReflectionTestUtils.getField(service, "upstreamPermits")).availablePermits());
+    }
+}
@@ -0,0 +1,68 @@
+package com.aidebugger.service;
+
+import com.aidebugger.dto.DebugRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportRenderingTest {
+    // Spring Boot's ObjectMapper writes dates as ISO strings
+    private final ObjectMapper jackson = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static DebugService debugService() {
+        StaticAnalyzer analyzer = new StaticAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "cacheSize", 16);
+        ReflectionTestUtils.setField(analyzer, "ruleBudgetMs", 1000L);
+        ReflectionTestUtils.invokeMethod(analyzer, "init");
+        return new DebugService(null, null, analyzer, null);
+    }
+
+    @Test
+    void renderedBodyCarriesTheSameReportAsTheStringPath() throws Exception {
+        DebugService service = debugService();
+        String[][] cases = {
+                {"java", "public class A { int f(int a, int b) { return a / b; } }"},
+                {"Python", "def f(a, b):\n    return a / b  # \"quoted\"\t\u0001\n"},
+                {"ts", "async function f() { fetch('/x').then(r => r.json()); }"},
+                {"c", "int main() { int* p = new int[10]; return 0; }"},
+                {"rust", "fn main() { let s = \"😀 ünï\\\\\"; }"},
+        };
+        for (String[] c : cases) {
+            DebugRequest req = new DebugRequest();
+            req.setLanguage(c[0]);
+            req.setCodeSnippet(c[1]);
+
+            JsonNode body = jackson.readTree(service.renderMockResponse(req));
+            assertEquals("success", body.get("status").asText());
+            assertEquals(c[0], body.get("language").asText());
+            assertEquals(c[1].length(), body.get("charactersProcessed").asInt());
+            assertEquals(service.getEnhancedMockResponse(req), body.get("analysis").asText());
+        }
+    }
+
+    @Test
+    void escapesAndFormatsLikeJackson() throws Exception {
+        String nasty = "quote \" backslash \\ tab \t nl \n cr \r bell \u0007 nul \u0000 é ✅ 🧪 / end";
+        ReportBuffer out = ReportBuffer.acquire(true);
+        try {
+            out.bytes("\"".getBytes(StandardCharsets.US_ASCII)).append(nasty).bytes("\"".getBytes(StandardCharsets.US_ASCII));
+            assertEquals(jackson.writeValueAsString(nasty), out.toString());
+        } finally {
+            out.release();
+        }
+
+        for (long millis : new long[]{0, 1714557600007L, 1714557600999L, System.currentTimeMillis()}) {
+            ReportBuffer ts = new ReportBuffer(8);
+            ts.timestamp(millis);
+            assertEquals(jackson.writeValueAsString(new Date(millis)), "\"" + ts + "\"");
+        }
+        assertEquals("-42", new ReportBuffer(1).append(-42L).toString());
+    }
+}
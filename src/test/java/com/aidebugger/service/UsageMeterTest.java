@@ -0,0 +1,54 @@
+package com.aidebugger.service;
+
+import com.aidebugger.repository.TokenUsageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UsageMeterTest {
+
+    private final TokenUsageRepository repository = mock(TokenUsageRepository.class);
+    private final UsageMeter meter = new UsageMeter(repository, mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry());
+
+    @Test
+    void flushWritesAggregatedDeltasOnce() {
+        meter.record("alice", "gpt", 100, 20, 300);
+        meter.record("alice", "gpt", 50, 10, 100);
+        meter.record(null, "gpt", 5, 5, 10);
+
+        meter.flush();
+        verify(repository).addUsage("alice", "gpt", LocalDate.now(), 2, 150, 30, 400);
+        verify(repository).addUsage(UsageMeter.ANONYMOUS, "gpt", LocalDate.now(), 1, 5, 5, 10);
+
+        meter.flush();
+        verify(repository, times(2)).addUsage(anyString(), anyString(), any(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void budgetCountsPersistedAndPendingTokens() {
+        ReflectionTestUtils.setField(meter, "dailyTokenBudget", 1000L);
+        when(repository.totalTokensByUser(eq(LocalDate.now())))
+                .thenReturn(List.<Object[]>of(new Object[]{"alice", 900L}));
+
+        meter.flush();
+        assertEquals(900, meter.usedToday("alice"));
+        assertFalse(meter.isOverBudget("alice"));
+
+        meter.record("alice", "gpt", 80, 20, 50);
+        assertEquals(1000, meter.usedToday("alice"));
+        assertTrue(meter.isOverBudget("alice"));
+        assertFalse(meter.isOverBudget("bob"));
+    }
+}
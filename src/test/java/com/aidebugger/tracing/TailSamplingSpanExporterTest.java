@@ -0,0 +1,105 @@
+package com.aidebugger.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// InMemorySpanExporter stands in for the OTLP collector
+class TailSamplingSpanExporterTest {
+    private final InMemorySpanExporter collector = InMemorySpanExporter.create();
+    private final TailSamplingSpanExporter sampler = new TailSamplingSpanExporter(collector, 1000, 0.0, 100, 60_000);
+    private final SdkTracerProvider provider = SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(sampler))
+            .build();
+    private final Tracer tracer = provider.get("test");
+    private final long t0 = System.currentTimeMillis();
+
+    @AfterEach
+    void close() {
+        provider.close();
+    }
+
+    // root [t0, t0 + rootMs], child [t0, t0 + 10ms], both ended (child first, as in a real request)
+    private String trace(long rootMs, boolean childFails) {
+        Span root = tracer.spanBuilder("http post /api/debug/analyze").setStartTimestamp(t0, TimeUnit.MILLISECONDS)
+                .startSpan();
+        Span child = tracer.spanBuilder("cache.lookup").setParent(Context.current().with(root))
+                .setStartTimestamp(t0, TimeUnit.MILLISECONDS).startSpan();
+        if (childFails) child.setStatus(StatusCode.ERROR);
+        child.end(t0 + 10, TimeUnit.MILLISECONDS);
+        root.end(t0 + rootMs, TimeUnit.MILLISECONDS);
+        return root.getSpanContext().getTraceId();
+    }
+
+    private List<String> exportedTraces() {
+        return collector.getFinishedSpanItems().stream().map(SpanData::getTraceId).distinct().toList();
+    }
+
+    @Test
+    void keepsSlowTracesWithAllTheirSpans() {
+        String slow = trace(2500, false);
+        trace(50, false);
+
+        assertEquals(List.of(slow), exportedTraces());
+        assertEquals(2, collector.getFinishedSpanItems().size());
+        assertEquals(0, sampler.pendingTraces());
+    }
+
+    @Test
+    void keepsFastTracesThatFailed() {
+        String failed = trace(50, true);
+        assertEquals(List.of(failed), exportedTraces());
+    }
+
+    @Test
+    void holdsChildrenUntilRootEnds() {
+        Span root = tracer.spanBuilder("root").setStartTimestamp(t0, TimeUnit.MILLISECONDS).startSpan();
+        tracer.spanBuilder("analysis.task").setParent(Context.current().with(root))
+                .setStartTimestamp(t0, TimeUnit.MILLISECONDS).startSpan().end(t0 + 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(collector.getFinishedSpanItems().isEmpty());
+        assertEquals(1, sampler.pendingTraces());
+
+        root.end(t0 + 1500, TimeUnit.MILLISECONDS);
+        assertEquals(2, collector.getFinishedSpanItems().size());
+    }
+
+    @Test
+    void lateSpansFollowTheTraceDecision() {
+        Span root = tracer.spanBuilder("root").setStartTimestamp(t0, TimeUnit.MILLISECONDS).startSpan();
+        Span late = tracer.spanBuilder("llm.upstream").setParent(Context.current().with(root))
+                .setStartTimestamp(t0, TimeUnit.MILLISECONDS).startSpan();
+        root.end(t0 + 3000, TimeUnit.MILLISECONDS);
+        late.end(t0 + 4000, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, collector.getFinishedSpanItems().size());
+        assertEquals(0, sampler.pendingTraces());
+    }
+
+    @Test
+    void orphansAreDecidedAfterTimeout() {
+        TailSamplingSpanExporter noWait = new TailSamplingSpanExporter(collector, 1000, 0.0, 100, 0);
+        try (SdkTracerProvider p = SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(noWait)).build()) {
+            Tracer t = p.get("test");
+            Span root = t.spanBuilder("root").setStartTimestamp(t0, TimeUnit.MILLISECONDS).startSpan();
+            t.spanBuilder("slow child").setParent(Context.current().with(root))
+                    .setStartTimestamp(t0, TimeUnit.MILLISECONDS).startSpan().end(t0 + 5000, TimeUnit.MILLISECONDS);
+
+            noWait.flush();
+            assertEquals(1, exportedTraces().size());
+            assertEquals(0, noWait.pendingTraces());
+        }
+    }
+}
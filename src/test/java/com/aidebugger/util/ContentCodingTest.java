@@ -0,0 +1,40 @@
+package com.aidebugger.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentCodingTest {
+
+    @Test
+    void honoursQValuesInsteadOfSubstrings() {
+        assertEquals("gzip", ContentCoding.negotiate("gzip, deflate", "br", "gzip", ContentCoding.IDENTITY));
+        assertEquals("br", ContentCoding.negotiate("gzip, deflate, br", "br", "gzip", ContentCoding.IDENTITY));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("gzip;q=0", "gzip", ContentCoding.IDENTITY));
+        assertEquals("gzip", ContentCoding.negotiate("br;q=0, gzip;q=0.5", "br", "gzip", ContentCoding.IDENTITY));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("gzip;q=0.2, identity;q=0.8", "gzip", ContentCoding.IDENTITY));
+        // "brotli" is not "br", and "nogzip" is not "gzip"
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("brotli, nogzip", "br", "gzip", ContentCoding.IDENTITY));
+        assertEquals("gzip", ContentCoding.negotiate("X-GZIP", "gzip", ContentCoding.IDENTITY));
+    }
+
+    @Test
+    void wildcardAndMissingHeader() {
+        assertEquals("gzip", ContentCoding.negotiate("*", "gzip", ContentCoding.IDENTITY));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("*;q=0, identity", "gzip", ContentCoding.IDENTITY));
+        assertEquals(0, ContentCoding.quality("*;q=0", ContentCoding.IDENTITY));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate(null, "gzip", ContentCoding.IDENTITY));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("", "gzip", ContentCoding.IDENTITY));
+        // nothing acceptable: sent uncompressed anyway
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("identity;q=0", "gzip", ContentCoding.IDENTITY));
+    }
+
+    @Test
+    void eachCodingHasItsOwnEtag() {
+        assertEquals("\"abc\"", ContentCoding.etag("\"abc\"", ContentCoding.IDENTITY));
+        assertEquals("\"abc-gzip\"", ContentCoding.etag("\"abc\"", "gzip"));
+        assertTrue(ContentCoding.matches("W/\"abc-gzip\", \"other\"", "\"abc-gzip\""));
+        assertFalse(ContentCoding.matches("\"abc\"", "\"abc-gzip\""));
+        assertTrue(ContentCoding.matches("*", "\"abc-br\""));
+    }
+}